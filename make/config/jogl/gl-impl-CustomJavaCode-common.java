@@ -54,6 +54,11 @@
       return _context.isExtensionAvailable(glExtensionName);
     }
 
+    @Override
+    public final boolean isExtensionAvailable(int extensionID) {
+      return _context.isExtensionAvailable(extensionID);
+    }
+
     @Override
     public final Object getExtension(String extensionName) {
       // At this point we don't expose any extensions using this mechanism
@@ -130,6 +135,15 @@
 
     private final HashMap<MemoryObject, MemoryObject> arbMemCache = new HashMap<MemoryObject, MemoryObject>();
 
+    /**
+     * Returns the given address of the GL ProcAddressTable, or resolves it on demand if <code>0</code>,
+     * see {@link jogamp.opengl.GLContextImpl#resolveGLProcAddress(String)}.
+     * Shall be used by all custom code reading the table directly.
+     */
+    private final long getProcAddress(long glProcAddress, String funcName) {
+      return 0 != glProcAddress ? glProcAddress : _context.resolveGLProcAddress(funcName);
+    }
+
     /** Entry point to C language function: <code> void *  {@native glMapBuffer}(GLenum target, GLenum access); </code> <br>Part of <code>GL_VERSION_1_5</code>; <code>GL_OES_mapbuffer</code>   */
     private final java.nio.ByteBuffer glMapBufferImpl(int target, boolean useRange, long offset, long length, int access, long glProcAddress) {
       if (glProcAddress == 0) {
@@ -441,17 +441,17 @@ public final boolean glIsPBOUnpackBound() {
 
 /** Entry point to C language function: <code> void *  {@native glMapBuffer}(GLenum target, GLenum access); </code> <br>Part of <code>GL_VERSION_1_5</code>; <code>GL_OES_mapbuffer</code>   */
 public final java.nio.ByteBuffer glMapBuffer(int target, int access) {
-  return glMapBufferImpl(target, false, 0, 0, access, ((GL4bcProcAddressTable)_context.getGLProcAddressTable())._addressof_glMapBuffer);
+  return glMapBufferImpl(target, false, 0, 0, access, getProcAddress(((GL4bcProcAddressTable)_context.getGLProcAddressTable())._addressof_glMapBuffer, "glMapBuffer"));
 }
 
 /** Entry point to C language function: <code> void *  {@native glMapBufferRange}(GLenum target, GLintptr offset, GLsizeiptr length, GLbitfield access); </code> <br>Part of <code>GL_ES_VERSION_3_0</code>, <code>GL_VERSION_3_0</code>; <code>GL_EXT_map_buffer_range</code>   */
 public final ByteBuffer glMapBufferRange(int target, long offset, long length, int access)  {
-  return glMapBufferImpl(target, true, offset, length, access, ((GL4bcProcAddressTable)_context.getGLProcAddressTable())._addressof_glMapBufferRange);
+  return glMapBufferImpl(target, true, offset, length, access, getProcAddress(((GL4bcProcAddressTable)_context.getGLProcAddressTable())._addressof_glMapBufferRange, "glMapBufferRange"));
 }
 
 /** Entry point to C language function: <code> GLvoid *  {@native glMapNamedBufferEXT}(GLuint buffer, GLenum access); </code> <br>Part of <code>GL_EXT_direct_state_access</code>   */
 public final java.nio.ByteBuffer glMapNamedBufferEXT(int bufferName, int access)  {
-  return glMapNamedBufferImpl(bufferName, access, ((GL4bcProcAddressTable)_context.getGLProcAddressTable())._addressof_glMapNamedBufferEXT);
+  return glMapNamedBufferImpl(bufferName, access, getProcAddress(((GL4bcProcAddressTable)_context.getGLProcAddressTable())._addressof_glMapNamedBufferEXT, "glMapNamedBufferEXT"));
 }
 
     @Override
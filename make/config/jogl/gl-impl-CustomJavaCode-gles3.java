@@ -343,12 +343,12 @@ public final boolean glIsPBOUnpackBound() {
 
 /** Entry point to C language function: <code> void *  {@native glMapBuffer}(GLenum target, GLenum access); </code> <br>Part of <code>GL_VERSION_1_5</code>; <code>GL_OES_mapbuffer</code>   */
 public final java.nio.ByteBuffer glMapBuffer(int target, int access) {
-  return glMapBufferImpl(target, false, 0, 0, access, ((GLES3ProcAddressTable)_context.getGLProcAddressTable())._addressof_glMapBuffer);
+  return glMapBufferImpl(target, false, 0, 0, access, getProcAddress(((GLES3ProcAddressTable)_context.getGLProcAddressTable())._addressof_glMapBuffer, "glMapBuffer"));
 }
 
 /** Entry point to C language function: <code> void *  {@native glMapBufferRange}(GLenum target, GLintptr offset, GLsizeiptr length, GLbitfield access); </code> <br>Part of <code>GL_ES_VERSION_3_0</code>, <code>GL_VERSION_3_0</code>; <code>GL_EXT_map_buffer_range</code>   */
 public final ByteBuffer glMapBufferRange(int target, long offset, long length, int access)  {
-  return glMapBufferImpl(target, true, offset, length, access, ((GLES3ProcAddressTable)_context.getGLProcAddressTable())._addressof_glMapBufferRange);
+  return glMapBufferImpl(target, true, offset, length, access, getProcAddress(((GLES3ProcAddressTable)_context.getGLProcAddressTable())._addressof_glMapBufferRange, "glMapBufferRange"));
 }
 
 @Override
@@ -52,6 +52,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Set;
 
@@ -81,6 +82,32 @@ public class BuildComposablePipeline {
      * <p>Default: false</p>
      */
     public static final int GEN_GL_IDENTITY_BY_ASSIGNABLE_CLASS = 1 << 4;
+    /**
+     * By extra command-line argument: <code>profile</code>.
+     * <p>
+     * Generates the <code>Profile</code> pipeline counting calls, sampled time
+     * and uploaded bytes per entry point.
+     * </p>
+     * <p>Default: false</p>
+     */
+    public static final int GEN_PROFILE = 1 << 5;
+    /**
+     * By extra command-line argument: <code>capture</code>.
+     * <p>
+     * Generates the <code>Capture</code> pipeline serializing all calls w/ their arguments
+     * and client memory content, incl. it's replay dispatcher.
+     * </p>
+     * <p>Default: false</p>
+     */
+    public static final int GEN_CAPTURE = 1 << 6;
+    /**
+     * By extra command-line argument: <code>state_filter</code>.
+     * <p>
+     * Generates the <code>StateFilter</code> pipeline dropping redundant state changes.
+     * </p>
+     * <p>Default: false</p>
+     */
+    public static final int GEN_STATE_FILTER = 1 << 7;
 
     int mode;
     private final String outputDir;
@@ -123,7 +150,7 @@ public class BuildComposablePipeline {
         String outputPackage, outputName;
         int mode;
 
-        if (args.length > 2) {
+        if (args.length > 4) {
             String outputClazzName = args[2];
             outputPackage = getPackageName(outputClazzName);
             outputName = getBaseClassName(outputClazzName);
@@ -145,6 +172,15 @@ public class BuildComposablePipeline {
             classPrologOpt = null;
             classDownstream = classToComposeAround;
             mode = GEN_DEBUG | GEN_TRACE ;
+            for(int i=2; i<args.length; i++) {
+                if (args[i].equals("profile")) {
+                    mode |= GEN_PROFILE;
+                } else if (args[i].equals("capture")) {
+                    mode |= GEN_CAPTURE;
+                } else if (args[i].equals("state_filter")) {
+                    mode |= GEN_STATE_FILTER;
+                }
+            }
         }
 
         BuildComposablePipeline composer =
@@ -212,6 +248,15 @@ public class BuildComposablePipeline {
         if (0 != (mode & GEN_TRACE)) {
             (new TracePipeline(outputDir, outputPackage, classToComposeAround, classDownstream)).emit(publicMethodsPlain.iterator());
         }
+        if (0 != (mode & GEN_PROFILE)) {
+            (new ProfilePipeline(outputDir, outputPackage, classToComposeAround, classDownstream)).emit(publicMethodsPlain.iterator());
+        }
+        if (0 != (mode & GEN_CAPTURE)) {
+            (new CapturePipeline(outputDir, outputPackage, classToComposeAround, classDownstream)).emit(publicMethodsPlain.iterator());
+        }
+        if (0 != (mode & GEN_STATE_FILTER)) {
+            (new StateFilterPipeline(outputDir, outputPackage, classToComposeAround, classDownstream)).emit(publicMethodsPlain.iterator());
+        }
         if (0 != (mode & GEN_CUSTOM)) {
             (new CustomPipeline(mode, outputDir, outputPackage, outputName, classToComposeAround, classPrologOpt, classDownstream)).emit(publicMethodsPlain.iterator());
         }
@@ -1215,6 +1260,550 @@ public class BuildComposablePipeline {
         }
     } // end class TracePipeline
 
+    //-------------------------------------------------------
+    protected class ProfilePipeline extends PipelineEmitter {
+
+        String className;
+        /** Entry point name to it's index, overloaded methods share one entry point. */
+        final LinkedHashMap<String, Integer> entryPoints = new LinkedHashMap<String, Integer>();
+
+        ProfilePipeline(String outputDir, String outputPackage, Class<?> baseInterfaceClass, Class<?> downstreamClass) {
+            super(outputDir, outputPackage, baseInterfaceClass, null, downstreamClass);
+            className = "Profile" + getBaseInterfaceName();
+        }
+
+        @Override
+        protected String getOutputName() {
+            return className;
+        }
+
+        @Override
+        protected int getMode() {
+            return 0;
+        }
+
+        @Override
+        protected boolean emptyMethodAllowed() {
+            return false;
+        }
+
+        @Override
+        protected boolean emptyDownstreamAllowed() {
+            return false;
+        }
+
+        @Override
+        protected void constructorHook(PrintWriter output) {
+            output.print("  public " + getOutputName() + "(");
+            output.println(downstreamName + " " + getDownstreamObjectName() + ")");
+            output.println("  {");
+            output.println("    if (" + getDownstreamObjectName() + " == null) {");
+            output.println("      throw new IllegalArgumentException(\"null " + getDownstreamObjectName() + "\");");
+            output.println("    }");
+            output.print("    this." + getDownstreamObjectName());
+            output.println(" = " + getDownstreamObjectName() + ";");
+            output.println("    this.stats = new com.jogamp.opengl.util.GLCallStatistics(entryPointNames);");
+            output.println("  }");
+            output.println();
+        }
+
+        @Override
+        protected void postMethodEmissionHook(PrintWriter output) {
+            super.postMethodEmissionHook(output);
+            output.println("  /** Returns the call statistics of this pipeline. */");
+            output.println("  public final com.jogamp.opengl.util.GLCallStatistics getCallStatistics() {");
+            output.println("    return stats;");
+            output.println("  }");
+            output.println("  private final com.jogamp.opengl.util.GLCallStatistics stats;");
+            output.println("  private static final String[] entryPointNames = new String[] {");
+            for (Iterator<String> iter = entryPoints.keySet().iterator(); iter.hasNext(); ) {
+                output.print("    \"" + iter.next() + "\"");
+                output.println(iter.hasNext() ? "," : "");
+            }
+            output.println("  };");
+        }
+
+        @Override
+        protected void emitClassDocComment(PrintWriter output) {
+            output.println("/**");
+            output.println(" * <p>");
+            output.println(" * Composable pipeline which wraps an underlying {@link GL} implementation,");
+            output.println(" * counting calls, sampled execution time and uploaded bytes of each OpenGL entry point");
+            output.println(" * in it's {@link com.jogamp.opengl.util.GLCallStatistics}.");
+            output.println(" * </p>");
+            output.println(" * <p>");
+            output.println(" * Sample code which installs this pipeline:");
+            output.println(" * <pre>");
+            output.println(" *   gl = drawable.setGL(new ProfileGL(drawable.getGL()));");
+            output.println(" * </pre>");
+            output.println(" * For automatic instantiation see {@link GLPipelineFactory#create(String, Class, GL, Object[])}");
+            output.println(" * </p>");
+            output.println(" */");
+        }
+
+        private int getEntryPointIndex(Method m) {
+            Integer idx = entryPoints.get(m.getName());
+            if (null == idx) {
+                idx = Integer.valueOf(entryPoints.size());
+                entryPoints.put(m.getName(), idx);
+            }
+            return idx.intValue();
+        }
+
+        @Override
+        protected boolean hasPreDownstreamCallHook(Method m) {
+            return true;
+        }
+
+        @Override
+        protected void preDownstreamCallHook(PrintWriter output, Method m) {
+            output.println("    final long _t0 = stats.begin(" + getEntryPointIndex(m) + ");");
+        }
+
+        @Override
+        protected boolean hasPostDownstreamCallHook(Method m) {
+            return true;
+        }
+
+        @Override
+        protected void postDownstreamCallHook(PrintWriter output, Method m) {
+            final int idx = getEntryPointIndex(m);
+            output.println("    stats.end(" + idx + ", _t0);");
+            final String bytes = getUploadBytesExpression(m);
+            if (null != bytes) {
+                output.println("    stats.addBytes(" + idx + ", " + bytes + ");");
+            }
+        }
+
+        /**
+         * Returns the expression computing the uploaded bytes of buffer and texture data uploads
+         * from client memory, or null if not an upload.
+         */
+        private String getUploadBytesExpression(Method m) {
+            final String name = m.getName();
+            final Class<?>[] params = m.getParameterTypes();
+            if (name.matches("gl(Named)?Buffer(Sub)?Data.*")) {
+                // size is the last long argument, a null buffer only allocates storage
+                int sizeIdx = -1, bufferIdx = -1;
+                for (int i = 0; i < params.length; i++) {
+                    if (params[i].equals(long.class)) {
+                        sizeIdx = i;
+                    } else if (Buffer.class.isAssignableFrom(params[i])) {
+                        bufferIdx = i;
+                    }
+                }
+                if (0 <= sizeIdx && 0 <= bufferIdx) {
+                    return "( null != arg" + bufferIdx + " ? arg" + sizeIdx + " : 0 )";
+                }
+            } else if (name.matches("gl(Compressed)?Tex(ture)?(Sub)?Image[123]D.*")) {
+                // client memory variant only, the PBO variant passes a long offset
+                for (int i = 0; i < params.length; i++) {
+                    if (Buffer.class.isAssignableFrom(params[i])) {
+                        return "( null != arg" + i + " ? (long)arg" + i + ".remaining() * com.jogamp.common.nio.Buffers.sizeOfBufferElem(arg" + i + ") : 0 )";
+                    }
+                }
+            }
+            return null;
+        }
+    } // end class ProfilePipeline
+
+    protected class CapturePipeline extends PipelineEmitter {
+
+        /** Number of entry points per generated replay method, keeping the latter below the method size limit. */
+        static final int REPLAY_CHUNK = 128;
+
+        String className;
+        /** Captured methods, their index is their entry point index. */
+        final List<Method> entryPoints = new ArrayList<Method>();
+
+        CapturePipeline(String outputDir, String outputPackage, Class<?> baseInterfaceClass, Class<?> downstreamClass) {
+            super(outputDir, outputPackage, baseInterfaceClass, null, downstreamClass);
+            className = "Capture" + getBaseInterfaceName();
+        }
+
+        @Override
+        protected String getOutputName() {
+            return className;
+        }
+
+        @Override
+        protected int getMode() {
+            return 0;
+        }
+
+        @Override
+        protected boolean emptyMethodAllowed() {
+            return false;
+        }
+
+        @Override
+        protected boolean emptyDownstreamAllowed() {
+            return false;
+        }
+
+        @Override
+        protected void constructorHook(PrintWriter output) {
+            output.print("  public " + getOutputName() + "(");
+            output.println(downstreamName + " " + getDownstreamObjectName() + ", com.jogamp.opengl.util.GLCallCaptureWriter capture)");
+            output.println("  {");
+            output.println("    if (" + getDownstreamObjectName() + " == null) {");
+            output.println("      throw new IllegalArgumentException(\"null " + getDownstreamObjectName() + "\");");
+            output.println("    }");
+            output.println("    if (capture == null) {");
+            output.println("      throw new IllegalArgumentException(\"null capture\");");
+            output.println("    }");
+            output.print("    this." + getDownstreamObjectName());
+            output.println(" = " + getDownstreamObjectName() + ";");
+            output.println("    this.capture = capture;");
+            output.println("    try {");
+            output.println("      capture.setSignatures(signatures);");
+            output.println("    } catch (IOException ioe) {");
+            output.println("      throw new GLException(\"Could not create capture file\", ioe);");
+            output.println("    }");
+            output.println("  }");
+            output.println();
+        }
+
+        @Override
+        protected void postMethodEmissionHook(PrintWriter output) {
+            super.postMethodEmissionHook(output);
+            output.println("  /** Returns the capture writer of this pipeline. */");
+            output.println("  public final com.jogamp.opengl.util.GLCallCaptureWriter getCallCapture() {");
+            output.println("    return capture;");
+            output.println("  }");
+            output.println("  private final com.jogamp.opengl.util.GLCallCaptureWriter capture;");
+            output.println("  private static final String[] signatures = new String[] {");
+            for (Iterator<Method> iter = entryPoints.iterator(); iter.hasNext(); ) {
+                output.print("    \"" + getSignature(iter.next()) + "\"");
+                output.println(iter.hasNext() ? "," : "");
+            }
+            output.println("  };");
+            output.println();
+            output.println("  /** Replays a capture of this pipeline, see {@link com.jogamp.opengl.util.GLCallCaptureReader#replay(com.jogamp.opengl.util.GLCallCaptureReader.Dispatcher, GL)}. */");
+            output.println("  public static final com.jogamp.opengl.util.GLCallCaptureReader.Dispatcher replayDispatcher =");
+            output.println("    new com.jogamp.opengl.util.GLCallCaptureReader.Dispatcher() {");
+            output.println("      @Override");
+            output.println("      public final String[] getSignatures() {");
+            output.println("        return signatures;");
+            output.println("      }");
+            output.println("      @Override");
+            output.println("      public final boolean dispatch(GL gl, int idx, com.jogamp.opengl.util.GLCallCaptureReader in) {");
+            output.println("        final " + downstreamName + " _gl = (" + downstreamName + ") gl;");
+            output.println("        switch (idx / " + REPLAY_CHUNK + ") {");
+            final int chunks = (entryPoints.size() + REPLAY_CHUNK - 1) / REPLAY_CHUNK;
+            for (int c = 0; c < chunks; c++) {
+                output.println("          case " + c + ": return replay" + c + "(_gl, idx, in);");
+            }
+            output.println("          default: return false;");
+            output.println("        }");
+            output.println("      }");
+            output.println("    };");
+            for (int c = 0; c < chunks; c++) {
+                output.println();
+                output.println("  private static boolean replay" + c + "(" + downstreamName + " gl, int idx, com.jogamp.opengl.util.GLCallCaptureReader in) {");
+                output.println("    switch (idx) {");
+                final int end = Math.min(entryPoints.size(), (c + 1) * REPLAY_CHUNK);
+                for (int idx = c * REPLAY_CHUNK; idx < end; idx++) {
+                    final Method m = entryPoints.get(idx);
+                    if (!isCaptured(m)) {
+                        continue;
+                    }
+                    final Class<?>[] params = m.getParameterTypes();
+                    output.println("      case " + idx + ": {");
+                    final StringBuilder args = new StringBuilder();
+                    for (int i = 0; i < params.length; i++) {
+                        final String typeName = JavaType.createForClass(params[i]).getName();
+                        output.println("        final " + typeName + " a" + i + " = " + getReadExpression(params[i], typeName) + ";");
+                        if (0 < i) {
+                            args.append(", ");
+                        }
+                        args.append("a").append(i);
+                    }
+                    output.println("        if (null != gl) {");
+                    output.println("          gl." + m.getName() + "(" + args + ");");
+                    output.println("        }");
+                    output.println("        return true;");
+                    output.println("      }");
+                }
+                output.println("      default: return false;");
+                output.println("    }");
+                output.println("  }");
+            }
+        }
+
+        @Override
+        protected void emitClassDocComment(PrintWriter output) {
+            output.println("/**");
+            output.println(" * <p>");
+            output.println(" * Composable pipeline which wraps an underlying {@link GL} implementation,");
+            output.println(" * capturing each OpenGL call w/ it's arguments and client memory content");
+            output.println(" * via a {@link com.jogamp.opengl.util.GLCallCaptureWriter}.");
+            output.println(" * </p>");
+            output.println(" * <p>");
+            output.println(" * Sample code which installs this pipeline:");
+            output.println(" * <pre>");
+            output.println(" *   gl = drawable.setGL(new CaptureGL(drawable.getGL(), capture));");
+            output.println(" * </pre>");
+            output.println(" * For automatic instantiation see {@link GLPipelineFactory#create(String, Class, GL, Object[])}");
+            output.println(" * </p>");
+            output.println(" * <p>");
+            output.println(" * The capture is replayed via {@link com.jogamp.opengl.util.GLCallCaptureReader} and {@link #replayDispatcher}.");
+            output.println(" * </p>");
+            output.println(" */");
+        }
+
+        /** Returns the entry point signature, using the argument type names expected by the GLCallCaptureReader. */
+        private String getSignature(Method m) {
+            final StringBuilder sb = new StringBuilder();
+            sb.append(m.getName()).append('(');
+            final Class<?>[] params = m.getParameterTypes();
+            for (int i = 0; i < params.length; i++) {
+                if (0 < i) {
+                    sb.append(',');
+                }
+                if (params[i].isArray()) {
+                    sb.append(params[i].getComponentType().getName()).append("[]");
+                } else {
+                    sb.append(params[i].getName());
+                }
+            }
+            return sb.append(')').toString();
+        }
+
+        private boolean isPrimitiveArray(Class<?> c) {
+            return c.isArray() && c.getComponentType().isPrimitive() && !c.getComponentType().equals(boolean.class);
+        }
+
+        /** Returns true if all arguments of the given method can be captured. */
+        private boolean isCaptured(Method m) {
+            final Class<?>[] params = m.getParameterTypes();
+            for (int i = 0; i < params.length; i++) {
+                final Class<?> c = params[i];
+                if (!( c.isPrimitive() || c.equals(String.class) || c.equals(String[].class) ||
+                       isPrimitiveArray(c) || Buffer.class.isAssignableFrom(c) )) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private String getWriteMethod(Class<?> c) {
+            if (c.isPrimitive()) {
+                final String n = c.getName();
+                return "put" + Character.toUpperCase(n.charAt(0)) + n.substring(1);
+            } else if (c.equals(String.class)) {
+                return "putString";
+            } else if (c.equals(String[].class)) {
+                return "putStringArray";
+            } else if (c.isArray()) {
+                return "putArray";
+            }
+            return "putBuffer";
+        }
+
+        private String getReadExpression(Class<?> c, String typeName) {
+            if (c.isPrimitive()) {
+                final String n = c.getName();
+                return "in.get" + Character.toUpperCase(n.charAt(0)) + n.substring(1) + "()";
+            } else if (c.equals(String.class)) {
+                return "in.getString()";
+            } else if (c.equals(String[].class)) {
+                return "in.getStringArray()";
+            } else if (c.isArray()) {
+                final String n = c.getComponentType().getName();
+                return "in.get" + Character.toUpperCase(n.charAt(0)) + n.substring(1) + "Array()";
+            } else if (c.equals(Buffer.class)) {
+                return "in.getBuffer()";
+            }
+            return "(" + typeName + ") in.getBuffer()";
+        }
+
+        @Override
+        protected boolean hasPreDownstreamCallHook(Method m) {
+            return true;
+        }
+
+        @Override
+        protected void preDownstreamCallHook(PrintWriter output, Method m) {
+            final int idx = entryPoints.size();
+            entryPoints.add(m);
+            output.println("    capture.begin(" + idx + ");");
+            if (isCaptured(m)) {
+                final Class<?>[] params = m.getParameterTypes();
+                for (int i = 0; i < params.length; i++) {
+                    output.println("    capture." + getWriteMethod(params[i]) + "(arg" + i + ");");
+                }
+            }
+            output.println("    capture.end();");
+        }
+
+        @Override
+        protected boolean hasPostDownstreamCallHook(Method m) {
+            return false;
+        }
+
+        @Override
+        protected void postDownstreamCallHook(PrintWriter output, Method m) {
+        }
+    } // end class CapturePipeline
+
+    protected class StateFilterPipeline extends PipelineEmitter {
+
+        String className;
+
+        StateFilterPipeline(String outputDir, String outputPackage, Class<?> baseInterfaceClass, Class<?> downstreamClass) {
+            super(outputDir, outputPackage, baseInterfaceClass, null, downstreamClass);
+            className = "StateFilter" + getBaseInterfaceName();
+        }
+
+        @Override
+        protected String getOutputName() {
+            return className;
+        }
+
+        @Override
+        protected int getMode() {
+            return 0;
+        }
+
+        @Override
+        protected boolean emptyMethodAllowed() {
+            return false;
+        }
+
+        @Override
+        protected boolean emptyDownstreamAllowed() {
+            return false;
+        }
+
+        @Override
+        protected void constructorHook(PrintWriter output) {
+            output.print("  public " + getOutputName() + "(");
+            output.println(downstreamName + " " + getDownstreamObjectName() + ")");
+            output.println("  {");
+            output.println("    if (" + getDownstreamObjectName() + " == null) {");
+            output.println("      throw new IllegalArgumentException(\"null " + getDownstreamObjectName() + "\");");
+            output.println("    }");
+            output.print("    this." + getDownstreamObjectName());
+            output.println(" = " + getDownstreamObjectName() + ";");
+            output.println("    this.filter = new com.jogamp.opengl.util.GLStateFilter();");
+            output.println("  }");
+            output.println();
+        }
+
+        @Override
+        protected void postMethodEmissionHook(PrintWriter output) {
+            super.postMethodEmissionHook(output);
+            output.println("  /** Returns the shadow state and counter of this pipeline. */");
+            output.println("  public final com.jogamp.opengl.util.GLStateFilter getStateFilter() {");
+            output.println("    return filter;");
+            output.println("  }");
+            output.println("  private final com.jogamp.opengl.util.GLStateFilter filter;");
+        }
+
+        @Override
+        protected void emitClassDocComment(PrintWriter output) {
+            output.println("/**");
+            output.println(" * <p>");
+            output.println(" * Composable pipeline which wraps an underlying {@link GL} implementation,");
+            output.println(" * dropping redundant texture, program, buffer and vertex array bindings as well as redundant");
+            output.println(" * capability changes, see {@link com.jogamp.opengl.util.GLStateFilter}.");
+            output.println(" * </p>");
+            output.println(" * <p>");
+            output.println(" * Sample code which installs this pipeline:");
+            output.println(" * <pre>");
+            output.println(" *   gl = drawable.setGL(new StateFilterGL(drawable.getGL()));");
+            output.println(" * </pre>");
+            output.println(" * For automatic instantiation see {@link GLPipelineFactory#create(String, Class, GL, Object[])}");
+            output.println(" * </p>");
+            output.println(" */");
+        }
+
+        /** Returns true if the given method has the given name and <code>argCount</code> int arguments. */
+        private boolean isIntMethod(Method m, String name, int argCount) {
+            if (!m.getName().equals(name) || m.getReturnType() != Void.TYPE) {
+                return false;
+            }
+            final Class<?>[] params = m.getParameterTypes();
+            if (params.length != argCount) {
+                return false;
+            }
+            for (int i = 0; i < params.length; i++) {
+                if (params[i] != int.class) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /** Returns the filter invocation for the given method, or null if not filtered. */
+        private String getFilterExpression(Method m) {
+            if (isIntMethod(m, "glActiveTexture", 1)) {
+                return "filter.filterActiveTexture(arg0)";
+            } else if (isIntMethod(m, "glBindTexture", 2)) {
+                return "filter.filterBindTexture(arg0, arg1)";
+            } else if (isIntMethod(m, "glUseProgram", 1)) {
+                return "filter.filterUseProgram(arg0)";
+            } else if (isIntMethod(m, "glBindBuffer", 2)) {
+                return "filter.filterBindBuffer(arg0, arg1)";
+            } else if (isIntMethod(m, "glBindVertexArray", 1)) {
+                return "filter.filterBindVertexArray(arg0)";
+            } else if (isIntMethod(m, "glEnable", 1)) {
+                return "filter.filterEnable(arg0)";
+            } else if (isIntMethod(m, "glDisable", 1)) {
+                return "filter.filterDisable(arg0)";
+            }
+            return null;
+        }
+
+        /** Returns the invalidation of shadowed state implicitly modified by the given method, or null. */
+        private String getInvalidateStatement(Method m) {
+            final String name = m.getName();
+            if (name.equals("glDeleteTextures") || name.equals("glBindTextures") || name.equals("glBindMultiTextureEXT")) {
+                return "filter.invalidateTextures();";
+            } else if (name.equals("glDeleteProgram") || name.equals("glUseProgramObjectARB")) {
+                return "filter.invalidateProgram();";
+            } else if (name.equals("glDeleteBuffers") || name.equals("glBindBuffersBase") || name.equals("glBindBuffersRange")) {
+                return "filter.invalidateBuffers();";
+            } else if (name.equals("glBindBufferBase") || name.equals("glBindBufferRange")) {
+                return "filter.invalidateBuffer(arg0);";
+            } else if (name.equals("glDeleteVertexArrays")) {
+                return "filter.invalidateVertexArray();";
+            } else if (isIntMethod(m, "glEnablei", 2) || isIntMethod(m, "glDisablei", 2)) {
+                return "filter.invalidateCap(arg0);";
+            } else if (name.equals("glPopAttrib") || name.equals("glPopClientAttrib")) {
+                return "filter.invalidate();";
+            }
+            return null;
+        }
+
+        @Override
+        protected boolean hasPreDownstreamCallHook(Method m) {
+            return null != getFilterExpression(m) || null != getInvalidateStatement(m);
+        }
+
+        @Override
+        protected void preDownstreamCallHook(PrintWriter output, Method m) {
+            final String filter = getFilterExpression(m);
+            if (null != filter) {
+                output.println("    if (" + filter + ") {");
+                output.println("      return;");
+                output.println("    }");
+            } else {
+                output.println("    " + getInvalidateStatement(m));
+            }
+        }
+
+        @Override
+        protected boolean hasPostDownstreamCallHook(Method m) {
+            return false;
+        }
+
+        @Override
+        protected void postDownstreamCallHook(PrintWriter output, Method m) {
+        }
+    } // end class StateFilterPipeline
+
     public static final void printFunctionCallString(PrintWriter output, Method m) {
         Class<?>[] params = m.getParameterTypes();
         output.print("    \"" + m.getName() + "(\"");
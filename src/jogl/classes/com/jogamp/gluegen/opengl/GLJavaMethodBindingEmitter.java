@@ -78,6 +78,38 @@ public class GLJavaMethodBindingEmitter extends ProcAddressJavaMethodBindingEmit
         this(methodToWrap, methodToWrap.glEmitter, methodToWrap.bufferObjectVariant);
     }
 
+    /**
+     * Returns true if the function address shall be resolved on demand if not yet available,
+     * i.e. for the GL implementation using the context's GL ProcAddressTable.
+     */
+    protected boolean isLazyProcAddressResolution() {
+        return callThroughProcAddress && null != getProcAddressTableExpr &&
+               getProcAddressTableExpr.contains("_context.getGLProcAddressTable()");
+    }
+
+    @Override
+    protected void emitPreCallSetup(MethodBinding binding, PrintWriter writer) {
+        if( !isLazyProcAddressResolution() ) {
+            super.emitPreCallSetup(binding, writer);
+            return;
+        }
+        // Emit the common setup w/o the address query, which is replaced w/ the one below
+        callThroughProcAddress = false;
+        try {
+            super.emitPreCallSetup(binding, writer);
+        } finally {
+            callThroughProcAddress = true;
+        }
+        final String funcName = binding.getName();
+        writer.println("    long __addr_ = " + getProcAddressTableExpr + "." + GLEmitter.PROCADDRESS_VAR_PREFIX + funcName + ";");
+        writer.println("    if (__addr_ == 0) {");
+        writer.println("      __addr_ = _context.resolveGLProcAddress(\"" + funcName + "\");");
+        writer.println("      if (__addr_ == 0) {");
+        writer.println("        throw new GLException(String.format(\"Method \\\"%s\\\" not available\", \"" + funcName + "\"));");
+        writer.println("      }");
+        writer.println("    }");
+    }
+
     @Override
     protected String getArgumentName(int i) {
         String name = super.getArgumentName(i);
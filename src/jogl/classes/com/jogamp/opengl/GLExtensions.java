@@ -27,10 +27,28 @@
  */
 package com.jogamp.opengl;
 
+import jogamp.opengl.GLExtensionRegistry;
+
 /**
  * Class holding OpenGL extension strings, commonly used by JOGL's implementation.
+ * <p>
+ * The {@link #getID(String) ID} of an extension name may be used for fast queries
+ * via {@link javax.media.opengl.GLBase#isExtensionAvailable(int)}.
+ * </p>
  */
 public class GLExtensions {
+  /**
+   * Returns the process wide unique ID of the given OpenGL or platform extension name,
+   * to be used w/ {@link javax.media.opengl.GLBase#isExtensionAvailable(int)}.
+   * <p>
+   * IDs are stable for the lifetime of the process, hence may be stored.
+   * </p>
+   * @throws IllegalArgumentException if <code>extensionName</code> is <code>null</code>
+   */
+  public static final int getID(String extensionName) {
+      return GLExtensionRegistry.intern(extensionName);
+  }
+
   public static final String VERSION_1_2                     = "GL_VERSION_1_2";
   public static final String VERSION_1_4                     = "GL_VERSION_1_4";
   public static final String VERSION_1_5                     = "GL_VERSION_1_5";
@@ -0,0 +1,58 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ *
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+
+package com.jogamp.opengl;
+
+import javax.media.opengl.GLAutoDrawable;
+import javax.media.opengl.GLRunnable;
+
+/**
+ * {@link GLRunnable} w/ an execution priority.
+ * <p>
+ * Queued {@link GLRunnable}s, see {@link GLAutoDrawable#invoke(boolean, GLRunnable)},
+ * are executed in priority order, FIFO within the same priority.
+ * A plain {@link GLRunnable} is treated as {@link #PRIORITY_NORMAL}.
+ * </p>
+ * <p>
+ * If a {@link GLAutoDrawable#setGLRunnableTimeBudget(long) time budget} is set,
+ * lower priority tasks are the first to be deferred to the next frame.
+ * </p>
+ */
+public interface PrioritizedGLRunnable extends GLRunnable {
+    /** Highest priority, e.g. for tasks required to render the current frame. */
+    public static final int PRIORITY_HIGH = 0;
+    /** Default priority. */
+    public static final int PRIORITY_NORMAL = 1;
+    /** Lowest priority, e.g. for background resource uploads. */
+    public static final int PRIORITY_LOW = 2;
+    /** Number of priorities. */
+    public static final int PRIORITY_COUNT = 3;
+
+    /** Returns the priority, one of {@link #PRIORITY_HIGH}, {@link #PRIORITY_NORMAL} or {@link #PRIORITY_LOW}. */
+    int getPriority();
+}
@@ -79,6 +79,7 @@ import com.jogamp.common.util.locks.RecursiveLock;
 import com.jogamp.nativewindow.swt.SWTAccessor;
 import com.jogamp.nativewindow.x11.X11GraphicsDevice;
 import com.jogamp.opengl.JoglVersion;
+import com.jogamp.opengl.util.FrameTimeRecorder;
 
 /**
  * Native SWT Canvas implementing GLAutoDrawable
@@ -779,6 +780,26 @@ public class GLCanvas extends Canvas implements GLAutoDrawable, GLSharedContextS
       return helper.getAutoSwapBufferMode();
    }
 
+   @Override
+   public FrameTimeRecorder setFrameTimeRecorder(final FrameTimeRecorder recorder) {
+      return helper.setFrameTimeRecorder(recorder);
+   }
+
+   @Override
+   public FrameTimeRecorder getFrameTimeRecorder() {
+      return helper.getFrameTimeRecorder();
+   }
+
+   @Override
+   public void setGLRunnableTimeBudget(final long nanos) {
+      helper.setGLRunnableTimeBudget(nanos);
+   }
+
+   @Override
+   public long getGLRunnableTimeBudget() {
+      return helper.getGLRunnableTimeBudget();
+   }
+
    @Override
    public final GLDrawable getDelegatedDrawable() {
       return drawable;
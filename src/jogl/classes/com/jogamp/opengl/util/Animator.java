@@ -214,6 +214,7 @@ public class Animator extends AnimatorBase {
                     setDrawablesExclCtxState(false);
                     display(); // propagate exclusive change!
                 }
+                stopImpl();
                 synchronized (Animator.this) {
                     if(DEBUG) {
                         System.err.println("Animator stop on " + animThread.getName() + ": " + toString());
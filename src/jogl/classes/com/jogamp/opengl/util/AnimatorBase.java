@@ -69,6 +69,26 @@ public abstract class AnimatorBase implements GLAnimatorControl {
      */
     public static final int MODE_EXPECT_AWT_RENDERING_THREAD = 1 << 0;
 
+    /**
+     * If present in <code>modeBits</code> field,
+     * each {@link GLAutoDrawable} or group of {@link GLAutoDrawable}s sharing a {@link javax.media.opengl.GLContext}
+     * is rendered on its own display worker thread.
+     * <p>
+     * The animator thread triggers all workers each frame and waits for their completion.
+     * All workers meet at a frame barrier before swapping their drawables' buffers,
+     * hence the frame time approaches the one of the slowest drawable instead of the sum of all.
+     * </p>
+     * <p>
+     * If the {@link #setExclusiveContext(boolean) exclusive context} is enabled,
+     * each drawable's context is dedicated to its display worker thread.
+     * </p>
+     * <p>
+     * This mode takes precedence over {@link #MODE_EXPECT_AWT_RENDERING_THREAD}.
+     * </p>
+     * @see #setModeBits(boolean, int)
+     */
+    public static final int MODE_PARALLEL_DISPLAY = 1 << 1;
+
     public interface AnimatorImpl {
         void display(ArrayList<GLAutoDrawable> drawables, boolean ignoreExceptions, boolean printExceptions);
         boolean blockUntilDone(Thread thread);
@@ -119,6 +139,10 @@ public abstract class AnimatorBase implements GLAnimatorControl {
         return 0 != ( MODE_EXPECT_AWT_RENDERING_THREAD & modeBits ) && null != awtAnimatorImplClazz;
     }
 
+    private static final boolean useParallelAnimatorImpl(int modeBits) {
+        return 0 != ( MODE_PARALLEL_DISPLAY & modeBits );
+    }
+
     /**
      * Initializes implementation details post setup,
      * invoked at {@link #add(GLAutoDrawable)}, {@link #start()}, ..
@@ -131,7 +155,11 @@ public abstract class AnimatorBase implements GLAnimatorControl {
      */
     protected synchronized void initImpl(boolean force) {
         if( force || null == impl ) {
-            if( useAWTAnimatorImpl( modeBits ) ) {
+            impl = null;
+            if( useParallelAnimatorImpl( modeBits ) ) {
+                impl = new ParallelAnimatorImpl();
+                baseName = getBaseName("Parallel");
+            } else if( useAWTAnimatorImpl( modeBits ) ) {
                 try {
                     impl = (AnimatorImpl) awtAnimatorImplClazz.newInstance();
                     baseName = getBaseName("AWT");
@@ -154,8 +182,10 @@ public abstract class AnimatorBase implements GLAnimatorControl {
      * @param enable
      * @param bitValues
      *
-     * @throws GLException if Animator is {@link #isStarted()} and {@link #MODE_EXPECT_AWT_RENDERING_THREAD} about to change
+     * @throws GLException if Animator is {@link #isStarted()} and {@link #MODE_EXPECT_AWT_RENDERING_THREAD}
+     *                     or {@link #MODE_PARALLEL_DISPLAY} about to change
      * @see AnimatorBase#MODE_EXPECT_AWT_RENDERING_THREAD
+     * @see AnimatorBase#MODE_PARALLEL_DISPLAY
      */
     public synchronized void setModeBits(boolean enable, int bitValues) throws GLException {
         final int _oldModeBits = modeBits;
@@ -164,7 +194,8 @@ public abstract class AnimatorBase implements GLAnimatorControl {
         } else {
             modeBits &= ~bitValues;
         }
-        if( useAWTAnimatorImpl( _oldModeBits ) != useAWTAnimatorImpl( modeBits ) ) {
+        if( useAWTAnimatorImpl( _oldModeBits ) != useAWTAnimatorImpl( modeBits ) ||
+            useParallelAnimatorImpl( _oldModeBits ) != useParallelAnimatorImpl( modeBits ) ) {
             if( isStarted() ) {
                 throw new GLException("Animator already started");
             }
@@ -184,11 +215,12 @@ public abstract class AnimatorBase implements GLAnimatorControl {
         }
         initImpl(false);
         pause();
-        if( isStarted() ) {
-            drawable.setExclusiveContextThread( exclusiveContext ? getExclusiveContextThread() : null ); // if already running ..
-        }
         drawables.add(drawable);
         drawablesEmpty = drawables.size() == 0;
+        if( isStarted() ) {
+            // if already running, w/ drawable already added to resolve it's display worker thread in MODE_PARALLEL_DISPLAY
+            drawable.setExclusiveContextThread( exclusiveContext ? getDrawableExclCtxThread(drawable, getExclusiveContextThread()) : null );
+        }
         drawable.setAnimator(this);
         if( isPaused() ) { // either paused by pause() above, or if previously drawablesEmpty==true
             resume();
@@ -408,8 +440,9 @@ public abstract class AnimatorBase implements GLAnimatorControl {
         }
         final Thread ect = getExclusiveContextThread();
         for (int i=0; i<drawables.size(); i++) {
+            final GLAutoDrawable drawable = drawables.get(i);
             try {
-                drawables.get(i).setExclusiveContextThread( enable ? ect : null );
+                drawable.setExclusiveContextThread( enable ? getDrawableExclCtxThread(drawable, ect) : null );
             } catch (RuntimeException e) {
                 e.printStackTrace();
             }
@@ -417,12 +450,43 @@ public abstract class AnimatorBase implements GLAnimatorControl {
     }
     protected final boolean validateDrawablesExclCtxState(Thread expected) {
         for (int i=0; i<drawables.size(); i++) {
-            if( expected != drawables.get(i).getExclusiveContextThread() ) {
+            final GLAutoDrawable drawable = drawables.get(i);
+            final Thread _expected = null != expected ? getDrawableExclCtxThread(drawable, expected) : null;
+            if( _expected != drawable.getExclusiveContextThread() ) {
                 return false;
             }
         }
         return true;
     }
+    /**
+     * Returns the exclusive context thread for the given drawable,
+     * i.e. it's display worker thread in {@link #MODE_PARALLEL_DISPLAY}
+     * unless a {@link #setExclusiveContext(Thread) user thread} is given,
+     * otherwise <code>ect</code>.
+     */
+    private final Thread getDrawableExclCtxThread(GLAutoDrawable drawable, Thread ect) {
+        if( impl instanceof ParallelAnimatorImpl && null == userExclusiveContextThread ) {
+            final Thread t = ((ParallelAnimatorImpl)impl).getDisplayThread(drawable, drawables);
+            if( null != t ) {
+                return t;
+            }
+        }
+        return ect;
+    }
+
+    /**
+     * Releases resources of the {@link AnimatorImpl}, e.g. the display worker threads
+     * of {@link #MODE_PARALLEL_DISPLAY}.
+     * <p>
+     * Shall be called from within the animator thread at {@link #stop()}
+     * after the last {@link #display()} call.
+     * </p>
+     */
+    protected final void stopImpl() {
+        if( impl instanceof ParallelAnimatorImpl ) {
+            ((ParallelAnimatorImpl)impl).stop();
+        }
+    }
 
     @Override
     public final Thread getThread() {
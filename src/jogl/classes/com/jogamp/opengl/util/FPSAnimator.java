@@ -178,6 +178,7 @@ public class FPSAnimator extends AnimatorBase {
                         setDrawablesExclCtxState(false);
                         display(); // propagate exclusive change!
                     }
+                    stopImpl();
                     synchronized (FPSAnimator.this) {
                         if(DEBUG) {
                             System.err.println("FPSAnimator stop " + Thread.currentThread() + ": " + toString());
@@ -0,0 +1,218 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ *
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+
+package com.jogamp.opengl.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free log-linear histogram of durations in nanoseconds,
+ * similar to a <i>HDR histogram</i>.
+ * <p>
+ * Each power of two range is split into {@link #SUB_BUCKET_COUNT} linear sub-buckets,
+ * hence the relative error of a recorded value is below <code>1/{@link #SUB_BUCKET_COUNT}</code>
+ * for all values up to {@link #MAX_VALUE}. Larger values are clamped into the highest bucket.
+ * </p>
+ * <p>
+ * {@link #record(long)} is wait-free w/o allocation and may be called concurrently
+ * with all query methods. Queries performed while recording are not an atomic snapshot,
+ * which is acceptable for statistical purposes.
+ * </p>
+ */
+public class FrameTimeHistogram {
+    /** Number of sub-bucket bits, i.e. <code>{@value}</code>. */
+    public static final int SUB_BUCKET_BITS = 6;
+    /** Number of linear sub-buckets per power of two range. */
+    public static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int SUB_BUCKET_MASK = SUB_BUCKET_COUNT - 1;
+    /** Highest power of two exponent w/ full precision, 2^40 ns ~ 18 minutes. */
+    private static final int MAX_EXPONENT = 40;
+    /** Maximum value w/o clamping in nanoseconds. */
+    public static final long MAX_VALUE = ( 1L << ( MAX_EXPONENT + 1 ) ) - 1;
+    /** Number of buckets. */
+    public static final int BUCKET_COUNT = ( MAX_EXPONENT - SUB_BUCKET_BITS + 2 ) * SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong totalCount = new AtomicLong();
+    private final AtomicLong totalSum = new AtomicLong();
+    private final AtomicLong minValue = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong maxValue = new AtomicLong(0);
+
+    /** Creates an empty histogram. */
+    public FrameTimeHistogram() {
+    }
+
+    /**
+     * Returns the bucket index of the given value in nanoseconds.
+     * Negative values are treated as zero, values above {@link #MAX_VALUE} are clamped.
+     */
+    public static int getBucketIndex(long value) {
+        if( value < SUB_BUCKET_COUNT ) {
+            return value < 0 ? 0 : (int) value;
+        }
+        if( value > MAX_VALUE ) {
+            return BUCKET_COUNT - 1;
+        }
+        final int exponent = 63 - Long.numberOfLeadingZeros(value); // >= SUB_BUCKET_BITS
+        final int shift = exponent - SUB_BUCKET_BITS;
+        final int sub = (int) ( value >>> shift ) & SUB_BUCKET_MASK;
+        return ( shift + 1 ) * SUB_BUCKET_COUNT + sub;
+    }
+
+    /** Returns the lowest value in nanoseconds covered by the given bucket. */
+    public static long getBucketLowestValue(int bucketIdx) {
+        if( bucketIdx < SUB_BUCKET_COUNT ) {
+            return bucketIdx;
+        }
+        final int shift = ( bucketIdx >>> SUB_BUCKET_BITS ) - 1;
+        final long sub = ( bucketIdx & SUB_BUCKET_MASK ) + SUB_BUCKET_COUNT;
+        return sub << shift;
+    }
+
+    /** Returns the highest value in nanoseconds covered by the given bucket. */
+    public static long getBucketHighestValue(int bucketIdx) {
+        if( bucketIdx < SUB_BUCKET_COUNT ) {
+            return bucketIdx;
+        }
+        final int shift = ( bucketIdx >>> SUB_BUCKET_BITS ) - 1;
+        final long sub = ( bucketIdx & SUB_BUCKET_MASK ) + SUB_BUCKET_COUNT;
+        return ( ( sub + 1 ) << shift ) - 1;
+    }
+
+    /** Records the given duration in nanoseconds. */
+    public final void record(long value) {
+        if( 0 > value ) {
+            value = 0;
+        }
+        counts.incrementAndGet(getBucketIndex(value));
+        totalCount.incrementAndGet();
+        totalSum.addAndGet(value);
+        long v;
+        while( value < ( v = minValue.get() ) && !minValue.compareAndSet(v, value) ) { }
+        while( value > ( v = maxValue.get() ) && !maxValue.compareAndSet(v, value) ) { }
+    }
+
+    /** Clears all recorded values. */
+    public final void reset() {
+        for(int i=0; i<BUCKET_COUNT; i++) {
+            counts.set(i, 0);
+        }
+        totalCount.set(0);
+        totalSum.set(0);
+        minValue.set(Long.MAX_VALUE);
+        maxValue.set(0);
+    }
+
+    /** Returns the number of recorded values. */
+    public final long getTotalCount() { return totalCount.get(); }
+
+    /** Returns the number of recorded values in the given bucket. */
+    public final long getBucketCount(int bucketIdx) { return counts.get(bucketIdx); }
+
+    /** Returns the smallest recorded value in nanoseconds, or <code>0</code> if empty. */
+    public final long getMinValue() {
+        final long v = minValue.get();
+        return Long.MAX_VALUE == v ? 0 : v;
+    }
+
+    /** Returns the largest recorded value in nanoseconds, or <code>0</code> if empty. */
+    public final long getMaxValue() { return maxValue.get(); }
+
+    /** Returns the mean of all recorded values in nanoseconds, or <code>0</code> if empty. */
+    public final double getMean() {
+        final long n = totalCount.get();
+        return 0 < n ? (double) totalSum.get() / (double) n : 0.0;
+    }
+
+    /**
+     * Returns the value in nanoseconds at the given percentile,
+     * i.e. the highest equivalent value of the bucket where the
+     * cumulative count reaches <code>percentile</code> percent of all values.
+     * The result is limited to {@link #getMaxValue()}.
+     * @param percentile within [0..100], e.g. <code>50.0</code>, <code>99.0</code> or <code>99.9</code>
+     * @return the value or <code>0</code> if empty
+     */
+    public final long getValueAtPercentile(double percentile) {
+        final long n = totalCount.get();
+        if( 0 >= n ) {
+            return 0;
+        }
+        final double p = Math.min(Math.max(percentile, 0.0), 100.0);
+        final long threshold = Math.max(1, (long) ( ( p / 100.0 ) * n + 0.5 ));
+        long cumulative = 0;
+        for(int i=0; i<BUCKET_COUNT; i++) {
+            cumulative += counts.get(i);
+            if( cumulative >= threshold ) {
+                return Math.min(getBucketHighestValue(i), getMaxValue());
+            }
+        }
+        return getMaxValue();
+    }
+
+    /**
+     * Copies the bucket counts into the given array of size {@link #BUCKET_COUNT},
+     * allowing an exporter to process a stable copy w/o further atomic access.
+     * @return the total count of copied values
+     */
+    public final long copyBucketCounts(long[] dest) {
+        long n = 0;
+        for(int i=0; i<BUCKET_COUNT; i++) {
+            final long c = counts.get(i);
+            dest[i] = c;
+            n += c;
+        }
+        return n;
+    }
+
+    public StringBuilder toString(StringBuilder sb) {
+        if(null==sb) {
+            sb = new StringBuilder();
+        }
+        sb.append("n ").append(getTotalCount())
+          .append(", min ").append(toMillis(getMinValue()))
+          .append(", mean ").append(toMillis((long)getMean()))
+          .append(", p50 ").append(toMillis(getValueAtPercentile(50.0)))
+          .append(", p99 ").append(toMillis(getValueAtPercentile(99.0)))
+          .append(", p99.9 ").append(toMillis(getValueAtPercentile(99.9)))
+          .append(", max ").append(toMillis(getMaxValue())).append(" ms");
+        return sb;
+    }
+
+    private static String toMillis(long ns) {
+        final long us = TimeUnit.NANOSECONDS.toMicros(ns);
+        final long frac = us % 1000;
+        return us / 1000 + "." + ( frac < 10 ? "00" : ( frac < 100 ? "0" : "" ) ) + frac;
+    }
+
+    @Override
+    public String toString() {
+        return toString(null).toString();
+    }
+}
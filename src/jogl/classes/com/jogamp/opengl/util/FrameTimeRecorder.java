@@ -0,0 +1,206 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ *
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+
+package com.jogamp.opengl.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.media.opengl.GLAutoDrawable;
+import javax.media.opengl.GLRunnable;
+
+/**
+ * Lock-free frame timing recorder for a {@link GLAutoDrawable},
+ * see {@link GLAutoDrawable#setFrameTimeRecorder(FrameTimeRecorder)}.
+ * <p>
+ * Unlike the {@link javax.media.opengl.FPSCounter} averages, which hide stutter,
+ * each frame's duration is recorded into a {@link FrameTimeHistogram} per phase:
+ * <ul>
+ *   <li>{@link #PHASE_FRAME}: Period between two consecutive frames</li>
+ *   <li>{@link #PHASE_DISPLAY}: {@link GLAutoDrawable#display()} incl. making the context current and swapping buffers</li>
+ *   <li>{@link #PHASE_LISTENER}: All {@link javax.media.opengl.GLEventListener#display(GLAutoDrawable)} calls</li>
+ *   <li>{@link #PHASE_SWAP}: {@link GLAutoDrawable#swapBuffers()} if {@link GLAutoDrawable#getAutoSwapBufferMode() auto swap} is enabled</li>
+ *   <li>{@link #PHASE_RUNNABLES}: Execution of all queued {@link GLRunnable}s</li>
+ *   <li>{@link #PHASE_READBACK}: Reading back the frame into client memory, offscreen composited drawables only</li>
+ *   <li>{@link #PHASE_COMPOSITE}: Compositing the read back frame, offscreen composited drawables only</li>
+ * </ul>
+ * allowing percentile queries, e.g. {@link #getValueAtPercentile(int, double) p50, p99 and p99.9}.
+ * </p>
+ * <p>
+ * An optional {@link Exporter} is invoked on the rendering thread every given number of frames,
+ * see {@link #setExporter(Exporter, int, boolean)}.
+ * </p>
+ */
+public class FrameTimeRecorder {
+    /** Period between two consecutive frames. */
+    public static final int PHASE_FRAME     = 0;
+    /** {@link GLAutoDrawable#display()} incl. making the context current and swapping buffers. */
+    public static final int PHASE_DISPLAY   = 1;
+    /** All {@link javax.media.opengl.GLEventListener#display(GLAutoDrawable)} calls. */
+    public static final int PHASE_LISTENER  = 2;
+    /** {@link GLAutoDrawable#swapBuffers()} if {@link GLAutoDrawable#getAutoSwapBufferMode() auto swap} is enabled. */
+    public static final int PHASE_SWAP      = 3;
+    /** Execution of all queued {@link GLRunnable}s. */
+    public static final int PHASE_RUNNABLES = 4;
+    /** Reading back the frame into client memory, e.g. {@link javax.media.opengl.awt.GLJPanel}'s pixel readback. */
+    public static final int PHASE_READBACK  = 5;
+    /** Compositing the read back frame, e.g. {@link javax.media.opengl.awt.GLJPanel}'s image blit. */
+    public static final int PHASE_COMPOSITE = 6;
+    /** Number of phases. */
+    public static final int PHASE_COUNT     = 7;
+
+    private static final String[] phaseNames = new String[] { "frame", "display", "listener", "swap", "runnables", "readback", "composite" };
+
+    /**
+     * Export hook, invoked on the rendering thread.
+     * <p>
+     * Implementation shall be fast and shall not block, e.g. by
+     * copying the values of interest into the metrics system.
+     * </p>
+     */
+    public static interface Exporter {
+        /**
+         * @param recorder the recorder
+         * @param frameCount number of frames recorded since the last export
+         */
+        void export(FrameTimeRecorder recorder, int frameCount);
+    }
+
+    private final FrameTimeHistogram[] histograms = new FrameTimeHistogram[PHASE_COUNT];
+    private final AtomicLong lastFrameTime = new AtomicLong(0);
+    private final AtomicLong frameCount = new AtomicLong(0);
+    private volatile Exporter exporter = null;
+    private volatile int exportFrames = 0;
+    private volatile boolean resetAfterExport = false;
+    private int framesSinceExport = 0; // rendering thread only
+
+    /** Creates a new recorder w/ empty histograms. */
+    public FrameTimeRecorder() {
+        for(int i=0; i<PHASE_COUNT; i++) {
+            histograms[i] = new FrameTimeHistogram();
+        }
+    }
+
+    /** Returns the name of the given phase. */
+    public static String getPhaseName(int phase) {
+        return phaseNames[phase];
+    }
+
+    /**
+     * Sets the {@link Exporter} invoked every <code>exportFrames</code> frames on the rendering thread.
+     * @param exporter the exporter, <code>null</code> disables the export
+     * @param exportFrames export interval in frames, a value &le; 0 disables the export
+     * @param resetAfterExport if <code>true</code>, all histograms are reset after each export, keeping the frame period reference
+     */
+    public final synchronized void setExporter(Exporter exporter, int exportFrames, boolean resetAfterExport) {
+        this.resetAfterExport = resetAfterExport;
+        this.exportFrames = exportFrames;
+        this.exporter = exporter;
+    }
+
+    /** Returns the histogram of the given phase. */
+    public final FrameTimeHistogram getHistogram(int phase) {
+        return histograms[phase];
+    }
+
+    /** Returns the value in nanoseconds at the given percentile of the given phase, see {@link FrameTimeHistogram#getValueAtPercentile(double)}. */
+    public final long getValueAtPercentile(int phase, double percentile) {
+        return histograms[phase].getValueAtPercentile(percentile);
+    }
+
+    /** Returns the total number of recorded frames. */
+    public final long getFrameCount() {
+        return frameCount.get();
+    }
+
+    /** Clears all histograms and the frame period reference. */
+    public final void reset() {
+        resetHistograms();
+        lastFrameTime.set(0);
+    }
+    private final void resetHistograms() {
+        for(int i=0; i<PHASE_COUNT; i++) {
+            histograms[i].reset();
+        }
+        frameCount.set(0);
+    }
+
+    /**
+     * Records the duration of the given phase, called by the {@link GLAutoDrawable} implementation.
+     * @param phase one of {@link #PHASE_DISPLAY}, {@link #PHASE_LISTENER}, {@link #PHASE_SWAP}, {@link #PHASE_RUNNABLES},
+     *              {@link #PHASE_READBACK} or {@link #PHASE_COMPOSITE}
+     * @param duration duration in nanoseconds
+     */
+    public final void recordPhase(int phase, long duration) {
+        histograms[phase].record(duration);
+    }
+
+    /**
+     * Marks the end of a frame, called by the {@link GLAutoDrawable} implementation on the rendering thread.
+     * <p>
+     * Records the {@link #PHASE_FRAME frame period} and triggers the {@link Exporter} if due.
+     * </p>
+     * @param now current time in nanoseconds, i.e. {@link System#nanoTime()}
+     */
+    public final void frameDone(long now) {
+        final long last = lastFrameTime.getAndSet(now);
+        if( 0 != last ) {
+            histograms[PHASE_FRAME].record(now - last);
+        }
+        frameCount.incrementAndGet();
+        final Exporter _exporter = exporter;
+        if( null != _exporter ) {
+            final int _exportFrames = exportFrames;
+            if( 0 < _exportFrames && ++framesSinceExport >= _exportFrames ) {
+                final int n = framesSinceExport;
+                framesSinceExport = 0;
+                _exporter.export(this, n);
+                if( resetAfterExport ) {
+                    resetHistograms();
+                }
+            }
+        }
+    }
+
+    public StringBuilder toString(StringBuilder sb) {
+        if(null==sb) {
+            sb = new StringBuilder();
+        }
+        sb.append("FrameTimeRecorder[frames ").append(getFrameCount());
+        for(int i=0; i<PHASE_COUNT; i++) {
+            sb.append(", ").append(phaseNames[i]).append("[");
+            histograms[i].toString(sb).append("]");
+        }
+        sb.append("]");
+        return sb;
+    }
+
+    @Override
+    public String toString() {
+        return toString(null).toString();
+    }
+}
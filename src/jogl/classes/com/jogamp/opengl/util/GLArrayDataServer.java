@@ -277,6 +277,9 @@ public class GLArrayDataServer extends GLArrayDataClient implements GLArrayDataE
       if(usesGLSL) {
           throw new GLException("buffer uses GLSL");
       }
+      if(null != streamArena) {
+          throw new GLException("buffer uses stream arena");
+      }
       final GLArrayDataWrapper ad = GLArrayDataWrapper.createFixed(
               index, comps, getComponentType(),
               getNormalized(), getStride(), getBuffer(),
@@ -355,6 +358,9 @@ public class GLArrayDataServer extends GLArrayDataClient implements GLArrayDataE
       if(!usesGLSL) {
           throw new GLException("buffer uses fixed function");
       }
+      if(null != streamArena) {
+          throw new GLException("buffer uses stream arena");
+      }
       final GLArrayDataWrapper ad = GLArrayDataWrapper.createGLSL(
               name, comps, getComponentType(),
               getNormalized(), getStride(), getBuffer(),
@@ -375,6 +381,61 @@ public class GLArrayDataServer extends GLArrayDataClient implements GLArrayDataE
     return interleavedOffset;
   }
 
+  /**
+   * Lets this array target the given {@link GLBufferStreamArena} instead of owning it's own VBO.
+   * <p>
+   * Each upload of the client buffer, i.e. after it has been {@link #seal(boolean) sealed} again,
+   * is written into a new region of the arena and the {@link #getVBOOffset() VBO offset} is set accordingly.
+   * Hence dynamic data changing every frame neither reallocates nor synchronizes the buffer object.
+   * </p>
+   * <p>
+   * Must be called before the VBO has been created, i.e. before the first {@link #seal(GL, boolean)}
+   * or {@link #enableBuffer(GL, boolean)}. Interleaved arrays are not supported.
+   * </p>
+   * <p>
+   * If the array's region has been overwritten or orphaned by the arena, e.g. if the array is not sealed every frame,
+   * the client buffer is written into a new region when the array is bound again,
+   * see {@link #isStreamRegionValid()}.
+   * </p>
+   * @param arena the stream arena, or <code>null</code> to own a VBO
+   * @throws GLException if the VBO has been created already or this is an interleaved array
+   */
+  public final void setStreamArena(GLBufferStreamArena arena) throws GLException {
+    if( 0 != vboName ) {
+        throw new GLException("VBO already created: "+this);
+    }
+    if( glArrayHandler instanceof GLArrayHandlerInterleaved || glArrayHandler instanceof GLSLArrayHandlerInterleaved ) {
+        throw new GLException("Interleaved arrays not supported: "+this);
+    }
+    streamArena = arena;
+  }
+
+  /** Returns the {@link GLBufferStreamArena} this array targets, or <code>null</code>. */
+  public final GLBufferStreamArena getStreamArena() { return streamArena; }
+
+  /**
+   * Writes the client buffer into a new region of the {@link #getStreamArena() stream arena}
+   * and sets the {@link #getVBOOffset() VBO offset} to it.
+   * <p>
+   * Called by the array handler instead of {@link GL#glBufferData(int, long, Buffer, int)},
+   * while the arena's VBO is bound.
+   * </p>
+   */
+  public final void writeStreamArena(GL gl, Buffer buffer, int sizeInBytes) {
+    vboOffset = streamArena.write(gl, buffer, sizeInBytes);
+    streamRegionId = streamArena.getLastRegionId();
+  }
+
+  /**
+   * Returns <code>true</code> if no {@link #getStreamArena() stream arena} is used
+   * or the region last written into it still holds this array's data,
+   * i.e. the {@link #getVBOOffset() VBO offset} is still valid.
+   * @see GLBufferStreamArena#isRegionValid(long)
+   */
+  public final boolean isStreamRegionValid() {
+    return null == streamArena || streamArena.isRegionValid(streamRegionId);
+  }
+
   //
   // Data matters GLArrayData
   //
@@ -388,7 +449,8 @@ public class GLArrayDataServer extends GLArrayDataClient implements GLArrayDataE
     // super.destroy(gl):
     // - GLArrayDataClient.destroy(gl): disables & clears client-side buffer
     //   - GLArrayDataWrapper.destroy(gl) (clears all values 'vboName' ..)
-    int _vboName = vboName;
+    // the stream arena's VBO is owned by the arena
+    int _vboName = null == streamArena ? vboName : 0;
     super.destroy(gl);
     if(_vboName!=0) {
         final int[] tmp = new int[] { _vboName } ;
@@ -431,6 +493,7 @@ public class GLArrayDataServer extends GLArrayDataClient implements GLArrayDataE
                        ", vboUsage 0x"+Integer.toHexString(vboUsage)+
                        ", vboTarget 0x"+Integer.toHexString(vboTarget)+
                        ", vboOffset "+vboOffset+
+                       ", streamArena "+(null!=streamArena)+
                        ", sealed "+sealed+
                        ", bufferEnabled "+bufferEnabled+
                        ", bufferWritten "+bufferWritten+
@@ -459,7 +522,10 @@ public class GLArrayDataServer extends GLArrayDataClient implements GLArrayDataE
   @Override
   protected void init_vbo(GL gl) {
     super.init_vbo(gl);
-    if(vboEnabled && vboName==0) {
+    if(vboEnabled && vboName==0 && null != streamArena) {
+        streamArena.init(gl);
+        vboName = streamArena.getVBOName();
+    } else if(vboEnabled && vboName==0) {
         int[] tmp = new int[1];
         gl.glGenBuffers(1, tmp, 0);
         vboName = tmp[0];
@@ -483,8 +549,12 @@ public class GLArrayDataServer extends GLArrayDataClient implements GLArrayDataE
   public GLArrayDataServer(GLArrayDataServer src) {
     super(src);
     this.interleavedOffset = src.interleavedOffset;
+    this.streamArena = src.streamArena;
+    this.streamRegionId = src.streamRegionId;
   }
 
   private int interleavedOffset = 0;
+  private GLBufferStreamArena streamArena = null;
+  private long streamRegionId = 0;
 }
 
@@ -0,0 +1,443 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ *
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+
+package com.jogamp.opengl.util;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+import java.util.ArrayList;
+
+import javax.media.opengl.GL;
+import javax.media.opengl.GL2ES2;
+import javax.media.opengl.GL3ES3;
+import javax.media.opengl.GLException;
+
+import jogamp.opengl.Debug;
+
+/**
+ * Ring buffer streaming arena, sub-allocating regions of dynamic vertex data
+ * from one large buffer object.
+ * <p>
+ * Each {@link #write(GL, Buffer, int) write} appends the data at the arena's head,
+ * hence data in use by pending draw commands is never overwritten
+ * and the driver does not need to reallocate or synchronize the buffer object.
+ * </p>
+ * <p>
+ * If the head reaches the end of the arena, it restarts at offset zero and either
+ * <ul>
+ *   <li>waits for the fences of the overwritten regions, if sync objects are supported (GL3, ES3), or</li>
+ *   <li>orphans the buffer storage via {@link GL#glBufferData(int, long, Buffer, int) glBufferData(.., null, ..)},
+ *       leaving the old storage to the driver until pending draw commands are completed.
+ *       The storage is only orphaned at a frame boundary, i.e. before the first write of a frame.</li>
+ * </ul>
+ * Regions written within the current frame are never overwritten, since they may not have been drawn yet.
+ * If the current frame does not fit, the arena grows and the current frame's regions are written again
+ * at their offsets into the new storage. Hence the client buffers passed to {@link #write(GL, Buffer, int)}
+ * shall not be modified until {@link #frameDone(GL)}.
+ * </p>
+ * <p>
+ * The user shall call {@link #frameDone(GL)} at the end of each frame,
+ * which marks the frame's regions w/ a fence.
+ * </p>
+ * <p>
+ * Regions of previous frames become invalid once their storage is orphaned or the head wraps around,
+ * see {@link #isRegionValid(long)}.
+ * </p>
+ * <p>
+ * Data is written via an unsynchronized {@link GL#glMapBufferRange(int, long, long, int) glMapBufferRange} if available,
+ * otherwise via {@link GL#glBufferSubData(int, long, long, Buffer) glBufferSubData}.
+ * </p>
+ * <p>
+ * {@link GLArrayDataServer} may target an arena instead of owning it's own VBO,
+ * see {@link GLArrayDataServer#setStreamArena(GLBufferStreamArena)}.
+ * </p>
+ * <p>
+ * The arena's buffer object must be bound to it's {@link #getVBOTarget() target}
+ * while calling {@link #write(GL, Buffer, int)}.
+ * </p>
+ */
+public class GLBufferStreamArena {
+    protected static final boolean DEBUG = Debug.debug("GLBufferStreamArena");
+
+    /** Alignment of each region in bytes, satisfying all vertex attribute types. */
+    public static final int ALIGNMENT = 16;
+
+    private static final int MAP_ACCESS = GL.GL_MAP_WRITE_BIT | GL.GL_MAP_INVALIDATE_RANGE_BIT | GL.GL_MAP_UNSYNCHRONIZED_BIT;
+
+    /** Fenced regions of a completed frame, as pairs of start and end offsets. */
+    private static class Fence {
+        final long sync;
+        final int[] spans;
+        Fence(long sync, int[] spans) {
+            this.sync = sync;
+            this.spans = spans;
+        }
+        boolean overlaps(int start, int end) {
+            for(int i=0; i<spans.length; i+=2) {
+                if( spans[i] < end && start < spans[i+1] ) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /** Region written within the current frame. */
+    private static class Region {
+        final Buffer data;
+        final int dataPos;
+        final int offset;
+        final int size;
+        Region(Buffer data, int offset, int size) {
+            this.data = data;
+            this.dataPos = data.position();
+            this.offset = offset;
+            this.size = size;
+        }
+        int end() { return offset + size; }
+    }
+
+    private final int vboTarget;
+    private int capacity;
+    private int vboName = 0;
+    private int head = 0;
+    private boolean useFences;
+    private boolean useMapRange;
+    private final ArrayList<Fence> fences = new ArrayList<Fence>();
+    private final ArrayList<Region> frameRegions = new ArrayList<Region>();
+
+    /** Id of the last written region */
+    private long writeCount = 0;
+    /** Id of the first region of the current frame */
+    private long frameFirstId = 1;
+    /** Regions w/ a lower id have been overwritten or orphaned */
+    private long validFirstId = 1;
+
+    private int orphanCount = 0;
+    private int waitCount = 0;
+    private long bytesWritten = 0;
+
+    /**
+     * @param capacity initial capacity in bytes, should hold at least the data of a few frames
+     * @param vboTarget the buffer target, e.g. {@link GL#GL_ARRAY_BUFFER}
+     */
+    public GLBufferStreamArena(int capacity, int vboTarget) {
+        this.capacity = capacity;
+        this.vboTarget = vboTarget;
+    }
+
+    public final int getVBOName() { return vboName; }
+    public final int getVBOTarget() { return vboTarget; }
+    public final int getCapacity() { return capacity; }
+    /** Returns the number of times the buffer storage has been orphaned. */
+    public final int getOrphanCount() { return orphanCount; }
+    /** Returns the number of times a fence has not been signaled when reusing a region. */
+    public final int getWaitCount() { return waitCount; }
+    /** Returns the total number of bytes written. */
+    public final long getBytesWritten() { return bytesWritten; }
+
+    /**
+     * Returns the id of the last written region, i.e. the number of {@link #write(GL, Buffer, int) writes}.
+     * <p>
+     * Shall be queried right after {@link #write(GL, Buffer, int)} to validate the region
+     * via {@link #isRegionValid(long)} later on.
+     * </p>
+     */
+    public final long getLastRegionId() { return writeCount; }
+
+    /**
+     * Returns <code>true</code> if the region w/ the given {@link #getLastRegionId() id}
+     * still holds it's data, i.e. has neither been overwritten nor orphaned.
+     * <p>
+     * Regions of the current frame are always valid.
+     * </p>
+     */
+    public final boolean isRegionValid(long regionId) {
+        return 0 != vboName && validFirstId <= regionId && regionId <= writeCount;
+    }
+
+    /**
+     * Creates the buffer object and it's storage, if not done yet.
+     * <p>
+     * Leaves the buffer object bound to it's target.
+     * </p>
+     */
+    public void init(GL gl) {
+        if( 0 != vboName ) {
+            return;
+        }
+        final int[] tmp = new int[1];
+        gl.glGenBuffers(1, tmp, 0);
+        vboName = tmp[0];
+        if( 0 == vboName ) {
+            throw new GLException("Could not create buffer object");
+        }
+        useFences = gl.isGL3ES3() && gl.isFunctionAvailable("glFenceSync");
+        useMapRange = gl.isFunctionAvailable("glMapBufferRange");
+        gl.glBindBuffer(vboTarget, vboName);
+        gl.glBufferData(vboTarget, capacity, null, GL2ES2.GL_STREAM_DRAW);
+        head = 0;
+        frameRegions.clear();
+        frameFirstId = writeCount + 1;
+        validFirstId = frameFirstId;
+        if(DEBUG) {
+            System.err.println("GLBufferStreamArena.init: "+this);
+        }
+    }
+
+    /**
+     * Writes the remaining data of the given buffer into a new region of this arena.
+     * <p>
+     * The arena's buffer object must be bound.
+     * </p>
+     * @param gl
+     * @param data the data to be written, it's position and limit are preserved.
+     *             It shall not be modified until {@link #frameDone(GL)}.
+     * @param sizeInBytes the number of bytes to be written
+     * @return the offset of the written region in bytes, to be used as the vertex attribute pointer offset
+     * @see #getLastRegionId()
+     */
+    public long write(GL gl, Buffer data, int sizeInBytes) {
+        if( 0 == vboName ) {
+            throw new GLException("Arena not initialized");
+        }
+        final int offset = allocate(gl, sizeInBytes);
+        writeRegion(gl, data, offset, sizeInBytes);
+        frameRegions.add(new Region(data, offset, sizeInBytes));
+        writeCount++;
+        bytesWritten += sizeInBytes;
+        return offset;
+    }
+
+    /**
+     * Marks the end of a frame, i.e. fences the regions written since the last call if sync objects are supported.
+     * <p>
+     * Afterwards the storage may be orphaned or the regions overwritten by the next frames.
+     * </p>
+     */
+    public void frameDone(GL gl) {
+        if( useFences && 0 < frameRegions.size() ) {
+            final long sync = gl.getGL3ES3().glFenceSync(GL3ES3.GL_SYNC_GPU_COMMANDS_COMPLETE, 0);
+            if( 0 != sync ) {
+                fences.add(new Fence(sync, getFrameSpans()));
+            }
+        }
+        frameRegions.clear();
+        frameFirstId = writeCount + 1;
+    }
+
+    /**
+     * Deletes the buffer object and all pending fences.
+     */
+    public void destroy(GL gl) {
+        deleteFences(gl);
+        if( 0 != vboName ) {
+            final int[] tmp = new int[] { vboName };
+            gl.glDeleteBuffers(1, tmp, 0);
+            vboName = 0;
+        }
+        head = 0;
+        frameRegions.clear();
+        frameFirstId = writeCount + 1;
+        validFirstId = frameFirstId;
+    }
+
+    private static int align(int offset) {
+        return ( offset + ALIGNMENT - 1 ) & ~( ALIGNMENT - 1 );
+    }
+
+    private int allocate(GL gl, int sizeInBytes) {
+        int offset = align(head);
+        if( offset + sizeInBytes <= capacity && !overlapsFrame(offset, offset + sizeInBytes) ) {
+            // append at head
+            if( useFences ) {
+                waitFences(gl, offset, offset + sizeInBytes);
+            }
+        } else if( sizeInBytes <= capacity && ( useFences || 0 == frameRegions.size() ) && !overlapsFrame(0, sizeInBytes) ) {
+            // wrap around, previous frames' regions will be overwritten
+            if( useFences ) {
+                waitFences(gl, 0, sizeInBytes);
+            } else {
+                // frame boundary, no region of this frame is pending
+                orphan(gl);
+            }
+            validFirstId = frameFirstId;
+            offset = 0;
+        } else {
+            // grow, keeping the current frame's regions at their offsets
+            offset = align(getFrameEnd());
+            int newCapacity = capacity;
+            while( newCapacity < offset + sizeInBytes ) {
+                newCapacity *= 2;
+            }
+            if(DEBUG) {
+                System.err.println("GLBufferStreamArena: Grow "+capacity+" -> "+newCapacity+", restoring "+frameRegions.size()+" regions");
+            }
+            capacity = newCapacity;
+            orphan(gl);
+            for(int i=0; i<frameRegions.size(); i++) {
+                final Region r = frameRegions.get(i);
+                final int pos = r.data.position();
+                r.data.position(r.dataPos);
+                try {
+                    writeRegion(gl, r.data, r.offset, r.size);
+                } finally {
+                    r.data.position(pos);
+                }
+            }
+            validFirstId = frameFirstId;
+        }
+        head = offset + sizeInBytes;
+        return offset;
+    }
+
+    private void writeRegion(GL gl, Buffer data, int offset, int sizeInBytes) {
+        if( useMapRange ) {
+            final ByteBuffer mapped = gl.glMapBufferRange(vboTarget, offset, sizeInBytes, MAP_ACCESS);
+            if( null != mapped ) {
+                put(mapped.order(ByteOrder.nativeOrder()), data, sizeInBytes);
+                gl.glUnmapBuffer(vboTarget);
+            } else {
+                useMapRange = false;
+                gl.glBufferSubData(vboTarget, offset, sizeInBytes, data);
+            }
+        } else {
+            gl.glBufferSubData(vboTarget, offset, sizeInBytes, data);
+        }
+    }
+
+    private boolean overlapsFrame(int start, int end) {
+        for(int i=0; i<frameRegions.size(); i++) {
+            final Region r = frameRegions.get(i);
+            if( r.offset < end && start < r.end() ) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int getFrameEnd() {
+        int end = 0;
+        for(int i=0; i<frameRegions.size(); i++) {
+            end = Math.max(end, frameRegions.get(i).end());
+        }
+        return end;
+    }
+
+    /** Returns the current frame's regions as pairs of start and end offsets, merging adjacent regions. */
+    private int[] getFrameSpans() {
+        final int[] spans = new int[frameRegions.size() * 2];
+        int n = 0;
+        for(int i=0; i<frameRegions.size(); i++) {
+            final Region r = frameRegions.get(i);
+            if( 0 < n && spans[n-1] <= r.offset && r.offset <= align(spans[n-1]) ) {
+                spans[n-1] = r.end();
+            } else {
+                spans[n++] = r.offset;
+                spans[n++] = r.end();
+            }
+        }
+        final int[] res = new int[n];
+        System.arraycopy(spans, 0, res, 0, n);
+        return res;
+    }
+
+    private void orphan(GL gl) {
+        gl.glBufferData(vboTarget, capacity, null, GL2ES2.GL_STREAM_DRAW);
+        deleteFences(gl);
+        orphanCount++;
+    }
+
+    private void waitFences(GL gl, int start, int end) {
+        for(int i=0; i<fences.size(); ) {
+            final Fence f = fences.get(i);
+            if( f.overlaps(start, end) ) {
+                final GL3ES3 gl3 = gl.getGL3ES3();
+                final int res = gl3.glClientWaitSync(f.sync, 0, 0);
+                if( GL3ES3.GL_ALREADY_SIGNALED != res && GL3ES3.GL_CONDITION_SATISFIED != res ) {
+                    waitCount++;
+                    gl3.glClientWaitSync(f.sync, GL3ES3.GL_SYNC_FLUSH_COMMANDS_BIT, Long.MAX_VALUE);
+                }
+                gl3.glDeleteSync(f.sync);
+                fences.remove(i);
+            } else {
+                i++;
+            }
+        }
+    }
+
+    private void deleteFences(GL gl) {
+        if( 0 < fences.size() ) {
+            final GL3ES3 gl3 = gl.getGL3ES3();
+            for(int i=0; i<fences.size(); i++) {
+                gl3.glDeleteSync(fences.get(i).sync);
+            }
+            fences.clear();
+        }
+    }
+
+    private static void put(ByteBuffer dest, Buffer src, int sizeInBytes) {
+        final int pos = src.position();
+        final int lim = src.limit();
+        try {
+            if( src instanceof ByteBuffer ) {
+                src.limit(pos + sizeInBytes);
+                dest.put((ByteBuffer)src);
+            } else if( src instanceof FloatBuffer ) {
+                src.limit(pos + sizeInBytes / 4);
+                dest.asFloatBuffer().put((FloatBuffer)src);
+            } else if( src instanceof IntBuffer ) {
+                src.limit(pos + sizeInBytes / 4);
+                dest.asIntBuffer().put((IntBuffer)src);
+            } else if( src instanceof ShortBuffer ) {
+                src.limit(pos + sizeInBytes / 2);
+                dest.asShortBuffer().put((ShortBuffer)src);
+            } else if( src instanceof DoubleBuffer ) {
+                src.limit(pos + sizeInBytes / 8);
+                dest.asDoubleBuffer().put((DoubleBuffer)src);
+            } else {
+                throw new GLException("Unsupported buffer type: "+src.getClass().getName());
+            }
+        } finally {
+            src.limit(lim);
+            src.position(pos);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "GLBufferStreamArena[vbo "+vboName+", target 0x"+Integer.toHexString(vboTarget)+", capacity "+capacity+
+               ", head "+head+", fences "+useFences+"/"+fences.size()+", mapRange "+useMapRange+
+               ", orphaned "+orphanCount+", waits "+waitCount+", written "+bytesWritten+"]";
+    }
+}
@@ -0,0 +1,483 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ *
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+
+package com.jogamp.opengl.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+
+import javax.media.opengl.GL;
+
+import static com.jogamp.opengl.util.GLCallCaptureWriter.*;
+
+/**
+ * Reads a GL call capture written by {@link GLCallCaptureWriter}.
+ * <p>
+ * The capture can be {@link #replay(Dispatcher, GL) replayed} against any {@link GL} implementation
+ * via the {@link Dispatcher} of a generated <code>Capture</code> pipeline, e.g.:
+ * <pre>
+ *   final GLCallCaptureReader capture = new GLCallCaptureReader(new File("gl.capture"));
+ *   capture.replay(CaptureGL4bc.replayDispatcher, gl);
+ * </pre>
+ * Passing a <code>null</code> {@link GL} instance decodes all calls w/o issuing them,
+ * allowing to measure the CPU-side submission cost w/o a driver.
+ * </p>
+ * <p>
+ * Entry points are matched by signature, hence a capture of one release can be replayed w/ another.
+ * Calls not available in the dispatcher's interface or w/ arguments which could not be captured are skipped.
+ * GL object names are not remapped, i.e. replay shall start w/ a fresh context.
+ * </p>
+ * <p>
+ * {@link #dump(PrintStream, boolean)} writes the call stream as text, one call per line, suitable to diff streams.
+ * </p>
+ */
+public class GLCallCaptureReader {
+    /**
+     * Replay dispatcher of a generated <code>Capture</code> pipeline,
+     * issuing one call by reading it's arguments from the {@link GLCallCaptureReader}.
+     */
+    public interface Dispatcher {
+        /** Returns the entry point signatures of the dispatcher's GL interface. */
+        String[] getSignatures();
+
+        /**
+         * Reads all arguments of the entry point w/ the given index
+         * and issues the call on the given GL instance, if not <code>null</code>.
+         * @return <code>false</code> if the entry point is not replayable, otherwise <code>true</code>
+         */
+        boolean dispatch(GL gl, int idx, GLCallCaptureReader in);
+    }
+
+    private static final byte T_UNSUPPORTED  = 0;
+    private static final byte T_BYTE         = 1;
+    private static final byte T_BOOLEAN      = 2;
+    private static final byte T_SHORT        = 3;
+    private static final byte T_CHAR         = 4;
+    private static final byte T_INT          = 5;
+    private static final byte T_LONG         = 6;
+    private static final byte T_FLOAT        = 7;
+    private static final byte T_DOUBLE       = 8;
+    private static final byte T_STRING       = 9;
+    private static final byte T_STRING_ARRAY = 10;
+    private static final byte T_ELEMENTS     = 11;
+
+    private final MappedByteBuffer data;
+    private final int dataOffset;
+    private final int head;
+    private final int count;
+    private final String[] signatures;
+    /** Argument types per signature, <code>null</code> if arguments were not captured. */
+    private final byte[][] argTypes;
+    private ByteBuffer arena = ByteBuffer.allocateDirect(4096).order(ByteOrder.nativeOrder());
+    private int pos;
+    private long skippedCount;
+
+    /**
+     * @param file capture file written by {@link GLCallCaptureWriter}
+     * @throws IOException if the file could not be read or is not a capture file
+     */
+    public GLCallCaptureReader(File file) throws IOException {
+        final RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            data = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length());
+        } finally {
+            raf.close();
+        }
+        if( HDR_SIZE > data.capacity() ) {
+            throw new IOException("Not a GL capture: "+file);
+        }
+        data.order( 0 != data.get(HDR_BIG_ENDIAN) ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN );
+        if( MAGIC != data.getInt(HDR_MAGIC) || VERSION != data.getShort(HDR_VERSION) ) {
+            throw new IOException("Not a GL capture of version "+VERSION+": "+file);
+        }
+        dataOffset = data.getInt(HDR_DATA_OFFSET);
+        head = data.getInt(HDR_HEAD);
+        count = data.getInt(HDR_COUNT);
+        if( dataOffset + data.getInt(HDR_CAPACITY) > data.capacity() ) {
+            throw new IOException("Truncated GL capture: "+file);
+        }
+        pos = HDR_SIZE;
+        signatures = new String[getInt()];
+        argTypes = new byte[signatures.length][];
+        for(int i=0; i<signatures.length; i++) {
+            final byte[] b = new byte[getShort() & 0xffff];
+            data.position(pos);
+            data.get(b);
+            pos += b.length;
+            signatures[i] = toString(b);
+            argTypes[i] = parseArgTypes(signatures[i]);
+        }
+    }
+
+    private static String toString(byte[] utf8) {
+        try {
+            return new String(utf8, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new InternalError(e.getMessage());
+        }
+    }
+
+    private static byte[] parseArgTypes(String signature) {
+        final int p0 = signature.indexOf('(');
+        final int p1 = signature.lastIndexOf(')');
+        if( 0 > p0 || p0 > p1 ) {
+            return null;
+        }
+        final String args = signature.substring(p0+1, p1).trim();
+        if( 0 == args.length() ) {
+            return new byte[0];
+        }
+        final String[] names = args.split(",");
+        final byte[] types = new byte[names.length];
+        for(int i=0; i<names.length; i++) {
+            types[i] = toArgType(names[i].trim());
+            if( T_UNSUPPORTED == types[i] ) {
+                return null;
+            }
+        }
+        return types;
+    }
+
+    private static byte toArgType(String name) {
+        if( "byte".equals(name) ) { return T_BYTE; }
+        if( "boolean".equals(name) ) { return T_BOOLEAN; }
+        if( "short".equals(name) ) { return T_SHORT; }
+        if( "char".equals(name) ) { return T_CHAR; }
+        if( "int".equals(name) ) { return T_INT; }
+        if( "long".equals(name) ) { return T_LONG; }
+        if( "float".equals(name) ) { return T_FLOAT; }
+        if( "double".equals(name) ) { return T_DOUBLE; }
+        if( "java.lang.String".equals(name) ) { return T_STRING; }
+        if( "java.lang.String[]".equals(name) ) { return T_STRING_ARRAY; }
+        if( name.startsWith("java.nio.") && name.endsWith("Buffer") ) { return T_ELEMENTS; }
+        if( name.endsWith("[]") && 0 != toArgType(name.substring(0, name.length()-2)) && !name.startsWith("boolean") ) {
+            return T_ELEMENTS;
+        }
+        return T_UNSUPPORTED;
+    }
+
+    /** Returns the entry point signatures of the captured GL interface. */
+    public final String[] getSignatures() { return signatures; }
+
+    /** Returns the number of records in the capture, incl. frame markers. */
+    public final int getRecordCount() { return count; }
+
+    /** Returns the number of calls skipped by the last {@link #replay(Dispatcher, GL)}. */
+    public final long getSkippedCount() { return skippedCount; }
+
+    /**
+     * Issues all captured calls on the given GL instance.
+     * @param dispatcher replay dispatcher of the generated <code>Capture</code> pipeline, e.g. <code>CaptureGL4bc.replayDispatcher</code>
+     * @param gl the GL instance to issue the calls on, or <code>null</code> to decode the calls only
+     * @return the number of replayed calls
+     */
+    public final long replay(Dispatcher dispatcher, GL gl) {
+        final String[] dsigs = dispatcher.getSignatures();
+        final HashMap<String, Integer> dmap = new HashMap<String, Integer>(dsigs.length*2);
+        for(int i=0; i<dsigs.length; i++) {
+            dmap.put(dsigs[i], Integer.valueOf(i));
+        }
+        final int[] file2disp = new int[signatures.length];
+        for(int i=0; i<signatures.length; i++) {
+            final Integer j = dmap.get(signatures[i]);
+            file2disp[i] = null != j && null != argTypes[i] ? j.intValue() : -1;
+        }
+        long replayed = 0;
+        skippedCount = 0;
+        int rec = head;
+        for(int i=0; i<count; i++) {
+            int len = data.getInt(dataOffset + rec);
+            if( 0 == len ) {
+                rec = 0;
+                len = data.getInt(dataOffset);
+            }
+            pos = dataOffset + rec + 4;
+            final int idx = getShort() & 0xffff;
+            if( FRAME_MARKER != idx ) {
+                final int didx = idx < file2disp.length ? file2disp[idx] : -1;
+                arena.clear();
+                if( 0 <= didx && dispatcher.dispatch(gl, didx, this) ) {
+                    replayed++;
+                } else {
+                    skippedCount++;
+                }
+            }
+            rec += 4 + len;
+        }
+        return replayed;
+    }
+
+    /**
+     * Writes the captured call stream, one call per line and frames separated by a marker line.
+     * @param out the target stream
+     * @param withArgs if <code>true</code> the argument values are written as well
+     */
+    public final void dump(PrintStream out, boolean withArgs) {
+        final StringBuilder sb = new StringBuilder();
+        int frame = 0;
+        int rec = head;
+        for(int i=0; i<count; i++) {
+            int len = data.getInt(dataOffset + rec);
+            if( 0 == len ) {
+                rec = 0;
+                len = data.getInt(dataOffset);
+            }
+            pos = dataOffset + rec + 4;
+            final int idx = getShort() & 0xffff;
+            sb.setLength(0);
+            if( FRAME_MARKER == idx ) {
+                sb.append("-- frame ").append(frame++).append(" --");
+            } else if( idx >= signatures.length ) {
+                sb.append("<invalid entry point ").append(idx).append('>');
+            } else {
+                final String sig = signatures[idx];
+                final byte[] types = argTypes[idx];
+                if( !withArgs || null == types ) {
+                    sb.append(sig);
+                } else {
+                    sb.append(sig, 0, sig.indexOf('(')+1);
+                    for(int j=0; j<types.length; j++) {
+                        if( 0 < j ) {
+                            sb.append(", ");
+                        }
+                        appendArg(sb, types[j]);
+                    }
+                    sb.append(')');
+                }
+            }
+            out.println(sb);
+            rec += 4 + len;
+        }
+    }
+
+    private void appendArg(StringBuilder sb, byte type) {
+        switch( type ) {
+            case T_BYTE: sb.append(getByte()); break;
+            case T_BOOLEAN: sb.append(getBoolean()); break;
+            case T_SHORT: sb.append(getShort()); break;
+            case T_CHAR: sb.append((int)getChar()); break;
+            case T_INT: sb.append("0x").append(Integer.toHexString(getInt())); break;
+            case T_LONG: sb.append(getLong()); break;
+            case T_FLOAT: sb.append(getFloat()); break;
+            case T_DOUBLE: sb.append(getDouble()); break;
+            case T_STRING: {
+                final String s = getString();
+                if( null == s ) {
+                    sb.append("null");
+                } else {
+                    sb.append('"').append(s.length() > 32 ? s.substring(0, 32)+".." : s).append('"');
+                }
+            } break;
+            case T_STRING_ARRAY: {
+                final String[] a = getStringArray();
+                sb.append(null != a ? "String["+a.length+"]" : "null");
+            } break;
+            case T_ELEMENTS: {
+                final byte elemType = getByte();
+                if( ELEM_NULL == elemType ) {
+                    sb.append("null");
+                } else {
+                    final int n = getInt();
+                    pos += n * elemSize(elemType);
+                    sb.append(elemName(elemType)).append('[').append(n).append(']');
+                }
+            } break;
+        }
+    }
+
+    private static int elemSize(byte elemType) {
+        switch( elemType ) {
+            case ELEM_BYTE: return 1;
+            case ELEM_SHORT:
+            case ELEM_CHAR: return 2;
+            case ELEM_INT:
+            case ELEM_FLOAT: return 4;
+            default: return 8;
+        }
+    }
+
+    private static String elemName(byte elemType) {
+        switch( elemType ) {
+            case ELEM_BYTE: return "byte";
+            case ELEM_SHORT: return "short";
+            case ELEM_CHAR: return "char";
+            case ELEM_INT: return "int";
+            case ELEM_LONG: return "long";
+            case ELEM_FLOAT: return "float";
+            default: return "double";
+        }
+    }
+
+    //
+    // Argument decoding, used by the generated Dispatcher
+    //
+
+    public final byte getByte() { return data.get(pos++); }
+    public final boolean getBoolean() { return 0 != data.get(pos++); }
+    public final short getShort() { final short v = data.getShort(pos); pos += 2; return v; }
+    public final char getChar() { final char v = data.getChar(pos); pos += 2; return v; }
+    public final int getInt() { final int v = data.getInt(pos); pos += 4; return v; }
+    public final long getLong() { final long v = data.getLong(pos); pos += 8; return v; }
+    public final float getFloat() { final float v = data.getFloat(pos); pos += 4; return v; }
+    public final double getDouble() { final double v = data.getDouble(pos); pos += 8; return v; }
+
+    public final String getString() {
+        final int n = getInt();
+        if( 0 > n ) {
+            return null;
+        }
+        final byte[] b = new byte[n];
+        data.position(pos);
+        data.get(b);
+        pos += n;
+        return toString(b);
+    }
+
+    public final String[] getStringArray() {
+        final int n = getInt();
+        if( 0 > n ) {
+            return null;
+        }
+        final String[] a = new String[n];
+        for(int i=0; i<n; i++) {
+            a[i] = getString();
+        }
+        return a;
+    }
+
+    /**
+     * Returns a view of the next captured elements in native byte order.
+     * <p>
+     * Buffers are allocated from a direct arena, reused w/ each call.
+     * They are writable, allowing the replayed call to write query results.
+     * </p>
+     */
+    private ByteBuffer getElements(byte elemType, int n) {
+        final int bytes = n * elemSize(elemType);
+        final int start = ( arena.position() + 7 ) & ~7;
+        if( start + bytes > arena.capacity() ) {
+            // previous views of this call remain valid, they reference the old arena
+            arena = ByteBuffer.allocateDirect(Math.max(arena.capacity() * 2, bytes + 1024)).order(ByteOrder.nativeOrder());
+            return getElements(elemType, n);
+        }
+        arena.limit(start + bytes);
+        arena.position(start);
+        final ByteBuffer dst = arena.slice().order(ByteOrder.nativeOrder());
+        arena.position(start + bytes);
+        arena.limit(arena.capacity());
+
+        final ByteBuffer src = data.duplicate().order(data.order());
+        src.limit(pos + bytes);
+        src.position(pos);
+        switch( elemType ) {
+            case ELEM_BYTE: dst.put(src); break;
+            case ELEM_SHORT: dst.asShortBuffer().put(src.asShortBuffer()); break;
+            case ELEM_CHAR: dst.asCharBuffer().put(src.asCharBuffer()); break;
+            case ELEM_INT: dst.asIntBuffer().put(src.asIntBuffer()); break;
+            case ELEM_LONG: dst.asLongBuffer().put(src.asLongBuffer()); break;
+            case ELEM_FLOAT: dst.asFloatBuffer().put(src.asFloatBuffer()); break;
+            case ELEM_DOUBLE: dst.asDoubleBuffer().put(src.asDoubleBuffer()); break;
+        }
+        dst.clear();
+        pos += bytes;
+        return dst;
+    }
+
+    /**
+     * Returns the next captured client buffer w/ it's captured remaining elements,
+     * i.e. a direct {@link ByteBuffer}, {@link ShortBuffer}, {@link CharBuffer}, {@link IntBuffer},
+     * {@link LongBuffer}, {@link FloatBuffer} or {@link DoubleBuffer} or <code>null</code>.
+     */
+    public final Buffer getBuffer() {
+        final byte elemType = getByte();
+        if( ELEM_NULL == elemType ) {
+            return null;
+        }
+        final ByteBuffer b = getElements(elemType, getInt());
+        switch( elemType ) {
+            case ELEM_SHORT: return b.asShortBuffer();
+            case ELEM_CHAR: return b.asCharBuffer();
+            case ELEM_INT: return b.asIntBuffer();
+            case ELEM_LONG: return b.asLongBuffer();
+            case ELEM_FLOAT: return b.asFloatBuffer();
+            case ELEM_DOUBLE: return b.asDoubleBuffer();
+            default: return b;
+        }
+    }
+
+    public final byte[] getByteArray() {
+        final ByteBuffer b = (ByteBuffer) getBuffer();
+        if( null == b ) { return null; }
+        final byte[] a = new byte[b.remaining()]; b.get(a); return a;
+    }
+    public final short[] getShortArray() {
+        final ShortBuffer b = (ShortBuffer) getBuffer();
+        if( null == b ) { return null; }
+        final short[] a = new short[b.remaining()]; b.get(a); return a;
+    }
+    public final char[] getCharArray() {
+        final CharBuffer b = (CharBuffer) getBuffer();
+        if( null == b ) { return null; }
+        final char[] a = new char[b.remaining()]; b.get(a); return a;
+    }
+    public final int[] getIntArray() {
+        final IntBuffer b = (IntBuffer) getBuffer();
+        if( null == b ) { return null; }
+        final int[] a = new int[b.remaining()]; b.get(a); return a;
+    }
+    public final long[] getLongArray() {
+        final LongBuffer b = (LongBuffer) getBuffer();
+        if( null == b ) { return null; }
+        final long[] a = new long[b.remaining()]; b.get(a); return a;
+    }
+    public final float[] getFloatArray() {
+        final FloatBuffer b = (FloatBuffer) getBuffer();
+        if( null == b ) { return null; }
+        final float[] a = new float[b.remaining()]; b.get(a); return a;
+    }
+    public final double[] getDoubleArray() {
+        final DoubleBuffer b = (DoubleBuffer) getBuffer();
+        if( null == b ) { return null; }
+        final double[] a = new double[b.remaining()]; b.get(a); return a;
+    }
+}
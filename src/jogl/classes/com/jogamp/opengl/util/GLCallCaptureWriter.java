@@ -0,0 +1,366 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ *
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+
+package com.jogamp.opengl.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Serializes the GL call stream of a generated <code>Capture</code> composable pipeline,
+ * e.g. <code>javax.media.opengl.CaptureGL4bc</code>, into a memory-mapped ring file.
+ * <p>
+ * Sample code which installs the pipeline:
+ * <pre>
+ *   final GLCallCaptureWriter capture = new GLCallCaptureWriter(new File("gl.capture"), 64*1024*1024);
+ *   gl = drawable.setGL( GLPipelineFactory.create("javax.media.opengl.Capture", null, gl, new Object[] { capture } ) );
+ *   ..
+ *   // at the end of display(..)
+ *   capture.frameDone();
+ *   ..
+ *   capture.close();
+ * </pre>
+ * The capture is replayed or dumped via {@link GLCallCaptureReader}.
+ * </p>
+ * <p>
+ * Each call is stored as one record of it's entry point index followed by all arguments,
+ * incl. the remaining content of client buffers and whole client arrays.
+ * Entry points are identified by their signature stored in the file header,
+ * allowing to replay and diff captures of different releases.
+ * </p>
+ * <p>
+ * The data region of the file is a ring: if full, the oldest records are overwritten,
+ * i.e. the file holds the most recent calls. Since the file is memory-mapped and it's header
+ * is updated w/ each record, the capture survives a crash of the process.
+ * </p>
+ * <p>
+ * Like the GL pipeline itself, an instance shall only be used by one thread at a time.
+ * </p>
+ */
+public class GLCallCaptureWriter {
+    /** File magic <code>GLCR</code>. */
+    public static final int MAGIC = 0x474C4352;
+    public static final short VERSION = 1;
+
+    /** Record index marking the end of a frame, see {@link #frameDone()}. */
+    static final int FRAME_MARKER = 0xFFFF;
+
+    static final byte ELEM_NULL   = 0;
+    static final byte ELEM_BYTE   = 1;
+    static final byte ELEM_SHORT  = 2;
+    static final byte ELEM_CHAR   = 3;
+    static final byte ELEM_INT    = 4;
+    static final byte ELEM_LONG   = 5;
+    static final byte ELEM_FLOAT  = 6;
+    static final byte ELEM_DOUBLE = 7;
+
+    static final int HDR_MAGIC       =  0;
+    static final int HDR_VERSION     =  4;
+    static final int HDR_BIG_ENDIAN  =  6;
+    static final int HDR_DATA_OFFSET =  8;
+    static final int HDR_CAPACITY    = 12;
+    static final int HDR_HEAD        = 16;
+    static final int HDR_TAIL        = 20;
+    static final int HDR_COUNT       = 24;
+    static final int HDR_SIZE        = 32;
+
+    private final File file;
+    private final int capacity;
+    private String[] signatures = null;
+    private RandomAccessFile raf = null;
+    private MappedByteBuffer ring = null;
+    private int dataOffset;
+    private ByteBuffer scratch = ByteBuffer.allocateDirect(4096).order(ByteOrder.nativeOrder());
+
+    private int head = 0;
+    private int tail = 0;
+    private int count = 0;
+    private long recordCount = 0;
+    private long droppedCount = 0;
+    private int frames = 0;
+
+    /**
+     * The file is created when the capture pipeline is attached, see {@link #setSignatures(String[])}.
+     * @param file the capture file, overwritten if existing
+     * @param capacity size of the ring in bytes, i.e. the file size excluding the header
+     */
+    public GLCallCaptureWriter(File file, int capacity) {
+        if( 1024 > capacity ) {
+            throw new IllegalArgumentException("Capacity too small: "+capacity);
+        }
+        this.file = file;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Creates the capture file w/ the given entry point signature table,
+     * invoked by the capture pipeline's constructor.
+     * @throws IllegalStateException if already initialized w/ a different signature table
+     * @throws IOException if the file could not be created
+     */
+    public final void setSignatures(String[] signatures) throws IllegalStateException, IOException {
+        if( null != this.signatures ) {
+            if( !Arrays.equals(this.signatures, signatures) ) {
+                throw new IllegalStateException("Capture already used w/ a different GL interface");
+            }
+            return;
+        }
+        final byte[][] utf8 = new byte[signatures.length][];
+        int tableSize = 4;
+        for(int i=0; i<signatures.length; i++) {
+            utf8[i] = toUTF8(signatures[i]);
+            tableSize += 2 + utf8[i].length;
+        }
+        dataOffset = ( HDR_SIZE + tableSize + 7 ) & ~7;
+
+        raf = new RandomAccessFile(file, "rw");
+        raf.setLength(0);
+        raf.setLength((long)dataOffset + capacity);
+        ring = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, (long)dataOffset + capacity);
+        ring.order(ByteOrder.nativeOrder());
+        ring.putInt(HDR_MAGIC, MAGIC);
+        ring.putShort(HDR_VERSION, VERSION);
+        ring.put(HDR_BIG_ENDIAN, (byte) ( ByteOrder.BIG_ENDIAN == ByteOrder.nativeOrder() ? 1 : 0 ));
+        ring.putInt(HDR_DATA_OFFSET, dataOffset);
+        ring.putInt(HDR_CAPACITY, capacity);
+        updateHeader();
+        ring.position(HDR_SIZE);
+        ring.putInt(signatures.length);
+        for(int i=0; i<utf8.length; i++) {
+            ring.putShort((short)utf8[i].length);
+            ring.put(utf8[i]);
+        }
+        this.signatures = signatures;
+    }
+
+    private static byte[] toUTF8(String s) {
+        try {
+            return s.getBytes("UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new InternalError(e.getMessage());
+        }
+    }
+
+    /** Returns the number of records written, incl. overwritten ones. */
+    public final long getRecordCount() { return recordCount; }
+
+    /** Returns the number of records dropped, since they were larger than half the ring capacity. */
+    public final long getDroppedCount() { return droppedCount; }
+
+    /** Returns the number of {@link #frameDone() frames} captured. */
+    public final int getFrameCount() { return frames; }
+
+    /** Starts a record of the given entry point, invoked by the capture pipeline. */
+    public final void begin(int idx) {
+        scratch.clear();
+        scratch.putShort((short)idx);
+    }
+
+    /** Commits the current record to the ring, invoked by the capture pipeline. */
+    public final void end() {
+        if( null == ring ) {
+            return; // closed
+        }
+        scratch.flip();
+        final int n = scratch.remaining();
+        final int need = 4 + n;
+        recordCount++;
+        if( need > capacity / 2 ) {
+            droppedCount++;
+            return;
+        }
+        if( tail + need + 4 > capacity ) {
+            // no room for the record and a terminator at the end: terminate and wrap around
+            evict(tail, capacity);
+            ring.putInt(dataOffset + tail, 0);
+            tail = 0;
+        }
+        evict(tail, tail + need);
+        ring.putInt(dataOffset + tail, n);
+        ring.position(dataOffset + tail + 4);
+        ring.put(scratch);
+        tail += need;
+        count++;
+        updateHeader();
+    }
+
+    /** Drops the oldest records starting within [from, to). */
+    private void evict(int from, int to) {
+        while( 0 < count && from <= head && head < to ) {
+            final int len = ring.getInt(dataOffset + head);
+            if( 0 == len ) {
+                head = 0; // terminator
+            } else {
+                head += 4 + len;
+                count--;
+            }
+        }
+        if( 0 == count ) {
+            head = tail;
+        }
+    }
+
+    private void updateHeader() {
+        ring.putInt(HDR_HEAD, head);
+        ring.putInt(HDR_TAIL, tail);
+        ring.putInt(HDR_COUNT, count);
+    }
+
+    /** Marks the end of a frame in the call stream. */
+    public final void frameDone() {
+        begin(FRAME_MARKER);
+        end();
+        frames++;
+    }
+
+    private void ensure(int bytes) {
+        if( scratch.remaining() < bytes ) {
+            final int newSize = Math.max(scratch.capacity() * 2, scratch.position() + bytes + 1024);
+            final ByteBuffer b = ByteBuffer.allocateDirect(newSize).order(ByteOrder.nativeOrder());
+            scratch.flip();
+            b.put(scratch);
+            scratch = b;
+        }
+    }
+
+    public final void putByte(byte v) { ensure(1); scratch.put(v); }
+    public final void putBoolean(boolean v) { ensure(1); scratch.put((byte) ( v ? 1 : 0 )); }
+    public final void putShort(short v) { ensure(2); scratch.putShort(v); }
+    public final void putChar(char v) { ensure(2); scratch.putChar(v); }
+    public final void putInt(int v) { ensure(4); scratch.putInt(v); }
+    public final void putLong(long v) { ensure(8); scratch.putLong(v); }
+    public final void putFloat(float v) { ensure(4); scratch.putFloat(v); }
+    public final void putDouble(double v) { ensure(8); scratch.putDouble(v); }
+
+    public final void putString(String s) {
+        if( null == s ) {
+            putInt(-1);
+        } else {
+            final byte[] b = toUTF8(s);
+            putInt(b.length);
+            ensure(b.length);
+            scratch.put(b);
+        }
+    }
+
+    public final void putStringArray(String[] a) {
+        if( null == a ) {
+            putInt(-1);
+        } else {
+            putInt(a.length);
+            for(int i=0; i<a.length; i++) {
+                putString(a[i]);
+            }
+        }
+    }
+
+    private void putElementsHeader(byte type, int count, int elemSize) {
+        ensure(5 + count * elemSize);
+        scratch.put(type);
+        scratch.putInt(count);
+    }
+
+    /** Stores the remaining elements of the given client buffer. */
+    public final void putBuffer(Buffer b) {
+        if( null == b ) {
+            putByte(ELEM_NULL);
+            return;
+        }
+        final int n = b.remaining();
+        final int p = scratch.position();
+        if( b instanceof ByteBuffer ) {
+            putElementsHeader(ELEM_BYTE, n, 1);
+            scratch.put(((ByteBuffer)b).duplicate());
+        } else if( b instanceof ShortBuffer ) {
+            putElementsHeader(ELEM_SHORT, n, 2);
+            scratch.asShortBuffer().put(((ShortBuffer)b).duplicate());
+            scratch.position(p + 5 + n * 2);
+        } else if( b instanceof CharBuffer ) {
+            putElementsHeader(ELEM_CHAR, n, 2);
+            scratch.asCharBuffer().put(((CharBuffer)b).duplicate());
+            scratch.position(p + 5 + n * 2);
+        } else if( b instanceof IntBuffer ) {
+            putElementsHeader(ELEM_INT, n, 4);
+            scratch.asIntBuffer().put(((IntBuffer)b).duplicate());
+            scratch.position(p + 5 + n * 4);
+        } else if( b instanceof LongBuffer ) {
+            putElementsHeader(ELEM_LONG, n, 8);
+            scratch.asLongBuffer().put(((LongBuffer)b).duplicate());
+            scratch.position(p + 5 + n * 8);
+        } else if( b instanceof FloatBuffer ) {
+            putElementsHeader(ELEM_FLOAT, n, 4);
+            scratch.asFloatBuffer().put(((FloatBuffer)b).duplicate());
+            scratch.position(p + 5 + n * 4);
+        } else if( b instanceof DoubleBuffer ) {
+            putElementsHeader(ELEM_DOUBLE, n, 8);
+            scratch.asDoubleBuffer().put(((DoubleBuffer)b).duplicate());
+            scratch.position(p + 5 + n * 8);
+        } else {
+            putByte(ELEM_NULL);
+        }
+    }
+
+    /** Stores the whole given client array. */
+    public final void putArray(byte[] a)   { putBuffer(null != a ? ByteBuffer.wrap(a) : null); }
+    public final void putArray(short[] a)  { putBuffer(null != a ? ShortBuffer.wrap(a) : null); }
+    public final void putArray(char[] a)   { putBuffer(null != a ? CharBuffer.wrap(a) : null); }
+    public final void putArray(int[] a)    { putBuffer(null != a ? IntBuffer.wrap(a) : null); }
+    public final void putArray(long[] a)   { putBuffer(null != a ? LongBuffer.wrap(a) : null); }
+    public final void putArray(float[] a)  { putBuffer(null != a ? FloatBuffer.wrap(a) : null); }
+    public final void putArray(double[] a) { putBuffer(null != a ? DoubleBuffer.wrap(a) : null); }
+
+    /**
+     * Flushes the capture to the file and closes it.
+     * Further calls are not captured.
+     */
+    public final void close() throws IOException {
+        if( null != ring ) {
+            updateHeader();
+            ring.force();
+            ring = null;
+        }
+        if( null != raf ) {
+            raf.close();
+            raf = null;
+        }
+    }
+}
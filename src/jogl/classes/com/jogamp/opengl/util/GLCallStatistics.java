@@ -0,0 +1,273 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ *
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+
+package com.jogamp.opengl.util;
+
+/**
+ * Per entry-point call statistics of a generated <code>Profile</code> composable pipeline,
+ * e.g. <code>javax.media.opengl.ProfileGL4bc</code>.
+ * <p>
+ * Sample code which installs the pipeline and reports the 10 hottest GL calls:
+ * <pre>
+ *   gl = drawable.setGL( GLPipelineFactory.create("javax.media.opengl.Profile", null, gl, null) );
+ *   final GLCallStatistics stats = ((ProfileGL4bc)gl).getCallStatistics();
+ *   ..
+ *   // at the end of display(..)
+ *   stats.frameDone();
+ *   ..
+ *   System.err.println(stats.toString(null, 10, GLCallStatistics.BY_TIME));
+ * </pre>
+ * </p>
+ * <p>
+ * All counters of an entry point are stored adjacent in one primitive <code>long</code> array,
+ * i.e. counting a call touches a single cache line and performs no allocation.
+ * Since a GL pipeline is only used by the thread it's context is current on, counters are not synchronized.
+ * Hence statistics shall be queried on the same thread, e.g. within <code>display(..)</code>.
+ * </p>
+ * <p>
+ * Timing via {@link System#nanoTime()} is sampled, see {@link #setTimingSampleRate(int)},
+ * the total time of an entry point is estimated from it's sampled calls.
+ * Uploaded bytes are counted for buffer and texture data uploads from client memory.
+ * </p>
+ */
+public class GLCallStatistics {
+    /** Sort criteria for {@link #getTopEntries(int, int)}: Number of calls. */
+    public static final int BY_CALLS = 0;
+    /** Sort criteria for {@link #getTopEntries(int, int)}: Estimated time. */
+    public static final int BY_TIME  = 1;
+    /** Sort criteria for {@link #getTopEntries(int, int)}: Uploaded bytes. */
+    public static final int BY_BYTES = 2;
+
+    private static final int CALLS   = 0;
+    private static final int NANOS   = 1;
+    private static final int SAMPLES = 2;
+    private static final int BYTES   = 3;
+    private static final int STRIDE  = 4;
+
+    /** Statistics of one entry point, as returned by {@link GLCallStatistics#getTopEntries(int, int)}. */
+    public static class Entry {
+        public final String name;
+        public final long calls;
+        public final long nanos;
+        public final long bytes;
+        public final int frames;
+
+        Entry(String name, long calls, long nanos, long bytes, int frames) {
+            this.name = name;
+            this.calls = calls;
+            this.nanos = nanos;
+            this.bytes = bytes;
+            this.frames = frames;
+        }
+
+        /** Returns the average number of calls per frame, or the total if no frame has been completed. */
+        public final double getCallsPerFrame() { return perFrame(calls); }
+        /** Returns the average estimated nanoseconds per frame, or the total if no frame has been completed. */
+        public final double getNanosPerFrame() { return perFrame(nanos); }
+        /** Returns the average uploaded bytes per frame, or the total if no frame has been completed. */
+        public final double getBytesPerFrame() { return perFrame(bytes); }
+
+        private final double perFrame(long v) {
+            return 0 < frames ? (double)v / (double)frames : v;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-40s calls %10.1f/f, time %10.3f us/f, bytes %12.1f/f",
+                                 name, getCallsPerFrame(), getNanosPerFrame()/1000.0, getBytesPerFrame());
+        }
+    }
+
+    private final String[] names;
+    private final long[] data;
+    private boolean timing = true;
+    private int sampleRate = 16;
+    private long sampleMask = 15;
+    private int frames = 0;
+
+    /**
+     * @param entryPointNames the names of all entry points, the index of a name being the entry point's index
+     */
+    public GLCallStatistics(String[] entryPointNames) {
+        names = entryPointNames;
+        data = new long[names.length * STRIDE];
+    }
+
+    /** Returns the number of entry points. */
+    public final int getEntryPointCount() { return names.length; }
+
+    /** Returns the name of the given entry point. */
+    public final String getEntryPointName(int idx) { return names[idx]; }
+
+    /**
+     * Sets the timing sample rate, i.e. every <code>rate</code>'s call of an entry point is timed.
+     * <p>
+     * Default is 16.
+     * </p>
+     * @param rate a power of two, 1 to time each call, or 0 to disable timing
+     * @throws IllegalArgumentException if <code>rate</code> is negative or not a power of two
+     */
+    public final void setTimingSampleRate(int rate) throws IllegalArgumentException {
+        if( 0 > rate || ( 0 != rate && 0 != ( rate & ( rate - 1 ) ) ) ) {
+            throw new IllegalArgumentException("Rate not a power of two: "+rate);
+        }
+        sampleRate = rate;
+        timing = 0 < rate;
+        sampleMask = timing ? rate - 1 : 0;
+    }
+
+    /** Returns the timing sample rate, see {@link #setTimingSampleRate(int)}. */
+    public final int getTimingSampleRate() { return sampleRate; }
+
+    /**
+     * Counts a call of the given entry point, invoked by the pipeline before the downstream call.
+     * @return the start time if this call is timed, otherwise 0
+     */
+    public final long begin(int idx) {
+        final long calls = data[idx*STRIDE+CALLS]++;
+        return timing && 0 == ( calls & sampleMask ) ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Invoked by the pipeline after the downstream call.
+     * @param t0 the value returned by {@link #begin(int)}
+     */
+    public final void end(int idx, long t0) {
+        if( 0 != t0 ) {
+            final int o = idx*STRIDE;
+            data[o+NANOS] += System.nanoTime() - t0;
+            data[o+SAMPLES]++;
+        }
+    }
+
+    /** Adds uploaded bytes to the given entry point, invoked by the pipeline. */
+    public final void addBytes(int idx, long bytes) {
+        data[idx*STRIDE+BYTES] += bytes;
+    }
+
+    /** Marks the end of a frame, allowing per frame averages. */
+    public final void frameDone() { frames++; }
+
+    /** Returns the number of frames since the last {@link #reset()}. */
+    public final int getFrameCount() { return frames; }
+
+    /** Clears all counters and the frame count. */
+    public final void reset() {
+        java.util.Arrays.fill(data, 0);
+        frames = 0;
+    }
+
+    /** Returns the number of calls of the given entry point. */
+    public final long getCallCount(int idx) { return data[idx*STRIDE+CALLS]; }
+
+    /** Returns the uploaded bytes of the given entry point. */
+    public final long getBytes(int idx) { return data[idx*STRIDE+BYTES]; }
+
+    /** Returns the estimated time spent in the given entry point in nanoseconds, extrapolated from it's sampled calls. */
+    public final long getEstimatedNanos(int idx) {
+        final int o = idx*STRIDE;
+        final long samples = data[o+SAMPLES];
+        if( 0 == samples ) {
+            return 0;
+        }
+        return (long) ( (double)data[o+NANOS] * ( (double)data[o+CALLS] / (double)samples ) );
+    }
+
+    /** Returns the number of calls of all entry points. */
+    public final long getTotalCallCount() {
+        long sum = 0;
+        for(int o=CALLS; o<data.length; o+=STRIDE) {
+            sum += data[o];
+        }
+        return sum;
+    }
+
+    private final long getValue(int idx, int sortBy) {
+        switch( sortBy ) {
+            case BY_TIME:  return getEstimatedNanos(idx);
+            case BY_BYTES: return getBytes(idx);
+            default:       return getCallCount(idx);
+        }
+    }
+
+    /**
+     * Returns the top <code>n</code> called entry points, sorted descending.
+     * @param n maximum number of entries
+     * @param sortBy one of {@link #BY_CALLS}, {@link #BY_TIME} or {@link #BY_BYTES}
+     */
+    public final Entry[] getTopEntries(int n, int sortBy) {
+        final int[] top = new int[Math.max(0, Math.min(n, names.length))];
+        final long[] topValue = new long[top.length];
+        int count = 0;
+        for(int idx=0; idx<names.length && 0 < top.length; idx++) {
+            if( 0 == getCallCount(idx) ) {
+                continue;
+            }
+            final long v = getValue(idx, sortBy);
+            if( count == top.length && v <= topValue[count-1] ) {
+                continue;
+            }
+            int i = count < top.length ? count++ : count - 1;
+            while( 0 < i && topValue[i-1] < v ) {
+                top[i] = top[i-1];
+                topValue[i] = topValue[i-1];
+                i--;
+            }
+            top[i] = idx;
+            topValue[i] = v;
+        }
+        final Entry[] res = new Entry[count];
+        for(int i=0; i<count; i++) {
+            final int idx = top[i];
+            res[i] = new Entry(names[idx], getCallCount(idx), getEstimatedNanos(idx), getBytes(idx), frames);
+        }
+        return res;
+    }
+
+    /**
+     * Appends the top <code>n</code> entry points, see {@link #getTopEntries(int, int)}.
+     * @param sb optional {@link StringBuilder}, if <code>null</code> a new one is created
+     */
+    public final StringBuilder toString(StringBuilder sb, int n, int sortBy) {
+        if( null == sb ) {
+            sb = new StringBuilder();
+        }
+        sb.append("GLCallStatistics[frames ").append(frames).append(", calls ").append(getTotalCallCount())
+          .append(", timing sample rate ").append(sampleRate).append("]");
+        final Entry[] top = getTopEntries(n, sortBy);
+        for(int i=0; i<top.length; i++) {
+            sb.append(String.format("%n  %3d: ", i+1)).append(top[i]);
+        }
+        return sb;
+    }
+
+    @Override
+    public String toString() {
+        return toString(null, 10, BY_TIME).toString();
+    }
+}
@@ -0,0 +1,198 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ *
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+
+package com.jogamp.opengl.util;
+
+import javax.media.nativewindow.AbstractGraphicsDevice;
+import javax.media.opengl.GLCapabilities;
+import javax.media.opengl.GLCapabilitiesImmutable;
+import javax.media.opengl.GLDrawableFactory;
+import javax.media.opengl.GLException;
+import javax.media.opengl.GLOffscreenAutoDrawable;
+import javax.media.opengl.GLProfile;
+
+import jogamp.opengl.Debug;
+
+/**
+ * Selects a device and {@link GLProfile} for offscreen rendering, e.g. {@link TileRenderer} or
+ * {@link GLReadBufferUtil} based image export in batch jobs, falling back to a software rasterizer
+ * if no hardware rasterizer is available.
+ * <p>
+ * All {@link GLDrawableFactory#getDesktopFactory() desktop} and {@link GLDrawableFactory#getEGLFactory() EGL}
+ * default devices are queried for the requested profiles.
+ * A {@link GLProfile#isHardwareRasterizer() hardware rasterizer} is favored,
+ * otherwise a software rasterizer like Mesa's <i>llvmpipe</i> or <i>softpipe</i> is selected,
+ * as exposed by the platform's GL implementation.
+ * </p>
+ * <p>
+ * The default {@link #RASTERIZER_AUTO auto} selection can be overridden via the property
+ * <code>jogl.util.offscreen.rasterizer</code> using the values <code>hardware</code> or <code>software</code>.
+ * Note that a software rasterizer is only exposed if installed, e.g. Mesa may be forced to use it
+ * via the environment variable <code>LIBGL_ALWAYS_SOFTWARE=1</code> before launching the JVM.
+ * </p>
+ */
+public class GLOffscreenUtil {
+    private static final boolean DEBUG = Debug.debug("GLOffscreenUtil");
+
+    /** Favor a hardware rasterizer, fall back to a software rasterizer. */
+    public static final int RASTERIZER_AUTO = 0;
+    /** Hardware rasterizer only. */
+    public static final int RASTERIZER_HARDWARE = 1;
+    /** Favor a software rasterizer, fall back to a hardware rasterizer, e.g. for reproducible results. */
+    public static final int RASTERIZER_SOFTWARE = 2;
+
+    private static final int DEFAULT_RASTERIZER;
+
+    static {
+        Debug.initSingleton();
+        final String v = Debug.getProperty("jogl.util.offscreen.rasterizer", true);
+        if( "hardware".equals(v) ) {
+            DEFAULT_RASTERIZER = RASTERIZER_HARDWARE;
+        } else if( "software".equals(v) ) {
+            DEFAULT_RASTERIZER = RASTERIZER_SOFTWARE;
+        } else {
+            DEFAULT_RASTERIZER = RASTERIZER_AUTO;
+        }
+    }
+
+    /** Returns the default rasterizer selection, see {@link GLOffscreenUtil}. */
+    public static int getDefaultRasterizer() { return DEFAULT_RASTERIZER; }
+
+    /** Result of {@link GLOffscreenUtil#select(String[], int)}. */
+    public static class Selection {
+        /** The factory owning {@link #device}. */
+        public final GLDrawableFactory factory;
+        /** The factory's default device. */
+        public final AbstractGraphicsDevice device;
+        /** The first available requested profile on {@link #device}. */
+        public final GLProfile glp;
+
+        Selection(GLDrawableFactory factory, AbstractGraphicsDevice device, GLProfile glp) {
+            this.factory = factory;
+            this.device = device;
+            this.glp = glp;
+        }
+
+        /** Returns true if {@link #glp} uses a hardware rasterizer. */
+        public final boolean isHardwareRasterizer() { return glp.isHardwareRasterizer(); }
+
+        @Override
+        public String toString() {
+            return "Selection["+glp+", hardware "+isHardwareRasterizer()+", "+device+"]";
+        }
+    }
+
+    /**
+     * Selects the device and profile, see {@link GLOffscreenUtil}.
+     *
+     * @param profiles the requested profile names in order of preference, e.g. {@link GLProfile#GL_PROFILE_LIST_MAX_PROGSHADER}
+     * @param rasterizer one of {@link #RASTERIZER_AUTO}, {@link #RASTERIZER_HARDWARE} or {@link #RASTERIZER_SOFTWARE}
+     * @return the selection
+     * @throws GLException if none of the requested profiles is available w/ the requested rasterizer
+     */
+    public static Selection select(String[] profiles, int rasterizer) throws GLException {
+        final GLDrawableFactory[] factories = new GLDrawableFactory[] { GLDrawableFactory.getDesktopFactory(), GLDrawableFactory.getEGLFactory() };
+        final boolean favorHardware = RASTERIZER_SOFTWARE != rasterizer;
+        Selection fallback = null;
+        for(int i=0; i<factories.length; i++) {
+            final GLDrawableFactory factory = factories[i];
+            if( null == factory ) {
+                continue;
+            }
+            final AbstractGraphicsDevice device = factory.getDefaultDevice();
+            if( null == device ) {
+                continue;
+            }
+            for(int j=0; j<profiles.length; j++) {
+                if( !GLProfile.isAvailable(device, profiles[j]) ) {
+                    continue;
+                }
+                final GLProfile glp = GLProfile.get(device, profiles[j]);
+                if( DEBUG ) {
+                    System.err.println("GLOffscreenUtil.select: "+profiles[j]+" -> "+glp+", hardware "+glp.isHardwareRasterizer()+", "+device);
+                }
+                if( glp.isHardwareRasterizer() == favorHardware ) {
+                    return new Selection(factory, device, glp);
+                }
+                if( null == fallback && RASTERIZER_HARDWARE != rasterizer ) {
+                    fallback = new Selection(factory, device, glp);
+                }
+            }
+        }
+        if( null != fallback ) {
+            if( DEBUG ) {
+                System.err.println("GLOffscreenUtil.select: fallback "+fallback);
+            }
+            return fallback;
+        }
+        throw new GLException("None of the profiles "+toString(profiles)+" available, rasterizer "+rasterizer);
+    }
+
+    /**
+     * Creates a {@link GLOffscreenAutoDrawable} using the {@link #select(String[], int) selected} device and profile
+     * and the {@link #getDefaultRasterizer() default rasterizer selection}.
+     * <p>
+     * The capabilities are auto-configured to FBO or Pbuffer, whichever is available in that order,
+     * otherwise a bitmap drawable is used,
+     * see {@link GLDrawableFactory#createOffscreenAutoDrawable(AbstractGraphicsDevice, GLCapabilitiesImmutable, javax.media.opengl.GLCapabilitiesChooser, int, int)}.
+     * </p>
+     *
+     * @param profiles the requested profile names in order of preference
+     * @param capsTemplate optional capabilities template, its profile is replaced by the selected one, may be <code>null</code>
+     * @param width the offscreen width, usually the tile width
+     * @param height the offscreen height, usually the tile height
+     * @throws GLException if no profile is available or the drawable could not be created
+     */
+    public static GLOffscreenAutoDrawable createOffscreenAutoDrawable(String[] profiles, GLCapabilitiesImmutable capsTemplate,
+                                                                      int width, int height) throws GLException {
+        final Selection sel = select(profiles, DEFAULT_RASTERIZER);
+        final GLCapabilities caps;
+        if( null != capsTemplate ) {
+            caps = (GLCapabilities) capsTemplate.cloneMutable();
+            caps.setGLProfile(sel.glp);
+        } else {
+            caps = new GLCapabilities(sel.glp);
+        }
+        if( DEBUG ) {
+            System.err.println("GLOffscreenUtil.createOffscreenAutoDrawable: "+sel+", "+caps);
+        }
+        return sel.factory.createOffscreenAutoDrawable(sel.device, caps, null, width, height);
+    }
+
+    private static String toString(String[] profiles) {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("[");
+        for(int i=0; i<profiles.length; i++) {
+            if( 0 < i ) {
+                sb.append(", ");
+            }
+            sb.append(profiles[i]);
+        }
+        return sb.append("]").toString();
+    }
+}
@@ -30,9 +30,12 @@ package com.jogamp.opengl.util;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 import javax.media.opengl.GL;
+import javax.media.opengl.GL2ES3;
 import javax.media.opengl.GL2GL3;
+import javax.media.opengl.GL3ES3;
 import javax.media.opengl.GLAutoDrawable;
 import javax.media.opengl.GLDrawable;
 import javax.media.opengl.GLException;
@@ -48,8 +51,43 @@ import com.jogamp.opengl.util.texture.TextureIO;
 /**
  * Utility to read out the current FB to TextureData, optionally writing the data back to a texture object.
  * <p>May be used directly to write the TextureData to file (screenshot).</p>
+ * <p>
+ * Continuous capturing, e.g. for video encoding, shall use {@link #readPixelsAsync(GL, boolean, PixelsReadListener) readPixelsAsync(..)},
+ * which reads the pixels into a ring of pixel pack buffer objects (PBO)
+ * and delivers the mapped pixels of a previous frame w/o stalling the pipeline.
+ * </p>
  */
 public class GLReadBufferUtil {
+    /**
+     * Listener receiving the pixels read via {@link GLReadBufferUtil#readPixelsAsync(GL, boolean, PixelsReadListener) readPixelsAsync(..)}.
+     */
+    public static interface PixelsReadListener {
+        /**
+         * Called w/ the read pixels of a previous frame.
+         * <p>
+         * The given <code>pixels</code> may be a mapped buffer object,
+         * hence they are only valid within this call and must be copied if required thereafter.
+         * </p>
+         * @param gl the current GL context object
+         * @param pixels the read pixels, position zero and limit at the end of the pixel data
+         * @param pixelAttribs the pixel format and type
+         * @param width the width in pixels
+         * @param height the height in pixels
+         * @param flipVertically true if the pixels must be flipped vertically, see {@link GLReadBufferUtil#readPixels(GL, boolean)}
+         */
+        void pixelsRead(GL gl, ByteBuffer pixels, GLPixelAttributes pixelAttribs, int width, int height, boolean flipVertically);
+    }
+
+    /** Pixel pack buffer object of the asynchronous readback ring. */
+    private static class PBOSlot {
+        int pbo = 0;
+        int size = 0;
+        long sync = 0;
+        int width, height;
+        GLPixelAttributes pixelAttribs;
+        boolean flipVertically;
+    }
+
     protected final GLPixelBufferProvider pixelBufferProvider;
     protected final int componentCount, alignment;
     protected final Texture readTexture;
@@ -58,6 +96,11 @@ public class GLReadBufferUtil {
     protected GLPixelBuffer readPixelBuffer = null;
     protected TextureData readTextureData = null;
 
+    private int asyncDepth = 3;
+    private PBOSlot[] pboSlots = null;
+    private int pboNext = 0, pboPending = 0;
+    private boolean pboUseFences = false;
+
     /**
      * @param alpha true for RGBA readPixels, otherwise RGB readPixels. Disclaimer: Alpha maybe forced on ES platforms!
      * @param write2Texture true if readPixel's TextureData shall be written to a 2d Texture
@@ -248,7 +291,211 @@ public class GLReadBufferUtil {
         return res;
     }
 
+    /**
+     * Sets the depth of the asynchronous readback ring, defaults to 3.
+     * <p>
+     * Using a depth of <code>n</code>, {@link #readPixelsAsync(GL, int, int, int, int, boolean, PixelsReadListener) readPixelsAsync(..)}
+     * of frame <code>N</code> delivers the pixels of frame <code>N-(n-1)</code>.
+     * </p>
+     * <p>
+     * Must be called before the first asynchronous read or after {@link #dispose(GL)}.
+     * </p>
+     * @param depth the number of pixel pack buffer objects, at least 2
+     */
+    public void setAsyncDepth(int depth) {
+        if( 2 > depth ) {
+            throw new IllegalArgumentException("depth < 2: "+depth);
+        }
+        if( null != pboSlots ) {
+            throw new IllegalStateException("Async readback in use");
+        }
+        asyncDepth = depth;
+    }
+
+    /** Returns the depth of the asynchronous readback ring, see {@link #setAsyncDepth(int)}. */
+    public int getAsyncDepth() { return asyncDepth; }
+
+    /** Returns the number of issued asynchronous reads not delivered yet. */
+    public int getAsyncPendingCount() { return pboPending; }
+
+    /**
+     * Returns true if asynchronous reads via pixel pack buffer objects are supported by the given GL,
+     * i.e. GL &ge; 2.1 or ES3.
+     */
+    public static boolean isAsyncReadSupported(GL gl) {
+        return gl.isGL2ES3() && ( gl.isGL3ES3() || gl.isExtensionAvailable("GL_VERSION_2_1") ) &&
+               ( gl.isFunctionAvailable("glMapBufferRange") || gl.isGL2GL3() );
+    }
+
+    /**
+     * Asynchronously read the drawable's pixels, see {@link #readPixelsAsync(GL, int, int, int, int, boolean, PixelsReadListener)}.
+     */
+    public boolean readPixelsAsync(GL gl, boolean mustFlipVertically, PixelsReadListener listener) {
+        return readPixelsAsync(gl, 0, 0, 0, 0, mustFlipVertically, listener);
+    }
+
+    /**
+     * Asynchronously read the drawable's pixels into the next pixel pack buffer object of the readback ring
+     * and deliver the pixels of the oldest pending read to the given listener, if the ring is full.
+     * <p>
+     * The pending pixels are mapped and passed to the listener w/o copying.
+     * Sync objects are used to wait for the completed read, if available (GL3, ES3).
+     * </p>
+     * <p>
+     * If pixel pack buffer objects are not {@link #isAsyncReadSupported(GL) supported},
+     * the pixels are read synchronously via {@link #readPixels(GL, int, int, int, int, boolean)}
+     * and passed to the listener immediately.
+     * </p>
+     * <p>
+     * The {@link #getTexture() texture} is not updated by asynchronous reads.
+     * Use {@link #flushAsync(GL, PixelsReadListener)} to deliver all pending reads, e.g. at the end of a capture.
+     * </p>
+     *
+     * @param gl the current GL context object. It's read drawable is being used as the pixel source.
+     * @param inX readPixel x offset
+     * @param inY readPixel y offset
+     * @param inWidth optional readPixel width value, used if [1 .. drawable.width], otherwise using drawable.width
+     * @param inHeight optional readPixel height, used if [1 .. drawable.height], otherwise using drawable.height
+     * @param mustFlipVertically indicates whether to flip the data vertically or not, see {@link #readPixels(GL, int, int, int, int, boolean)}.
+     * @param listener receiving the pixels of a previous read
+     * @return true if the read has been issued successfully, otherwise false
+     */
+    public boolean readPixelsAsync(GL gl, int inX, int inY, int inWidth, int inHeight, boolean mustFlipVertically, PixelsReadListener listener) {
+        if( !isAsyncReadSupported(gl) ) {
+            final boolean res = readPixels(gl, inX, inY, inWidth, inHeight, mustFlipVertically);
+            if( res ) {
+                if( !( readPixelBuffer.buffer instanceof ByteBuffer ) ) {
+                    throw new GLException("Pixel buffer provider does not use a ByteBuffer: "+readPixelBuffer);
+                }
+                listener.pixelsRead(gl, (ByteBuffer) readPixelBuffer.buffer, readTextureData.getPixelAttributes(),
+                                    readTextureData.getWidth(), readTextureData.getHeight(), readTextureData.getMustFlipVertically());
+                readPixelBuffer.rewind();
+            }
+            return res;
+        }
+        final int glerr0 = gl.glGetError();
+        if(GL.GL_NO_ERROR != glerr0) {
+            System.err.println("Info: GLReadBufferUtil.readPixelsAsync: pre-exisiting GL error 0x"+Integer.toHexString(glerr0));
+        }
+        if( null == pboSlots ) {
+            pboSlots = new PBOSlot[asyncDepth];
+            for(int i=0; i<asyncDepth; i++) {
+                pboSlots[i] = new PBOSlot();
+            }
+            pboUseFences = gl.isGL3ES3() && gl.isFunctionAvailable("glFenceSync");
+        }
+        final GLPixelAttributes pixelAttribs = pixelBufferProvider.getAttributes(gl, componentCount);
+        final GLDrawable drawable = gl.getContext().getGLReadDrawable();
+        final int width = ( 0 >= inWidth || drawable.getWidth() < inWidth ) ? drawable.getWidth() : inWidth;
+        final int height = ( 0 >= inHeight || drawable.getHeight() < inHeight ) ? drawable.getHeight() : inHeight;
+        final boolean flipVertically = drawable.isGLOriented() ? mustFlipVertically : !mustFlipVertically;
+
+        final int tmp[] = new int[1];
+        final int readPixelSize = GLBuffers.sizeof(gl, tmp, pixelAttribs.bytesPerPixel, width, height, 1, true);
+
+        final PBOSlot slot = pboSlots[pboNext];
+        if( 0 == slot.pbo ) {
+            gl.glGenBuffers(1, tmp, 0);
+            slot.pbo = tmp[0];
+        }
+        gl.glBindBuffer(GL2ES3.GL_PIXEL_PACK_BUFFER, slot.pbo);
+        if( slot.size != readPixelSize ) {
+            gl.glBufferData(GL2ES3.GL_PIXEL_PACK_BUFFER, readPixelSize, null, GL2ES3.GL_STREAM_READ);
+            slot.size = readPixelSize;
+        }
+        psm.setAlignment(gl, alignment, alignment);
+        if(gl.isGL2GL3()) {
+            gl.getGL2GL3().glPixelStorei(GL2GL3.GL_PACK_ROW_LENGTH, width);
+        }
+        gl.glReadPixels(inX, inY, width, height, pixelAttribs.format, pixelAttribs.type, 0L);
+        psm.restore(gl);
+        gl.glBindBuffer(GL2ES3.GL_PIXEL_PACK_BUFFER, 0);
+        final int glerr1 = gl.glGetError();
+        if(GL.GL_NO_ERROR != glerr1) {
+            System.err.println("GLReadBufferUtil.readPixelsAsync: readPixels error 0x"+Integer.toHexString(glerr1)+
+                               " "+width+"x"+height+", "+pixelAttribs+", sz "+readPixelSize);
+            return false;
+        }
+        if( pboUseFences ) {
+            slot.sync = gl.getGL3ES3().glFenceSync(GL3ES3.GL_SYNC_GPU_COMMANDS_COMPLETE, 0);
+        }
+        slot.width = width;
+        slot.height = height;
+        slot.pixelAttribs = pixelAttribs;
+        slot.flipVertically = flipVertically;
+        pboNext = ( pboNext + 1 ) % asyncDepth;
+        pboPending++;
+
+        while( pboPending > asyncDepth - 1 ) {
+            deliverOldest(gl, listener);
+        }
+        return true;
+    }
+
+    /**
+     * Delivers all pending asynchronous reads to the given listener,
+     * see {@link #readPixelsAsync(GL, int, int, int, int, boolean, PixelsReadListener)}.
+     *
+     * @return the number of delivered reads
+     */
+    public int flushAsync(GL gl, PixelsReadListener listener) {
+        int n = 0;
+        while( 0 < pboPending ) {
+            deliverOldest(gl, listener);
+            n++;
+        }
+        return n;
+    }
+
+    private void deliverOldest(GL gl, PixelsReadListener listener) {
+        final PBOSlot slot = pboSlots[ ( pboNext - pboPending + asyncDepth ) % asyncDepth ];
+        pboPending--;
+        if( 0 != slot.sync ) {
+            final GL3ES3 gl3 = gl.getGL3ES3();
+            gl3.glClientWaitSync(slot.sync, GL3ES3.GL_SYNC_FLUSH_COMMANDS_BIT, Long.MAX_VALUE);
+            gl3.glDeleteSync(slot.sync);
+            slot.sync = 0;
+        }
+        gl.glBindBuffer(GL2ES3.GL_PIXEL_PACK_BUFFER, slot.pbo);
+        try {
+            final ByteBuffer pixels;
+            if( gl.isFunctionAvailable("glMapBufferRange") ) {
+                pixels = gl.glMapBufferRange(GL2ES3.GL_PIXEL_PACK_BUFFER, 0, slot.size, GL.GL_MAP_READ_BIT);
+            } else {
+                pixels = gl.glMapBuffer(GL2ES3.GL_PIXEL_PACK_BUFFER, GL2GL3.GL_READ_ONLY);
+            }
+            if( null != pixels ) {
+                try {
+                    listener.pixelsRead(gl, pixels, slot.pixelAttribs, slot.width, slot.height, slot.flipVertically);
+                } finally {
+                    gl.glUnmapBuffer(GL2ES3.GL_PIXEL_PACK_BUFFER);
+                }
+            }
+        } finally {
+            gl.glBindBuffer(GL2ES3.GL_PIXEL_PACK_BUFFER, 0);
+        }
+    }
+
+    private void disposeAsync(GL gl) {
+        if( null != pboSlots ) {
+            for(int i=0; i<pboSlots.length; i++) {
+                final PBOSlot slot = pboSlots[i];
+                if( 0 != slot.sync ) {
+                    gl.getGL3ES3().glDeleteSync(slot.sync);
+                }
+                if( 0 != slot.pbo ) {
+                    final int[] tmp = new int[] { slot.pbo };
+                    gl.glDeleteBuffers(1, tmp, 0);
+                }
+            }
+            pboSlots = null;
+        }
+        pboNext = 0;
+        pboPending = 0;
+    }
+
     public void dispose(GL gl) {
+        disposeAsync(gl);
         if(null != readTexture) {
             readTexture.destroy(gl);
             readTextureData = null;
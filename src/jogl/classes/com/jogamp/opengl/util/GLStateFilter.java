@@ -0,0 +1,362 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ *
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+
+package com.jogamp.opengl.util;
+
+import java.util.Arrays;
+
+/**
+ * Shadow state of a generated <code>StateFilter</code> composable pipeline,
+ * e.g. <code>javax.media.opengl.StateFilterGL4bc</code>, dropping redundant state changes
+ * before they reach the GL implementation.
+ * <p>
+ * Sample code which installs the pipeline and reports the eliminated calls:
+ * <pre>
+ *   gl = drawable.setGL( GLPipelineFactory.create("javax.media.opengl.StateFilter", null, gl, null) );
+ *   final GLStateFilter filter = ((StateFilterGL4bc)gl).getStateFilter();
+ *   ..
+ *   System.err.println(filter);
+ * </pre>
+ * </p>
+ * <p>
+ * Filtered are <code>glActiveTexture</code>, <code>glBindTexture</code>, <code>glUseProgram</code>,
+ * <code>glBindBuffer</code>, <code>glBindVertexArray</code> and <code>glEnable</code> / <code>glDisable</code>
+ * of the common texture unit independent capabilities.
+ * The state is shadowed in flat primitive arrays, indexed by texture unit and target.
+ * </p>
+ * <p>
+ * The shadow state is initially unknown, i.e. the first call of each state passes.
+ * Calls which implicitly modify shadowed state, e.g. <code>glDeleteTextures</code> or <code>glPopAttrib</code>,
+ * invalidate the affected state.
+ * If the state is modified bypassing the pipeline, e.g. via the downstream GL instance
+ * or by deleting objects in a shared context, {@link #invalidate()} shall be called.
+ * </p>
+ * <p>
+ * Since a GL pipeline is only used by the thread it's context is current on, the state is not synchronized.
+ * </p>
+ */
+public class GLStateFilter {
+    /** Counter index for {@link #getEliminatedCount(int)} and {@link #getIssuedCount(int)}: <code>glActiveTexture</code> */
+    public static final int ACTIVE_TEXTURE = 0;
+    /** Counter index for {@link #getEliminatedCount(int)} and {@link #getIssuedCount(int)}: <code>glBindTexture</code> */
+    public static final int BIND_TEXTURE = 1;
+    /** Counter index for {@link #getEliminatedCount(int)} and {@link #getIssuedCount(int)}: <code>glUseProgram</code> */
+    public static final int USE_PROGRAM = 2;
+    /** Counter index for {@link #getEliminatedCount(int)} and {@link #getIssuedCount(int)}: <code>glBindBuffer</code> */
+    public static final int BIND_BUFFER = 3;
+    /** Counter index for {@link #getEliminatedCount(int)} and {@link #getIssuedCount(int)}: <code>glBindVertexArray</code> */
+    public static final int BIND_VERTEX_ARRAY = 4;
+    /** Counter index for {@link #getEliminatedCount(int)} and {@link #getIssuedCount(int)}: <code>glEnable</code> and <code>glDisable</code> */
+    public static final int ENABLE = 5;
+    private static final int COUNTER_COUNT = 6;
+    private static final String[] COUNTER_NAMES = { "glActiveTexture", "glBindTexture", "glUseProgram", "glBindBuffer", "glBindVertexArray", "glEnable/glDisable" };
+
+    /** Shadowed texture units. */
+    public static final int MAX_TEXTURE_UNITS = 32;
+
+    private static final int UNKNOWN = -1;
+    private static final byte CAP_UNKNOWN  = 0;
+    private static final byte CAP_DISABLED = 1;
+    private static final byte CAP_ENABLED  = 2;
+
+    private static final int GL_TEXTURE0 = 0x84C0;
+    private static final int TEXTURE_TARGET_COUNT = 12;
+    private static final int BUFFER_TARGET_COUNT = 14;
+    private static final int ELEMENT_ARRAY_BUFFER_IDX = 1;
+    private static final int CAP_COUNT = 20;
+
+    private final long[] eliminated = new long[COUNTER_COUNT];
+    private final long[] issued = new long[COUNTER_COUNT];
+
+    private int activeTexture;
+    private final int[] textures = new int[MAX_TEXTURE_UNITS * TEXTURE_TARGET_COUNT];
+    private int program;
+    private final int[] buffers = new int[BUFFER_TARGET_COUNT];
+    private int vertexArray;
+    private final byte[] caps = new byte[CAP_COUNT];
+
+    public GLStateFilter() {
+        invalidate();
+    }
+
+    private static int getTextureTargetIndex(int target) {
+        switch( target ) {
+            case 0x0DE0: return 0;  // GL_TEXTURE_1D
+            case 0x0DE1: return 1;  // GL_TEXTURE_2D
+            case 0x806F: return 2;  // GL_TEXTURE_3D
+            case 0x8513: return 3;  // GL_TEXTURE_CUBE_MAP
+            case 0x84F5: return 4;  // GL_TEXTURE_RECTANGLE
+            case 0x8C18: return 5;  // GL_TEXTURE_1D_ARRAY
+            case 0x8C1A: return 6;  // GL_TEXTURE_2D_ARRAY
+            case 0x9009: return 7;  // GL_TEXTURE_CUBE_MAP_ARRAY
+            case 0x9100: return 8;  // GL_TEXTURE_2D_MULTISAMPLE
+            case 0x9102: return 9;  // GL_TEXTURE_2D_MULTISAMPLE_ARRAY
+            case 0x8C2A: return 10; // GL_TEXTURE_BUFFER
+            case 0x8D65: return 11; // GL_TEXTURE_EXTERNAL_OES
+            default: return -1;
+        }
+    }
+
+    private static int getBufferTargetIndex(int target) {
+        switch( target ) {
+            case 0x8892: return 0;  // GL_ARRAY_BUFFER
+            case 0x8893: return ELEMENT_ARRAY_BUFFER_IDX; // GL_ELEMENT_ARRAY_BUFFER
+            case 0x88EB: return 2;  // GL_PIXEL_PACK_BUFFER
+            case 0x88EC: return 3;  // GL_PIXEL_UNPACK_BUFFER
+            case 0x8A11: return 4;  // GL_UNIFORM_BUFFER
+            case 0x8C2A: return 5;  // GL_TEXTURE_BUFFER
+            case 0x8C8E: return 6;  // GL_TRANSFORM_FEEDBACK_BUFFER
+            case 0x8F36: return 7;  // GL_COPY_READ_BUFFER
+            case 0x8F37: return 8;  // GL_COPY_WRITE_BUFFER
+            case 0x8F3F: return 9;  // GL_DRAW_INDIRECT_BUFFER
+            case 0x90EE: return 10; // GL_DISPATCH_INDIRECT_BUFFER
+            case 0x90D2: return 11; // GL_SHADER_STORAGE_BUFFER
+            case 0x92C0: return 12; // GL_ATOMIC_COUNTER_BUFFER
+            case 0x9192: return 13; // GL_QUERY_BUFFER
+            default: return -1;
+        }
+    }
+
+    /** Capabilities not depending on the active texture unit. */
+    private static int getCapIndex(int cap) {
+        switch( cap ) {
+            case 0x0BE2: return 0;  // GL_BLEND
+            case 0x0B71: return 1;  // GL_DEPTH_TEST
+            case 0x0B44: return 2;  // GL_CULL_FACE
+            case 0x0C11: return 3;  // GL_SCISSOR_TEST
+            case 0x0B90: return 4;  // GL_STENCIL_TEST
+            case 0x8037: return 5;  // GL_POLYGON_OFFSET_FILL
+            case 0x0BD0: return 6;  // GL_DITHER
+            case 0x809E: return 7;  // GL_SAMPLE_ALPHA_TO_COVERAGE
+            case 0x80A0: return 8;  // GL_SAMPLE_COVERAGE
+            case 0x809D: return 9;  // GL_MULTISAMPLE
+            case 0x8D69: return 10; // GL_PRIMITIVE_RESTART_FIXED_INDEX
+            case 0x8C89: return 11; // GL_RASTERIZER_DISCARD
+            case 0x8DB9: return 12; // GL_FRAMEBUFFER_SRGB
+            case 0x8642: return 13; // GL_PROGRAM_POINT_SIZE
+            case 0x0B50: return 14; // GL_LIGHTING
+            case 0x0B60: return 15; // GL_FOG
+            case 0x0BC0: return 16; // GL_ALPHA_TEST
+            case 0x0BA1: return 17; // GL_NORMALIZE
+            case 0x0B57: return 18; // GL_COLOR_MATERIAL
+            case 0x0B20: return 19; // GL_LINE_SMOOTH
+            default: return -1;
+        }
+    }
+
+    //
+    // Filter, invoked by the generated pipeline.
+    // Each returns true if the call is redundant and shall be dropped,
+    // otherwise it updates the shadow state.
+    //
+
+    public final boolean filterActiveTexture(int texture) {
+        if( texture == activeTexture ) {
+            eliminated[ACTIVE_TEXTURE]++;
+            return true;
+        }
+        activeTexture = texture;
+        issued[ACTIVE_TEXTURE]++;
+        return false;
+    }
+
+    public final boolean filterBindTexture(int target, int texture) {
+        final int unit = activeTexture - GL_TEXTURE0;
+        final int targetIdx = getTextureTargetIndex(target);
+        if( 0 <= unit && unit < MAX_TEXTURE_UNITS && 0 <= targetIdx ) {
+            final int i = unit * TEXTURE_TARGET_COUNT + targetIdx;
+            if( texture == textures[i] ) {
+                eliminated[BIND_TEXTURE]++;
+                return true;
+            }
+            textures[i] = texture;
+        }
+        issued[BIND_TEXTURE]++;
+        return false;
+    }
+
+    public final boolean filterUseProgram(int program) {
+        if( program == this.program ) {
+            eliminated[USE_PROGRAM]++;
+            return true;
+        }
+        this.program = program;
+        issued[USE_PROGRAM]++;
+        return false;
+    }
+
+    public final boolean filterBindBuffer(int target, int buffer) {
+        final int i = getBufferTargetIndex(target);
+        if( 0 <= i ) {
+            if( buffer == buffers[i] ) {
+                eliminated[BIND_BUFFER]++;
+                return true;
+            }
+            buffers[i] = buffer;
+        }
+        issued[BIND_BUFFER]++;
+        return false;
+    }
+
+    public final boolean filterBindVertexArray(int array) {
+        if( array == vertexArray ) {
+            eliminated[BIND_VERTEX_ARRAY]++;
+            return true;
+        }
+        vertexArray = array;
+        // the element array buffer binding is vertex array state
+        buffers[ELEMENT_ARRAY_BUFFER_IDX] = UNKNOWN;
+        issued[BIND_VERTEX_ARRAY]++;
+        return false;
+    }
+
+    public final boolean filterEnable(int cap) {
+        return filterCap(cap, CAP_ENABLED);
+    }
+
+    public final boolean filterDisable(int cap) {
+        return filterCap(cap, CAP_DISABLED);
+    }
+
+    private final boolean filterCap(int cap, byte state) {
+        final int i = getCapIndex(cap);
+        if( 0 <= i ) {
+            if( state == caps[i] ) {
+                eliminated[ENABLE]++;
+                return true;
+            }
+            caps[i] = state;
+        }
+        issued[ENABLE]++;
+        return false;
+    }
+
+    //
+    // Invalidation
+    //
+
+    /** Invalidates all texture bindings, e.g. after <code>glDeleteTextures</code>. */
+    public final void invalidateTextures() {
+        Arrays.fill(textures, UNKNOWN);
+    }
+
+    /** Invalidates the current program, e.g. after <code>glDeleteProgram</code>. */
+    public final void invalidateProgram() {
+        program = UNKNOWN;
+    }
+
+    /** Invalidates the binding of the given buffer target, e.g. after <code>glBindBufferBase</code>. */
+    public final void invalidateBuffer(int target) {
+        final int i = getBufferTargetIndex(target);
+        if( 0 <= i ) {
+            buffers[i] = UNKNOWN;
+        }
+    }
+
+    /** Invalidates all buffer bindings, e.g. after <code>glDeleteBuffers</code>. */
+    public final void invalidateBuffers() {
+        Arrays.fill(buffers, UNKNOWN);
+    }
+
+    /** Invalidates the vertex array binding and the element array buffer binding, e.g. after <code>glDeleteVertexArrays</code>. */
+    public final void invalidateVertexArray() {
+        vertexArray = UNKNOWN;
+        buffers[ELEMENT_ARRAY_BUFFER_IDX] = UNKNOWN;
+    }
+
+    /** Invalidates the given capability, e.g. after <code>glEnablei</code>. */
+    public final void invalidateCap(int cap) {
+        final int i = getCapIndex(cap);
+        if( 0 <= i ) {
+            caps[i] = CAP_UNKNOWN;
+        }
+    }
+
+    /**
+     * Invalidates the whole shadow state, e.g. after <code>glPopAttrib</code>
+     * or if the state has been modified bypassing the pipeline.
+     */
+    public final void invalidate() {
+        activeTexture = UNKNOWN;
+        invalidateTextures();
+        program = UNKNOWN;
+        invalidateBuffers();
+        vertexArray = UNKNOWN;
+        Arrays.fill(caps, CAP_UNKNOWN);
+    }
+
+    //
+    // Counter
+    //
+
+    /** Returns the number of eliminated calls of the given counter, e.g. {@link #BIND_TEXTURE}. */
+    public final long getEliminatedCount(int counter) { return eliminated[counter]; }
+
+    /** Returns the number of passed calls of the given counter, e.g. {@link #BIND_TEXTURE}. */
+    public final long getIssuedCount(int counter) { return issued[counter]; }
+
+    /** Returns the total number of eliminated calls. */
+    public final long getEliminatedCount() {
+        long n = 0;
+        for(int i=0; i<COUNTER_COUNT; i++) {
+            n += eliminated[i];
+        }
+        return n;
+    }
+
+    /** Returns the total number of passed calls, which are subject to filtering. */
+    public final long getIssuedCount() {
+        long n = 0;
+        for(int i=0; i<COUNTER_COUNT; i++) {
+            n += issued[i];
+        }
+        return n;
+    }
+
+    /** Clears all counters, the shadow state is kept. */
+    public final void resetCounter() {
+        Arrays.fill(eliminated, 0);
+        Arrays.fill(issued, 0);
+    }
+
+    public final StringBuilder toString(StringBuilder sb) {
+        if(null == sb) {
+            sb = new StringBuilder();
+        }
+        sb.append("GLStateFilter[eliminated ").append(getEliminatedCount()).append(" of ").append(getEliminatedCount()+getIssuedCount());
+        for(int i=0; i<COUNTER_COUNT; i++) {
+            sb.append(", ").append(COUNTER_NAMES[i]).append(' ').append(eliminated[i]).append('/').append(eliminated[i]+issued[i]);
+        }
+        return sb.append(']');
+    }
+
+    @Override
+    public String toString() {
+        return toString(null).toString();
+    }
+}
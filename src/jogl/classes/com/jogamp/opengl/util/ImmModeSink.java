@@ -11,6 +11,7 @@ import java.util.Iterator;
 import javax.media.opengl.GL;
 import javax.media.opengl.GL2ES1;
 import javax.media.opengl.GL2ES2;
+import javax.media.opengl.GL2GL3;
 import javax.media.opengl.GLException;
 import javax.media.opengl.fixedfunc.GLPointerFunc;
 
@@ -46,6 +47,11 @@ import com.jogamp.opengl.util.glsl.ShaderState;
  * Note: Optional types, i.e. color, must be either not used or used w/ the same element count as vertex, etc.
  * This is a semantic constraint, same as in the original OpenGL spec.
  * </p>
+ * <p>
+ * If {@link #setBatching(GL, boolean) batching} is enabled, consecutive immediate {@link #glEnd(GL)} blocks
+ * sharing the same mode and array layout are accumulated and drawn together
+ * when the mode or layout changes or {@link #flush(GL)} is called, e.g. at the end of a frame.
+ * </p>
  */
 public class ImmModeSink {
   protected static final boolean DEBUG_BEGIN_END;
@@ -160,6 +166,7 @@ public class ImmModeSink {
 
   public void destroy(GL gl) {
     destroyList(gl);
+    resetBatch();
 
     vboSet.destroy(gl);
   }
@@ -170,9 +177,50 @@ public class ImmModeSink {
 
   public void reset(GL gl) {
     destroyList(gl);
+    resetBatch();
     vboSet.reset(gl);
   }
 
+  /**
+   * Enables or disables batching of consecutive immediate {@link #glEnd(GL)} blocks.
+   * <p>
+   * If enabled, each immediate {@link #glEnd(GL)} w/o indices only records the block.
+   * Consecutive blocks sharing the same mode and array layout are collected in one buffer
+   * and drawn w/ a single {@link GL#glDrawArrays(int, int, int) glDrawArrays}
+   * (points, lines, triangles and quads) or {@link GL2GL3#glMultiDrawArrays(int, int[], int, int[], int, int) glMultiDrawArrays}
+   * (strips, fans, loops and polygons) once the mode or layout changes, or {@link #flush(GL)} is called.
+   * </p>
+   * <p>
+   * The user shall {@link #flush(GL)} the batch before changing any GL state the drawing depends on,
+   * e.g. matrices, uniforms or textures, and at the end of each frame.
+   * </p>
+   * <p>
+   * Disabling batching flushes the pending batch.
+   * </p>
+   */
+  public void setBatching(GL gl, boolean enable) {
+    if( !enable ) {
+        flush(gl);
+    }
+    batching = enable;
+  }
+
+  /** Returns true if batching is enabled, see {@link #setBatching(GL, boolean)}. */
+  public boolean getBatching() { return batching; }
+
+  /** Returns the number of pending batched blocks, see {@link #setBatching(GL, boolean)}. */
+  public int getBatchedBlockCount() { return batchSize; }
+
+  /**
+   * Draws all pending batched blocks, see {@link #setBatching(GL, boolean)}.
+   */
+  public void flush(GL gl) {
+    if( 0 < batchSize ) {
+        drawBatch(gl);
+        vboSet.reset(gl);
+    }
+  }
+
   @Override
   public String toString() {
     StringBuilder sb = new StringBuilder("ImmModeSink[");
@@ -242,8 +290,17 @@ public class ImmModeSink {
 
   private void glEnd(GL gl, Buffer indices, boolean immediateDraw) {
     if(DEBUG_BEGIN_END) {
-        System.err.println("ImmModeSink START glEnd(immediate: "+immediateDraw+")");
+        System.err.println("ImmModeSink START glEnd(immediate: "+immediateDraw+", batching "+batching+")");
+    }
+    if( batching && immediateDraw && null == indices ) {
+        addBatchBlock(gl);
+        if(DEBUG_BEGIN_END) {
+            System.err.println("ImmModeSink END glEnd(batched "+batchSize+")");
+        }
+        return;
     }
+    // draw pending batch, leaving only this block
+    drawBatch(gl);
     if(immediateDraw) {
         vboSet.seal(gl, true);
         vboSet.draw(gl, indices, true, -1);
@@ -399,9 +456,66 @@ public class ImmModeSink {
     vboSetList.clear();
   }
 
+  private void addBatchBlock(GL gl) {
+    final VBOSet s = vboSet;
+    if( s.vElems <= batchV ) {
+        return; // empty block
+    }
+    if( 0 < batchSize &&
+        ( s.modeOrig != batchModeOrig ||
+          ( 0 < batchC ) != ( s.cElems > batchC ) ||
+          ( 0 < batchN ) != ( s.nElems > batchN ) ||
+          ( 0 < batchT ) != ( s.tElems > batchT ) ) ) {
+        // incompatible w/ pending batch
+        drawBatch(gl);
+    }
+    if( batchSize == batchFirst.length ) {
+        final int[] first = new int[2*batchSize];
+        final int[] count = new int[2*batchSize];
+        System.arraycopy(batchFirst, 0, first, 0, batchSize);
+        System.arraycopy(batchCount, 0, count, 0, batchSize);
+        batchFirst = first;
+        batchCount = count;
+    }
+    batchFirst[batchSize] = batchV;
+    batchCount[batchSize] = s.vElems - batchV;
+    batchSize++;
+    batchModeOrig = s.modeOrig;
+    batchMode = s.mode;
+    batchV = s.vElems;
+    batchC = s.cElems;
+    batchN = s.nElems;
+    batchT = s.tElems;
+  }
+
+  /** Draws the pending batch, leaving elements beyond the batch in the current set. */
+  private void drawBatch(GL gl) {
+    if( 0 < batchSize ) {
+        vboSet.drawBatch(gl, batchMode, batchFirst, batchCount, batchSize, batchV, batchC, batchN, batchT);
+        resetBatch();
+    }
+  }
+
+  private void resetBatch() {
+    batchSize = 0;
+    batchModeOrig = 0;
+    batchMode = 0;
+    batchV = 0;
+    batchC = 0;
+    batchN = 0;
+    batchT = 0;
+  }
+
   private VBOSet vboSet;
   private final ArrayList<VBOSet> vboSetList;
 
+  private boolean batching = false;
+  private int batchSize = 0;
+  private int[] batchFirst = new int[16];
+  private int[] batchCount = new int[16];
+  private int batchModeOrig, batchMode;
+  private int batchV, batchC, batchN, batchT; // element counts of the pending batch
+
   protected static class VBOSet {
     protected VBOSet (int initialElementCount,
                       int vComps, int vDataType,
@@ -516,9 +630,7 @@ public class ImmModeSink {
         if (buffer!=null) {
             if(null==indices) {
                 if ( GL_QUADS == mode && !gl.isGL2() ) {
-                    for (int j = 0; j < vElems - 3; j += 4) {
-                        gl.glDrawArrays(GL.GL_TRIANGLE_FAN, j, 4);
-                    }
+                    drawQuads(gl, vElems);
                 } else {
                     gl.glDrawArrays(mode, 0, vElems);
                 }
@@ -573,6 +685,107 @@ public class ImmModeSink {
         }
     }
 
+    /**
+     * Draws the first <code>vE</code> vertices, i.e. the <code>n</code> batched blocks given by <code>first</code> and <code>count</code>,
+     * w/ the given mode.
+     * <p>
+     * Pending elements beyond the batch are moved to the front of each array thereafter,
+     * leaving this set unsealed to collect further blocks.
+     * </p>
+     */
+    protected void drawBatch(GL gl, int batchMode, int[] first, int[] count, int n, int vE, int cE, int nE, int tE) {
+        final int vP = vElems, cP = cElems, nP = nElems, tP = tElems;
+        final int modeP = mode;
+        vElems = vE; cElems = cE; nElems = nE; tElems = tE;
+        mode = batchMode;
+        seal(gl, true);
+
+        if(null != shaderState || 0 != shaderProgram) {
+            useShaderProgram(gl.getGL2ES2(), false);
+        }
+        if(DEBUG_DRAW) {
+            System.err.println("ImmModeSink.drawBatch: "+n+" blocks, "+vE+" vertices:\n\t"+this);
+        }
+        if ( GL_QUADS == mode && !gl.isGL2() ) {
+            drawQuads(gl, vE);
+        } else if( 1 == n || GL.GL_POINTS == mode || GL.GL_LINES == mode || GL.GL_TRIANGLES == mode || GL_QUADS == mode ) {
+            gl.glDrawArrays(mode, 0, vE);
+        } else if( gl.isGL2GL3() ) {
+            gl.getGL2GL3().glMultiDrawArrays(mode, first, 0, count, 0, n);
+        } else {
+            for(int i=0; i<n; i++) {
+                gl.glDrawArrays(mode, first[i], count[i]);
+            }
+        }
+
+        seal(gl, false);
+        mode = modeP;
+        vElems = compact(vertexArray, vOffset, vCompsBytes, vComps, vE, vP);
+        cElems = compact(colorArray, cOffset, cCompsBytes, cComps, cE, cP);
+        nElems = compact(normalArray, nOffset, nCompsBytes, nComps, nE, nP);
+        tElems = compact(textCoordArray, tOffset, tCompsBytes, tComps, tE, tP);
+    }
+
+    /** Moves elements [from..to[ of the given array to it's front and returns their count. */
+    private int compact(Buffer array, int offset, int compsBytes, int comps, int from, int to) {
+        if( null == array ) {
+            return 0;
+        }
+        final int count = to - from;
+        if( 0 < count && 0 < from ) {
+            final ByteBuffer src = buffer.duplicate();
+            src.limit(offset + to * compsBytes);
+            src.position(offset + from * compsBytes);
+            final ByteBuffer dst = buffer.duplicate();
+            dst.limit(dst.capacity());
+            dst.position(offset);
+            dst.put(src);
+        }
+        array.position(count * comps);
+        return count;
+    }
+
+    /**
+     * Draws <code>count</code> quad vertices starting at zero as triangles
+     * using a generated index buffer, if the quad count fits into unsigned short indices.
+     * <p>
+     * The caller's {@link GL#GL_ELEMENT_ARRAY_BUFFER} binding, being part of a bound vertex array object's state,
+     * is restored afterwards.
+     * </p>
+     */
+    private void drawQuads(GL gl, int count) {
+        final int quads = count / 4;
+        if( 0 == quads ) {
+            return;
+        }
+        if( 4 * quads > 0x10000 ) {
+            for (int j = 0; j < count - 3; j += 4) {
+                gl.glDrawArrays(GL.GL_TRIANGLE_FAN, j, 4);
+            }
+            return;
+        }
+        if( 0 == quadIndexVBO ) {
+            final int[] tmp = new int[1];
+            gl.glGenBuffers(1, tmp, 0);
+            quadIndexVBO = tmp[0];
+        }
+        final int prevIndexVBO = gl.glGetBoundBuffer(GL.GL_ELEMENT_ARRAY_BUFFER);
+        gl.glBindBuffer(GL.GL_ELEMENT_ARRAY_BUFFER, quadIndexVBO);
+        if( quadIndexCount < quads ) {
+            quadIndexCount = Math.min( 0x4000, ( quads + 255 ) & ~255 );
+            final ShortBuffer indices = Buffers.newDirectShortBuffer(6 * quadIndexCount);
+            for(int q=0; q<quadIndexCount; q++) {
+                final int v = 4 * q;
+                indices.put((short)v).put((short)(v+1)).put((short)(v+2));
+                indices.put((short)v).put((short)(v+2)).put((short)(v+3));
+            }
+            indices.flip();
+            gl.glBufferData(GL.GL_ELEMENT_ARRAY_BUFFER, indices.limit() * Buffers.SIZEOF_SHORT, indices, GL.GL_STATIC_DRAW);
+        }
+        gl.glDrawElements(GL.GL_TRIANGLES, 6 * quads, GL.GL_UNSIGNED_SHORT, 0);
+        gl.glBindBuffer(GL.GL_ELEMENT_ARRAY_BUFFER, prevIndexVBO);
+    }
+
     public void glVertexv(Buffer v) {
         checkSeal(false);
         Buffers.put(vertexArray, v);
@@ -905,6 +1118,12 @@ public class ImmModeSink {
 
     public void destroy(GL gl) {
         reset(gl);
+        if( 0 != quadIndexVBO && null != gl ) {
+            final int[] tmp = new int[] { quadIndexVBO };
+            gl.glDeleteBuffers(1, tmp, 0);
+        }
+        quadIndexVBO = 0;
+        quadIndexCount = 0;
 
         vCount=0; cCount=0; nCount=0; tCount=0;
         vertexArray=null; colorArray=null; normalArray=null; textCoordArray=null;
@@ -1476,6 +1695,7 @@ public class ImmModeSink {
 
     private ByteBuffer buffer;
     private int vboName;
+    private int quadIndexVBO = 0, quadIndexCount = 0;
 
     private static final int VERTEX = 0;
     private static final int COLOR = 1;
@@ -0,0 +1,414 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ *
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+
+package com.jogamp.opengl.util;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+
+import javax.media.opengl.GLAutoDrawable;
+import javax.media.opengl.GLContext;
+
+/**
+ * {@link AnimatorBase.AnimatorImpl} rendering each {@link GLAutoDrawable}
+ * on its own display worker thread, see {@link AnimatorBase#MODE_PARALLEL_DISPLAY}.
+ * <p>
+ * {@link GLAutoDrawable}s whose {@link GLContext} is shared are grouped
+ * and rendered sequentially on the same worker thread.
+ * </p>
+ * <p>
+ * All workers render their group w/ disabled {@link GLAutoDrawable#setAutoSwapBufferMode(boolean) auto swap buffer mode},
+ * meet at a frame barrier and swap their drawables thereafter.
+ * Hence the frame time approaches the one of the slowest group instead of the sum of all.
+ * </p>
+ */
+class ParallelAnimatorImpl implements AnimatorBase.AnimatorImpl {
+    private static final boolean DEBUG = AnimatorBase.DEBUG;
+
+    private final ArrayList<Worker> workers = new ArrayList<Worker>();
+    private final IdentityHashMap<GLAutoDrawable, Worker> drawable2Worker = new IdentityHashMap<GLAutoDrawable, Worker>();
+    /** Snapshot of the drawable list the current worker assignment is based on. */
+    private final ArrayList<GLAutoDrawable> assigned = new ArrayList<GLAutoDrawable>();
+    private CyclicBarrier swapBarrier = null;
+    private int workerNo = 0;
+
+    /** Frame state, guarded by <code>this</code>. */
+    private long frameNo = 0;
+    private int pendingWorker = 0;
+    private Throwable frameException = null;
+
+    @Override
+    public void display(ArrayList<GLAutoDrawable> drawables,
+                        boolean ignoreExceptions,
+                        boolean printExceptions) {
+        final Throwable ex;
+        synchronized(this) {
+            validateAssignment(drawables);
+            final int workerCount = workers.size();
+            if( 0 == workerCount ) {
+                return;
+            }
+            frameException = null;
+            pendingWorker = workerCount;
+            frameNo++;
+            notifyAll();
+            waitForPendingWorker();
+            ex = frameException;
+            frameException = null;
+            if( null != swapBarrier && swapBarrier.isBroken() ) {
+                swapBarrier.reset(); // all workers are idle, re-arm for the next frame
+            }
+        }
+        if( null != ex ) {
+            if (ignoreExceptions) {
+                if (printExceptions) {
+                    ex.printStackTrace();
+                }
+            } else if( ex instanceof RuntimeException ) {
+                throw (RuntimeException)ex;
+            } else if( ex instanceof Error ) {
+                throw (Error)ex;
+            } else {
+                throw new RuntimeException(ex);
+            }
+        }
+    }
+
+    @Override
+    public boolean blockUntilDone(Thread thread) {
+        return Thread.currentThread() != thread && !isWorkerThread(Thread.currentThread());
+    }
+
+    /**
+     * Returns the display worker thread of the given drawable,
+     * creating the worker assignment if required.
+     * <p>
+     * Used as the exclusive context thread of the drawable,
+     * see {@link AnimatorBase#setExclusiveContext(boolean)}.
+     * </p>
+     */
+    synchronized Thread getDisplayThread(GLAutoDrawable drawable, List<GLAutoDrawable> drawables) {
+        Worker w = drawable2Worker.get(drawable);
+        if( null == w && !isWorkerThread(Thread.currentThread()) ) {
+            waitForPendingWorker();
+            validateAssignment(drawables);
+            w = drawable2Worker.get(drawable);
+        }
+        return null != w ? w.thread : null;
+    }
+
+    /**
+     * Terminates and joins all display worker threads and restores
+     * the {@link GLAutoDrawable#setAutoSwapBufferMode(boolean) auto swap buffer mode}
+     * of all assigned drawables.
+     * <p>
+     * Shall be called by the animator thread after it's last {@link #display(ArrayList, boolean, boolean)}.
+     * </p>
+     */
+    synchronized void stop() {
+        waitForPendingWorker();
+        releaseAssignment();
+    }
+
+    private synchronized boolean isWorkerThread(Thread t) {
+        for(int i=0; i<workers.size(); i++) {
+            if( workers.get(i).thread == t ) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Waits until all workers have finished the current frame, caller holds the lock. */
+    private void waitForPendingWorker() {
+        while( 0 < pendingWorker ) {
+            try {
+                wait();
+            } catch (InterruptedException ie) { }
+        }
+    }
+
+    /**
+     * Rebuilds the worker assignment if the given drawable list differs
+     * from the one of the current assignment.
+     * <p>
+     * Method is called while holding the lock and all workers are idle.
+     * </p>
+     * <p>
+     * Drawables whose exclusive context thread is their current worker
+     * are released by the retiring worker and re-bound to their new worker thread.
+     * </p>
+     */
+    private void validateAssignment(List<GLAutoDrawable> drawables) {
+        boolean changed = drawables.size() != assigned.size();
+        for(int i=0; !changed && i<drawables.size(); i++) {
+            changed = drawables.get(i) != assigned.get(i);
+        }
+        if( !changed ) {
+            return;
+        }
+        final ArrayList<GLAutoDrawable> rebind = new ArrayList<GLAutoDrawable>();
+        for(int i=0; i<workers.size(); i++) {
+            workers.get(i).releaseExclusiveContext(drawables, rebind);
+        }
+        releaseAssignment();
+        for(int i=0; i<drawables.size(); i++) {
+            final GLAutoDrawable drawable = drawables.get(i);
+            Worker w = findSharedWorker(drawable);
+            if( null == w ) {
+                w = new Worker(workerNo++);
+                workers.add(w);
+            }
+            w.add(drawable);
+            drawable2Worker.put(drawable, w);
+            assigned.add(drawable);
+        }
+        if( 0 < workers.size() ) {
+            swapBarrier = new CyclicBarrier(workers.size());
+        }
+        for(int i=0; i<workers.size(); i++) {
+            workers.get(i).start();
+        }
+        for(int i=0; i<rebind.size(); i++) {
+            final GLAutoDrawable drawable = rebind.get(i);
+            try {
+                drawable.setExclusiveContextThread( drawable2Worker.get(drawable).thread );
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+        if(DEBUG) {
+            System.err.println("ParallelAnimatorImpl: Assigned "+drawables.size()+" drawables to "+workers.size()+" worker, re-bound "+rebind.size()+" exclusive contexts - "+Thread.currentThread().getName());
+        }
+    }
+
+    private Worker findSharedWorker(GLAutoDrawable drawable) {
+        final GLContext ctx = drawable.getContext();
+        if( null == ctx || !ctx.isShared() ) {
+            return null;
+        }
+        final List<GLContext> shares = ctx.getCreatedShares();
+        for(int i=0; i<assigned.size(); i++) {
+            final GLAutoDrawable other = assigned.get(i);
+            if( shares.contains(other.getContext()) ) {
+                return drawable2Worker.get(other);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Stops all workers and joins their threads, caller holds the lock.
+     * <p>
+     * Joining is skipped for the calling thread, if it is a worker itself.
+     * </p>
+     */
+    private void releaseAssignment() {
+        for(int i=0; i<workers.size(); i++) {
+            workers.get(i).stop();
+        }
+        notifyAll();
+        final Thread current = Thread.currentThread();
+        for(int i=0; i<workers.size(); i++) {
+            final Worker w = workers.get(i);
+            if( w.thread != current && w.thread.isAlive() ) {
+                while( !w.stopped ) {
+                    try {
+                        wait();
+                    } catch (InterruptedException ie) { }
+                }
+                try {
+                    w.thread.join(); // worker left the monitor, no further locking involved
+                } catch (InterruptedException ie) { }
+            }
+        }
+        for(int i=0; i<workers.size(); i++) {
+            workers.get(i).restoreSwapMode();
+        }
+        workers.clear();
+        drawable2Worker.clear();
+        assigned.clear();
+        swapBarrier = null;
+    }
+
+    private final synchronized void workerDone(Throwable ex) {
+        if( null != ex && null == frameException ) {
+            frameException = ex;
+        }
+        pendingWorker--;
+        notifyAll();
+    }
+
+    private final class Worker implements Runnable {
+        private final ArrayList<GLAutoDrawable> group = new ArrayList<GLAutoDrawable>();
+        private final ArrayList<GLAutoDrawable> swapDeferred = new ArrayList<GLAutoDrawable>();
+        /** Drawables whose exclusive context must be released by this worker before it terminates. */
+        private final ArrayList<GLAutoDrawable> releaseDeferred = new ArrayList<GLAutoDrawable>();
+        private final Thread thread;
+        /** Guarded by the outer {@link ParallelAnimatorImpl} instance. */
+        private boolean shouldStop = false;
+        /** Guarded by the outer {@link ParallelAnimatorImpl} instance. */
+        private boolean stopped = false;
+        private long lastFrameNo;
+
+        Worker(int no) {
+            thread = new Thread(this, Thread.currentThread().getName()+"-ParallelDisplay-"+no);
+            thread.setDaemon(true);
+        }
+
+        void add(GLAutoDrawable drawable) {
+            group.add(drawable);
+            if( drawable.getAutoSwapBufferMode() ) {
+                drawable.setAutoSwapBufferMode(false);
+                swapDeferred.add(drawable);
+            }
+        }
+
+        void start() {
+            lastFrameNo = frameNo;
+            thread.start();
+        }
+
+        void stop() {
+            shouldStop = true;
+        }
+
+        /**
+         * Requests the release of all exclusive contexts bound to this worker's thread,
+         * performed by the worker itself before it terminates.
+         * Drawables still contained in <code>drawables</code> are added to <code>rebind</code>.
+         */
+        void releaseExclusiveContext(List<GLAutoDrawable> drawables, List<GLAutoDrawable> rebind) {
+            for(int i=0; i<group.size(); i++) {
+                final GLAutoDrawable drawable = group.get(i);
+                if( thread == drawable.getExclusiveContextThread() ) {
+                    drawable.setExclusiveContextThread(null);
+                    releaseDeferred.add(drawable);
+                    if( drawables.contains(drawable) ) {
+                        rebind.add(drawable);
+                    }
+                }
+            }
+        }
+
+        void restoreSwapMode() {
+            for(int i=0; i<swapDeferred.size(); i++) {
+                swapDeferred.get(i).setAutoSwapBufferMode(true);
+            }
+            swapDeferred.clear();
+        }
+
+        @Override
+        public void run() {
+            final CyclicBarrier barrier;
+            synchronized(ParallelAnimatorImpl.this) {
+                barrier = swapBarrier;
+            }
+            try {
+                while( true ) {
+                    synchronized(ParallelAnimatorImpl.this) {
+                        while( !shouldStop && lastFrameNo == frameNo ) {
+                            try {
+                                ParallelAnimatorImpl.this.wait();
+                            } catch (InterruptedException ie) { }
+                        }
+                        if( shouldStop ) {
+                            break;
+                        }
+                        lastFrameNo = frameNo;
+                    }
+                    Throwable ex = null;
+                    try {
+                        ex = displayFrame(barrier);
+                    } catch (Throwable t) {
+                        ex = t;
+                    } finally {
+                        workerDone(ex);
+                    }
+                }
+                // An exclusive context is only released by a display() call on its own thread
+                for(int i=0; i<releaseDeferred.size(); i++) {
+                    try {
+                        releaseDeferred.get(i).display();
+                    } catch (Throwable t) {
+                        t.printStackTrace();
+                    }
+                }
+            } finally {
+                synchronized(ParallelAnimatorImpl.this) {
+                    stopped = true;
+                    ParallelAnimatorImpl.this.notifyAll();
+                }
+                if(DEBUG) {
+                    System.err.println("ParallelAnimatorImpl: Worker stopped - "+thread.getName());
+                }
+            }
+        }
+
+        /** Renders and swaps this worker's group, returns the first caught exception or <code>null</code>. */
+        private Throwable displayFrame(CyclicBarrier barrier) {
+            Throwable ex = null;
+            for(int i=0; i<group.size(); i++) {
+                try {
+                    group.get(i).display();
+                } catch (Throwable t) {
+                    if( null == ex ) {
+                        ex = t;
+                    }
+                }
+            }
+            try {
+                barrier.await(); // frame barrier: swap all drawables together
+            } catch (InterruptedException ie) {
+                if( null == ex ) {
+                    ex = new RuntimeException(thread.getName()+": Interrupted at frame barrier", ie);
+                }
+            } catch (BrokenBarrierException bbe) {
+                if( null == ex ) {
+                    ex = new RuntimeException(thread.getName()+": Frame barrier broken", bbe);
+                }
+            }
+            for(int i=0; i<swapDeferred.size(); i++) {
+                final GLAutoDrawable drawable = swapDeferred.get(i);
+                try {
+                    if( drawable.isRealized() ) {
+                        drawable.swapBuffers();
+                    }
+                } catch (Throwable t) {
+                    if( null == ex ) {
+                        ex = t;
+                    }
+                }
+            }
+            return ex;
+        }
+    }
+}
@@ -36,6 +36,8 @@
  */
 package com.jogamp.opengl.util;
 
+import java.nio.ByteBuffer;
+
 import javax.media.nativewindow.util.Dimension;
 import javax.media.nativewindow.util.DimensionImmutable;
 import javax.media.opengl.GL;
@@ -60,6 +62,14 @@ import com.jogamp.opengl.util.GLPixelBuffer.GLPixelAttributes;
  * <p>
  * See {@link TileRendererBase} for details.
  * </p>
+ * <a name="streaming"><h5>Streaming Tile Rows</h5></a>
+ * <p>
+ * Instead of holding the final image in an {@link #setImageBuffer(GLPixelBuffer) image buffer},
+ * completed tile rows can be streamed to a {@link TileRowSink}, see {@link #setTileRowSink(TileRowSink, GLPixelAttributes, boolean, int)}.
+ * Only a few row strips of <code>clipped-image-width x tile-height</code> are held in memory,
+ * while the rows are flipped, {@link TileRowSink#processRow(TileRenderer, TileRow) processed} and
+ * {@link TileRowSink#writeRow(TileRenderer, TileRow) written} on worker threads as the next rows render.
+ * </p>
  *
  * @author ryanm, sgothel
  */
@@ -125,6 +135,86 @@ public class TileRenderer extends TileRendererBase {
      */
     public static final int TR_BOTTOM_TO_TOP = 21;
 
+    /**
+     * Strip of a completed tile row, see {@link TileRowSink}.
+     * <p>
+     * The pixels are only valid within the {@link TileRowSink} callbacks
+     * and are reused for subsequent rows thereafter.
+     * </p>
+     */
+    public static final class TileRow {
+        private final GLPixelAttributes pixelAttribs;
+        /* pp */ ByteBuffer buffer;
+        /* pp */ long seq;
+        /* pp */ int row, imageY, width, height;
+        /* pp */ boolean flipped;
+
+        /* pp */ TileRow(GLPixelAttributes pixelAttribs) {
+            this.pixelAttribs = pixelAttribs;
+        }
+
+        /** Returns the {@link TileRenderer#TR_CURRENT_ROW tile row number}. */
+        public final int getRow() { return row; }
+
+        /**
+         * Returns the y-position of the first line of {@link #getPixels() pixels} within the clipped image,
+         * i.e. using a top-left origin if {@link #isFlipped() flipped}, otherwise a bottom-left origin.
+         */
+        public final int getImageY() { return imageY; }
+
+        /** Returns the width in pixels, i.e. the clipped image width. */
+        public final int getWidth() { return width; }
+
+        /** Returns the height in lines. */
+        public final int getHeight() { return height; }
+
+        /** Returns true if the lines are ordered top to bottom, otherwise in OpenGL's bottom to top order. */
+        public final boolean isFlipped() { return flipped; }
+
+        public final GLPixelAttributes getPixelAttributes() { return pixelAttribs; }
+
+        /**
+         * Returns the tightly packed pixels, position zero and limit at the end of the pixel data.
+         * <p>
+         * {@link TileRowSink#processRow(TileRenderer, TileRow)} may modify the pixels in place.
+         * </p>
+         */
+        public final ByteBuffer getPixels() { return buffer; }
+
+        @Override
+        public String toString() {
+            return "TileRow[row "+row+", y "+imageY+", "+width+"x"+height+", flipped "+flipped+", "+pixelAttribs+"]";
+        }
+    }
+
+    /**
+     * Sink receiving completed tile rows in streaming mode,
+     * see {@link TileRenderer#setTileRowSink(TileRowSink, GLPixelAttributes, boolean, int)}.
+     */
+    public static interface TileRowSink {
+        /**
+         * Called on a worker thread after the optional vertical flip, e.g. for format conversion or filtering.
+         * <p>
+         * Method is called concurrently for different rows, hence implementation must be thread safe.
+         * </p>
+         * @param tr the issuing {@link TileRenderer}
+         * @param row the completed row
+         */
+        public void processRow(TileRenderer tr, TileRow row);
+
+        /**
+         * Called on a worker thread after {@link #processRow(TileRenderer, TileRow)},
+         * one row at a time in order of rendering, e.g. to write the row to an image encoder or mapped file.
+         * <p>
+         * Use {@link TileRenderer#TR_TOP_TO_BOTTOM} {@link TileRenderer#setRowOrder(int) row order}
+         * and flipped rows to write an image top to bottom.
+         * </p>
+         * @param tr the issuing {@link TileRenderer}
+         * @param row the completed row
+         */
+        public void writeRow(TileRenderer tr, TileRow row);
+    }
+
     private static final int DEFAULT_TILE_WIDTH = 256;
     private static final int DEFAULT_TILE_HEIGHT = 256;
     private static final int DEFAULT_TILE_BORDER = 0;
@@ -143,6 +233,7 @@ public class TileRenderer extends TileRendererBase {
     private int currentColumn;
     private int offsetX;
     private int offsetY;
+    private TileRowStreamer rowStreamer = null;
 
     @Override
     protected StringBuilder tileDetails(StringBuilder sb) {
@@ -260,6 +351,56 @@ public class TileRenderer extends TileRendererBase {
         offsetY = yoff;
     }
 
+    /**
+     * Enables or disables <a href="#streaming">streaming</a> of completed tile rows to the given {@link TileRowSink}.
+     * <p>
+     * Each completed row is read into a strip of <code>clipped-image-width x row-height</code> pixels
+     * using the given {@link GLPixelAttributes} and queued for the worker threads.
+     * The row strips are independent of an optional {@link #setImageBuffer(GLPixelBuffer) image buffer},
+     * hence the latter is usually not set in streaming mode.
+     * </p>
+     * <p>
+     * {@link #endTile(GL)} of the very last tile waits until all rows are written,
+     * i.e. the sink has received the complete image when {@link #eot() end of tiling} is reached.
+     * Exceptions thrown by the sink are rethrown as a {@link GLException} by the next {@link #endTile(GL)}.
+     * </p>
+     * <p>
+     * The worker threads are started with the first tile and stopped at {@link #eot() end of tiling}
+     * or by {@link #reset()}.
+     * </p>
+     * <p>
+     * Implementation {@link #reset()} internal states.
+     * </p>
+     * <p>
+     * Streaming requires a {@link GL2ES3} context, see <a href="TileRendererBase.html#glprequirement">GL profile requirement</a>.
+     * </p>
+     *
+     * @param sink the {@link TileRowSink}, <code>null</code> disables streaming
+     * @param pixelAttribs the pixel format and type of the read rows
+     * @param flipVertically if true, the lines of each row are flipped to top to bottom order on the worker threads
+     * @param workerThreads number of worker threads &gt; 0
+     * @throws IllegalStateException if called between {@link #beginTile(GL)} and {@link #endTile(GL)}
+     */
+    public final void setTileRowSink(TileRowSink sink, GLPixelAttributes pixelAttribs, boolean flipVertically, int workerThreads) throws IllegalStateException {
+        if( beginCalled ) {
+            throw new IllegalStateException("Tile rendering in progress: "+this);
+        }
+        if( null != rowStreamer ) {
+            rowStreamer.stop();
+            rowStreamer = null;
+        }
+        if( null != sink ) {
+            rowStreamer = new TileRowStreamer(this, sink, pixelAttribs, flipVertically, workerThreads);
+        }
+        if( DEBUG ) {
+            System.err.println("TileRenderer: row-sink "+sink+", "+pixelAttribs+", flip "+flipVertically+", workerThreads "+workerThreads);
+        }
+        reset();
+    }
+
+    /** @see #setTileRowSink(TileRowSink, GLPixelAttributes, boolean, int) */
+    public final TileRowSink getTileRowSink() { return null != rowStreamer ? rowStreamer.getSink() : null; }
+
     /**
      * {@inheritDoc}
      *
@@ -292,6 +433,10 @@ public class TileRenderer extends TileRendererBase {
         assert columns >= 0;
         assert rows >= 0;
 
+        if( null != rowStreamer ) {
+            rowStreamer.stop();
+        }
+
         beginCalled = false;
         isInit = true;
     }
@@ -396,6 +541,9 @@ public class TileRenderer extends TileRendererBase {
             throw new IllegalStateException("EOT reached: "+this);
         }
         validateGL(gl);
+        if( null != rowStreamer && !gl.isGL2ES3() ) {
+            throw new GLException("Using tile row sink w/ inssufficient GL context: "+gl.getContext().getGLVersion()+", "+gl.getGLProfile());
+        }
 
         /* which tile (by row and column) we're about to render */
         if (rowOrder == TR_BOTTOM_TO_TOP) {
@@ -523,6 +671,24 @@ public class TileRenderer extends TileRendererBase {
             imageBuffer.flip();
         }
 
+        if( null != rowStreamer ) {
+            final GLPixelAttributes pixelAttribs = rowStreamer.getPixelAttributes();
+            final int srcX = tileBorder;
+            final int srcY = tileBorder;
+            final int srcWidth = currentTileWidth - 2 * tileBorder;
+            final int srcHeight = currentTileHeight - 2 * tileBorder;
+            final DimensionImmutable clippedImageSize = getClippedImageSize();
+
+            /* read the tile into the strip of the current row */
+            final TileRow row = rowStreamer.getRow(currentRow, currentRow * tileSizeNB.getHeight(),
+                                                   clippedImageSize.getWidth(), srcHeight, clippedImageSize.getHeight());
+            psm.setPackRowLength(gl2es3, row.width);
+            final ByteBuffer pixels = row.buffer;
+            pixels.position( currentColumn * tileSizeNB.getWidth() * pixelAttribs.bytesPerPixel );
+            gl.glReadPixels( srcX, srcY, srcWidth, srcHeight, pixelAttribs.format, pixelAttribs.type, pixels);
+            pixels.rewind();
+        }
+
         /* restore previous glPixelStore values */
         psm.restore(gl);
 
@@ -533,5 +699,16 @@ public class TileRenderer extends TileRendererBase {
         if( currentTile >= rows * columns ) {
             currentTile = -1; /* all done */
         }
+
+        if( null != rowStreamer && currentColumn == columns - 1 ) {
+            rowStreamer.submitRow();
+            if( 0 > currentTile ) {
+                try {
+                    rowStreamer.awaitRows();
+                } finally {
+                    rowStreamer.stop();
+                }
+            }
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,324 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ *
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+
+package com.jogamp.opengl.util;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+
+import javax.media.opengl.GLException;
+
+import com.jogamp.common.nio.Buffers;
+import com.jogamp.opengl.util.GLPixelBuffer.GLPixelAttributes;
+import com.jogamp.opengl.util.TileRenderer.TileRow;
+import com.jogamp.opengl.util.TileRenderer.TileRowSink;
+
+/**
+ * Streams completed tile rows of a {@link TileRenderer} to a {@link TileRowSink},
+ * see {@link TileRenderer#setTileRowSink(TileRowSink, GLPixelAttributes, boolean, int)}.
+ * <p>
+ * The rendering thread reads the tiles of the current row into a free {@link TileRow} strip
+ * and queues the strip when the row is complete.
+ * Worker threads flip and {@link TileRowSink#processRow(TileRenderer, TileRow) process} the queued rows concurrently
+ * and {@link TileRowSink#writeRow(TileRenderer, TileRow) write} them in order of rendering.
+ * Using <code>workerCount + 1</code> strips, the rendering thread only blocks if all workers are busy.
+ * </p>
+ * <p>
+ * The worker threads are started with the first row and {@link #stop() stopped}
+ * at the end of tiling or if the {@link TileRenderer} is {@link TileRenderer#reset() reset}.
+ * </p>
+ */
+final class TileRowStreamer {
+    private static final boolean DEBUG = TileRendererBase.DEBUG;
+
+    private final TileRenderer tr;
+    private final TileRowSink sink;
+    private final GLPixelAttributes pixelAttribs;
+    private final boolean flipVertically;
+    private final int workerCount;
+    private final TileRow[] strips;
+    /** Running workers or <code>null</code>, rendering thread only. */
+    private Worker[] workers = null;
+
+    /** State guarded by <code>this</code>. */
+    private final ArrayList<TileRow> free = new ArrayList<TileRow>();
+    private final ArrayList<TileRow> queued = new ArrayList<TileRow>();
+    private long nextSubmitSeq = 0;
+    private long nextWriteSeq = 0;
+    private Throwable error = null;
+    private boolean shouldStop = false;
+
+    /** Strip of the row currently being rendered, rendering thread only. */
+    private TileRow current = null;
+
+    TileRowStreamer(TileRenderer tr, TileRowSink sink, GLPixelAttributes pixelAttribs, boolean flipVertically, int workerCount) {
+        if( 0 >= workerCount ) {
+            throw new IllegalArgumentException("Invalid worker count "+workerCount);
+        }
+        this.tr = tr;
+        this.sink = sink;
+        this.pixelAttribs = pixelAttribs;
+        this.flipVertically = flipVertically;
+        this.workerCount = workerCount;
+        strips = new TileRow[workerCount+1];
+        for(int i=0; i<strips.length; i++) {
+            strips[i] = new TileRow(pixelAttribs);
+        }
+    }
+
+    final TileRowSink getSink() { return sink; }
+    final GLPixelAttributes getPixelAttributes() { return pixelAttribs; }
+
+    /**
+     * Returns the strip of the current row, waiting for a free strip at the row's first tile.
+     * Starts the workers if not running.
+     * @param row the tile row number
+     * @param glY the row's y-position within the clipped image, bottom-left origin
+     * @param width the clipped image width
+     * @param height the row height w/o borders
+     * @param imageHeight the clipped image height
+     * @throws GLException if a previous row could not be processed or written
+     */
+    final TileRow getRow(int row, int glY, int width, int height, int imageHeight) throws GLException {
+        if( null == current ) {
+            if( null == workers ) {
+                start();
+            }
+            TileRow r;
+            synchronized(this) {
+                throwError();
+                while( free.isEmpty() ) {
+                    try {
+                        wait();
+                    } catch (InterruptedException ie) {
+                        throw new GLException(ie);
+                    }
+                    throwError();
+                }
+                r = free.remove(free.size()-1);
+            }
+            final int size = width * height * pixelAttribs.bytesPerPixel;
+            if( null == r.buffer || r.buffer.capacity() < size ) {
+                r.buffer = Buffers.newDirectByteBuffer(size);
+            }
+            r.row = row;
+            r.width = width;
+            r.height = height;
+            r.flipped = flipVertically;
+            r.imageY = flipVertically ? imageHeight - ( glY + height ) : glY;
+            r.buffer.clear();
+            r.buffer.limit(size);
+            current = r;
+        }
+        return current;
+    }
+
+    /** Queues the current row for processing and writing. */
+    final void submitRow() {
+        final TileRow r = current;
+        if( null != r ) {
+            current = null;
+            r.buffer.clear();
+            r.buffer.limit(r.width * r.height * pixelAttribs.bytesPerPixel);
+            synchronized(this) {
+                r.seq = nextSubmitSeq++;
+                queued.add(r);
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Waits until all queued rows are written.
+     * @throws GLException if a row could not be processed or written
+     */
+    final void awaitRows() throws GLException {
+        synchronized(this) {
+            while( nextWriteSeq < nextSubmitSeq ) {
+                try {
+                    wait();
+                } catch (InterruptedException ie) {
+                    throw new GLException(ie);
+                }
+            }
+            throwError();
+        }
+    }
+
+    private final void start() {
+        synchronized(this) {
+            free.clear();
+            for(int i=0; i<strips.length; i++) {
+                free.add(strips[i]);
+            }
+            queued.clear();
+            nextSubmitSeq = 0;
+            nextWriteSeq = 0;
+            error = null;
+            shouldStop = false;
+        }
+        workers = new Worker[workerCount];
+        for(int i=0; i<workerCount; i++) {
+            workers[i] = new Worker(i);
+            workers[i].thread.start();
+        }
+    }
+
+    /**
+     * Stops and joins all workers, queued rows are dropped.
+     * The workers are restarted by the next {@link #getRow(int, int, int, int, int)}.
+     */
+    final void stop() {
+        current = null;
+        final Worker[] _workers = workers;
+        if( null == _workers ) {
+            return;
+        }
+        workers = null;
+        synchronized(this) {
+            shouldStop = true;
+            queued.clear();
+            notifyAll();
+        }
+        boolean interrupted = false;
+        for(int i=0; i<_workers.length; i++) {
+            final Thread t = _workers[i].thread;
+            if( Thread.currentThread() != t ) {
+                while( t.isAlive() ) {
+                    try {
+                        t.join();
+                    } catch (InterruptedException ie) {
+                        interrupted = true;
+                    }
+                }
+            }
+        }
+        if( interrupted ) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private final void throwError() throws GLException {
+        if( null != error ) {
+            final Throwable t = error;
+            error = null;
+            throw new GLException("TileRowSink failed: "+t.getMessage(), t);
+        }
+    }
+
+    private static void flipRows(ByteBuffer pixels, int lineBytes, int height, byte[] tmp0, byte[] tmp1) {
+        for(int top = 0, bottom = height - 1; top < bottom; top++, bottom--) {
+            pixels.position(top * lineBytes);
+            pixels.get(tmp0, 0, lineBytes);
+            pixels.position(bottom * lineBytes);
+            pixels.get(tmp1, 0, lineBytes);
+            pixels.position(bottom * lineBytes);
+            pixels.put(tmp0, 0, lineBytes);
+            pixels.position(top * lineBytes);
+            pixels.put(tmp1, 0, lineBytes);
+        }
+        pixels.rewind();
+    }
+
+    private final class Worker implements Runnable {
+        private final Thread thread;
+        private byte[] tmp0 = new byte[0];
+        private byte[] tmp1 = new byte[0];
+
+        Worker(int no) {
+            thread = new Thread(this, Thread.currentThread().getName()+"-TileRowWorker-"+no);
+            thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            while( true ) {
+                final TileRow r;
+                final boolean failed;
+                synchronized(TileRowStreamer.this) {
+                    while( !shouldStop && queued.isEmpty() ) {
+                        try {
+                            TileRowStreamer.this.wait();
+                        } catch (InterruptedException ie) { }
+                    }
+                    if( shouldStop ) {
+                        break;
+                    }
+                    r = queued.remove(0);
+                    failed = null != error;
+                }
+                Throwable t = null;
+                if( !failed ) {
+                    try {
+                        if( r.flipped ) {
+                            final int lineBytes = r.width * pixelAttribs.bytesPerPixel;
+                            if( tmp0.length < lineBytes ) {
+                                tmp0 = new byte[lineBytes];
+                                tmp1 = new byte[lineBytes];
+                            }
+                            flipRows(r.buffer, lineBytes, r.height, tmp0, tmp1);
+                        }
+                        sink.processRow(tr, r);
+                    } catch (Throwable e) {
+                        t = e;
+                    }
+                }
+                // write rows in order of rendering
+                synchronized(TileRowStreamer.this) {
+                    while( !shouldStop && r.seq != nextWriteSeq ) {
+                        try {
+                            TileRowStreamer.this.wait();
+                        } catch (InterruptedException ie) { }
+                    }
+                    if( shouldStop ) {
+                        break;
+                    }
+                }
+                if( !failed && null == t ) {
+                    try {
+                        r.buffer.rewind();
+                        sink.writeRow(tr, r);
+                    } catch (Throwable e) {
+                        t = e;
+                    }
+                }
+                synchronized(TileRowStreamer.this) {
+                    if( null != t && null == error ) {
+                        error = t;
+                    }
+                    nextWriteSeq++;
+                    free.add(r);
+                    TileRowStreamer.this.notifyAll();
+                }
+            }
+            if(DEBUG) {
+                System.err.println("TileRowStreamer: Worker stopped - "+thread.getName());
+            }
+        }
+    }
+}
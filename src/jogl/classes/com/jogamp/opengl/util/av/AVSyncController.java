@@ -0,0 +1,83 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ *
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+package com.jogamp.opengl.util.av;
+
+import com.jogamp.opengl.util.TimeFrameI;
+
+/**
+ * Audio and video synchronization controller used by {@link GLMediaPlayer#getNextTexture(javax.media.opengl.GL)},
+ * deciding whether a decoded video frame shall be presented, repeated later or dropped,
+ * see <a href="GLMediaPlayer.html#synchronization">audio and video synchronization</a>.
+ * <p>
+ * All methods are invoked on the rendering thread while holding the player's state lock.
+ * </p>
+ * @see GLMediaPlayer#setAVSyncController(AVSyncController)
+ * @see DefaultAVSyncController
+ */
+public interface AVSyncController {
+
+    /** Synchronization decision for one video frame. */
+    public static enum Action {
+        /** Present the frame now. */
+        PRESENT,
+        /** Frame is early, present the previous frame again and retry this frame next time. */
+        REPEAT,
+        /** Frame is late, drop it and fetch the next frame. */
+        DROP;
+    }
+
+    /**
+     * Resets the synchronization state, e.g. averaged drift, at {@link GLMediaPlayer#play()} and {@link GLMediaPlayer#seek(int)}.
+     * <p>
+     * {@link #getStatistics() Statistics} are reset as well.
+     * </p>
+     */
+    public void reset();
+
+    /**
+     * Decides how to handle the next video frame.
+     *
+     * @param video_pts the video frame's PTS in milliseconds
+     * @param video_scr the video system clock reference in milliseconds, i.e. the expected video PTS at this time
+     * @param audio_pts the audio PTS in milliseconds as reported by the {@link AudioSink}, or {@link TimeFrameI#INVALID_PTS}
+     * @param audio_scr the audio system clock reference in milliseconds
+     * @param playSpeed the current play speed
+     * @param avgFrameDisplayDuration average duration in milliseconds a frame is displayed, i.e. the rendering period
+     * @param nextFrameAvailable true if another decoded frame is available, i.e. dropping this frame is feasible
+     * @param currentTimeMillis the current time in milliseconds
+     * @return the {@link Action}
+     */
+    public Action sync(int video_pts, int video_scr, int audio_pts, int audio_scr, float playSpeed,
+                       int avgFrameDisplayDuration, boolean nextFrameAvailable, long currentTimeMillis);
+
+    /** Returns the current averaged drift in milliseconds, positive if video is ahead. */
+    public int getDriftAverage();
+
+    /** Returns the {@link AVSyncStatistics}. */
+    public AVSyncStatistics getStatistics();
+}
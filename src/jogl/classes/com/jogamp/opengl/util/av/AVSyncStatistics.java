@@ -0,0 +1,151 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ *
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+package com.jogamp.opengl.util.av;
+
+/**
+ * Per second statistics of an {@link AVSyncController}.
+ * <p>
+ * Decisions are {@link #record(long, int, AVSyncController.Action) recorded} on the rendering thread
+ * and accumulated in the current interval.
+ * Once an interval of {@link #INTERVAL_MILLIS} has passed, it is published as an immutable {@link Interval},
+ * which may be queried from any thread via {@link #getLastInterval()}.
+ * </p>
+ */
+public class AVSyncStatistics {
+    /** Interval duration of {@value} milliseconds. */
+    public static final int INTERVAL_MILLIS = 1000;
+
+    /** Immutable statistics of one interval. */
+    public static class Interval {
+        /** Start time in milliseconds. */
+        public final long startMillis;
+        /** Number of {@link AVSyncController.Action#PRESENT presented} frames. */
+        public final int presentCount;
+        /** Number of {@link AVSyncController.Action#REPEAT repeated} frames. */
+        public final int repeatCount;
+        /** Number of {@link AVSyncController.Action#DROP dropped} frames. */
+        public final int dropCount;
+        /** Minimum drift in milliseconds. */
+        public final int driftMin;
+        /** Maximum drift in milliseconds. */
+        public final int driftMax;
+        /** Average drift in milliseconds. */
+        public final int driftAvg;
+
+        Interval(long startMillis, int presentCount, int repeatCount, int dropCount, int driftMin, int driftMax, int driftAvg) {
+            this.startMillis = startMillis;
+            this.presentCount = presentCount;
+            this.repeatCount = repeatCount;
+            this.dropCount = dropCount;
+            this.driftMin = driftMin;
+            this.driftMax = driftMax;
+            this.driftAvg = driftAvg;
+        }
+
+        @Override
+        public String toString() {
+            return "AVSync[t "+startMillis+", present "+presentCount+", repeat "+repeatCount+", drop "+dropCount+
+                   ", drift[min "+driftMin+", max "+driftMax+", avg "+driftAvg+"]]";
+        }
+    }
+
+    private long startMillis = -1;
+    private int presentCount, repeatCount, dropCount;
+    private int driftMin, driftMax, driftCount;
+    private long driftSum;
+
+    private volatile Interval lastInterval = null;
+    private volatile int totalPresentCount = 0;
+    private volatile int totalRepeatCount = 0;
+    private volatile int totalDropCount = 0;
+
+    /** Clears all values. */
+    public void reset() {
+        startMillis = -1;
+        clearInterval();
+        lastInterval = null;
+        totalPresentCount = 0;
+        totalRepeatCount = 0;
+        totalDropCount = 0;
+    }
+
+    private void clearInterval() {
+        presentCount = 0;
+        repeatCount = 0;
+        dropCount = 0;
+        driftMin = Integer.MAX_VALUE;
+        driftMax = Integer.MIN_VALUE;
+        driftCount = 0;
+        driftSum = 0;
+    }
+
+    /**
+     * Records one decision.
+     * @param currentTimeMillis the current time in milliseconds
+     * @param drift the measured drift in milliseconds
+     * @param action the decision
+     */
+    public void record(long currentTimeMillis, int drift, AVSyncController.Action action) {
+        if( 0 > startMillis ) {
+            startMillis = currentTimeMillis;
+            clearInterval();
+        } else if( currentTimeMillis - startMillis >= INTERVAL_MILLIS ) {
+            lastInterval = new Interval(startMillis, presentCount, repeatCount, dropCount,
+                                        0 < driftCount ? driftMin : 0, 0 < driftCount ? driftMax : 0,
+                                        0 < driftCount ? (int) ( driftSum / driftCount ) : 0);
+            startMillis += ( ( currentTimeMillis - startMillis ) / INTERVAL_MILLIS ) * INTERVAL_MILLIS;
+            clearInterval();
+        }
+        switch( action ) {
+            case PRESENT: presentCount++; totalPresentCount++; break;
+            case REPEAT:  repeatCount++;  totalRepeatCount++;  break;
+            case DROP:    dropCount++;    totalDropCount++;    break;
+        }
+        if( drift < driftMin ) { driftMin = drift; }
+        if( drift > driftMax ) { driftMax = drift; }
+        driftSum += drift;
+        driftCount++;
+    }
+
+    /** Returns the last completed {@link Interval}, or <code>null</code> if none has been completed yet. */
+    public Interval getLastInterval() { return lastInterval; }
+
+    /** Returns the total number of {@link AVSyncController.Action#PRESENT presented} frames. */
+    public int getTotalPresentCount() { return totalPresentCount; }
+
+    /** Returns the total number of {@link AVSyncController.Action#REPEAT repeated} frames. */
+    public int getTotalRepeatCount() { return totalRepeatCount; }
+
+    /** Returns the total number of {@link AVSyncController.Action#DROP dropped} frames. */
+    public int getTotalDropCount() { return totalDropCount; }
+
+    @Override
+    public String toString() {
+        return "AVSyncStatistics[total present "+totalPresentCount+", repeat "+totalRepeatCount+", drop "+totalDropCount+", last "+lastInterval+"]";
+    }
+}
@@ -0,0 +1,162 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ *
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+package com.jogamp.opengl.util.av;
+
+import com.jogamp.opengl.util.TimeFrameI;
+
+/**
+ * Default {@link AVSyncController} implementation.
+ * <p>
+ * The drift is the difference of the video PTS and the video system clock reference,
+ * compensated by the {@link #setLatencyCompensation(int) display latency}.
+ * If {@link #setAudioMaster(boolean) audio master} is enabled and a valid audio PTS is available,
+ * the audio drift is subtracted, i.e. video follows audio.
+ * </p>
+ * <p>
+ * The drift is averaged exponentially over {@value #VIDEO_DPTS_NUM} frames.
+ * A frame is {@link AVSyncController.Action#REPEAT repeated} if the average is ahead more than the threshold,
+ * and {@link AVSyncController.Action#DROP dropped} if it lags more than the threshold and the next frame is available.
+ * The threshold is the average frame display duration, limited to {@link #setMaximumAsync(int) maximum async}.
+ * Once correcting, the reduced threshold <code>threshold * ( 1 - {@link #setHysteresis(float) hysteresis} )</code>
+ * must be reached to stop correcting.
+ * </p>
+ * <p>
+ * The default settings match the former built-in behavior of {@link GLMediaPlayer},
+ * i.e. no hysteresis, no latency compensation, no audio master
+ * and no consecutive frame drops.
+ * </p>
+ */
+public class DefaultAVSyncController implements AVSyncController {
+    /** Number of min frame count required for video cumulative sync, value {@value}. */
+    public static final int VIDEO_DPTS_NUM = 20;
+    /** Cumulative coefficient, value {@value}. */
+    private static final float VIDEO_DPTS_COEFF = 0.7943282f; // (float) Math.exp(Math.log(0.01) / VIDEO_DPTS_NUM);
+    /** Maximum valid video pts diff. */
+    private static final int VIDEO_DPTS_MAX = 5000; // 5s max diff
+
+    private final AVSyncStatistics stats = new AVSyncStatistics();
+
+    /** Cumulative video pts diff. */
+    private float video_dpts_cum = 0;
+    /** Cumulative video frames. */
+    private int video_dpts_count = 0;
+    /** -1 dropping, 0 in sync, 1 repeating */
+    private int correcting = 0;
+    private int consecutiveDrops = 0;
+    private int consecutiveRepeats = 0;
+
+    private int maxAsync = GLMediaPlayer.MAXIMUM_VIDEO_ASYNC;
+    private float hysteresis = 0f;
+    private int latency = 0;
+    private boolean audioMaster = false;
+    private int maxConsecutiveDrops = 1;
+    private int maxConsecutiveRepeats = Integer.MAX_VALUE;
+
+    /** Sets the maximum tolerated async in milliseconds, defaults to {@link GLMediaPlayer#MAXIMUM_VIDEO_ASYNC}. */
+    public final void setMaximumAsync(int ms) { maxAsync = Math.max(0, ms); }
+    public final int getMaximumAsync() { return maxAsync; }
+
+    /** Sets the hysteresis fraction within [0..1) of the threshold to stop correcting, defaults to zero. */
+    public final void setHysteresis(float h) { hysteresis = Math.max(0f, Math.min(0.99f, h)); }
+    public final float getHysteresis() { return hysteresis; }
+
+    /** Sets the latency in milliseconds between presenting and displaying a frame, e.g. one display refresh, defaults to zero. */
+    public final void setLatencyCompensation(int ms) { latency = ms; }
+    public final int getLatencyCompensation() { return latency; }
+
+    /** Enables synchronizing video to the audio PTS if available, defaults to <code>false</code>. */
+    public final void setAudioMaster(boolean v) { audioMaster = v; }
+    public final boolean isAudioMaster() { return audioMaster; }
+
+    /** Sets the maximum number of consecutively dropped frames, defaults to one. */
+    public final void setMaxConsecutiveDrops(int n) { maxConsecutiveDrops = Math.max(0, n); }
+    public final int getMaxConsecutiveDrops() { return maxConsecutiveDrops; }
+
+    /** Sets the maximum number of consecutively repeated frames, defaults to unlimited. */
+    public final void setMaxConsecutiveRepeats(int n) { maxConsecutiveRepeats = Math.max(0, n); }
+    public final int getMaxConsecutiveRepeats() { return maxConsecutiveRepeats; }
+
+    @Override
+    public void reset() {
+        video_dpts_cum = 0;
+        video_dpts_count = 0;
+        correcting = 0;
+        consecutiveDrops = 0;
+        consecutiveRepeats = 0;
+        stats.reset();
+    }
+
+    @Override
+    public Action sync(int video_pts, int video_scr, int audio_pts, int audio_scr, float playSpeed,
+                       int avgFrameDisplayDuration, boolean nextFrameAvailable, long currentTimeMillis) {
+        int d = video_pts - ( video_scr + (int) ( latency * playSpeed ) );
+        if( audioMaster && TimeFrameI.INVALID_PTS != audio_pts ) {
+            d -= audio_pts - audio_scr;
+        }
+        Action action = Action.PRESENT;
+        if( -VIDEO_DPTS_MAX <= d && d <= VIDEO_DPTS_MAX ) {
+            video_dpts_count++;
+            video_dpts_cum = d + VIDEO_DPTS_COEFF * video_dpts_cum;
+            final int video_dpts_avg_diff = video_dpts_count >= VIDEO_DPTS_NUM ? getDriftAverage() : 0;
+            final int dt = (int) ( video_dpts_avg_diff / playSpeed + 0.5f );
+            final int enter = Math.min(avgFrameDisplayDuration, maxAsync);
+            final int leave = (int) ( enter * ( 1f - hysteresis ) );
+            if( dt > ( 0 < correcting ? leave : enter ) && consecutiveRepeats < maxConsecutiveRepeats ) {
+                action = Action.REPEAT;
+                correcting = 1;
+            } else if( dt < -( 0 > correcting ? leave : enter ) && nextFrameAvailable && consecutiveDrops < maxConsecutiveDrops ) {
+                // frame is too late and one decoded frame is already available.
+                action = Action.DROP;
+                correcting = -1;
+            } else if( -leave <= dt && dt <= leave ) {
+                correcting = 0;
+            }
+        } // else out of sync range, e.g. stream discontinuity: present
+        switch( action ) {
+            case PRESENT: consecutiveDrops = 0; consecutiveRepeats = 0; break;
+            case REPEAT:  consecutiveDrops = 0; consecutiveRepeats++;   break;
+            case DROP:    consecutiveDrops++;   consecutiveRepeats = 0; break;
+        }
+        stats.record(currentTimeMillis, d, action);
+        return action;
+    }
+
+    @Override
+    public final int getDriftAverage() {
+        return (int) ( video_dpts_cum * (1.0f - VIDEO_DPTS_COEFF) + 0.5f );
+    }
+
+    @Override
+    public final AVSyncStatistics getStatistics() { return stats; }
+
+    @Override
+    public String toString() {
+        return "DefaultAVSyncController[maxAsync "+maxAsync+", hysteresis "+hysteresis+", latency "+latency+", audioMaster "+audioMaster+
+               ", maxDrops "+maxConsecutiveDrops+", maxRepeats "+maxConsecutiveRepeats+", drift "+getDriftAverage()+", "+stats+"]";
+    }
+}
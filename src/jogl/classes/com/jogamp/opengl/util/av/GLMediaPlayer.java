@@ -36,6 +36,7 @@ import jogamp.opengl.Debug;
 
 import com.jogamp.opengl.util.texture.Texture;
 import com.jogamp.opengl.util.texture.TextureSequence;
+import com.jogamp.opengl.util.FrameTimeHistogram;
 import com.jogamp.opengl.util.TimeFrameI;
 
 /**
@@ -139,6 +140,10 @@ import com.jogamp.opengl.util.TimeFrameI;
  * the frame is dropped and the next frame is being fetched.
  * </p>
  * <p>
+ * These decisions are made by the {@link AVSyncController}, see {@link #setAVSyncController(AVSyncController)},
+ * which defaults to {@link DefaultAVSyncController} and also exposes per second {@link AVSyncStatistics statistics}.
+ * </p>
+ * <p>
  * https://en.wikipedia.org/wiki/Audio_to_video_synchronization
  * <pre>
  *   d_av = v_pts - a_pts;
@@ -492,6 +497,46 @@ public interface GLMediaPlayer extends TextureSequence {
      */
     public int getPresentedFrameCount();
 
+    /**
+     * @return the current dropped frame count since {@link #play()} and {@link #seek(int)},
+     *         i.e. frames skipped by {@link #getNextTexture(GL)} to catch up, see <a href="#synchronization">audio and video synchronization</a>.
+     */
+    public int getDroppedFrameCount();
+
+    /**
+     * @return the number of decoded frames queued for presentation by the decoding thread, i.e. the decoding stage queue depth.
+     *         Always zero if decoding is performed on the rendering thread.
+     */
+    public int getDecodedFrameQueueSize();
+
+    /**
+     * @return the number of times the decoding thread had to wait for a free frame since {@link #play()} and {@link #seek(int)},
+     *         i.e. presentation is the bottleneck.
+     */
+    public int getDecoderStallCount();
+
+    /**
+     * @return the number of times {@link #getNextTexture(GL)} found no decoded frame since {@link #play()} and {@link #seek(int)}
+     *         and hence repeated the last frame, i.e. decoding is the bottleneck.
+     */
+    public int getFrameUnderrunCount();
+
+    /**
+     * @return the histogram of the time in nanoseconds spent to demux, decode and upload one video frame
+     *         since {@link #play()} and {@link #seek(int)}.
+     */
+    public FrameTimeHistogram getDecodeTimeHistogram();
+
+    /**
+     * Sets the {@link AVSyncController} used by {@link #getNextTexture(GL)},
+     * see <a href="#synchronization">audio and video synchronization</a>.
+     * @param c the controller, or <code>null</code> to use a new {@link DefaultAVSyncController}
+     */
+    public void setAVSyncController(AVSyncController c);
+
+    /** Returns the {@link AVSyncController}, never <code>null</code>. */
+    public AVSyncController getAVSyncController();
+
     /**
      * @return current video presentation timestamp (PTS) in milliseconds of {@link #getLastTexture()}
      **/
@@ -176,6 +176,19 @@ public class ShaderProgram {
         return true;
     }
 
+    /**
+     * Sets the {@link ShaderProgramCache} used by {@link #link(GL2ES2, PrintStream)},
+     * defaults to {@link ShaderProgramCache#getDefault()}.
+     *
+     * @param cache the program binary cache, <code>null</code> disables caching
+     */
+    public synchronized void setProgramCache(ShaderProgramCache cache) {
+        programCache = cache;
+    }
+
+    /** Returns the {@link ShaderProgramCache} used, may be <code>null</code>. */
+    public synchronized ShaderProgramCache getProgramCache() { return programCache; }
+
     /**
      * Replace a shader in a program and re-links the program.
      *
@@ -215,6 +228,10 @@ public class ShaderProgram {
         if(attachedShaderCode.add(newShader)) {
             ShaderUtil.attachShader(gl, shaderProgram, newShader.shader());
         }
+        if( !compileAndAttach(gl, verboseOut) ) { // shader code may be omitted if restored from cache
+            programLinked = false;
+            return false;
+        }
 
         gl.glLinkProgram(shaderProgram);
 
@@ -232,6 +249,11 @@ public class ShaderProgram {
      *
      * <p>Within this process, all GL resources (shader and program objects) are created if necessary.</p>
      *
+     * <p>If a {@link #getProgramCache() program cache} is set and supported,
+     * the program binary is restored from the cache instead of compiling and linking the shader code.
+     * Otherwise, or if the cached binary is rejected, the shader code is compiled and linked
+     * and the resulting binary is stored in the cache.</p>
+     *
      * @param gl
      * @param verboseOut
      * @return true if program was successfully linked and is valid, otherwise false
@@ -244,25 +266,44 @@ public class ShaderProgram {
             return false;
         }
 
-        for(Iterator<ShaderCode> iter=allShaderCode.iterator(); iter.hasNext(); ) {
-            final ShaderCode shaderCode = iter.next();
-            if(!shaderCode.compile(gl, verboseOut)) {
-                programLinked = false; // mark unlinked due to user attempt to [re]link
-                return false;
-            }
-            if(attachedShaderCode.add(shaderCode)) {
-                ShaderUtil.attachShader(gl, shaderProgram, shaderCode.shader());
+        String cacheKey = null;
+        if( null != programCache && !allShaderCode.isEmpty() && ShaderProgramCache.isSupported(gl) ) {
+            cacheKey = programCache.getKey(gl, allShaderCode);
+            if( null != cacheKey && programCache.load(gl, shaderProgram, cacheKey, verboseOut) ) {
+                programLinked = true;
+                return true;
             }
         }
 
+        if( !compileAndAttach(gl, verboseOut) ) {
+            programLinked = false; // mark unlinked due to user attempt to [re]link
+            return false;
+        }
+
         // Link the program
         gl.glLinkProgram(shaderProgram);
 
         programLinked = ShaderUtil.isProgramLinkStatusValid(gl, shaderProgram, verboseOut);
 
+        if( programLinked && null != cacheKey ) {
+            programCache.store(gl, shaderProgram, cacheKey);
+        }
         return programLinked;
     }
 
+    private boolean compileAndAttach(GL2ES2 gl, PrintStream verboseOut) {
+        for(Iterator<ShaderCode> iter=allShaderCode.iterator(); iter.hasNext(); ) {
+            final ShaderCode shaderCode = iter.next();
+            if(!shaderCode.compile(gl, verboseOut)) {
+                return false;
+            }
+            if(attachedShaderCode.add(shaderCode)) {
+                ShaderUtil.attachShader(gl, shaderProgram, shaderCode.shader());
+            }
+        }
+        return true;
+    }
+
     @Override
     public boolean equals(Object obj) {
         if(this == obj)  { return true; }
@@ -319,6 +360,7 @@ public class ShaderProgram {
     protected HashSet<ShaderCode> allShaderCode = new HashSet<ShaderCode>();
     protected HashSet<ShaderCode> attachedShaderCode = new HashSet<ShaderCode>();
     protected int id = -1;
+    private ShaderProgramCache programCache = ShaderProgramCache.getDefault();
 
     private static synchronized int getNextID() {
         return nextID++;
@@ -0,0 +1,375 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ *
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+package com.jogamp.opengl.util.glsl;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.security.AccessController;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.PrivilegedAction;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+
+import javax.media.opengl.GL;
+import javax.media.opengl.GL2ES2;
+import javax.media.opengl.GLContext;
+import javax.media.opengl.GLException;
+
+import jogamp.opengl.Debug;
+
+import com.jogamp.common.nio.Buffers;
+
+/**
+ * Persistent cache of linked program binaries, see {@link ShaderProgram#link(GL2ES2, PrintStream)}.
+ * <p>
+ * Program binaries are retrieved via {@link GL2ES2#glGetProgramBinary(int, int, IntBuffer, IntBuffer, java.nio.Buffer) glGetProgramBinary}
+ * and restored via {@link GL2ES2#glProgramBinary(int, int, java.nio.Buffer, int) glProgramBinary},
+ * if supported, i.e. GL 4.1, ARB_get_program_binary, ES 3.0 or OES_get_program_binary w/ at least one binary format.
+ * </p>
+ * <p>
+ * Each program binary is stored in it's own file within the cache directory,
+ * named by a SHA-1 hash of the GL vendor, renderer and version string
+ * as well as the type and final, i.e. customized, source code of all shaders incl. their defines.
+ * Files are written to a temporary file first and renamed thereafter,
+ * hence concurrent processes never read partial files.
+ * </p>
+ * <p>
+ * Binaries rejected by the driver, e.g. after a driver update w/o version change, are deleted
+ * and the program is compiled from source as usual.
+ * </p>
+ * <p>
+ * Note: Attribute locations bound via {@link GL2ES2#glBindAttribLocation(int, int, String)}
+ * are part of the binary, hence they shall not differ for the same shader source.
+ * </p>
+ * <p>
+ * The {@link #getDefault() default cache} directory is given by property <code>jogl.glsl.programcache</code>.
+ * </p>
+ */
+public class ShaderProgramCache {
+    public static final boolean DEBUG = ShaderState.DEBUG;
+
+    private static final int MAGIC = 0x4A504243; // 'JPBC'
+    private static final int VERSION = 1;
+    private static final String SUFFIX = ".bin";
+
+    private static final ShaderProgramCache defaultCache;
+
+    static {
+        final String dir = Debug.getProperty("jogl.glsl.programcache", true);
+        defaultCache = null != dir && dir.length() > 0 ? new ShaderProgramCache(new File(dir)) : null;
+    }
+
+    /**
+     * Returns the default cache used by all {@link ShaderProgram}s,
+     * or <code>null</code> if property <code>jogl.glsl.programcache</code> is not set.
+     */
+    public static ShaderProgramCache getDefault() { return defaultCache; }
+
+    private final File dir;
+    private int hitCount = 0;
+    private int missCount = 0;
+    private int rejectCount = 0;
+    private int storeCount = 0;
+
+    /**
+     * @param dir the cache directory, created if not existing
+     */
+    public ShaderProgramCache(File dir) {
+        this.dir = dir;
+    }
+
+    public final File getDirectory() { return dir; }
+
+    /** Returns the number of programs restored from this cache. */
+    public final synchronized int getHitCount() { return hitCount; }
+    /** Returns the number of programs not found in this cache. */
+    public final synchronized int getMissCount() { return missCount; }
+    /** Returns the number of cached binaries rejected by the driver. */
+    public final synchronized int getRejectCount() { return rejectCount; }
+    /** Returns the number of programs stored in this cache. */
+    public final synchronized int getStoreCount() { return storeCount; }
+
+    private static final String supportedObjectKey = "com.jogamp.opengl.util.glsl.ShaderProgramCache.supported" ;
+
+    /**
+     * Returns true if program binaries can be retrieved and restored w/ the given GL.
+     * <p>
+     * The result is queried once and cached per {@link GLContext}.
+     * </p>
+     */
+    public static boolean isSupported(GL2ES2 gl) {
+        final GLContext context = gl.getContext();
+        final Boolean cached = (Boolean) context.getAttachedObject(supportedObjectKey);
+        if( null != cached ) {
+            return cached.booleanValue();
+        }
+        boolean supported = false;
+        if( gl.isFunctionAvailable("glGetProgramBinary") && gl.isFunctionAvailable("glProgramBinary") ) {
+            clearGLErrors(gl);
+            final int[] param = { 0 };
+            gl.glGetIntegerv(GL2ES2.GL_NUM_PROGRAM_BINARY_FORMATS, param, 0);
+            supported = GL.GL_NO_ERROR == gl.glGetError() && 0 < param[0];
+        }
+        context.attachObject(supportedObjectKey, Boolean.valueOf(supported));
+        return supported;
+    }
+
+    /** Clears pending GL errors, not caused by the following calls. */
+    private static void clearGLErrors(GL gl) {
+        for(int i=0; i<8 && GL.GL_NO_ERROR != gl.glGetError(); i++) { }
+    }
+
+    /**
+     * Returns the cache key of the given shaders, or <code>null</code> if not all shaders are given as source code.
+     */
+    public String getKey(GL2ES2 gl, Collection<ShaderCode> shaders) {
+        final MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            return null;
+        }
+        // sort shader digests, since the order of shaders within a program is not defined
+        final byte[][] shaderDigests = new byte[shaders.size()][];
+        int n = 0;
+        for(Iterator<ShaderCode> iter = shaders.iterator(); iter.hasNext(); ) {
+            final ShaderCode sc = iter.next();
+            final CharSequence[][] source = sc.shaderSource();
+            if( null == source ) {
+                return null;
+            }
+            update(md, String.valueOf(sc.shaderType()));
+            for(int i=0; i<source.length; i++) {
+                for(int j=0; j<source[i].length; j++) {
+                    update(md, source[i][j].toString());
+                }
+            }
+            shaderDigests[n++] = md.digest();
+        }
+        Arrays.sort(shaderDigests, new java.util.Comparator<byte[]>() {
+            @Override
+            public int compare(byte[] a, byte[] b) {
+                for(int i=0; i<a.length; i++) {
+                    if( a[i] != b[i] ) {
+                        return a[i] < b[i] ? -1 : 1;
+                    }
+                }
+                return 0;
+            } });
+        md.reset();
+        update(md, gl.glGetString(GL.GL_VENDOR));
+        update(md, gl.glGetString(GL.GL_RENDERER));
+        update(md, gl.glGetString(GL.GL_VERSION));
+        for(int i=0; i<n; i++) {
+            md.update(shaderDigests[i]);
+        }
+        final byte[] digest = md.digest();
+        final StringBuilder sb = new StringBuilder(2*digest.length);
+        for(int i=0; i<digest.length; i++) {
+            final int v = digest[i] & 0xff;
+            if( v < 0x10 ) {
+                sb.append('0');
+            }
+            sb.append(Integer.toHexString(v));
+        }
+        return sb.toString();
+    }
+    private static void update(MessageDigest md, String s) {
+        try {
+            md.update( ( null != s ? s : "null" ).getBytes("UTF-8") );
+        } catch (UnsupportedEncodingException e) { throw new InternalError(e.getMessage()); }
+        md.update((byte)0);
+    }
+
+    /**
+     * Restores the cached binary of the given key into the given unlinked program.
+     *
+     * @return true if the binary was found and the program is linked, otherwise false.
+     *         If the binary was rejected by the driver, it is deleted from the cache.
+     */
+    public boolean load(GL2ES2 gl, int program, String key, PrintStream verboseOut) {
+        final File file = new File(dir, key+SUFFIX);
+        final ByteBuffer data = read(file);
+        if( null == data || 3*Buffers.SIZEOF_INT > data.remaining() ||
+            MAGIC != data.getInt() || VERSION != data.getInt() ) {
+            synchronized(this) { missCount++; }
+            return false;
+        }
+        final int format = data.getInt();
+        final int length = data.remaining();
+        final ByteBuffer binary = Buffers.newDirectByteBuffer(length);
+        binary.put(data);
+        binary.rewind();
+        clearGLErrors(gl);
+        gl.glProgramBinary(program, format, binary, length);
+        final int err = gl.glGetError(); // diagnostics only, the link status is authoritative
+        if( ShaderUtil.isProgramStatusValid(gl, program, GL2ES2.GL_LINK_STATUS) ) {
+            synchronized(this) { hitCount++; }
+            if(DEBUG) {
+                System.err.println("ShaderProgramCache: Restored "+key+", format 0x"+Integer.toHexString(format)+", "+length+" bytes");
+            }
+            return true;
+        }
+        if( null != verboseOut ) {
+            verboseOut.println("ShaderProgramCache: Binary "+key+" rejected, GL Error: 0x"+Integer.toHexString(err));
+        }
+        synchronized(this) { rejectCount++; }
+        delete(file);
+        return false;
+    }
+
+    /**
+     * Stores the binary of the given linked program w/ the given key.
+     *
+     * @return true if the binary was stored, otherwise false
+     */
+    public boolean store(GL2ES2 gl, int program, String key) {
+        final int[] param = { 0 };
+        clearGLErrors(gl);
+        gl.glGetProgramiv(program, GL2ES2.GL_PROGRAM_BINARY_LENGTH, param, 0);
+        final int length = param[0];
+        if( GL.GL_NO_ERROR != gl.glGetError() || 0 >= length ) {
+            return false;
+        }
+        final IntBuffer lengthBuf = Buffers.newDirectIntBuffer(1);
+        final IntBuffer formatBuf = Buffers.newDirectIntBuffer(1);
+        final ByteBuffer binary = Buffers.newDirectByteBuffer(length);
+        gl.glGetProgramBinary(program, length, lengthBuf, formatBuf, binary);
+        if( GL.GL_NO_ERROR != gl.glGetError() ) {
+            return false;
+        }
+        binary.limit(Math.min(length, lengthBuf.get(0)));
+        final ByteBuffer header = ByteBuffer.allocate(3*Buffers.SIZEOF_INT);
+        header.putInt(MAGIC).putInt(VERSION).putInt(formatBuf.get(0));
+        final byte[] bytes = new byte[header.capacity() + binary.remaining()];
+        System.arraycopy(header.array(), 0, bytes, 0, header.capacity());
+        binary.get(bytes, header.capacity(), binary.remaining());
+        if( !write(new File(dir, key+SUFFIX), bytes) ) {
+            return false;
+        }
+        synchronized(this) { storeCount++; }
+        if(DEBUG) {
+            System.err.println("ShaderProgramCache: Stored "+key+", format 0x"+Integer.toHexString(formatBuf.get(0))+", "+(bytes.length-header.capacity())+" bytes");
+        }
+        return true;
+    }
+
+    private static ByteBuffer read(final File file) {
+        return AccessController.doPrivileged(new PrivilegedAction<ByteBuffer>() {
+            @Override
+            public ByteBuffer run() {
+                if( !file.isFile() ) {
+                    return null;
+                }
+                InputStream in = null;
+                try {
+                    in = new FileInputStream(file);
+                    final byte[] bytes = new byte[(int)file.length()];
+                    int n = 0;
+                    while( n < bytes.length ) {
+                        final int r = in.read(bytes, n, bytes.length - n);
+                        if( 0 > r ) {
+                            return null;
+                        }
+                        n += r;
+                    }
+                    return ByteBuffer.wrap(bytes);
+                } catch (IOException ioe) {
+                    if(DEBUG) {
+                        System.err.println("ShaderProgramCache: Could not read "+file+": "+ioe.getMessage());
+                    }
+                    return null;
+                } finally {
+                    if( null != in ) {
+                        try { in.close(); } catch (IOException ioe) { }
+                    }
+                }
+            } } );
+    }
+
+    private boolean write(final File file, final byte[] bytes) {
+        return AccessController.doPrivileged(new PrivilegedAction<Boolean>() {
+            @Override
+            public Boolean run() {
+                if( !dir.isDirectory() && !dir.mkdirs() && !dir.isDirectory() ) {
+                    return Boolean.FALSE;
+                }
+                final File tmp = new File(dir, file.getName()+"."+Long.toHexString(System.nanoTime())+".tmp");
+                OutputStream out = null;
+                try {
+                    out = new FileOutputStream(tmp);
+                    out.write(bytes);
+                    out.close();
+                    out = null;
+                    if( !tmp.renameTo(file) ) {
+                        // target may exist on some platforms
+                        file.delete();
+                        if( !tmp.renameTo(file) ) {
+                            tmp.delete();
+                            return Boolean.FALSE;
+                        }
+                    }
+                    return Boolean.TRUE;
+                } catch (IOException ioe) {
+                    if(DEBUG) {
+                        System.err.println("ShaderProgramCache: Could not write "+file+": "+ioe.getMessage());
+                    }
+                    tmp.delete();
+                    return Boolean.FALSE;
+                } finally {
+                    if( null != out ) {
+                        try { out.close(); } catch (IOException ioe) { }
+                    }
+                }
+            } } ).booleanValue();
+    }
+
+    private static void delete(final File file) {
+        AccessController.doPrivileged(new PrivilegedAction<Object>() {
+            @Override
+            public Object run() {
+                file.delete();
+                return null;
+            } } );
+    }
+
+    @Override
+    public String toString() {
+        return "ShaderProgramCache["+dir+", hits "+hitCount+", misses "+missCount+", rejected "+rejectCount+", stored "+storeCount+"]";
+    }
+}
@@ -29,6 +29,7 @@
 package com.jogamp.opengl.util.glsl;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
 
@@ -54,6 +55,12 @@ import com.jogamp.opengl.util.GLArrayDataEditable;
  * A {@link #useProgram(GL2ES2, boolean) used} ShaderState is attached to the current GL context
  * and can be retrieved via {@link #getShaderState(GL)}.
  * </p>
+ * <p>
+ * For frequent updates, attributes and uniforms may be registered once to retrieve an integer handle,
+ * see {@link #getAttribHandle(GLArrayData)} and {@link #getUniformHandle(GLUniformData)}.
+ * The handle based methods operate on dense arrays w/o name lookups,
+ * uniform updates are marked dirty and issued in one batch via {@link #flushUniforms(GL2ES2)} before drawing.
+ * </p>
  */
 public class ShaderState {
     public static final boolean DEBUG;
@@ -479,6 +486,7 @@ public class ShaderState {
 
     private boolean enableVertexAttribArray(GL2ES2 gl, String name, int location) {
         activedAttribEnabledMap.put(name, Boolean.TRUE);
+        setAttribHandleEnabled(name, true);
         if(0>location) {
             location = getAttribLocation(gl, name);
             if(0>location) {
@@ -554,6 +562,7 @@ public class ShaderState {
 
     private boolean disableVertexAttribArray(GL2ES2 gl, String name, int location) {
         activedAttribEnabledMap.put(name, Boolean.FALSE);
+        setAttribHandleEnabled(name, false);
         if(0>location) {
             location = getAttribLocation(gl, name);
             if(0>location) {
@@ -658,6 +667,132 @@ public class ShaderState {
         return false;
     }
 
+    //
+    // Vertex attribute handles
+    //
+
+    /**
+     * Returns the handle of the given {@link GLArrayData} vertex attribute,
+     * registering it w/ this state if required.
+     * <p>
+     * The handle is valid until {@link #releaseAllAttributes(GL2ES2)},
+     * a later registered attribute of the same name replaces the data of the handle.
+     * </p>
+     *
+     * @see #enableVertexAttribArray(GL2ES2, int)
+     * @see #disableVertexAttribArray(GL2ES2, int)
+     * @see #vertexAttribPointer(GL2ES2, int)
+     */
+    public int getAttribHandle(GLArrayData data) {
+        final String name = data.getName();
+        final Integer h = attribHandleMap.get(name);
+        final int handle;
+        if( null != h ) {
+            handle = h.intValue();
+        } else {
+            handle = attribHandleCount++;
+            if( handle >= handleAttribs.length ) {
+                final int size = 2 * handleAttribs.length;
+                handleAttribs = grow(handleAttribs, new GLArrayData[size]);
+                handleAttribEnabled = grow(handleAttribEnabled, size);
+                handleAttribProgram = grow(handleAttribProgram, size);
+            }
+            attribHandleMap.put(name, Integer.valueOf(handle));
+        }
+        handleAttribs[handle] = data;
+        handleAttribEnabled[handle] = isVertexAttribArrayEnabled(name);
+        handleAttribProgram[handle] = 0;
+        activeAttribDataMap.put(name, data);
+        return handle;
+    }
+
+    /** Returns the {@link GLArrayData} of the given handle. */
+    public final GLArrayData getAttribute(int handle) {
+        return handleAttribs[handle];
+    }
+
+    /**
+     * Returns the location of the given attribute handle, retrieving it only once per program.
+     */
+    private final int getAttribHandleLocation(GL2ES2 gl, int handle) {
+        final GLArrayData data = handleAttribs[handle];
+        int location = data.getLocation();
+        if( 0 > location ) {
+            if(null==shaderProgram) throw new GLException("No program is attached");
+            final int program = shaderProgram.program();
+            if( handleAttribProgram[handle] != program ) {
+                location = getAttribLocation(gl, data);
+                handleAttribProgram[handle] = program;
+            }
+        }
+        return location;
+    }
+
+    /**
+     * Enables the vertex attribute array of the given handle,
+     * same as {@link #enableVertexAttribArray(GL2ES2, GLArrayData)} w/o name lookup.
+     *
+     * @return false, if the location is not found in the current shader, otherwise true
+     *
+     * @see #getAttribHandle(GLArrayData)
+     */
+    public boolean enableVertexAttribArray(GL2ES2 gl, int handle) {
+        if( !handleAttribEnabled[handle] ) {
+            handleAttribEnabled[handle] = true;
+            activedAttribEnabledMap.put(handleAttribs[handle].getName(), Boolean.TRUE);
+        }
+        final int location = getAttribHandleLocation(gl, handle);
+        if( 0 > location ) {
+            return false;
+        }
+        gl.glEnableVertexAttribArray(location);
+        return true;
+    }
+
+    /**
+     * Disables the vertex attribute array of the given handle,
+     * same as {@link #disableVertexAttribArray(GL2ES2, GLArrayData)} w/o name lookup.
+     *
+     * @return false, if the location is not found in the current shader, otherwise true
+     *
+     * @see #getAttribHandle(GLArrayData)
+     */
+    public boolean disableVertexAttribArray(GL2ES2 gl, int handle) {
+        if( handleAttribEnabled[handle] ) {
+            handleAttribEnabled[handle] = false;
+            activedAttribEnabledMap.put(handleAttribs[handle].getName(), Boolean.FALSE);
+        }
+        final int location = getAttribHandleLocation(gl, handle);
+        if( 0 > location ) {
+            return false;
+        }
+        gl.glDisableVertexAttribArray(location);
+        return true;
+    }
+
+    /**
+     * Sets the vertex attribute data of the given handle,
+     * same as {@link #vertexAttribPointer(GL2ES2, GLArrayData)} w/o name lookup.
+     *
+     * @return false, if the location is not found in the current shader, otherwise true
+     *
+     * @see #getAttribHandle(GLArrayData)
+     */
+    public boolean vertexAttribPointer(GL2ES2 gl, int handle) {
+        if( 0 > getAttribHandleLocation(gl, handle) ) {
+            return false;
+        }
+        gl.glVertexAttribPointer(handleAttribs[handle]);
+        return true;
+    }
+
+    private final void setAttribHandleEnabled(String name, boolean enabled) {
+        final Integer h = attribHandleMap.get(name);
+        if( null != h ) {
+            handleAttribEnabled[h.intValue()] = enabled;
+        }
+    }
+
     /**
      * Releases all mapped vertex attribute data,
      * disables all enabled attributes and loses all indices
@@ -684,6 +819,9 @@ public class ShaderState {
         activedAttribEnabledMap.clear();
         activeAttribLocationMap.clear();
         managedAttributes.clear();
+        attribHandleMap.clear();
+        Arrays.fill(handleAttribs, 0, attribHandleCount, null);
+        attribHandleCount = 0;
     }
 
     /**
@@ -708,6 +846,7 @@ public class ShaderState {
             final String name = iter.next();
             if(removeFromState) {
                 activedAttribEnabledMap.remove(name);
+                setAttribHandleEnabled(name, false);
             }
             final int index = getAttribLocation(gl, name);
             if(0<=index) {
@@ -969,6 +1108,138 @@ public class ShaderState {
         return activeUniformDataMap.get(name);
     }
 
+    //
+    // Uniform handles
+    //
+
+    /**
+     * Returns the handle of the given {@link GLUniformData}, registering it w/ this state if required.
+     * <p>
+     * The uniform is marked dirty, i.e. it's data will be passed w/ the next {@link #flushUniforms(GL2ES2)}.
+     * </p>
+     * <p>
+     * The handle is valid until {@link #releaseAllUniforms(GL2ES2)},
+     * a later registered uniform of the same name replaces the data of the handle.
+     * </p>
+     *
+     * @see #setUniformDirty(int)
+     * @see #flushUniforms(GL2ES2)
+     */
+    public int getUniformHandle(GLUniformData data) {
+        final String name = data.getName();
+        final Integer h = uniformHandleMap.get(name);
+        final int handle;
+        if( null != h ) {
+            handle = h.intValue();
+        } else {
+            handle = uniformHandleCount++;
+            if( handle >= handleUniforms.length ) {
+                final int size = 2 * handleUniforms.length;
+                handleUniforms = grow(handleUniforms, new GLUniformData[size]);
+                handleUniformDirty = grow(handleUniformDirty, size);
+                handleUniformProgram = grow(handleUniformProgram, size);
+                dirtyUniforms = grow(dirtyUniforms, size);
+            }
+            uniformHandleMap.put(name, Integer.valueOf(handle));
+        }
+        handleUniforms[handle] = data;
+        handleUniformProgram[handle] = 0;
+        activeUniformDataMap.put(name, data);
+        setUniformDirty(handle);
+        return handle;
+    }
+
+    /** Returns the {@link GLUniformData} of the given handle. */
+    public final GLUniformData getUniform(int handle) {
+        return handleUniforms[handle];
+    }
+
+    /**
+     * Marks the uniform of the given handle dirty after it's data has been changed,
+     * i.e. it will be passed w/ the next {@link #flushUniforms(GL2ES2)}.
+     */
+    public final void setUniformDirty(int handle) {
+        if( !handleUniformDirty[handle] ) {
+            handleUniformDirty[handle] = true;
+            dirtyUniforms[dirtyUniformCount++] = handle;
+        }
+    }
+
+    /**
+     * Sets the scalar value of the uniform of the given handle and marks it dirty.
+     * @see #flushUniforms(GL2ES2)
+     */
+    public final void setUniform(int handle, int value) {
+        handleUniforms[handle].setData(value);
+        setUniformDirty(handle);
+    }
+
+    /**
+     * Sets the scalar value of the uniform of the given handle and marks it dirty.
+     * @see #flushUniforms(GL2ES2)
+     */
+    public final void setUniform(int handle, float value) {
+        handleUniforms[handle].setData(value);
+        setUniformDirty(handle);
+    }
+
+    /**
+     * Passes the data of all dirty uniforms to the program in use, usually invoked right before drawing.
+     * <p>
+     * The location of each uniform is retrieved only once per program,
+     * uniforms not existing in the current program are skipped.
+     * </p>
+     *
+     * @return the number of uniforms passed
+     *
+     * @throws GLException if no program is attached or the program is not in use
+     *
+     * @see #setUniformDirty(int)
+     */
+    public int flushUniforms(GL2ES2 gl) {
+        if( 0 == dirtyUniformCount ) {
+            return 0;
+        }
+        if(null==shaderProgram) throw new GLException("No program is attached");
+        if(!shaderProgram.inUse()) throw new GLException("Program is not in use");
+        final int program = shaderProgram.program();
+        int count = 0;
+        for(int i=0; i<dirtyUniformCount; i++) {
+            final int handle = dirtyUniforms[i];
+            handleUniformDirty[handle] = false;
+            final GLUniformData data = handleUniforms[handle];
+            int location = data.getLocation();
+            if( 0 > location && handleUniformProgram[handle] != program ) {
+                location = getUniformLocation(gl, data);
+                handleUniformProgram[handle] = program;
+            }
+            if( 0 <= location ) {
+                gl.glUniform(data);
+                count++;
+            }
+        }
+        if(DEBUG) {
+            System.err.println("ShaderState: flushUniforms: "+count+"/"+dirtyUniformCount);
+        }
+        dirtyUniformCount = 0;
+        return count;
+    }
+
+    private static int[] grow(int[] src, int size) {
+        final int[] dst = new int[size];
+        System.arraycopy(src, 0, dst, 0, src.length);
+        return dst;
+    }
+    private static boolean[] grow(boolean[] src, int size) {
+        final boolean[] dst = new boolean[size];
+        System.arraycopy(src, 0, dst, 0, src.length);
+        return dst;
+    }
+    private static <T> T[] grow(T[] src, T[] dst) {
+        System.arraycopy(src, 0, dst, 0, src.length);
+        return dst;
+    }
+
     /**
      * Releases all mapped uniform data
      * and loses all indices
@@ -977,6 +1248,11 @@ public class ShaderState {
         activeUniformDataMap.clear();
         activeUniformLocationMap.clear();
         managedUniforms.clear();
+        uniformHandleMap.clear();
+        Arrays.fill(handleUniforms, 0, uniformHandleCount, null);
+        Arrays.fill(handleUniformDirty, 0, uniformHandleCount, false);
+        uniformHandleCount = 0;
+        dirtyUniformCount = 0;
     }
 
     /**
@@ -1012,6 +1288,13 @@ public class ShaderState {
                 gl.glUniform(data);
             }
         }
+        // all handle uniforms have been passed and located above
+        final int program = shaderProgram.program();
+        for(int i=0; i<uniformHandleCount; i++) {
+            handleUniformDirty[i] = false;
+            handleUniformProgram[i] = program;
+        }
+        dirtyUniformCount = 0;
     }
 
     public StringBuilder toString(StringBuilder sb, boolean alsoUnlocated) {
@@ -1084,6 +1367,22 @@ public class ShaderState {
     private HashMap<String, GLUniformData> activeUniformDataMap = new HashMap<String, GLUniformData>();
     private ArrayList<GLUniformData> managedUniforms = new ArrayList<GLUniformData>();
 
+    private HashMap<String, Integer> attribHandleMap = new HashMap<String, Integer>();
+    private GLArrayData[] handleAttribs = new GLArrayData[8];
+    private boolean[] handleAttribEnabled = new boolean[8];
+    /** Program the location has been retrieved for, if not found */
+    private int[] handleAttribProgram = new int[8];
+    private int attribHandleCount = 0;
+
+    private HashMap<String, Integer> uniformHandleMap = new HashMap<String, Integer>();
+    private GLUniformData[] handleUniforms = new GLUniformData[16];
+    private boolean[] handleUniformDirty = new boolean[16];
+    /** Program the location has been retrieved for, if not found */
+    private int[] handleUniformProgram = new int[16];
+    private int[] dirtyUniforms = new int[16];
+    private int uniformHandleCount = 0;
+    private int dirtyUniformCount = 0;
+
     private HashMap<String, Object> attachedObjectsByString = new HashMap<String, Object>();
     private boolean resetAllShaderData = false;
 }
@@ -46,6 +46,7 @@ import javax.media.nativewindow.NativeWindowFactory;
 import jogamp.opengl.*;
 
 import com.jogamp.opengl.GLExtensions;
+import com.jogamp.opengl.util.GLBuffers;
 import com.jogamp.opengl.util.texture.spi.*;
 
 /**
@@ -475,7 +476,27 @@ public class Texture {
      * @throws GLException if any OpenGL-related errors occurred
      */
     public void updateImage(GL gl, TextureData data, int targetOverride) throws GLException {
+        updateImageImpl(gl, data, targetOverride, false);
+    }
+
+    /**
+     * Allocates the texture storage for the given image like {@link #updateImage(GL, TextureData, int)},
+     * but only uploads the pixel data where a separate upload is not feasible.
+     * <p>
+     * Used by {@link TextureStreamer} to upload the pixel data incrementally
+     * via {@link #updateLevelImpl(GL, TextureData, int, int, int, int, boolean)}.
+     * </p>
+     * @return true if the pixel data still has to be uploaded, otherwise false,
+     *         i.e. the image is complete due to mipmap generation or expansion of compressed data.
+     * @throws GLException if any OpenGL-related errors occurred
+     */
+    /* package */ boolean allocateImage(GL gl, TextureData data, int targetOverride) throws GLException {
+        return updateImageImpl(gl, data, targetOverride, true);
+    }
+
+    private boolean updateImageImpl(GL gl, TextureData data, int targetOverride, boolean allocateOnly) throws GLException {
         validateTexID(gl, true);
+        boolean pending = false;
 
         imgWidth = data.getWidth();
         imgHeight = data.getHeight();
@@ -627,7 +648,10 @@ public class Texture {
         } else {
             checkCompressedTextureExtensions(gl, data);
             Buffer[] mipmapData = data.getMipmapData();
-            if (mipmapData != null) {
+            if (mipmapData != null && allocateOnly) {
+                // each level is allocated and filled by updateLevelImpl
+                pending = true;
+            } else if (mipmapData != null) {
                 int width = texWidth;
                 int height = texHeight;
                 for (int i = 0; i < mipmapData.length; i++) {
@@ -650,7 +674,10 @@ public class Texture {
                 }
             } else {
                 if (data.isDataCompressed()) {
-                    if (!expandingCompressedTexture) {
+                    if (!expandingCompressedTexture && allocateOnly) {
+                        // allocated and filled by updateLevelImpl
+                        pending = true;
+                    } else if (!expandingCompressedTexture) {
                         // Need to use glCompressedTexImage2D directly to allocate and fill this image
                         // Avoid spurious memory allocation when possible
                         gl.glCompressedTexImage2D(texTarget, 0, data.getInternalFormat(),
@@ -678,7 +705,11 @@ public class Texture {
                     gl.glTexImage2D(texTarget, 0, data.getInternalFormat(),
                                     texWidth, texHeight, data.getBorder(),
                                     data.getPixelFormat(), data.getPixelType(), null);
-                    updateSubImageImpl(gl, data, texTarget, 0, 0, 0, 0, 0, data.getWidth(), data.getHeight());
+                    if (allocateOnly && !usingAutoMipmapGeneration) {
+                        pending = true;
+                    } else {
+                        updateSubImageImpl(gl, data, texTarget, 0, 0, 0, 0, 0, data.getWidth(), data.getHeight());
+                    }
                 }
             }
         }
@@ -708,6 +739,41 @@ public class Texture {
 
         // This estimate will be wrong for cube maps
         estimatedMemorySize = data.getEstimatedMemorySize();
+        return pending;
+    }
+
+    /**
+     * Uploads <code>rows</code> rows starting at row <code>y</code> of the given mipmap level,
+     * used by {@link TextureStreamer} after {@link #allocateImage(GL, TextureData, int)}.
+     * <p>
+     * Compressed levels are always uploaded in whole, ignoring <code>y</code> and <code>rows</code>.
+     * If <code>rows</code> is 0, the level is only allocated.
+     * </p>
+     * @param allocate if true, the level's storage is allocated before uploading the rows
+     * @throws GLException if any OpenGL-related errors occurred
+     */
+    /* package */ void updateLevelImpl(GL gl, TextureData data, int targetOverride, int level, int y, int rows, boolean allocate) throws GLException {
+        final int texTarget = 0 != targetOverride ? targetOverride : target;
+        bind(gl);
+        final int width = Math.max(texWidth >> level, 1);
+        final int height = Math.max(texHeight >> level, 1);
+        if (data.isDataCompressed()) {
+            checkCompressedTextureExtensions(gl, data);
+            final Buffer buffer = null != data.getMipmapData() ? data.getMipmapData()[level] : data.getBuffer();
+            gl.glCompressedTexImage2D(texTarget, level, data.getInternalFormat(),
+                                      width, height, data.getBorder(),
+                                      buffer.remaining(), buffer);
+        } else {
+            if (allocate) {
+                gl.glTexImage2D(texTarget, level, data.getInternalFormat(),
+                                width, height, data.getBorder(),
+                                data.getPixelFormat(), data.getPixelType(), null);
+            }
+            if (0 < rows) {
+                // updateSubImageImpl scales the full image rectangle down to the level
+                updateSubImageImpl(gl, data, texTarget, level, 0, y, 0, y, data.getWidth(), rows << level);
+            }
+        }
     }
 
     /**
@@ -1085,10 +1151,19 @@ public class Texture {
                 }
             }
 
+            // w/o GL_UNPACK_SKIP_ROWS, skip whole rows by slicing the buffer
+            final int bufferPos = buffer.position();
+            if( !gl.isGL2GL3() && 0 != srcy && 0 == srcx && ( 0 == rowlen || dataWidth == rowlen ) ) {
+                final int dataAlign = data.getAlignment();
+                final int rowBytes = dataWidth * GLBuffers.bytesPerPixel(data.getPixelFormat(), data.getPixelType());
+                final int stride = ( ( rowBytes + dataAlign - 1 ) / dataAlign ) * dataAlign;
+                buffer.position( bufferPos + ( srcy * stride ) / GLBuffers.sizeOfBufferElem(buffer) );
+            }
             gl.glTexSubImage2D(newTarget, mipmapLevel,
                                dstx, dsty, width, height,
                                data.getPixelFormat(), data.getPixelType(),
                                buffer);
+            buffer.position(bufferPos);
             gl.glPixelStorei(GL.GL_UNPACK_ALIGNMENT,   align[0]);      // restore alignment
             if(gl.isGL2GL3()) {
                 gl.glPixelStorei(GL2GL3.GL_UNPACK_ROW_LENGTH,  rowLength[0]);  // restore row length
@@ -0,0 +1,349 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ *
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+
+package com.jogamp.opengl.util.texture;
+
+import java.io.IOException;
+import java.net.URL;
+import java.nio.Buffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.media.opengl.GL;
+import javax.media.opengl.GLException;
+
+import jogamp.opengl.Debug;
+
+import com.jogamp.opengl.util.GLBuffers;
+
+/**
+ * Cache of {@link Texture}s loaded via {@link TextureIO},
+ * keeping their estimated GPU memory within a budget by evicting the least recently used ones.
+ * <p>
+ * The memory of each texture is estimated from its {@link TextureData}'s format, size and mipmap levels,
+ * see {@link #estimateMemorySize(TextureData)}.
+ * Whenever the budget is exceeded, the least recently {@link #get(GL, URL) requested} textures are
+ * {@link Texture#destroy(GL) destroyed}, except the most recently requested one.
+ * </p>
+ * <p>
+ * If {@link #setReloadEvicted(boolean) reloading} is enabled, an evicted texture's {@link Texture} instance
+ * is retained and its image is loaded again into it on the next request,
+ * i.e. references held by the application remain valid.
+ * </p>
+ * <p>
+ * All methods shall be called on the same thread with the GL context being current.
+ * </p>
+ */
+public class TextureCache {
+    private static final boolean DEBUG = Debug.debug("TextureCache");
+
+    /** Loads the {@link TextureData} of a cached texture. */
+    public static interface Loader {
+        /**
+         * @param gl the current GL
+         * @param url the texture's key
+         * @param mipmap whether mipmaps shall be loaded or generated
+         * @return the texture data, or null if none could be read
+         * @throws IOException if an error occurred while reading the data
+         */
+        TextureData load(GL gl, URL url, boolean mipmap) throws IOException;
+    }
+
+    /** Default {@link Loader} using {@link TextureIO#newTextureData(javax.media.opengl.GLProfile, URL, boolean, String)}. */
+    public static final Loader defaultLoader = new Loader() {
+        @Override
+        public TextureData load(GL gl, URL url, boolean mipmap) throws IOException {
+            return TextureIO.newTextureData(gl.getGLProfile(), url, mipmap, null);
+        }
+    };
+
+    private static class Entry {
+        final Texture texture;
+        final long size;
+        Entry(Texture texture, long size) {
+            this.texture = texture;
+            this.size = size;
+        }
+    }
+
+    /** Resident textures in access order, least recently used first, keyed by {@link URL#toExternalForm()} avoiding host name resolution. */
+    private final LinkedHashMap<String, Entry> resident = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+    /** Evicted textures retained for reloading. */
+    private final Map<String, Texture> evicted = new LinkedHashMap<String, Texture>();
+    private final Loader loader;
+    private final boolean mipmap;
+    private long maxBytes;
+    private boolean reloadEvicted = false;
+
+    private long residentBytes = 0;
+    private long peakBytes = 0;
+    private long hitCount = 0;
+    private long missCount = 0;
+    private long reloadCount = 0;
+    private long evictionCount = 0;
+    private long evictedBytes = 0;
+
+    /**
+     * Creates a cache using the {@link #defaultLoader}.
+     * @param maxBytes the memory budget in bytes, 0 for unlimited
+     * @param mipmap whether mipmaps shall be loaded or generated
+     */
+    public TextureCache(long maxBytes, boolean mipmap) {
+        this(maxBytes, mipmap, defaultLoader);
+    }
+
+    /**
+     * @param maxBytes the memory budget in bytes, 0 for unlimited
+     * @param mipmap whether mipmaps shall be loaded or generated
+     * @param loader the {@link Loader} of the texture data
+     */
+    public TextureCache(long maxBytes, boolean mipmap, Loader loader) {
+        if( null == loader ) {
+            throw new IllegalArgumentException("Null Loader");
+        }
+        this.maxBytes = Math.max(0, maxBytes);
+        this.mipmap = mipmap;
+        this.loader = loader;
+    }
+
+    /**
+     * Returns an estimate of the amount of memory in bytes the given
+     * {@link TextureData} will consume once uploaded to the graphics card.
+     * <p>
+     * Compressed data is accounted by its size. Uncompressed data is accounted by
+     * its dimension and pixel size, where 3 byte pixels are assumed to be padded to 4 bytes.
+     * Mipmap levels are accounted by the given ones,
+     * or by the complete chain if {@link TextureData#getMipmap() generated}.
+     * </p>
+     */
+    public static long estimateMemorySize(TextureData data) {
+        if( data.isDataCompressed() ) {
+            return data.getEstimatedMemorySize();
+        }
+        int bpp;
+        try {
+            bpp = GLBuffers.bytesPerPixel(data.getPixelFormat(), data.getPixelType());
+        } catch (GLException gle) {
+            bpp = 4;
+        }
+        if( 3 == bpp ) {
+            bpp = 4;
+        }
+        final Buffer[] mipmapData = data.getMipmapData();
+        final int levels;
+        if( null != mipmapData ) {
+            levels = mipmapData.length;
+        } else if( data.getMipmap() ) {
+            levels = 32 - Integer.numberOfLeadingZeros(Math.max(data.getWidth(), data.getHeight()));
+        } else {
+            levels = 1;
+        }
+        long size = 0;
+        for(int l=0; l<levels; l++) {
+            size += (long) Math.max(data.getWidth() >> l, 1) * (long) Math.max(data.getHeight() >> l, 1) * bpp;
+        }
+        return size;
+    }
+
+    /**
+     * Sets the memory budget in bytes, 0 for unlimited.
+     * Textures exceeding the new budget are evicted at the next {@link #get(GL, URL)} or {@link #trim(GL)}.
+     */
+    public final void setMaxBytes(long maxBytes) { this.maxBytes = Math.max(0, maxBytes); }
+
+    /** Returns the memory budget in bytes, 0 for unlimited. */
+    public final long getMaxBytes() { return maxBytes; }
+
+    /**
+     * Enables retaining evicted {@link Texture} instances for reloading their image on the next request.
+     * Disabled by default, i.e. an evicted texture is dropped and a new instance is created on the next request.
+     */
+    public final void setReloadEvicted(boolean v) {
+        reloadEvicted = v;
+        if( !v ) {
+            evicted.clear();
+        }
+    }
+
+    /** Returns true if evicted textures are reloaded into their retained {@link Texture} instance. */
+    public final boolean getReloadEvicted() { return reloadEvicted; }
+
+    /**
+     * Returns the texture for the given URL, loading it if not resident.
+     * <p>
+     * If the budget is exceeded afterwards, the least recently used textures are evicted.
+     * </p>
+     * @return the texture, or null if the loader could not read the URL
+     * @throws IOException if an error occurred while reading the URL
+     * @throws GLException if any OpenGL-related errors occurred
+     */
+    public final Texture get(GL gl, URL url) throws IOException, GLException {
+        final String key = url.toExternalForm();
+        final Entry e = resident.get(key);
+        if( null != e ) {
+            hitCount++;
+            return e.texture;
+        }
+        final TextureData data = loader.load(gl, url, mipmap);
+        if( null == data ) {
+            return null;
+        }
+        final Texture texture;
+        try {
+            final Texture retained = evicted.remove(key);
+            if( null != retained ) {
+                retained.updateImage(gl, data);
+                texture = retained;
+                reloadCount++;
+            } else {
+                texture = TextureIO.newTexture(gl, data);
+                missCount++;
+            }
+            final long size = estimateMemorySize(data);
+            resident.put(key, new Entry(texture, size));
+            residentBytes += size;
+            peakBytes = Math.max(peakBytes, residentBytes);
+            if( DEBUG ) {
+                System.err.println("TextureCache.load: "+url+", "+size+" bytes, reload "+(null != retained)+", "+this);
+            }
+        } finally {
+            data.destroy();
+        }
+        trim(gl);
+        return texture;
+    }
+
+    /** Returns true if the texture for the given URL is resident, w/o altering the LRU order. */
+    public final boolean isResident(URL url) { return resident.containsKey(url.toExternalForm()); }
+
+    /**
+     * Evicts the least recently used textures until the budget is met,
+     * except the most recently requested one.
+     * @return the number of evicted textures
+     */
+    public final int trim(GL gl) {
+        int n = 0;
+        if( 0 < maxBytes ) {
+            final Iterator<Map.Entry<String, Entry>> it = resident.entrySet().iterator();
+            while( residentBytes > maxBytes && resident.size() > 1 && it.hasNext() ) {
+                final Map.Entry<String, Entry> me = it.next();
+                it.remove();
+                evict(gl, me.getKey(), me.getValue());
+                n++;
+            }
+        }
+        return n;
+    }
+
+    private final void evict(GL gl, String key, Entry e) {
+        e.texture.destroy(gl);
+        residentBytes -= e.size;
+        evictionCount++;
+        evictedBytes += e.size;
+        if( reloadEvicted ) {
+            evicted.put(key, e.texture);
+        }
+        if( DEBUG ) {
+            System.err.println("TextureCache.evict: "+key+", "+e.size+" bytes, "+this);
+        }
+    }
+
+    /**
+     * Removes and {@link Texture#destroy(GL) destroys} the texture for the given URL,
+     * not counted as an eviction.
+     * @return true if the texture was resident or retained for reloading, otherwise false
+     */
+    public final boolean remove(GL gl, URL url) {
+        final String key = url.toExternalForm();
+        final Entry e = resident.remove(key);
+        if( null != e ) {
+            e.texture.destroy(gl);
+            residentBytes -= e.size;
+            return true;
+        }
+        return null != evicted.remove(key);
+    }
+
+    /** Removes and {@link Texture#destroy(GL) destroys} all textures. */
+    public final void clear(GL gl) {
+        for(Iterator<Entry> it = resident.values().iterator(); it.hasNext(); ) {
+            it.next().texture.destroy(gl);
+        }
+        resident.clear();
+        evicted.clear();
+        residentBytes = 0;
+    }
+
+    /** Returns the number of resident textures. */
+    public final int getResidentCount() { return resident.size(); }
+
+    /** Returns the estimated memory of all resident textures in bytes. */
+    public final long getResidentBytes() { return residentBytes; }
+
+    /** Returns the peak of {@link #getResidentBytes()}. */
+    public final long getPeakBytes() { return peakBytes; }
+
+    /** Returns the number of requests served by a resident texture. */
+    public final long getHitCount() { return hitCount; }
+
+    /** Returns the number of requests loading a new texture. */
+    public final long getMissCount() { return missCount; }
+
+    /** Returns the number of requests reloading an evicted texture into its retained instance. */
+    public final long getReloadCount() { return reloadCount; }
+
+    /** Returns the number of evicted textures. */
+    public final long getEvictionCount() { return evictionCount; }
+
+    /** Returns the estimated memory of all evicted textures in bytes. */
+    public final long getEvictedBytes() { return evictedBytes; }
+
+    /** Returns the ratio of hits to all requests within [0..1]. */
+    public final float getHitRatio() {
+        final long total = hitCount + missCount + reloadCount;
+        return 0 < total ? (float)hitCount / (float)total : 0f;
+    }
+
+    /** Resets the hit, miss, reload and eviction counter as well as the peak. */
+    public final void resetCounter() {
+        hitCount = 0;
+        missCount = 0;
+        reloadCount = 0;
+        evictionCount = 0;
+        evictedBytes = 0;
+        peakBytes = residentBytes;
+    }
+
+    @Override
+    public String toString() {
+        return "TextureCache[resident "+resident.size()+", "+residentBytes+"/"+maxBytes+" bytes, peak "+peakBytes+
+               ", hits "+hitCount+", misses "+missCount+", reloads "+reloadCount+", evictions "+evictionCount+"/"+evictedBytes+" bytes"+
+               ", retained "+evicted.size()+"]";
+    }
+}
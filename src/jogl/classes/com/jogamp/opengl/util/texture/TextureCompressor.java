@@ -0,0 +1,493 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ *
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+
+package com.jogamp.opengl.util.texture;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.media.opengl.GL;
+import javax.media.opengl.GL2GL3;
+import javax.media.opengl.GLES2;
+import javax.media.opengl.GLException;
+
+import jogamp.opengl.Debug;
+import jogamp.opengl.util.texture.DXTBlockCodec;
+import jogamp.opengl.util.texture.ETC1BlockCodec;
+
+import com.jogamp.common.nio.Buffers;
+import com.jogamp.opengl.util.texture.spi.DDSImage;
+
+/**
+ * CPU block compression of uncompressed {@link TextureData} at load time, see {@link #compress(TextureData, int)}.
+ * <p>
+ * Supported compressed formats are
+ * <ul>
+ *   <li>{@link GL#GL_COMPRESSED_RGB_S3TC_DXT1_EXT} (BC1)</li>
+ *   <li>{@link GL#GL_COMPRESSED_RGBA_S3TC_DXT1_EXT} (BC1 w/ 1 bit alpha)</li>
+ *   <li>{@link GL#GL_COMPRESSED_RGBA_S3TC_DXT5_EXT} (BC3)</li>
+ *   <li>{@link GLES2#GL_ETC1_RGB8_OES} (ETC1)</li>
+ * </ul>
+ * Supported sources are {@link GL#GL_UNSIGNED_BYTE} pixels of format
+ * {@link GL#GL_RGBA}, {@link GL#GL_RGB}, {@link GL#GL_BGRA}, {@link GL2GL3#GL_BGR},
+ * {@link GL#GL_LUMINANCE} or {@link GL#GL_LUMINANCE_ALPHA} in a {@link ByteBuffer},
+ * see {@link #isSupported(TextureData)}.
+ * </p>
+ * <p>
+ * The rows of 4x4 pixel blocks are encoded in parallel by up to {@link #DEFAULT_THREAD_COUNT} threads
+ * of a shared daemon thread pool, created lazily and shrinking when idle.
+ * Mipmap levels given by the source are compressed each, mipmap levels requested to be
+ * {@link TextureData#getMipmap() generated} are generated on the CPU via a box filter before,
+ * since compressed textures cannot be generated by GL.
+ * </p>
+ * <p>
+ * Compressed S3TC data can be cached to a DDS file via {@link #toDDSImage(TextureData)} and {@link DDSImage#write(java.io.File)}.
+ * {@link #decompress(TextureData)} decodes the compressed data again for verification or as a software fallback.
+ * </p>
+ * @see TextureIO#setCompressionFormat(int)
+ */
+public class TextureCompressor {
+    /**
+     * Default number of encoder threads, defaults to the number of available processors.
+     * May be overridden via the property <code>jogl.texture.compressor.threads</code>.
+     */
+    public static final int DEFAULT_THREAD_COUNT;
+
+    /** Minimum number of block rows per encoder thread. */
+    private static final int MIN_BLOCK_ROWS_PER_THREAD = 8;
+
+    static {
+        Debug.initSingleton();
+        final int n = Debug.getIntProperty("jogl.texture.compressor.threads", true, 0);
+        DEFAULT_THREAD_COUNT = 0 < n ? n : Runtime.getRuntime().availableProcessors();
+    }
+
+    /** Shared encoder threads, bounded by {@link #DEFAULT_THREAD_COUNT}, see {@link #getExecutor()}. */
+    private static ThreadPoolExecutor executor = null;
+
+    private static synchronized ThreadPoolExecutor getExecutor() {
+        if( null == executor ) {
+            final AtomicInteger threadNo = new AtomicInteger(0);
+            final int size = Math.max(1, DEFAULT_THREAD_COUNT);
+            executor = new ThreadPoolExecutor(size, size, 10, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        final Thread t = new Thread(r, "TextureCompressor-"+threadNo.getAndIncrement());
+                        t.setDaemon(true);
+                        return t;
+                    }
+                });
+            executor.allowCoreThreadTimeOut(true);
+        }
+        return executor;
+    }
+
+    /** Returns true if the given format is a supported compressed format. */
+    public static boolean isSupportedFormat(int compressedFormat) {
+        switch( compressedFormat ) {
+            case GL.GL_COMPRESSED_RGB_S3TC_DXT1_EXT:
+            case GL.GL_COMPRESSED_RGBA_S3TC_DXT1_EXT:
+            case GL.GL_COMPRESSED_RGBA_S3TC_DXT5_EXT:
+            case GLES2.GL_ETC1_RGB8_OES:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /** Returns the size of a 4x4 pixel block of the given compressed format in bytes. */
+    public static int getBlockSize(int compressedFormat) throws IllegalArgumentException {
+        switch( compressedFormat ) {
+            case GL.GL_COMPRESSED_RGB_S3TC_DXT1_EXT:
+            case GL.GL_COMPRESSED_RGBA_S3TC_DXT1_EXT:
+                return DXTBlockCodec.BC1_BLOCK_SIZE;
+            case GL.GL_COMPRESSED_RGBA_S3TC_DXT5_EXT:
+                return DXTBlockCodec.BC3_BLOCK_SIZE;
+            case GLES2.GL_ETC1_RGB8_OES:
+                return ETC1BlockCodec.BLOCK_SIZE;
+            default:
+                throw new IllegalArgumentException("Unsupported compressed format 0x"+Integer.toHexString(compressedFormat));
+        }
+    }
+
+    /** Returns true if the given uncompressed texture data can be {@link #compress(TextureData, int) compressed}. */
+    public static boolean isSupported(TextureData data) {
+        if( data.isDataCompressed() || GL.GL_UNSIGNED_BYTE != data.getPixelType() || 0 != data.getBorder() ||
+            null == getChannelOffsets(data.getPixelFormat()) ) {
+            return false;
+        }
+        final Buffer[] mipmapData = data.getMipmapData();
+        if( null != mipmapData ) {
+            for(int i=0; i<mipmapData.length; i++) {
+                if( !( mipmapData[i] instanceof ByteBuffer ) ) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return data.getBuffer() instanceof ByteBuffer;
+    }
+
+    /**
+     * Returns the byte offsets of red, green, blue and alpha within a pixel followed by the pixel size,
+     * or null if the pixel format is not supported. Alpha offset is -1 if not available.
+     */
+    private static int[] getChannelOffsets(int pixelFormat) {
+        switch( pixelFormat ) {
+            case GL.GL_RGBA:            return new int[] { 0, 1, 2, 3, 4 };
+            case GL.GL_RGB:             return new int[] { 0, 1, 2, -1, 3 };
+            case GL.GL_BGRA:            return new int[] { 2, 1, 0, 3, 4 };
+            case GL2GL3.GL_BGR:         return new int[] { 2, 1, 0, -1, 3 };
+            case GL.GL_LUMINANCE:       return new int[] { 0, 0, 0, -1, 1 };
+            case GL.GL_LUMINANCE_ALPHA: return new int[] { 0, 0, 0, 1, 2 };
+            default:                    return null;
+        }
+    }
+
+    /** Uncompressed source level. */
+    private static class Level {
+        final ByteBuffer buffer;
+        final int width, height, stride;
+        final int[] offsets;
+        Level(ByteBuffer buffer, int width, int height, int stride, int[] offsets) {
+            this.buffer = buffer;
+            this.width = width;
+            this.height = height;
+            this.stride = stride;
+            this.offsets = offsets;
+        }
+        /** Fetches the 4x4 pixel block at the given block coordinates, replicating edge pixels. */
+        final void fetch(ByteBuffer src, int bx, int by, int[] rgba) {
+            final int base = buffer.position();
+            final int bpp = offsets[4];
+            for(int y=0; y<4; y++) {
+                final int row = base + Math.min(by*4+y, height-1) * stride;
+                for(int x=0; x<4; x++) {
+                    final int i = row + Math.min(bx*4+x, width-1) * bpp;
+                    final int p = ( y*4+x ) * 4;
+                    rgba[p  ] = src.get(i+offsets[0]) & 0xff;
+                    rgba[p+1] = src.get(i+offsets[1]) & 0xff;
+                    rgba[p+2] = src.get(i+offsets[2]) & 0xff;
+                    rgba[p+3] = 0 <= offsets[3] ? src.get(i+offsets[3]) & 0xff : 255;
+                }
+            }
+        }
+    }
+
+    private static final int[] rgbaOffsets = new int[] { 0, 1, 2, 3, 4 };
+
+    /** Returns the given level box filtered to half its size as tightly packed RGBA. */
+    private static Level downsample(Level src) {
+        final int w = Math.max(src.width / 2, 1);
+        final int h = Math.max(src.height / 2, 1);
+        final ByteBuffer dst = Buffers.newDirectByteBuffer(w * h * 4);
+        final ByteBuffer s = src.buffer;
+        final int base = s.position();
+        final int bpp = src.offsets[4];
+        for(int y=0; y<h; y++) {
+            for(int x=0; x<w; x++) {
+                for(int c=0; c<4; c++) {
+                    int sum = 0;
+                    for(int j=0; j<2; j++) {
+                        final int sy = Math.min(y*2+j, src.height-1);
+                        for(int k=0; k<2; k++) {
+                            final int sx = Math.min(x*2+k, src.width-1);
+                            final int off = src.offsets[c];
+                            sum += 0 <= off ? s.get(base + sy * src.stride + sx * bpp + off) & 0xff : 255;
+                        }
+                    }
+                    dst.put( (y*w+x)*4+c, (byte) ( ( sum + 2 ) / 4 ) );
+                }
+            }
+        }
+        return new Level(dst, w, h, w * 4, rgbaOffsets);
+    }
+
+    /**
+     * Compresses the given texture data w/ {@link #DEFAULT_THREAD_COUNT} threads.
+     * @see #compress(TextureData, int, int)
+     */
+    public static TextureData compress(TextureData data, int compressedFormat) throws IllegalArgumentException {
+        return compress(data, compressedFormat, DEFAULT_THREAD_COUNT);
+    }
+
+    /**
+     * Compresses the given uncompressed texture data into a new {@link TextureData} of the given compressed format.
+     * <p>
+     * The source is left untouched. Partial blocks at the right and bottom edge replicate the edge pixels.
+     * </p>
+     * @param data uncompressed {@link #isSupported(TextureData) supported} source
+     * @param compressedFormat one of the {@link #isSupportedFormat(int) supported compressed formats}
+     * @param threadCount maximum number of encoder threads, 1 for encoding on the current thread only
+     * @return the compressed texture data
+     * @throws IllegalArgumentException if the source or compressed format is not supported
+     */
+    public static TextureData compress(TextureData data, int compressedFormat, int threadCount) throws IllegalArgumentException {
+        if( !isSupportedFormat(compressedFormat) ) {
+            throw new IllegalArgumentException("Unsupported compressed format 0x"+Integer.toHexString(compressedFormat));
+        }
+        if( !isSupported(data) ) {
+            throw new IllegalArgumentException("Unsupported texture data "+data);
+        }
+        final int[] offsets = getChannelOffsets(data.getPixelFormat());
+        final int bpp = offsets[4];
+        final int align = data.getAlignment();
+        final Buffer[] mipmapData = data.getMipmapData();
+        final ByteBuffer[] levels;
+        if( null != mipmapData ) {
+            levels = new ByteBuffer[mipmapData.length];
+            for(int i=0; i<mipmapData.length; i++) {
+                final int w = Math.max(data.getWidth() >> i, 1);
+                final int h = Math.max(data.getHeight() >> i, 1);
+                final int stride = ( ( w * bpp + align - 1 ) / align ) * align;
+                levels[i] = encodeLevel(new Level((ByteBuffer)mipmapData[i], w, h, stride, offsets), compressedFormat, threadCount);
+            }
+        } else {
+            final int rowlen = 0 < data.getRowLength() ? data.getRowLength() : data.getWidth();
+            final int stride = ( ( rowlen * bpp + align - 1 ) / align ) * align;
+            Level level = new Level((ByteBuffer)data.getBuffer(), data.getWidth(), data.getHeight(), stride, offsets);
+            if( data.getMipmap() ) {
+                final int count = 32 - Integer.numberOfLeadingZeros(Math.max(data.getWidth(), data.getHeight()));
+                levels = new ByteBuffer[count];
+                for(int i=0; i<count; i++) {
+                    if( 0 < i ) {
+                        level = downsample(level);
+                    }
+                    levels[i] = encodeLevel(level, compressedFormat, threadCount);
+                }
+            } else {
+                levels = new ByteBuffer[] { encodeLevel(level, compressedFormat, threadCount) };
+            }
+        }
+        final int pixelFormat = ( GL.GL_COMPRESSED_RGB_S3TC_DXT1_EXT == compressedFormat ||
+                                  GLES2.GL_ETC1_RGB8_OES == compressedFormat ) ? GL.GL_RGB : GL.GL_RGBA;
+        if( 1 == levels.length ) {
+            return new TextureData(data.getGLProfile(), compressedFormat, data.getWidth(), data.getHeight(), 0,
+                                   pixelFormat, GL.GL_UNSIGNED_BYTE, false, true, data.getMustFlipVertically(),
+                                   levels[0], null);
+        } else {
+            return new TextureData(data.getGLProfile(), compressedFormat, data.getWidth(), data.getHeight(), 0,
+                                   pixelFormat, GL.GL_UNSIGNED_BYTE, true, data.getMustFlipVertically(),
+                                   levels, null);
+        }
+    }
+
+    private static void encodeBlocks(Level level, ByteBuffer src, ByteBuffer dst, int format, int blockRow, int[] rgba) {
+        final int blocksX = ( level.width + 3 ) / 4;
+        final int blockSize = getBlockSize(format);
+        int off = blockRow * blocksX * blockSize;
+        for(int bx=0; bx<blocksX; bx++, off+=blockSize) {
+            level.fetch(src, bx, blockRow, rgba);
+            switch( format ) {
+                case GL.GL_COMPRESSED_RGB_S3TC_DXT1_EXT:
+                    DXTBlockCodec.encodeBC1(rgba, false, dst, off);
+                    break;
+                case GL.GL_COMPRESSED_RGBA_S3TC_DXT1_EXT:
+                    DXTBlockCodec.encodeBC1(rgba, true, dst, off);
+                    break;
+                case GL.GL_COMPRESSED_RGBA_S3TC_DXT5_EXT:
+                    DXTBlockCodec.encodeBC3(rgba, dst, off);
+                    break;
+                case GLES2.GL_ETC1_RGB8_OES:
+                    ETC1BlockCodec.encode(rgba, dst, off);
+                    break;
+            }
+        }
+    }
+
+    private static ByteBuffer encodeLevel(final Level level, final int format, int threadCount) {
+        final int blockRows = ( level.height + 3 ) / 4;
+        final ByteBuffer dst = Buffers.newDirectByteBuffer(( ( level.width + 3 ) / 4 ) * blockRows * getBlockSize(format));
+        final int n = Math.min(threadCount, blockRows / MIN_BLOCK_ROWS_PER_THREAD);
+        if( 1 >= n ) {
+            final int[] rgba = new int[64];
+            for(int by=0; by<blockRows; by++) {
+                encodeBlocks(level, level.buffer, dst, format, by, rgba);
+            }
+            return dst;
+        }
+        // Block rows are handed out one at a time, each task writes disjoint ranges of the destination.
+        // 'pending' counts the tasks not completed yet and guards 'error'.
+        final AtomicInteger nextRow = new AtomicInteger(0);
+        final Throwable[] error = { null };
+        final int[] pending = { n };
+        final ThreadPoolExecutor pool = getExecutor();
+        for(int i=0; i<n; i++) {
+            final ByteBuffer src = level.buffer.duplicate();
+            final ByteBuffer d = dst.duplicate();
+            pool.execute(new Runnable() {
+                @Override
+                public void run() {
+                    Throwable err = null;
+                    try {
+                        final int[] rgba = new int[64];
+                        int by;
+                        while( ( by = nextRow.getAndIncrement() ) < blockRows ) {
+                            encodeBlocks(level, src, d, format, by, rgba);
+                        }
+                    } catch (Throwable t) {
+                        err = t;
+                    } finally {
+                        synchronized( pending ) {
+                            if( null != err ) {
+                                error[0] = err;
+                            }
+                            pending[0]--;
+                            pending.notifyAll();
+                        }
+                    }
+                }
+            });
+        }
+        synchronized( pending ) {
+            InterruptedException interrupted = null;
+            while( 0 < pending[0] ) {
+                try {
+                    pending.wait();
+                } catch (InterruptedException ie) {
+                    if( null == interrupted ) {
+                        // stop handing out rows and wait for the running tasks, no more writes into dst
+                        interrupted = ie;
+                        nextRow.set(blockRows);
+                    }
+                }
+            }
+            if( null != interrupted ) {
+                Thread.currentThread().interrupt();
+                throw new GLException("Interrupted while compressing", interrupted);
+            }
+            if( null != error[0] ) {
+                throw new GLException("Compression failed", error[0]);
+            }
+        }
+        return dst;
+    }
+
+    /**
+     * Decompresses the given texture data of one of the {@link #isSupportedFormat(int) supported compressed formats}
+     * into a new {@link TextureData} of tightly packed {@link GL#GL_RGBA} {@link GL#GL_UNSIGNED_BYTE} pixels,
+     * retaining the mipmap levels.
+     * @throws IllegalArgumentException if the compressed format is not supported
+     */
+    public static TextureData decompress(TextureData data) throws IllegalArgumentException {
+        final int format = data.getInternalFormat();
+        if( !data.isDataCompressed() || !isSupportedFormat(format) ) {
+            throw new IllegalArgumentException("Unsupported texture data "+data);
+        }
+        final Buffer[] mipmapData = data.getMipmapData();
+        final int count = null != mipmapData ? mipmapData.length : 1;
+        final ByteBuffer[] levels = new ByteBuffer[count];
+        final int[] rgba = new int[64];
+        final int blockSize = getBlockSize(format);
+        for(int i=0; i<count; i++) {
+            final ByteBuffer src = (ByteBuffer) ( null != mipmapData ? mipmapData[i] : data.getBuffer() );
+            final int w = Math.max(data.getWidth() >> i, 1);
+            final int h = Math.max(data.getHeight() >> i, 1);
+            final ByteBuffer dst = Buffers.newDirectByteBuffer(w * h * 4);
+            final int blocksX = ( w + 3 ) / 4;
+            int off = src.position();
+            for(int by=0; by<(h+3)/4; by++) {
+                for(int bx=0; bx<blocksX; bx++, off+=blockSize) {
+                    switch( format ) {
+                        case GL.GL_COMPRESSED_RGB_S3TC_DXT1_EXT:
+                            DXTBlockCodec.decodeBC1(src, off, false, rgba);
+                            break;
+                        case GL.GL_COMPRESSED_RGBA_S3TC_DXT1_EXT:
+                            DXTBlockCodec.decodeBC1(src, off, true, rgba);
+                            break;
+                        case GL.GL_COMPRESSED_RGBA_S3TC_DXT5_EXT:
+                            DXTBlockCodec.decodeBC3(src, off, rgba);
+                            break;
+                        case GLES2.GL_ETC1_RGB8_OES:
+                            ETC1BlockCodec.decode(src, off, rgba);
+                            break;
+                    }
+                    for(int y=0; y<4 && by*4+y<h; y++) {
+                        for(int x=0; x<4 && bx*4+x<w; x++) {
+                            final int d = ( ( by*4+y ) * w + bx*4+x ) * 4;
+                            final int p = ( y*4+x ) * 4;
+                            for(int c=0; c<4; c++) {
+                                dst.put(d+c, (byte) rgba[p+c]);
+                            }
+                        }
+                    }
+                }
+            }
+            levels[i] = dst;
+        }
+        if( null == mipmapData ) {
+            return new TextureData(data.getGLProfile(), GL.GL_RGBA, data.getWidth(), data.getHeight(), 0,
+                                   GL.GL_RGBA, GL.GL_UNSIGNED_BYTE, false, false, data.getMustFlipVertically(),
+                                   levels[0], null);
+        } else {
+            return new TextureData(data.getGLProfile(), GL.GL_RGBA, data.getWidth(), data.getHeight(), 0,
+                                   GL.GL_RGBA, GL.GL_UNSIGNED_BYTE, false, data.getMustFlipVertically(),
+                                   levels, null);
+        }
+    }
+
+    /**
+     * Creates a {@link DDSImage} of the given S3TC compressed texture data incl. its mipmap levels,
+     * e.g. to cache the result of {@link #compress(TextureData, int)} via {@link DDSImage#write(java.io.File)}.
+     * <p>
+     * Note that DDS files are loaded by {@link TextureIO} w/ {@link TextureData#getMustFlipVertically()} set.
+     * ETC1 data cannot be stored in DDS files.
+     * </p>
+     * @throws IllegalArgumentException if the texture data is not S3TC compressed
+     */
+    public static DDSImage toDDSImage(TextureData data) throws IllegalArgumentException {
+        final int d3dFormat;
+        switch( data.isDataCompressed() ? data.getInternalFormat() : 0 ) {
+            case GL.GL_COMPRESSED_RGB_S3TC_DXT1_EXT:
+            case GL.GL_COMPRESSED_RGBA_S3TC_DXT1_EXT:
+                d3dFormat = DDSImage.D3DFMT_DXT1;
+                break;
+            case GL.GL_COMPRESSED_RGBA_S3TC_DXT3_EXT:
+                d3dFormat = DDSImage.D3DFMT_DXT3;
+                break;
+            case GL.GL_COMPRESSED_RGBA_S3TC_DXT5_EXT:
+                d3dFormat = DDSImage.D3DFMT_DXT5;
+                break;
+            default:
+                throw new IllegalArgumentException("Not S3TC compressed: "+data);
+        }
+        final Buffer[] mipmapData = data.getMipmapData();
+        final ByteBuffer[] levels = new ByteBuffer[ null != mipmapData ? mipmapData.length : 1 ];
+        for(int i=0; i<levels.length; i++) {
+            // DDSImage consumes the given buffers
+            levels[i] = ( (ByteBuffer) ( null != mipmapData ? mipmapData[i] : data.getBuffer() ) ).duplicate();
+        }
+        return DDSImage.createFromData(d3dFormat, data.getWidth(), data.getHeight(), levels);
+    }
+}
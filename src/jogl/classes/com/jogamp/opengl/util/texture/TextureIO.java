@@ -173,6 +173,7 @@ public class TextureIO {
     // is useful for shader writers (thanks to Chris Campbell for this
     // observation)
     private static boolean texRectEnabled = true;
+    private static volatile int compressionFormat = 0;
 
     //----------------------------------------------------------------------
     // methods that *do not* require a current context
@@ -772,10 +773,46 @@ public class TextureIO {
         return texRectEnabled;
     }
 
+    /** Sets the compressed format all supported uncompressed texture data
+        is compressed to at load time by the newTextureData methods, see
+        {@link TextureCompressor#compress(TextureData, int)}. Texture data
+        not {@link TextureCompressor#isSupported(TextureData) supported}
+        by the compressor is passed through. Pass 0, the default, to
+        disable compression.
+
+        @throws IllegalArgumentException if the compressed format is not
+                {@link TextureCompressor#isSupportedFormat(int) supported} */
+    public static void setCompressionFormat(int compressedFormat) throws IllegalArgumentException {
+        if (compressedFormat != 0 && !TextureCompressor.isSupportedFormat(compressedFormat)) {
+            throw new IllegalArgumentException("Unsupported compressed format 0x"+Integer.toHexString(compressedFormat));
+        }
+        compressionFormat = compressedFormat;
+    }
+
+    /** Returns the compressed format texture data is compressed to at
+        load time, or 0 if disabled; see {@link #setCompressionFormat
+        setCompressionFormat}. */
+    public static int getCompressionFormat() {
+        return compressionFormat;
+    }
+
     //----------------------------------------------------------------------
     // Internals only below this point
     //
 
+    private static TextureData compressIfEnabled(TextureData data) {
+        final int format = compressionFormat;
+        if (format == 0 || !TextureCompressor.isSupported(data)) {
+            return data;
+        }
+        final TextureData compressed = TextureCompressor.compress(data, format);
+        if (DEBUG) {
+            System.err.println("TextureIO: compressed "+data+" -> "+compressed);
+        }
+        data.destroy();
+        return compressed;
+    }
+
     private static List<TextureProvider> textureProviders = new ArrayList<TextureProvider>();
     private static List<TextureWriter>   textureWriters   = new ArrayList<TextureWriter>();
 
@@ -847,7 +884,7 @@ public class TextureIO {
                                                        mipmap,
                                                        fileSuffix);
             if (data != null) {
-                return data;
+                return compressIfEnabled(data);
             }
         }
 
@@ -878,7 +915,7 @@ public class TextureIO {
                                                        mipmap,
                                                        fileSuffix);
             if (data != null) {
-                return data;
+                return compressIfEnabled(data);
             }
         }
 
@@ -904,7 +941,7 @@ public class TextureIO {
                                                        mipmap,
                                                        fileSuffix);
             if (data != null) {
-                return data;
+                return compressIfEnabled(data);
             }
         }
 
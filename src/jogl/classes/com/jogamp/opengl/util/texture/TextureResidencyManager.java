@@ -0,0 +1,216 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ *
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+
+package com.jogamp.opengl.util.texture;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+
+import javax.media.opengl.GL;
+import javax.media.opengl.GLException;
+
+/**
+ * Schedules the incremental uploads of multiple {@link TextureStreamer}s
+ * within a per frame byte and time budget.
+ * <p>
+ * Each {@link #update(GL)}, usually called once per frame, serves the pending streamers
+ * ordered by the size of their pending mipmap level, smallest first, and by their priority.
+ * Hence all textures become usable at a coarse resolution first and are refined later on,
+ * where textures of higher priority are refined earlier.
+ * </p>
+ * <p>
+ * Completed streamers are removed and {@link TextureStreamer#destroy(GL) destroyed}.
+ * </p>
+ * <p>
+ * All methods shall be called on the same thread with the textures' GL context being current.
+ * </p>
+ */
+public class TextureResidencyManager {
+    /** Default byte budget per {@link #update(GL)}, 1 MiB. */
+    public static final long DEFAULT_BYTE_BUDGET = 1024 * 1024;
+    /** Default time budget per {@link #update(GL)} in nanoseconds, 2 ms. */
+    public static final long DEFAULT_NANO_BUDGET = 2000000;
+
+    private static class Entry {
+        final TextureStreamer streamer;
+        final int priority;
+        Entry(TextureStreamer streamer, int priority) {
+            this.streamer = streamer;
+            this.priority = priority;
+        }
+    }
+
+    private static final Comparator<Entry> entryComparator = new Comparator<Entry>() {
+        @Override
+        public int compare(Entry a, Entry b) {
+            final long ta = a.streamer.getPendingLevelTexels();
+            final long tb = b.streamer.getPendingLevelTexels();
+            if( ta != tb ) {
+                return ta < tb ? -1 : 1;
+            }
+            return b.priority - a.priority;
+        }
+    };
+
+    private final ArrayList<Entry> entries = new ArrayList<Entry>();
+    private long byteBudget;
+    private long nanoBudget;
+    private long uploadedBytes = 0;
+    private long lastUploadedBytes = 0;
+    private int completedCount = 0;
+
+    /** Creates an instance using {@link #DEFAULT_BYTE_BUDGET} and {@link #DEFAULT_NANO_BUDGET}. */
+    public TextureResidencyManager() {
+        this(DEFAULT_BYTE_BUDGET, DEFAULT_NANO_BUDGET);
+    }
+
+    /**
+     * @param byteBudget maximum number of bytes uploaded per {@link #update(GL)}, 0 for unlimited
+     * @param nanoBudget maximum time spent per {@link #update(GL)} in nanoseconds, 0 for unlimited
+     */
+    public TextureResidencyManager(long byteBudget, long nanoBudget) {
+        setBudget(byteBudget, nanoBudget);
+    }
+
+    /**
+     * Sets the budget per {@link #update(GL)}.
+     * @param byteBudget maximum number of bytes, 0 for unlimited
+     * @param nanoBudget maximum time in nanoseconds, 0 for unlimited
+     */
+    public final void setBudget(long byteBudget, long nanoBudget) {
+        this.byteBudget = Math.max(0, byteBudget);
+        this.nanoBudget = Math.max(0, nanoBudget);
+    }
+
+    /** Returns the byte budget per {@link #update(GL)}, 0 for unlimited. */
+    public final long getByteBudget() { return byteBudget; }
+
+    /** Returns the time budget per {@link #update(GL)} in nanoseconds, 0 for unlimited. */
+    public final long getNanoBudget() { return nanoBudget; }
+
+    /**
+     * Adds the given streamer for upload.
+     * @param streamer the streamer
+     * @param priority higher priority textures are refined earlier
+     * @throws IllegalArgumentException if the streamer has already been added
+     */
+    public final void add(TextureStreamer streamer, int priority) throws IllegalArgumentException {
+        if( 0 <= indexOf(streamer) ) {
+            throw new IllegalArgumentException("Streamer already added: "+streamer);
+        }
+        entries.add(new Entry(streamer, priority));
+    }
+
+    /**
+     * Removes the given streamer w/o completing its upload.
+     * The caller is responsible to {@link TextureStreamer#destroy(GL) destroy} it.
+     * @return true if the streamer was pending, otherwise false
+     */
+    public final boolean remove(TextureStreamer streamer) {
+        final int i = indexOf(streamer);
+        if( 0 > i ) {
+            return false;
+        }
+        entries.remove(i);
+        return true;
+    }
+
+    private final int indexOf(TextureStreamer streamer) {
+        for(int i=entries.size()-1; i>=0; i--) {
+            if( entries.get(i).streamer == streamer ) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /** Returns the number of pending streamers. */
+    public final int getPendingCount() { return entries.size(); }
+
+    /** Returns the number of streamers completed so far. */
+    public final int getCompletedCount() { return completedCount; }
+
+    /** Returns the total number of bytes uploaded so far. */
+    public final long getUploadedBytes() { return uploadedBytes; }
+
+    /** Returns the number of bytes uploaded by the last {@link #update(GL)}. */
+    public final long getLastUploadedBytes() { return lastUploadedBytes; }
+
+    /**
+     * Uploads the next strips of the pending streamers within the budget.
+     * <p>
+     * Each served streamer uploads at least one strip, hence the byte budget
+     * may be exceeded by at most one strip.
+     * </p>
+     * @return the number of bytes uploaded
+     * @throws GLException if any OpenGL-related errors occurred
+     */
+    public final long update(GL gl) throws GLException {
+        final long t0 = System.nanoTime();
+        long bytes = 0;
+        while( 0 < entries.size() ) {
+            final long nanos = System.nanoTime() - t0;
+            if( ( 0 < byteBudget && bytes >= byteBudget ) ||
+                ( 0 < nanoBudget && nanos >= nanoBudget ) ) {
+                break;
+            }
+            // serve the coarsest pending level first, limited to that level
+            Collections.sort(entries, entryComparator);
+            final Entry e = entries.get(0);
+            final long levelBytes = Math.max(1, e.streamer.getPendingLevelRemainingBytes());
+            bytes += e.streamer.update(gl, 0 < byteBudget ? Math.min(byteBudget - bytes, levelBytes) : levelBytes,
+                                           0 < nanoBudget ? nanoBudget - nanos : 0);
+            if( e.streamer.isDone() ) {
+                entries.remove(e);
+                e.streamer.destroy(gl);
+                completedCount++;
+            }
+        }
+        uploadedBytes += bytes;
+        lastUploadedBytes = bytes;
+        return bytes;
+    }
+
+    /**
+     * Removes all pending streamers and {@link TextureStreamer#destroy(GL) destroys} them.
+     * The textures themselves are not destroyed.
+     */
+    public final void destroy(GL gl) {
+        for(int i=entries.size()-1; i>=0; i--) {
+            entries.get(i).streamer.destroy(gl);
+        }
+        entries.clear();
+    }
+
+    @Override
+    public String toString() {
+        return "TextureResidencyManager[pending "+entries.size()+", completed "+completedCount+
+               ", uploaded "+uploadedBytes+" bytes, last "+lastUploadedBytes+", budget "+byteBudget+" bytes / "+nanoBudget+" ns]";
+    }
+}
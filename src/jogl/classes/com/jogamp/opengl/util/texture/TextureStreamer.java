@@ -0,0 +1,340 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ *
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+
+package com.jogamp.opengl.util.texture;
+
+import java.nio.Buffer;
+
+import javax.media.opengl.GL;
+import javax.media.opengl.GL2ES2;
+import javax.media.opengl.GL2ES3;
+import javax.media.opengl.GLException;
+
+import com.jogamp.opengl.util.GLBuffers;
+import com.jogamp.opengl.util.GLPixelStorageModes;
+
+/**
+ * Incremental uploader of a {@link TextureData} into a {@link Texture},
+ * spreading the upload over multiple frames within a per call byte and/or time budget.
+ * <p>
+ * Mipmap levels are uploaded from the coarsest to the finest level, each split into row strips.
+ * After each completed level the texture's <code>GL_TEXTURE_BASE_LEVEL</code> is moved to it,
+ * if supported, so the texture is usable at a coarse resolution early and gets refined later.
+ * Compressed levels are uploaded in whole.
+ * </p>
+ * <p>
+ * Uncompressed strips may optionally be uploaded through a pixel unpack buffer object (PBO)
+ * on {@link GL#isGL2ES3() GL2ES3} contexts, see {@link #setUsePBO(boolean)}.
+ * </p>
+ * <p>
+ * Data which cannot be uploaded incrementally, e.g. if mipmaps must be generated via GLU
+ * or non-power-of-two compressed data must be expanded, is uploaded in whole
+ * at the first {@link #update(GL, long, long)}.
+ * </p>
+ * <p>
+ * All methods shall be called on the same thread with the texture's GL context being current.
+ * </p>
+ * @see TextureResidencyManager
+ */
+public class TextureStreamer {
+    /** Default maximum size of one strip in bytes, 256 KiB. */
+    public static final int DEFAULT_MAX_STRIP_BYTES = 256 * 1024;
+
+    private final Texture texture;
+    private final TextureData data;
+    private final int targetOverride;
+    private final int levelCount;
+    private final long totalBytes;
+
+    private int maxStripBytes = DEFAULT_MAX_STRIP_BYTES;
+    private boolean usePBO = false;
+    private int pbo = 0;
+    private int pboSize = 0;
+    private GLPixelStorageModes psm = null;
+
+    private boolean allocated = false;
+    private int level;
+    private int row = 0;
+    private int completeLevel = -1;
+    private long bytesUploaded = 0;
+    private int stripCount = 0;
+
+    /**
+     * @param texture the texture to upload to, usually created via {@link Texture#Texture(int)}
+     * @param data the texture data to be uploaded
+     * @param targetOverride optional target override, e.g. for cube map faces, otherwise 0.
+     *        See {@link Texture#updateImage(GL, TextureData, int)}.
+     */
+    public TextureStreamer(Texture texture, TextureData data, int targetOverride) {
+        this.texture = texture;
+        this.data = data;
+        this.targetOverride = targetOverride;
+        final Buffer[] mipmapData = data.getMipmapData();
+        levelCount = null != mipmapData ? mipmapData.length : 1;
+        level = levelCount - 1;
+        long total = 0;
+        for(int i=0; i<levelCount; i++) {
+            total += getLevelBytes(i);
+        }
+        totalBytes = total;
+    }
+
+    /** Returns the target texture. */
+    public final Texture getTexture() { return texture; }
+
+    /** Returns the uploaded texture data. */
+    public final TextureData getTextureData() { return data; }
+
+    /**
+     * Sets the maximum size of one strip in bytes, defaults to {@link #DEFAULT_MAX_STRIP_BYTES}.
+     * <p>
+     * Smaller strips allow a finer granularity of the time budget.
+     * At least one row is uploaded per strip.
+     * </p>
+     */
+    public final void setMaxStripBytes(int bytes) { maxStripBytes = Math.max(1, bytes); }
+
+    /** Returns the maximum size of one strip in bytes. */
+    public final int getMaxStripBytes() { return maxStripBytes; }
+
+    /**
+     * Enables uploading uncompressed strips through a streaming pixel unpack buffer object,
+     * which is only used on {@link GL#isGL2ES3() GL2ES3} contexts and tightly packed data.
+     * Disabled by default.
+     */
+    public final void setUsePBO(boolean v) { usePBO = v; }
+
+    /** Returns true if uploading via a pixel unpack buffer object is enabled. */
+    public final boolean getUsePBO() { return usePBO; }
+
+    /** Returns true if the texture data has been uploaded completely. */
+    public final boolean isDone() { return 0 > level; }
+
+    /** Returns the number of mipmap levels to be uploaded. */
+    public final int getLevelCount() { return levelCount; }
+
+    /** Returns the mipmap level currently being uploaded, or -1 if {@link #isDone() done}. */
+    public final int getPendingLevel() { return level; }
+
+    /** Returns the finest completely uploaded mipmap level, or -1 if none is complete yet. */
+    public final int getCompleteLevel() { return completeLevel; }
+
+    /**
+     * Returns the number of texels of the {@link #getPendingLevel() pending level},
+     * or 0 if {@link #isDone() done}. Allows ordering the uploads of multiple textures coarsest first.
+     */
+    public final long getPendingLevelTexels() {
+        if( isDone() ) {
+            return 0;
+        }
+        return (long) getLevelWidth(level) * (long) getLevelHeight(level);
+    }
+
+    /** Returns the number of bytes left to be uploaded for the {@link #getPendingLevel() pending level}. */
+    public final long getPendingLevelRemainingBytes() {
+        if( isDone() ) {
+            return 0;
+        }
+        if( data.isDataCompressed() ) {
+            return getLevelBytes(level);
+        }
+        return (long) getRowStride(level) * (long) ( getLevelHeight(level) - row );
+    }
+
+    /** Returns the total number of bytes to be uploaded. */
+    public final long getTotalBytes() { return totalBytes; }
+
+    /** Returns the number of bytes uploaded so far. */
+    public final long getUploadedBytes() { return bytesUploaded; }
+
+    /** Returns the number of uploaded strips so far, i.e. the number of upload calls. */
+    public final int getStripCount() { return stripCount; }
+
+    /** Returns the upload progress within [0..1]. */
+    public final float getProgress() {
+        if( isDone() ) {
+            return 1f;
+        }
+        return 0 < totalBytes ? Math.min(1f, (float)bytesUploaded / (float)totalBytes) : 0f;
+    }
+
+    /**
+     * Uploads the next strips of the texture data.
+     * <p>
+     * Uploading continues until the texture data is complete or one of the given budgets is exhausted.
+     * At least one strip is uploaded per call, hence the byte budget may be exceeded by at most one strip.
+     * </p>
+     * @param gl the current GL
+     * @param byteBudget maximum number of bytes to upload, 0 for unlimited
+     * @param nanoBudget maximum time spent in nanoseconds, 0 for unlimited
+     * @return the number of bytes uploaded by this call
+     * @throws GLException if any OpenGL-related errors occurred
+     */
+    public final long update(GL gl, long byteBudget, long nanoBudget) throws GLException {
+        if( isDone() ) {
+            return 0;
+        }
+        final long t0 = System.nanoTime();
+        if( !allocated ) {
+            allocated = true;
+            if( !texture.allocateImage(gl, data, targetOverride) ) {
+                // uploaded in whole
+                stripCount++;
+                bytesUploaded = totalBytes;
+                completeLevel = 0;
+                level = -1;
+                return totalBytes;
+            }
+        }
+        long bytes = 0;
+        while( !isDone() ) {
+            bytes += uploadStrip(gl, 0 < byteBudget ? byteBudget - bytes : 0);
+            if( ( 0 < byteBudget && bytes >= byteBudget ) ||
+                ( 0 < nanoBudget && System.nanoTime() - t0 >= nanoBudget ) ) {
+                break;
+            }
+        }
+        bytesUploaded += bytes;
+        return bytes;
+    }
+
+    /**
+     * Releases the GL resources used for uploading, i.e. the pixel unpack buffer object.
+     * The texture itself is not destroyed.
+     */
+    public final void destroy(GL gl) {
+        if( 0 != pbo ) {
+            final int[] tmp = new int[] { pbo };
+            gl.glDeleteBuffers(1, tmp, 0);
+            pbo = 0;
+            pboSize = 0;
+        }
+    }
+
+    private final int getLevelWidth(int l) { return Math.max(data.getWidth() >> l, 1); }
+    private final int getLevelHeight(int l) { return Math.max(data.getHeight() >> l, 1); }
+
+    private final int getRowStride(int l) {
+        final int align = data.getAlignment();
+        final int rowBytes = getLevelWidth(l) * GLBuffers.bytesPerPixel(data.getPixelFormat(), data.getPixelType());
+        return ( ( rowBytes + align - 1 ) / align ) * align;
+    }
+
+    private final Buffer getLevelBuffer(int l) {
+        final Buffer[] mipmapData = data.getMipmapData();
+        return null != mipmapData ? mipmapData[l] : data.getBuffer();
+    }
+
+    private final long getLevelBytes(int l) {
+        if( data.isDataCompressed() ) {
+            final Buffer buffer = getLevelBuffer(l);
+            return null != buffer ? buffer.remaining() * GLBuffers.sizeOfBufferElem(buffer) : 0;
+        }
+        return (long) getRowStride(l) * (long) getLevelHeight(l);
+    }
+
+    private final long uploadStrip(GL gl, long byteBudget) {
+        final boolean allocate = null != data.getMipmapData();
+        final long bytes;
+        if( data.isDataCompressed() ) {
+            texture.updateLevelImpl(gl, data, targetOverride, level, 0, 0, true);
+            bytes = getLevelBytes(level);
+            row = getLevelHeight(level);
+        } else {
+            final int height = getLevelHeight(level);
+            final int stride = getRowStride(level);
+            final long stripBytes = 0 < byteBudget ? Math.min(byteBudget, maxStripBytes) : maxStripBytes;
+            final int rows = (int) Math.min( height - row, Math.max(1, stripBytes / stride) );
+            if( usePBO && gl.isGL2ES3() && ( 0 == data.getRowLength() || data.getWidth() == data.getRowLength() ) ) {
+                if( allocate && 0 == row ) {
+                    texture.updateLevelImpl(gl, data, targetOverride, level, 0, 0, true);
+                }
+                uploadStripPBO(gl, stride, rows);
+            } else {
+                texture.updateLevelImpl(gl, data, targetOverride, level, row, rows, allocate && 0 == row);
+            }
+            bytes = (long) rows * (long) stride;
+            row += rows;
+        }
+        stripCount++;
+        if( row >= getLevelHeight(level) ) {
+            levelComplete(gl);
+        }
+        return bytes;
+    }
+
+    private final void uploadStripPBO(GL gl, int stride, int rows) {
+        final Buffer buffer = getLevelBuffer(level);
+        final int elemSize = GLBuffers.sizeOfBufferElem(buffer);
+        final int bufferPos = buffer.position();
+        final int offset = row * stride;
+        final int size = (int) Math.min( (long) rows * (long) stride, (long) buffer.remaining() * elemSize - offset );
+        if( 0 == pbo ) {
+            final int[] tmp = new int[1];
+            gl.glGenBuffers(1, tmp, 0);
+            pbo = tmp[0];
+            psm = new GLPixelStorageModes();
+        }
+        gl.glBindBuffer(GL2ES3.GL_PIXEL_UNPACK_BUFFER, pbo);
+        // orphan the previous storage, avoiding a stall while the last strip is still read
+        pboSize = Math.max(pboSize, size);
+        gl.glBufferData(GL2ES3.GL_PIXEL_UNPACK_BUFFER, pboSize, null, GL2ES2.GL_STREAM_DRAW);
+        buffer.position( bufferPos + offset / elemSize );
+        gl.glBufferSubData(GL2ES3.GL_PIXEL_UNPACK_BUFFER, 0, size, buffer);
+        buffer.position(bufferPos);
+
+        texture.bind(gl);
+        psm.setUnpackAlignment(gl, data.getAlignment());
+        gl.glTexSubImage2D(0 != targetOverride ? targetOverride : texture.getTarget(), level,
+                           0, row, getLevelWidth(level), rows,
+                           data.getPixelFormat(), data.getPixelType(), 0L);
+        psm.restore(gl);
+        gl.glBindBuffer(GL2ES3.GL_PIXEL_UNPACK_BUFFER, 0);
+    }
+
+    private final void levelComplete(GL gl) {
+        completeLevel = level;
+        if( 1 < levelCount && ( gl.isGL2GL3() || gl.isGL2ES3() ) ) {
+            // expose the completed level, the finer levels are still undefined
+            final int target = texture.getTarget();
+            texture.bind(gl);
+            if( levelCount - 1 == level ) {
+                gl.glTexParameteri(target, GL2ES3.GL_TEXTURE_MAX_LEVEL, levelCount - 1);
+            }
+            gl.glTexParameteri(target, GL2ES3.GL_TEXTURE_BASE_LEVEL, level);
+        }
+        level--;
+        row = 0;
+    }
+
+    @Override
+    public String toString() {
+        return "TextureStreamer[level "+level+"/"+levelCount+", complete "+completeLevel+", row "+row+
+               ", "+bytesUploaded+"/"+totalBytes+" bytes, strips "+stripCount+", pbo "+usePBO+"/"+pbo+", "+texture+"]";
+    }
+}
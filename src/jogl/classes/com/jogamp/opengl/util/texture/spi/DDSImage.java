@@ -765,15 +765,18 @@ public class DDSImage {
         }
 
         // Now check the mipmaps against this size
-        int curSize = topmostMipmapSize;
         int totalSize = 0;
         for (int i = 0; i < mipmapData.length; i++) {
+            // Compressed levels occupy at least one block
+            final int mipWidth  = Math.max(width  >> i, 1);
+            final int mipHeight = Math.max(height >> i, 1);
+            final int curSize = isCompressed ? computeCompressedBlockSize(mipWidth, mipHeight, 1, d3dFormat)
+                                             : mipWidth * mipHeight * ( topmostMipmapSize / ( width * height ) );
             if (mipmapData[i].remaining() != curSize) {
                 throw new IllegalArgumentException("Mipmap level " + i +
                                                    " didn't match expected data size (expected " + curSize + ", got " +
                                                    mipmapData[i].remaining() + ")");
             }
-            curSize /= 4;
             totalSize += mipmapData[i].remaining();
         }
 
@@ -44,6 +44,8 @@ import java.util.List;
 
 import jogamp.opengl.Debug;
 
+import com.jogamp.opengl.util.FrameTimeRecorder;
+
 /** A higher-level abstraction than {@link GLDrawable} which supplies
     an event based mechanism ({@link GLEventListener}) for performing
     OpenGL rendering. A GLAutoDrawable automatically creates a primary
@@ -427,6 +429,29 @@ public interface GLAutoDrawable extends GLDrawable {
    */
   public boolean invoke(boolean wait, List<GLRunnable> glRunnables);
 
+  /**
+   * Sets the time budget per {@link #display()} for executing queued {@link GLRunnable}s,
+   * see {@link #invoke(boolean, GLRunnable)}.
+   * <p>
+   * Once the budget is spent, the remaining {@link GLRunnable}s are deferred to the next frame,
+   * lower {@link com.jogamp.opengl.PrioritizedGLRunnable#getPriority() priority} ones first.
+   * At least one {@link GLRunnable} is executed per frame.
+   * The budget is only applied while a {@link GLAnimatorControl} is animating this drawable,
+   * otherwise all queued {@link GLRunnable}s are executed.
+   * </p>
+   * <p>
+   * Default is <code>0</code>, i.e. all queued {@link GLRunnable}s are executed within one frame.
+   * </p>
+   * @param nanos time budget in nanoseconds, a value &le; 0 disables the budget
+   */
+  public void setGLRunnableTimeBudget(long nanos);
+
+  /**
+   * Returns the time budget in nanoseconds for executing queued {@link GLRunnable}s,
+   * see {@link #setGLRunnableTimeBudget(long)}.
+   */
+  public long getGLRunnableTimeBudget();
+
   /** Destroys all resources associated with this GLAutoDrawable,
       inclusive the GLContext.
       If a window is attached to it's implementation, it shall be closed.
@@ -481,6 +506,22 @@ public interface GLAutoDrawable extends GLDrawable {
       drawable. See {@link #setAutoSwapBufferMode}. */
   public boolean getAutoSwapBufferMode();
 
+  /**
+   * Sets the {@link FrameTimeRecorder}, recording the duration of each {@link #display()} call
+   * and it's phases, i.e. {@link GLEventListener}s, {@link GLRunnable}s and {@link #swapBuffers()}.
+   * <p>
+   * Default is <code>null</code>, i.e. no recording.
+   * </p>
+   * @param recorder the recorder, <code>null</code> disables recording
+   * @return the previous recorder
+   */
+  public FrameTimeRecorder setFrameTimeRecorder(FrameTimeRecorder recorder);
+
+  /**
+   * Returns the {@link FrameTimeRecorder}, see {@link #setFrameTimeRecorder(FrameTimeRecorder)}.
+   */
+  public FrameTimeRecorder getFrameTimeRecorder();
+
   /**
    * @param flags Additional context creation flags.
    *
@@ -393,6 +393,17 @@ public interface GLBase {
     */
    public boolean isExtensionAvailable(String glExtensionName);
 
+   /**
+    * Returns true if the OpenGL extension of the given ID can be
+    * used successfully through this GL instance, see {@link #isExtensionAvailable(String)}.
+    * <p>
+    * Faster variant for frequent queries, e.g. within the rendering loop, avoiding the name lookup.
+    * </p>
+    *
+    * @param extensionID the ID of the OpenGL extension as returned by {@link com.jogamp.opengl.GLExtensions#getID(String)}.
+    */
+   public boolean isExtensionAvailable(int extensionID);
+
    /**
     * Returns <code>true</code> if basic FBO support is available, otherwise <code>false</code>.
     * <p>
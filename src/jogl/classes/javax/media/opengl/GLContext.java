@@ -652,6 +652,17 @@ public abstract class GLContext {
    */
   public abstract boolean isExtensionAvailable(String glExtensionName);
 
+  /**
+   * Returns true if the OpenGL extension of the given ID is available,
+   * see {@link #isExtensionAvailable(String)}.
+   * <p>
+   * Faster variant for frequent queries, avoiding the name lookup.
+   * </p>
+   *
+   * @param extensionID the ID of the OpenGL extension as returned by {@link com.jogamp.opengl.GLExtensions#getID(String)}.
+   */
+  public abstract boolean isExtensionAvailable(int extensionID);
+
   /** Returns the number of platform extensions */
   public abstract int getPlatformExtensionCount();
 
@@ -1561,6 +1572,23 @@ public abstract class GLContext {
       }
   }
 
+  /**
+   * Removes the GL version mapping of the given device and it's {@link #getAvailableGLVersionsSet(AbstractGraphicsDevice) set} state,
+   * allowing to map them again, e.g. if a restored mapping turned out to be stale.
+   */
+  protected static void resetAvailableGLVersions(AbstractGraphicsDevice device) {
+      synchronized(deviceVersionAvailable) {
+          for(int major=1; major<=4; major++) {
+              deviceVersionAvailable.remove(getDeviceVersionAvailableKey(device, major, CTX_PROFILE_COMPAT));
+              deviceVersionAvailable.remove(getDeviceVersionAvailableKey(device, major, CTX_PROFILE_CORE));
+              deviceVersionAvailable.remove(getDeviceVersionAvailableKey(device, major, CTX_PROFILE_ES));
+          }
+      }
+      synchronized ( deviceVersionsAvailableSet ) {
+          deviceVersionsAvailableSet.remove(device.getUniqueID());
+      }
+  }
+
   /**
    * Returns a unique String object using {@link String#intern()} for the given arguments,
    * which object reference itself can be used as a key.
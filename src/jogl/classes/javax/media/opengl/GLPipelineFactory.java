@@ -65,6 +65,21 @@ public class GLPipelineFactory {
      *     gl = drawable.setGL( GLPipelineFactory.create("javax.media.opengl.Debug",         null, gl, null) );
      *     gl = drawable.setGL( GLPipelineFactory.create("javax.media.opengl.Trace",         null, gl, new Object[] { System.err } ) );
      * </pre>
+     * A Profile pipeline counting calls per entry point, see {@link com.jogamp.opengl.util.GLCallStatistics},
+     * is installed likewise:
+     * <pre>
+     *     gl = drawable.setGL( GLPipelineFactory.create("javax.media.opengl.Profile",       null, gl, null) );
+     * </pre>
+     * A Capture pipeline recording all calls into a file, see {@link com.jogamp.opengl.util.GLCallCaptureWriter}:
+     * <pre>
+     *     gl = drawable.setGL( GLPipelineFactory.create("javax.media.opengl.Capture",       null, gl, new Object[] { capture } ) );
+     * </pre>
+     * A StateFilter pipeline dropping redundant state changes, see {@link com.jogamp.opengl.util.GLStateFilter}:
+     * <pre>
+     *     gl = drawable.setGL( GLPipelineFactory.create("javax.media.opengl.StateFilter",   null, gl, null) );
+     * </pre>
+     * The Profile, Capture and StateFilter pipelines are only available if generated at build time,
+     * see ant property <code>jogl.pipeline.gen.opt</code>.
      * </p>
      *
      * <p>
@@ -96,6 +96,7 @@ import com.jogamp.nativewindow.awt.AWTPrintLifecycle;
 import com.jogamp.nativewindow.awt.AWTWindowClosingProtocol;
 import com.jogamp.nativewindow.awt.JAWTWindow;
 import com.jogamp.opengl.JoglVersion;
+import com.jogamp.opengl.util.FrameTimeRecorder;
 import com.jogamp.opengl.util.GLDrawableUtil;
 import com.jogamp.opengl.util.TileRenderer;
 
@@ -1062,6 +1063,26 @@ public class GLCanvas extends Canvas implements AWTGLAutoDrawable, WindowClosing
     return helper.getAutoSwapBufferMode();
   }
 
+  @Override
+  public FrameTimeRecorder setFrameTimeRecorder(FrameTimeRecorder recorder) {
+    return helper.setFrameTimeRecorder(recorder);
+  }
+
+  @Override
+  public FrameTimeRecorder getFrameTimeRecorder() {
+    return helper.getFrameTimeRecorder();
+  }
+
+  @Override
+  public void setGLRunnableTimeBudget(long nanos) {
+    helper.setGLRunnableTimeBudget(nanos);
+  }
+
+  @Override
+  public long getGLRunnableTimeBudget() {
+    return helper.getGLRunnableTimeBudget();
+  }
+
   @Override
   public void swapBuffers() {
     Threading.invoke(true, swapBuffersOnEDTAction, getTreeLock());
@@ -53,6 +53,8 @@ import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
 import java.awt.image.DataBufferInt;
 import java.beans.Beans;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.IntBuffer;
 import java.util.List;
 
@@ -95,10 +97,12 @@ import com.jogamp.nativewindow.awt.AWTPrintLifecycle;
 import com.jogamp.nativewindow.awt.AWTWindowClosingProtocol;
 import com.jogamp.opengl.FBObject;
 import com.jogamp.opengl.GLRendererQuirks;
+import com.jogamp.opengl.util.FrameTimeRecorder;
 import com.jogamp.opengl.util.GLPixelBuffer.GLPixelAttributes;
 import com.jogamp.opengl.util.GLPixelBuffer.SingletonGLPixelBufferProvider;
 import com.jogamp.opengl.util.GLDrawableUtil;
 import com.jogamp.opengl.util.GLPixelStorageModes;
+import com.jogamp.opengl.util.GLReadBufferUtil;
 import com.jogamp.opengl.util.TileRenderer;
 import com.jogamp.opengl.util.awt.AWTGLPixelBuffer;
 import com.jogamp.opengl.util.awt.AWTGLPixelBuffer.AWTGLPixelBufferProvider;
@@ -165,6 +169,7 @@ public class GLJPanel extends JPanel implements AWTGLAutoDrawable, WindowClosing
   private static final boolean DEBUG;
   private static final boolean DEBUG_VIEWPORT;
   private static final boolean USE_GLSL_TEXTURE_RASTERIZER;
+  private static final boolean USE_ASYNC_READBACK;
 
   /** Indicates whether the Java 2D OpenGL pipeline is requested by user. */
   private static final boolean java2dOGLEnabledByProp;
@@ -180,6 +185,7 @@ public class GLJPanel extends JPanel implements AWTGLAutoDrawable, WindowClosing
       DEBUG = Debug.debug("GLJPanel");
       DEBUG_VIEWPORT = Debug.isPropertyDefined("jogl.debug.GLJPanel.Viewport", true);
       USE_GLSL_TEXTURE_RASTERIZER = !Debug.isPropertyDefined("jogl.gljpanel.noglsl", true);
+      USE_ASYNC_READBACK = Debug.isPropertyDefined("jogl.gljpanel.asyncreadback", true);
 
       boolean enabled = Debug.getBooleanProperty("sun.java2d.opengl", false);
       java2dOGLEnabledByProp = enabled && !Debug.isPropertyDefined("jogl.gljpanel.noogl", true);
@@ -245,6 +251,11 @@ public class GLJPanel extends JPanel implements AWTGLAutoDrawable, WindowClosing
 
   private int requestedTextureUnit = 0; // default
 
+  // Asynchronous readback, see setAsyncReadback(..)
+  private volatile boolean asyncReadback = USE_ASYNC_READBACK;
+  private volatile boolean contentDirty = true;
+  private volatile long skippedReadbackCount = 0;
+
   // The backend in use
   private volatile Backend backend;
 
@@ -365,6 +376,49 @@ public class GLJPanel extends JPanel implements AWTGLAutoDrawable, WindowClosing
       customPixelBufferProvider = custom;
   }
 
+  /**
+   * Enables or disables the asynchronous readback mode of the offscreen backends,
+   * default is disabled unless property <code>jogl.gljpanel.asyncreadback</code> is set.
+   * <p>
+   * In asynchronous readback mode, the frame is read into a double buffered ring of pixel pack buffer objects
+   * guarded by sync objects, see {@link GLReadBufferUtil#readPixelsAsync(GL, boolean, GLReadBufferUtil.PixelsReadListener)}.
+   * The previous frame's pixels are mapped and copied straight into the {@link DataBufferInt} backing of
+   * a reusable {@link BufferedImage} owned by this instance, performing the vertical flip - if required - while copying.
+   * Hence the displayed image lags one frame behind while an {@link GLAnimatorControl#isAnimating() animating}
+   * {@link #getAnimator() animator} is attached, except for the first frame after a resize.
+   * Otherwise, e.g. for a single {@link #display()}, the current frame's read is completed right away.
+   * </p>
+   * <p>
+   * Further more the rendering and readback is skipped entirely if the content is considered unchanged,
+   * i.e. if this panel is painted by Swing w/o a preceding {@link #display()}, {@link #repaint()}, reshape
+   * or {@link #setOpaque(boolean)} and w/o an {@link GLAnimatorControl#isAnimating() animating} {@link #getAnimator() animator}.
+   * The cached image is composited in this case, after completing a still pending read,
+   * see {@link #getSkippedReadbackCount()}.
+   * Applications changing the content otherwise shall call {@link #display()} or {@link #repaint()}.
+   * </p>
+   * <p>
+   * The mode is only effective if the GL context {@link GLReadBufferUtil#isAsyncReadSupported(GL) supports}
+   * asynchronous reads and the Java2D OpenGL pipeline is not used.
+   * </p>
+   * <p>
+   * The readback and composite durations are recorded in the {@link FrameTimeRecorder#PHASE_READBACK readback}
+   * and {@link FrameTimeRecorder#PHASE_COMPOSITE composite} phases of the {@link #setFrameTimeRecorder(FrameTimeRecorder) frame time recorder}.
+   * </p>
+   */
+  public final void setAsyncReadback(boolean enable) {
+      asyncReadback = enable;
+      contentDirty = true;
+  }
+
+  /** Returns true if the asynchronous readback mode is enabled, see {@link #setAsyncReadback(boolean)}. */
+  public final boolean isAsyncReadback() { return asyncReadback; }
+
+  /**
+   * Returns the number of paints, which skipped rendering and readback due to unchanged content,
+   * see {@link #setAsyncReadback(boolean)}.
+   */
+  public final long getSkippedReadbackCount() { return skippedReadbackCount; }
+
   @Override
   public final Object getUpstreamWidget() {
     return this;
@@ -372,6 +426,7 @@ public class GLJPanel extends JPanel implements AWTGLAutoDrawable, WindowClosing
 
   @Override
   public void display() {
+    contentDirty = true;
     if( isVisible() ) {
         if (EventQueue.isDispatchThread()) {
           // Want display() to be synchronous, so call paintImmediately()
@@ -534,9 +589,22 @@ public class GLJPanel extends JPanel implements AWTGLAutoDrawable, WindowClosing
         reshapeWidth = width;
         reshapeHeight = height;
         handleReshape = true;
+        contentDirty = true;
     }
   }
 
+  /**
+   * Overridden to mark the content as changed, see {@link #setAsyncReadback(boolean)}.
+   * <p>
+   * {@inheritDoc}
+   * </p>
+   */
+  @Override
+  public void repaint(long tm, int x, int y, int width, int height) {
+    contentDirty = true;
+    super.repaint(tm, x, y, width, height);
+  }
+
   private volatile boolean printActive = false;
   private GLAnimatorControl printAnimator = null;
   private GLAutoDrawable printGLAD = null;
@@ -721,6 +789,7 @@ public class GLJPanel extends JPanel implements AWTGLAutoDrawable, WindowClosing
 
   @Override
   public void setOpaque(boolean opaque) {
+    contentDirty = true;
     if (backend != null) {
       backend.setOpaque(opaque);
     }
@@ -896,6 +965,26 @@ public class GLJPanel extends JPanel implements AWTGLAutoDrawable, WindowClosing
     return true;
   }
 
+  @Override
+  public FrameTimeRecorder setFrameTimeRecorder(FrameTimeRecorder recorder) {
+    return helper.setFrameTimeRecorder(recorder);
+  }
+
+  @Override
+  public FrameTimeRecorder getFrameTimeRecorder() {
+    return helper.getFrameTimeRecorder();
+  }
+
+  @Override
+  public void setGLRunnableTimeBudget(long nanos) {
+    helper.setGLRunnableTimeBudget(nanos);
+  }
+
+  @Override
+  public long getGLRunnableTimeBudget() {
+    return helper.getGLRunnableTimeBudget();
+  }
+
   @Override
   public void swapBuffers() {
     // In the current implementation this is a no-op. Both the pbuffer
@@ -1306,6 +1395,41 @@ public class GLJPanel extends JPanel implements AWTGLAutoDrawable, WindowClosing
     // For saving/restoring of OpenGL state during ReadPixels
     private final GLPixelStorageModes psm =  new GLPixelStorageModes();
 
+    // Asynchronous readback ring and its reusable target image, see setAsyncReadback(..)
+    private GLReadBufferUtil asyncReadBuffer;
+    private BufferedImage asyncImage;
+    private boolean asyncImageValid;
+    private final Runnable asyncFlushAction = new Runnable() {
+        @Override
+        public void run() {
+            if( null != asyncReadBuffer ) {
+                asyncReadBuffer.flushAsync(offscreenContext.getGL(), asyncPixelsListener);
+            }
+        }
+    };
+    private final GLReadBufferUtil.PixelsReadListener asyncPixelsListener = new GLReadBufferUtil.PixelsReadListener() {
+        @Override
+        public void pixelsRead(GL gl, ByteBuffer pixels, GLPixelAttributes pixelAttribs, int width, int height, boolean flipVertically) {
+            final BufferedImage image = asyncImage;
+            if( null == image || width != image.getWidth() || height != image.getHeight() ) {
+                return; // stale frame of previous size
+            }
+            final IntBuffer src = pixels.order(ByteOrder.nativeOrder()).asIntBuffer();
+            final int[] dest = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+            if( flipVertically ) {
+                int srcPos = 0;
+                int destPos = (height - 1) * width;
+                for (; destPos >= 0; srcPos += width, destPos -= width) {
+                    src.position(srcPos);
+                    src.get(dest, destPos, width);
+                }
+            } else {
+                src.get(dest, 0, width * height);
+            }
+            asyncImageValid = true;
+        }
+    };
+
     OffscreenBackend(GLProfile glp, AWTGLPixelBufferProvider custom) {
         if(null == custom) {
             pixelBufferProvider = getSingleAWTGLPixelBufferProvider();
@@ -1416,6 +1540,9 @@ public class GLJPanel extends JPanel implements AWTGLAutoDrawable, WindowClosing
                 if(null != fboFlipped) {
                     fboFlipped.destroy(gl);
                 }
+                if(null != asyncReadBuffer) {
+                    asyncReadBuffer.dispose(gl);
+                }
             } finally {
                 offscreenContext.destroy();
             }
@@ -1425,6 +1552,8 @@ public class GLJPanel extends JPanel implements AWTGLAutoDrawable, WindowClosing
       glslTextureRaster = null;
       fboFlipped = null;
       offscreenContext = null;
+      asyncReadBuffer = null;
+      asyncImage = null;
 
       if (offscreenDrawable != null) {
         final AbstractGraphicsDevice adevice = offscreenDrawable.getNativeSurface().getGraphicsConfiguration().getScreen().getDevice();
@@ -1451,7 +1580,7 @@ public class GLJPanel extends JPanel implements AWTGLAutoDrawable, WindowClosing
 
     @Override
     public void setOpaque(boolean opaque) {
-      if ( opaque != isOpaque() && !useSingletonBuffer ) {
+      if ( opaque != isOpaque() && !useSingletonBuffer && null != pixelBuffer ) {
           pixelBuffer.dispose();
           pixelBuffer = null;
           alignedImage = null;
@@ -1482,45 +1611,70 @@ public class GLJPanel extends JPanel implements AWTGLAutoDrawable, WindowClosing
         }
 
         final GLPixelAttributes pixelAttribs = pixelBufferProvider.getAttributes(gl, componentCount);
-
-        if( useSingletonBuffer ) { // attempt to fetch the latest AWTGLPixelBuffer
-            pixelBuffer = (AWTGLPixelBuffer) ((SingletonGLPixelBufferProvider)pixelBufferProvider).getSingleBuffer(pixelAttribs);
-        }
-        if( null != pixelBuffer && pixelBuffer.requiresNewBuffer(gl, panelWidth, panelHeight, 0) ) {
-            pixelBuffer.dispose();
-            pixelBuffer = null;
-            alignedImage = null;
-        }
-        if ( null == pixelBuffer ) {
-          if (0 >= panelWidth || 0 >= panelHeight ) {
-              return;
-          }
-          pixelBuffer = pixelBufferProvider.allocate(gl, pixelAttribs, panelWidth, panelHeight, 1, true, 0);
-          if(DEBUG) {
-              System.err.println(getThreadName()+": GLJPanel.OffscreenBackend.postGL.0: pixelBufferProvider isSingletonBufferProvider "+useSingletonBuffer+", 0x"+Integer.toHexString(pixelBufferProvider.hashCode())+", "+pixelBufferProvider.getClass().getSimpleName());
-              System.err.println(getThreadName()+": GLJPanel.OffscreenBackend.postGL.0: pixelBuffer 0x"+Integer.toHexString(pixelBuffer.hashCode())+", "+pixelBuffer+", alignment "+alignment);
-              System.err.println(getThreadName()+": GLJPanel.OffscreenBackend.postGL.0: flippedVertical "+flipVertical+", glslTextureRaster "+(null!=glslTextureRaster));
-              System.err.println(getThreadName()+": GLJPanel.OffscreenBackend.postGL.0: panelSize "+panelWidth+"x"+panelHeight);
-          }
-        }
-        if( offscreenDrawable.getWidth() != panelWidth || offscreenDrawable.getHeight() != panelHeight ) {
-            throw new InternalError("OffscreenDrawable panelSize mismatch (reshape missed): panelSize "+panelWidth+"x"+panelHeight+" != drawable "+offscreenDrawable.getWidth()+"x"+offscreenDrawable.getHeight()+", on thread "+getThreadName());
-        }
-        if( null == alignedImage || panelWidth != alignedImage.getWidth() || panelHeight != alignedImage.getHeight() ) {
-            alignedImage = pixelBuffer.getAlignedImage(panelWidth, panelHeight);
-            if(DEBUG) {
-                System.err.println(getThreadName()+": GLJPanel.OffscreenBackend.postGL.0: alignedImage "+alignedImage.getWidth()+"x"+alignedImage.getHeight()+", pixelBuffer "+pixelBuffer.width+"x"+pixelBuffer.height);
-            }
+        final boolean useAsync = asyncReadback && GLReadBufferUtil.isAsyncReadSupported(gl);
+        if( null != asyncReadBuffer && ( !useAsync || asyncReadBuffer.hasAlpha() != ( 4 == componentCount ) ) ) {
+            asyncReadBuffer.dispose(gl);
+            asyncReadBuffer = null;
+            asyncImage = null;
         }
         final IntBuffer readBackInts;
 
-        if( !flipVertical || null != glslTextureRaster ) {
-           readBackInts = (IntBuffer) pixelBuffer.buffer;
+        if( useAsync ) {
+            // No shared pixel buffer, the image is kept for subsequent paints w/ unchanged content
+            if ( 0 >= panelWidth || 0 >= panelHeight ) {
+                return;
+            }
+            if( null == asyncReadBuffer ) {
+                asyncReadBuffer = new GLReadBufferUtil(pixelBufferProvider, 4 == componentCount, false);
+                asyncReadBuffer.setAsyncDepth(2);
+            }
+            if( null == asyncImage || panelWidth != asyncImage.getWidth() || panelHeight != asyncImage.getHeight() ) {
+                asyncImage = new BufferedImage(panelWidth, panelHeight, 4 == componentCount ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+                asyncImageValid = false;
+                if(DEBUG) {
+                    System.err.println(getThreadName()+": GLJPanel.OffscreenBackend.postGL.0: asyncImage "+panelWidth+"x"+panelHeight+", flippedVertical "+flipVertical+", glslTextureRaster "+(null!=glslTextureRaster));
+                }
+            }
+            readBackInts = null;
         } else {
-           if( null == readBackIntsForCPUVFlip || pixelBuffer.width * pixelBuffer.height > readBackIntsForCPUVFlip.remaining() ) {
-               readBackIntsForCPUVFlip = IntBuffer.allocate(pixelBuffer.width * pixelBuffer.height);
-           }
-           readBackInts = readBackIntsForCPUVFlip;
+            if( useSingletonBuffer ) { // attempt to fetch the latest AWTGLPixelBuffer
+                pixelBuffer = (AWTGLPixelBuffer) ((SingletonGLPixelBufferProvider)pixelBufferProvider).getSingleBuffer(pixelAttribs);
+            }
+            if( null != pixelBuffer && pixelBuffer.requiresNewBuffer(gl, panelWidth, panelHeight, 0) ) {
+                pixelBuffer.dispose();
+                pixelBuffer = null;
+                alignedImage = null;
+            }
+            if ( null == pixelBuffer ) {
+              if (0 >= panelWidth || 0 >= panelHeight ) {
+                  return;
+              }
+              pixelBuffer = pixelBufferProvider.allocate(gl, pixelAttribs, panelWidth, panelHeight, 1, true, 0);
+              if(DEBUG) {
+                  System.err.println(getThreadName()+": GLJPanel.OffscreenBackend.postGL.0: pixelBufferProvider isSingletonBufferProvider "+useSingletonBuffer+", 0x"+Integer.toHexString(pixelBufferProvider.hashCode())+", "+pixelBufferProvider.getClass().getSimpleName());
+                  System.err.println(getThreadName()+": GLJPanel.OffscreenBackend.postGL.0: pixelBuffer 0x"+Integer.toHexString(pixelBuffer.hashCode())+", "+pixelBuffer+", alignment "+alignment);
+                  System.err.println(getThreadName()+": GLJPanel.OffscreenBackend.postGL.0: flippedVertical "+flipVertical+", glslTextureRaster "+(null!=glslTextureRaster));
+                  System.err.println(getThreadName()+": GLJPanel.OffscreenBackend.postGL.0: panelSize "+panelWidth+"x"+panelHeight);
+              }
+            }
+            if( null == alignedImage || panelWidth != alignedImage.getWidth() || panelHeight != alignedImage.getHeight() ) {
+                alignedImage = pixelBuffer.getAlignedImage(panelWidth, panelHeight);
+                if(DEBUG) {
+                    System.err.println(getThreadName()+": GLJPanel.OffscreenBackend.postGL.0: alignedImage "+alignedImage.getWidth()+"x"+alignedImage.getHeight()+", pixelBuffer "+pixelBuffer.width+"x"+pixelBuffer.height);
+                }
+            }
+
+            if( !flipVertical || null != glslTextureRaster ) {
+               readBackInts = (IntBuffer) pixelBuffer.buffer;
+            } else {
+               if( null == readBackIntsForCPUVFlip || pixelBuffer.width * pixelBuffer.height > readBackIntsForCPUVFlip.remaining() ) {
+                   readBackIntsForCPUVFlip = IntBuffer.allocate(pixelBuffer.width * pixelBuffer.height);
+               }
+               readBackInts = readBackIntsForCPUVFlip;
+            }
+        }
+        if( offscreenDrawable.getWidth() != panelWidth || offscreenDrawable.getHeight() != panelHeight ) {
+            throw new InternalError("OffscreenDrawable panelSize mismatch (reshape missed): panelSize "+panelWidth+"x"+panelHeight+" != drawable "+offscreenDrawable.getWidth()+"x"+offscreenDrawable.getHeight()+", on thread "+getThreadName());
         }
 
         final TextureState usrTexState, fboTexState;
@@ -1554,6 +1708,9 @@ public class GLJPanel extends JPanel implements AWTGLAutoDrawable, WindowClosing
 
         offscreenDrawable.swapBuffers();
 
+        final FrameTimeRecorder recorder = helper.getFrameTimeRecorder();
+        final long t0 = null != recorder ? System.nanoTime() : 0;
+
         if(null != glslTextureRaster) { // implies flippedVertical
             final boolean viewportChange;
             final int[] usrViewport = new int[] { 0, 0, 0, 0 };
@@ -1580,13 +1737,19 @@ public class GLJPanel extends JPanel implements AWTGLAutoDrawable, WindowClosing
             // gl.glClear(GL.GL_DEPTH_BUFFER_BIT); // fboFlipped runs w/o DEPTH!
 
             glslTextureRaster.display(gl.getGL2ES2());
-            gl.glReadPixels(0, 0, panelWidth, panelHeight, pixelAttribs.format, pixelAttribs.type, readBackInts);
+            if( useAsync ) {
+                readPixelsAsync(gl, false);
+            } else {
+                gl.glReadPixels(0, 0, panelWidth, panelHeight, pixelAttribs.format, pixelAttribs.type, readBackInts);
+            }
 
             fboFlipped.unbind(gl);
             if( viewportChange ) {
                 gl.glViewport(usrViewport[0], usrViewport[1], usrViewport[2], usrViewport[3]);
             }
             fboTexState.restore(gl);
+        } else if( useAsync ) {
+            readPixelsAsync(gl, true);
         } else {
             gl.glReadPixels(0, 0, panelWidth, panelHeight, pixelAttribs.format, pixelAttribs.type, readBackInts);
 
@@ -1613,11 +1776,43 @@ public class GLJPanel extends JPanel implements AWTGLAutoDrawable, WindowClosing
         // Restore saved modes.
         psm.restore(gl);
 
+        if( null != recorder ) {
+            recorder.recordPhase(FrameTimeRecorder.PHASE_READBACK, System.nanoTime() - t0);
+        }
+
         // Note: image will be drawn back in paintComponent() for
         // correctness on all platforms
       }
     }
 
+    /**
+     * Issues the asynchronous read of the current frame and copies the previous frame into {@link #asyncImage}.
+     * The current frame is copied instead, if the image does not hold a valid frame yet, e.g. after a resize,
+     * or if no animator is animating, i.e. no subsequent frame would deliver the current one.
+     * @param mustFlipVertically passed to {@link GLReadBufferUtil#readPixelsAsync(GL, boolean, GLReadBufferUtil.PixelsReadListener)},
+     *        i.e. <code>false</code> if the GLSL vertical flip has been performed already.
+     */
+    private void readPixelsAsync(GL gl, boolean mustFlipVertically) {
+        asyncReadBuffer.readPixelsAsync(gl, mustFlipVertically, asyncPixelsListener);
+        final GLAnimatorControl animator = getAnimator();
+        if( !asyncImageValid || null == animator || !animator.isAnimating() ) {
+            asyncReadBuffer.flushAsync(gl, asyncPixelsListener);
+        }
+    }
+
+    /**
+     * Returns true if the content is considered unchanged and the cached {@link #asyncImage}
+     * can be composited w/o rendering, see {@link GLJPanel#setAsyncReadback(boolean)}.
+     */
+    private boolean isContentUnchanged() {
+        if( !asyncReadback || contentDirty || sendReshape || null == asyncReadBuffer || !asyncImageValid ||
+            panelWidth != asyncImage.getWidth() || panelHeight != asyncImage.getHeight() ) {
+            return false;
+        }
+        final GLAnimatorControl animator = getAnimator();
+        return null == animator || !animator.isAnimating();
+    }
+
     @Override
     public int getTextureUnit() {
         if(null != glslTextureRaster && null != offscreenDrawable) { // implies flippedVertical
@@ -1628,11 +1823,26 @@ public class GLJPanel extends JPanel implements AWTGLAutoDrawable, WindowClosing
 
     @Override
     public void doPaintComponent(Graphics g) {
-      helper.invokeGL(offscreenDrawable, offscreenContext, updaterDisplayAction, updaterInitAction);
+      if( isContentUnchanged() ) {
+        skippedReadbackCount++;
+        if( 0 < asyncReadBuffer.getAsyncPendingCount() ) {
+            // the last rendered frame has not been delivered yet
+            helper.invokeGL(offscreenDrawable, offscreenContext, asyncFlushAction, updaterInitAction);
+        }
+      } else {
+        contentDirty = false;
+        helper.invokeGL(offscreenDrawable, offscreenContext, updaterDisplayAction, updaterInitAction);
+      }
 
-      if ( null != alignedImage ) {
+      final BufferedImage image = null != asyncReadBuffer ? asyncImage : alignedImage;
+      if ( null != image ) {
+        final FrameTimeRecorder recorder = helper.getFrameTimeRecorder();
+        final long t0 = null != recorder ? System.nanoTime() : 0;
         // Draw resulting image in one shot
-        g.drawImage(alignedImage, 0, 0, alignedImage.getWidth(), alignedImage.getHeight(), null); // Null ImageObserver since image data is ready.
+        g.drawImage(image, 0, 0, image.getWidth(), image.getHeight(), null); // Null ImageObserver since image data is ready.
+        if( null != recorder ) {
+            recorder.recordPhase(FrameTimeRecorder.PHASE_COMPOSITE, System.nanoTime() - t0);
+        }
       }
     }
 
@@ -50,6 +50,10 @@ import java.util.*;
  * A utility object intended to be used by implementations to act as a cache
  * of which OpenGL extensions are currently available on both the host machine
  * and display.
+ * <p>
+ * Availability is stored in a bitset indexed by the {@link GLExtensionRegistry} ID
+ * of the extension name, see {@link #isExtensionAvailable(int)}.
+ * </p>
  */
 final class ExtensionAvailabilityCache {
   protected static final boolean DEBUG = GLContextImpl.DEBUG;
@@ -68,7 +72,8 @@ final class ExtensionAvailabilityCache {
     glExtensionCount = 0;
     glXExtensions = null;
     glXExtensionCount = 0;
-    availableExtensionCache.clear();
+    availableExtensionBits = EMPTY_BITS;
+    availableExtensionCount = 0;
   }
 
   /**
@@ -76,21 +81,42 @@ final class ExtensionAvailabilityCache {
    */
   final void reset(GLContextImpl context) {
     flush();
-    initAvailableExtensions(context);
+    initAvailableExtensions(context, null, null);
+  }
+
+  /**
+   * Flush and rebuild the cache w/ the given extension strings
+   * as previously queried for the same context type, e.g. restored from the {@link GLProbeCache}.
+   */
+  final void reset(GLContextImpl context, String glExtensions, String platformExtensions) {
+    flush();
+    initAvailableExtensions(context, glExtensions, platformExtensions);
   }
 
   final boolean isInitialized() {
-    return initialized && !availableExtensionCache.isEmpty() ;
+    return initialized;
   }
 
   final int getTotalExtensionCount() {
     validateInitialization();
-    return availableExtensionCache.size();
+    return availableExtensionCount;
   }
 
   final boolean isExtensionAvailable(String glExtensionName) {
+    return isExtensionAvailable(GLExtensionRegistry.getID(glExtensionName));
+  }
+
+  /**
+   * @param extensionID the {@link GLExtensionRegistry} ID of the extension, may be -1 if not registered
+   */
+  final boolean isExtensionAvailable(int extensionID) {
     validateInitialization();
-    return availableExtensionCache.contains(glExtensionName);
+    return isExtensionSet(extensionID);
+  }
+
+  private final boolean isExtensionSet(int extensionID) {
+    final long[] bits = availableExtensionBits;
+    return 0 <= extensionID && ( extensionID >>> 6 ) < bits.length && 0 != ( bits[extensionID >>> 6] & ( 1L << extensionID ) );
   }
 
   final int getPlatformExtensionCount() {
@@ -121,7 +147,7 @@ final class ExtensionAvailabilityCache {
           throw new InternalError("ExtensionAvailabilityCache not initialized!");
       }
   }
-  private final void initAvailableExtensions(GLContextImpl context) {
+  private final void initAvailableExtensions(GLContextImpl context, String knownGLExtensions, String knownPlatformExtensions) {
       GL gl = context.getGL();
       // if hash is empty (meaning it was flushed), pre-cache it with the list
       // of extensions that are in the GL_EXTENSIONS string
@@ -132,6 +158,112 @@ final class ExtensionAvailabilityCache {
           System.err.println(getThreadName() + ":ExtensionAvailabilityCache: Pre-caching init "+gl+", OpenGL "+context.getGLVersion());
       }
 
+      HashSet<String> glExtensionSet = new HashSet<String>(gl.isGLES() ? 50 : 320); // far less gl extension expected on mobile
+      if( null != knownGLExtensions ) {
+          glExtensions = knownGLExtensions;
+          StringTokenizer tok = new StringTokenizer(glExtensions);
+          while (tok.hasMoreTokens()) {
+              glExtensionSet.add(tok.nextToken().trim());
+          }
+      } else {
+          queryGLExtensions(context, gl, glExtensionSet);
+      }
+      glExtensionCount = glExtensionSet.size();
+      if (DEBUG) {
+          System.err.println(getThreadName() + ":ExtensionAvailabilityCache: GL_EXTENSIONS: "+glExtensionCount+
+                                               ( null != knownGLExtensions ? ", restored" : "" ) );
+      }
+
+      // Platform Extensions
+      HashSet<String> glXExtensionSet = new HashSet<String>(50);
+      {
+          // unify platform extension .. might have duplicates
+          StringTokenizer tok = new StringTokenizer( null != knownPlatformExtensions ? knownPlatformExtensions : context.getPlatformExtensionsStringImpl().toString() );
+          while (tok.hasMoreTokens()) {
+              glXExtensionSet.add(tok.nextToken().trim());
+          }
+          final StringBuilder sb = new StringBuilder();
+          for(Iterator<String> iter = glXExtensionSet.iterator(); iter.hasNext(); ) {
+              sb.append(iter.next());
+              if(iter.hasNext()) {
+                  sb.append(" ");
+              }
+          }
+          glXExtensions = sb.toString();
+          glXExtensionCount = glXExtensionSet.size();
+      }
+
+      addAvailableExtensions(glExtensionSet);
+      addAvailableExtensions(glXExtensionSet);
+      addAliasedExtensions(context.getExtensionNameMap());
+
+      if (DEBUG) {
+          System.err.println(getThreadName() + ":ExtensionAvailabilityCache: GLX_EXTENSIONS: "+glXExtensionCount);
+          System.err.println(getThreadName() + ":ExtensionAvailabilityCache: GL vendor: " + gl.glGetString(GL.GL_VENDOR));
+          System.err.println(getThreadName() + ":ExtensionAvailabilityCache: ALL EXTENSIONS: "+availableExtensionCount);
+      }
+
+      final int ctxOptions = context.getCtxOptions();
+      final VersionNumber version = context.getGLVersionNumber();
+      int major[] = new int[] { version.getMajor() };
+      int minor[] = new int[] { version.getMinor() };
+      do{
+          final String GL_XX_VERSION = ( context.isGLES() ? "GL_ES_VERSION_" : "GL_VERSION_" ) + major[0] + "_" + minor[0];
+          addAvailableExtension(GL_XX_VERSION);
+          if (DEBUG) {
+              System.err.println(getThreadName() + ":ExtensionAvailabilityCache: Added "+GL_XX_VERSION+" to known extensions");
+          }
+      } while( GLContext.decrementGLVersion(ctxOptions, major, minor) );
+
+      initialized = true;
+  }
+
+  private final void addAvailableExtensions(Set<String> extensions) {
+      for(Iterator<String> iter = extensions.iterator(); iter.hasNext(); ) {
+          addAvailableExtension(iter.next());
+      }
+  }
+
+  /**
+   * Marks the aliased names of available extensions as available w/o counting them,
+   * allowing {@link #isExtensionAvailable(int)} to skip the alias mapping.
+   */
+  private final void addAliasedExtensions(Map<String, String> aliasToRealName) {
+      if( null == aliasToRealName ) {
+          return;
+      }
+      for(Iterator<Map.Entry<String, String>> iter = aliasToRealName.entrySet().iterator(); iter.hasNext(); ) {
+          final Map.Entry<String, String> e = iter.next();
+          if( isExtensionSet(GLExtensionRegistry.getID(e.getValue())) ) {
+              setAvailableExtension(e.getKey());
+          }
+      }
+  }
+
+  private final void addAvailableExtension(String extension) {
+      if( setAvailableExtension(extension) ) {
+          availableExtensionCount++;
+      }
+  }
+
+  /** Returns true if the given extension was not yet available. */
+  private final boolean setAvailableExtension(String extension) {
+      final int id = GLExtensionRegistry.intern(extension);
+      final int idx = id >>> 6;
+      if( idx >= availableExtensionBits.length ) {
+          final long[] bits = new long[ Math.max( idx + 1, ( GLExtensionRegistry.getCount() + 63 ) >>> 6 ) ];
+          System.arraycopy(availableExtensionBits, 0, bits, 0, availableExtensionBits.length);
+          availableExtensionBits = bits;
+      }
+      final long mask = 1L << id;
+      if( 0 == ( availableExtensionBits[idx] & mask ) ) {
+          availableExtensionBits[idx] |= mask;
+          return true;
+      }
+      return false;
+  }
+
+  private final void queryGLExtensions(GLContextImpl context, GL gl, HashSet<String> glExtensionSet) {
       boolean useGetStringi = false;
 
       // Use 'glGetStringi' only for ARB GL3 context,
@@ -151,7 +283,6 @@ final class ExtensionAvailabilityCache {
                   ", use "+ ( useGetStringi ? "glGetStringi" : "glGetString" ) );
       }
 
-      HashSet<String> glExtensionSet = new HashSet<String>(gl.isGLES() ? 50 : 320); // far less gl extension expected on mobile
       if(useGetStringi) {
           GL2GL3 gl2gl3 = gl.getGL2GL3();
           final int count;
@@ -185,57 +316,6 @@ final class ExtensionAvailabilityCache {
               }
           }
       }
-      glExtensionCount = glExtensionSet.size();
-      if (DEBUG) {
-          System.err.println(getThreadName() + ":ExtensionAvailabilityCache: GL_EXTENSIONS: "+glExtensionCount+
-                                               ", used "+ ( useGetStringi ? "glGetStringi" : "glGetString" ) );
-      }
-
-      // Platform Extensions
-      HashSet<String> glXExtensionSet = new HashSet<String>(50);
-      {
-          // unify platform extension .. might have duplicates
-          StringTokenizer tok = new StringTokenizer(context.getPlatformExtensionsStringImpl().toString());
-          while (tok.hasMoreTokens()) {
-              glXExtensionSet.add(tok.nextToken().trim());
-          }
-          final StringBuilder sb = new StringBuilder();
-          for(Iterator<String> iter = glXExtensionSet.iterator(); iter.hasNext(); ) {
-              sb.append(iter.next());
-              if(iter.hasNext()) {
-                  sb.append(" ");
-              }
-          }
-          glXExtensions = sb.toString();
-          glXExtensionCount = glXExtensionSet.size();
-      }
-
-      availableExtensionCache.addAll(glExtensionSet);
-      availableExtensionCache.addAll(glXExtensionSet);
-
-      if (DEBUG) {
-          System.err.println(getThreadName() + ":ExtensionAvailabilityCache: GLX_EXTENSIONS: "+glXExtensionCount);
-          System.err.println(getThreadName() + ":ExtensionAvailabilityCache: GL vendor: " + gl.glGetString(GL.GL_VENDOR));
-          System.err.println(getThreadName() + ":ExtensionAvailabilityCache: ALL EXTENSIONS: "+availableExtensionCache.size());
-      }
-
-      final int ctxOptions = context.getCtxOptions();
-      final VersionNumber version = context.getGLVersionNumber();
-      int major[] = new int[] { version.getMajor() };
-      int minor[] = new int[] { version.getMinor() };
-      do{
-          final String GL_XX_VERSION = ( context.isGLES() ? "GL_ES_VERSION_" : "GL_VERSION_" ) + major[0] + "_" + minor[0];
-          availableExtensionCache.add(GL_XX_VERSION);
-          if (DEBUG) {
-              System.err.println(getThreadName() + ":ExtensionAvailabilityCache: Added "+GL_XX_VERSION+" to known extensions");
-          }
-      } while( GLContext.decrementGLVersion(ctxOptions, major, minor) );
-
-      // put a dummy var in here so that the cache is no longer empty even if
-      // no extensions are in the GL_EXTENSIONS string
-      availableExtensionCache.add("<INTERNAL_DUMMY_PLACEHOLDER>");
-
-      initialized = true;
   }
 
   //----------------------------------------------------------------------
@@ -247,7 +327,9 @@ final class ExtensionAvailabilityCache {
   private int glExtensionCount = 0;
   private String glXExtensions = null;
   private int glXExtensionCount = 0;
-  private final HashSet<String> availableExtensionCache = new HashSet<String>(50);
+  private static final long[] EMPTY_BITS = new long[0];
+  private long[] availableExtensionBits = EMPTY_BITS;
+  private int availableExtensionCount = 0;
 
   static String getThreadName() { return Thread.currentThread().getName(); }
 
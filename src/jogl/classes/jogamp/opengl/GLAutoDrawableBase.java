@@ -54,6 +54,7 @@ import com.jogamp.common.util.locks.RecursiveLock;
 import com.jogamp.opengl.GLAutoDrawableDelegate;
 import com.jogamp.opengl.GLEventListenerState;
 import com.jogamp.opengl.GLStateKeeper;
+import com.jogamp.opengl.util.FrameTimeRecorder;
 
 
 /**
@@ -570,6 +571,26 @@ public abstract class GLAutoDrawableBase implements GLAutoDrawable, GLStateKeepe
         return helper.getAutoSwapBufferMode();
     }
 
+    @Override
+    public final FrameTimeRecorder setFrameTimeRecorder(FrameTimeRecorder recorder) {
+        return helper.setFrameTimeRecorder(recorder);
+    }
+
+    @Override
+    public final FrameTimeRecorder getFrameTimeRecorder() {
+        return helper.getFrameTimeRecorder();
+    }
+
+    @Override
+    public final void setGLRunnableTimeBudget(long nanos) {
+        helper.setGLRunnableTimeBudget(nanos);
+    }
+
+    @Override
+    public final long getGLRunnableTimeBudget() {
+        return helper.getGLRunnableTimeBudget();
+    }
+
     @Override
     public final void setContextCreationFlags(int flags) {
         additionalCtxCreationFlags = flags;
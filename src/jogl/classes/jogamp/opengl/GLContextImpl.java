@@ -79,6 +79,12 @@ import javax.media.opengl.GLPipelineFactory;
 import javax.media.opengl.GLProfile;
 
 public abstract class GLContextImpl extends GLContext {
+  /**
+   * If true, the GL {@link ProcAddressTable} is resolved on demand via {@link LazyProcAddressResolver}.
+   * Property <code>jogl.glprocaddress.lazy</code>.
+   */
+  protected static final boolean LAZY_GL_PROC_ADDRESS = Debug.isPropertyDefined("jogl.glprocaddress.lazy", true);
+
   /**
    * Context full qualified name: display_type + display_connection + major + minor + ctp.
    * This is the key for all cached GL ProcAddressTables, etc, to support multi display/device setups.
@@ -93,6 +99,8 @@ public abstract class GLContextImpl extends GLContext {
   // Table that holds the addresses of the native C-language entry points for
   // OpenGL functions.
   private ProcAddressTable glProcAddressTable;
+  // Resolver of glProcAddressTable if lazy, otherwise null
+  private LazyProcAddressResolver glProcAddressLazy;
 
   private String glVendor;
   private String glRenderer;
@@ -120,17 +128,20 @@ public abstract class GLContextImpl extends GLContext {
   protected static final HashMap<String, ExtensionAvailabilityCache> mappedExtensionAvailabilityCache;
   protected static final HashMap<String, ProcAddressTable> mappedGLProcAddress;
   protected static final HashMap<String, ProcAddressTable> mappedGLXProcAddress;
+  protected static final HashMap<String, LazyProcAddressResolver> mappedGLProcAddressLazy;
 
   static {
       mappedContextTypeObjectLock = new Object();
       mappedExtensionAvailabilityCache = new HashMap<String, ExtensionAvailabilityCache>();
       mappedGLProcAddress = new HashMap<String, ProcAddressTable>();
       mappedGLXProcAddress = new HashMap<String, ProcAddressTable>();
+      mappedGLProcAddressLazy = new HashMap<String, LazyProcAddressResolver>();
   }
 
   public static void shutdownImpl() {
       mappedExtensionAvailabilityCache.clear();
       mappedGLProcAddress.clear();
+      mappedGLProcAddressLazy.clear();
       mappedGLXProcAddress.clear();
   }
 
@@ -169,6 +180,7 @@ public abstract class GLContextImpl extends GLContext {
       }
       extensionAvailability = null;
       glProcAddressTable = null;
+      glProcAddressLazy = null;
       gl = null;
       contextFQN = null;
       additionalCtxCreationFlags = 0;
@@ -425,6 +437,9 @@ public abstract class GLContextImpl extends GLContext {
                       // pending release() after makeCurrent()
                       release(true);
                   }
+                  if( DEBUG && null != glProcAddressLazy ) {
+                      System.err.println(getThreadName() + ": GLContextImpl.destroy: "+glProcAddressLazy);
+                  }
                   destroyImpl();
                   contextHandle = 0;
                   glDebugHandler = null;
@@ -824,10 +839,22 @@ public abstract class GLContextImpl extends GLContext {
                GLContext.getAvailableGLVersionsSet(device));
     }
 
+    final GLProbeCache probeCache = GLProbeCache.get();
+    boolean restoredVersions = false;
+    boolean probedVersions = false;
     if ( !GLContext.getAvailableGLVersionsSet(device) ) {
-        if(!mapGLVersions(device)) {
-            // none of the ARB context creation calls was successful, bail out
-            return 0;
+        synchronized (GLContext.deviceVersionAvailable) {
+            // re-check, another thread may have restored or mapped the versions meanwhile
+            if ( !GLContext.getAvailableGLVersionsSet(device) ) {
+                restoredVersions = restoreGLVersions(probeCache, device);
+                if( !restoredVersions ) {
+                    if(!mapGLVersions(device)) {
+                        // none of the ARB context creation calls was successful, bail out
+                        return 0;
+                    }
+                    probedVersions = true;
+                }
+            }
         }
     }
 
@@ -855,9 +882,71 @@ public abstract class GLContextImpl extends GLContext {
             }
         }
     }
+    if( restoredVersions && ( 0 == _ctx || !probeCache.isVerified(device.getUniqueID()) ) ) {
+        // restored mapping is stale, i.e. driver has changed: drop it and probe again
+        if(DEBUG) {
+            System.err.println(getThreadName() + ": createContextARB: Restored GL versions of "+device+" invalid, ctx "+toHexString(_ctx));
+        }
+        probeCache.invalidate(device.getUniqueID());
+        if( 0 != _ctx ) {
+            destroyContextARBImpl(_ctx);
+            resetStates(false);
+        }
+        GLContext.resetAvailableGLVersions(device);
+        return createContextARB(share, direct);
+    }
+    if( probedVersions && 0 != _ctx && null != probeCache ) {
+        probeCache.putVersions(device.getUniqueID(), GLProbeCache.getFingerprint(glVendor, glRenderer, ctxVendorVersion), getGLVersions(device));
+    }
     return _ctx;
   }
 
+  /**
+   * Restores the GL version mapping of the given device from the {@link GLProbeCache}, if enabled and cached.
+   * <p>
+   * The restored mapping must be verified by the first created context.
+   * </p>
+   * <p>
+   * Caller holds the {@link GLContext#deviceVersionAvailable} lock.
+   * </p>
+   */
+  private static boolean restoreGLVersions(GLProbeCache probeCache, AbstractGraphicsDevice device) {
+      final int[] versions = null != probeCache ? probeCache.getVersions(device.getUniqueID()) : null;
+      if( null == versions ) {
+          return false;
+      }
+      for(int i=0; i<versions.length; i+=3) {
+          final int bits32 = versions[i+2];
+          GLContext.mapAvailableGLVersion(device, versions[i], versions[i+1],
+                                          ( bits32 & 0xFF000000 ) >>> 24, ( bits32 & 0x00FF0000 ) >> 16, bits32 & 0x0000FFFF);
+      }
+      GLContext.setAvailableGLVersionsSet(device);
+      if(DEBUG) {
+          System.err.println(getThreadName() + ": createContextARB: Restored GL versions of "+device+": "+versions.length/3);
+      }
+      return true;
+  }
+
+  /** Returns the desktop GL version mapping of the given device as stored by the {@link GLProbeCache}. */
+  private static int[] getGLVersions(AbstractGraphicsDevice device) {
+      final int[] profiles = { CTX_PROFILE_COMPAT, CTX_PROFILE_CORE };
+      final int[] versions = new int[4 * profiles.length * 3];
+      int n = 0;
+      for(int major=1; major<=4; major++) {
+          for(int j=0; j<profiles.length; j++) {
+              final Integer bits32 = GLContext.getAvailableGLVersion(device, major, profiles[j]);
+              if( null != bits32 ) {
+                  versions[n++] = major;
+                  versions[n++] = profiles[j];
+                  versions[n++] = bits32.intValue();
+              }
+          }
+      }
+      final int[] res = new int[n];
+      System.arraycopy(versions, 0, res, 0, n);
+      return res;
+  }
+
   private final boolean mapGLVersions(AbstractGraphicsDevice device) {
     synchronized (GLContext.deviceVersionAvailable) {
         final long t0 = ( DEBUG ) ? System.nanoTime() : 0;
@@ -1169,6 +1258,45 @@ public abstract class GLContextImpl extends GLContext {
     return glProcAddressTable;
   }
 
+  /**
+   * Resolves the address of the given GL entry point on demand, if {@link #LAZY_GL_PROC_ADDRESS lazy} resolution is enabled.
+   * <p>
+   * Called by the generated GL implementation if the {@link #getGLProcAddressTable() table's} address is still <code>0</code>.
+   * </p>
+   * @param funcName the function name as used by the generated table
+   * @return the function address, or <code>0</code> if not available or lazy resolution is disabled
+   */
+  public final long resolveGLProcAddress(String funcName) {
+    final LazyProcAddressResolver lazy = glProcAddressLazy;
+    return null != lazy ? lazy.resolve(funcName) : 0;
+  }
+
+  /**
+   * Returns the address of the given GL entry point, resolving it on demand if {@link #LAZY_GL_PROC_ADDRESS lazy} resolution is enabled.
+   * <p>
+   * Shall be used instead of {@link ProcAddressTable#getAddressFor(String)} of the {@link #getGLProcAddressTable() table}.
+   * </p>
+   */
+  public final long getGLProcAddress(String funcName) {
+    final LazyProcAddressResolver lazy = glProcAddressLazy;
+    if( null != lazy ) {
+        lazy.resolveUsr(funcName);
+    }
+    return glProcAddressTable.getAddressFor(funcName);
+  }
+
+  /**
+   * Returns a summary of the GL entry points touched by the application
+   * if {@link #LAZY_GL_PROC_ADDRESS lazy} resolution is enabled, otherwise <code>null</code>.
+   * <p>
+   * The statistics are shared by all contexts of the same type.
+   * </p>
+   */
+  public final String getGLProcAddressStatistics() {
+    final LazyProcAddressResolver lazy = glProcAddressLazy;
+    return null != lazy ? lazy.toString() : null;
+  }
+
   /**
    * Shall return the platform extension ProcAddressTable,
    * ie for GLXExt, EGLExt, ..
@@ -1515,6 +1643,11 @@ public abstract class GLContextImpl extends GLContext {
 
     final VersionNumberString vendorVersion = GLVersionNumber.createVendorVersion(glVersion);
 
+    final GLProbeCache probeCache = GLProbeCache.get();
+    if( null != probeCache ) {
+        probeCache.verify(adevice.getUniqueID(), GLProbeCache.getFingerprint(glVendor, glRenderer, vendorVersion));
+    }
+
     setRendererQuirks(adevice, reqGLVersion.getMajor(), reqGLVersion.getMinor(), reqCtxProfileBits, major, minor, ctxProfileBits, vendorVersion, withinGLVersionsMapping);
 
     if( strictMatch && glRendererQuirks.exist(GLRendererQuirks.GLNonCompliant) ) {
@@ -1543,6 +1676,7 @@ public abstract class GLContextImpl extends GLContext {
             throw new InternalError("GLContext GL ProcAddressTable mapped key("+contextFQN+" - " + GLContext.getGLVersion(major, minor, ctxProfileBits, null)+
                   ") -> "+ table.getClass().getName()+" not matching "+gl.getGLProfile().getGLImplBaseClassName());
         }
+        glProcAddressLazy = null != table ? mappedGLProcAddressLazy.get( contextFQN ) : null;
     }
     if(null != table) {
         glProcAddressTable = table;
@@ -1550,12 +1684,20 @@ public abstract class GLContextImpl extends GLContext {
             System.err.println(getThreadName() + ": GLContext GL ProcAddressTable reusing key("+contextFQN+") -> "+toHexString(table.hashCode()));
         }
     } else {
+        final FunctionAddressResolver resolver = new GLProcAddressResolver();
         glProcAddressTable = (ProcAddressTable) createInstance(gl.getGLProfile(), "ProcAddressTable",
                                                                new Class[] { FunctionAddressResolver.class } ,
-                                                               new Object[] { new GLProcAddressResolver() } );
-        resetProcAddressTable(getGLProcAddressTable());
+                                                               new Object[] { resolver } );
+        if( LAZY_GL_PROC_ADDRESS ) {
+            glProcAddressLazy = new LazyProcAddressResolver(glProcAddressTable, resolver, getDrawableImpl().getGLDynamicLookupHelper());
+        } else {
+            resetProcAddressTable(getGLProcAddressTable());
+        }
         synchronized(mappedContextTypeObjectLock) {
             mappedGLProcAddress.put(contextFQN, getGLProcAddressTable());
+            if( null != glProcAddressLazy ) {
+                mappedGLProcAddressLazy.put(contextFQN, glProcAddressLazy);
+            }
             if(DEBUG) {
                 System.err.println(getThreadName() + ": GLContext GL ProcAddressTable mapping key("+contextFQN+") -> "+toHexString(getGLProcAddressTable().hashCode()));
             }
@@ -1577,7 +1719,16 @@ public abstract class GLContextImpl extends GLContext {
     } else {
         extensionAvailability = new ExtensionAvailabilityCache();
         setContextVersion(major, minor, ctxProfileBits, vendorVersion, false); // pre-set of GL version, required for extension cache usage
-        extensionAvailability.reset(this);
+        final String[] cachedExtensions = null != probeCache ? probeCache.getExtensions(adevice.getUniqueID(), contextFQN) : null;
+        if( null != cachedExtensions ) {
+            extensionAvailability.reset(this, cachedExtensions[0], cachedExtensions[1]);
+        } else {
+            extensionAvailability.reset(this);
+            if( null != probeCache ) {
+                probeCache.putExtensions(adevice.getUniqueID(), contextFQN,
+                                         extensionAvailability.getGLExtensionsString(), extensionAvailability.getPlatformExtensionsString());
+            }
+        }
         synchronized(mappedContextTypeObjectLock) {
             mappedExtensionAvailabilityCache.put(contextFQN, extensionAvailability);
             if(DEBUG) {
@@ -1881,6 +2032,7 @@ public abstract class GLContextImpl extends GLContext {
 
     synchronized(mappedContextTypeObjectLock) {
         final ProcAddressTable table = mappedGLProcAddress.remove( contextFQN );
+        mappedGLProcAddressLazy.remove( contextFQN );
         if(DEBUG) {
             final int hc = null != table ? table.hashCode() : 0;
             System.err.println(getThreadName() + ": RM GLContext GL ProcAddressTable mapping key("+contextFQN+") -> "+toHexString(hc));
@@ -1921,6 +2073,9 @@ public abstract class GLContextImpl extends GLContext {
   @Override
   public final boolean isFunctionAvailable(String glFunctionName) {
     // Check GL 1st (cached)
+    if( null != glProcAddressLazy ) {
+        glProcAddressLazy.resolveUsr(glFunctionName);
+    }
     if(null!=glProcAddressTable) { // null if this context wasn't not created
         try {
             if( glProcAddressTable.isFunctionAvailable( glFunctionName ) ) {
@@ -1961,6 +2116,12 @@ public abstract class GLContextImpl extends GLContext {
       return false;
   }
 
+  @Override
+  public final boolean isExtensionAvailable(int extensionID) {
+      final ExtensionAvailabilityCache eCache = extensionAvailability;
+      return null != eCache && eCache.isExtensionAvailable(extensionID);
+  }
+
   @Override
   public final int getPlatformExtensionCount() {
       return null != extensionAvailability ? extensionAvailability.getPlatformExtensionCount() : 0;
@@ -38,7 +38,6 @@ import javax.media.opengl.GLDebugMessage;
 import javax.media.opengl.GLException;
 
 import com.jogamp.common.os.Platform;
-import com.jogamp.gluegen.runtime.ProcAddressTable;
 import com.jogamp.opengl.GLExtensions;
 
 /**
@@ -107,12 +106,12 @@ public class GLDebugMessageHandler {
         }
     }
 
-    private final long getAddressFor(final ProcAddressTable table, final String functionName) {
+    private final long getAddressFor(final String functionName) {
         return AccessController.doPrivileged(new PrivilegedAction<Long>() {
             @Override
             public Long run() {
                 try {
-                    return Long.valueOf( table.getAddressFor(functionName) );
+                    return Long.valueOf( ctx.getGLProcAddress(functionName) ); // resolves lazy table entries
                 } catch (IllegalArgumentException iae) {
                     return Long.valueOf(0);
                 }
@@ -160,14 +159,13 @@ public class GLDebugMessageHandler {
             return;
         }
 
-        final ProcAddressTable procAddressTable = ctx.getGLProcAddressTable();
         if( !ctx.isGLES1() && !ctx.isGLES2() ) {
             switch(extType) {
                 case EXT_ARB:
-                    glDebugMessageCallbackProcAddress = getAddressFor(procAddressTable, "glDebugMessageCallbackARB");
+                    glDebugMessageCallbackProcAddress = getAddressFor("glDebugMessageCallbackARB");
                     break;
                 case EXT_AMD:
-                    glDebugMessageCallbackProcAddress = getAddressFor(procAddressTable, "glDebugMessageCallbackAMD");
+                    glDebugMessageCallbackProcAddress = getAddressFor("glDebugMessageCallbackAMD");
                     break;
             }
         } else {
@@ -59,6 +59,8 @@ import javax.media.opengl.GLException;
 import javax.media.opengl.GLFBODrawable;
 import javax.media.opengl.GLRunnable;
 
+import com.jogamp.opengl.util.FrameTimeRecorder;
+
 /** Encapsulates the implementation of most of the GLAutoDrawable's
     methods to be able to share it between GLAutoDrawable implementations like GLAutoDrawableBase, GLCanvas and GLJPanel. */
 public class GLDrawableHelper {
@@ -75,12 +77,16 @@ public class GLDrawableHelper {
   private final ArrayList<GLEventListener> listeners = new ArrayList<GLEventListener>();
   private final HashSet<GLEventListener> listenersToBeInit = new HashSet<GLEventListener>();
   private final Object glRunnablesLock = new Object();
-  private volatile ArrayList<GLRunnableTask> glRunnables = new ArrayList<GLRunnableTask>();
+  private final GLRunnableQueue glRunnables = new GLRunnableQueue();
+  private volatile long glRunnableTimeBudget;
   private boolean autoSwapBufferMode;
   private volatile Thread exclusiveContextThread;
   /** -1 release, 0 nop, 1 claim */
   private volatile int exclusiveContextSwitch;
   private GLAnimatorControl animatorCtrl;
+  private volatile FrameTimeRecorder frameTimeRecorder;
+  /** Set by {@link #display(GLAutoDrawable)}, tells {@link #invokeGLImpl(GLDrawable, GLContext, Runnable, Runnable)} to record a frame. Guarded by the context lock. */
+  private boolean displayInvoked;
   private static Runnable nop = new Runnable() { @Override public void run() {} };
 
   private GLContext sharedContext;
@@ -99,10 +105,10 @@ public class GLDrawableHelper {
     autoSwapBufferMode = true;
     exclusiveContextThread = null;
     exclusiveContextSwitch = 0;
-    synchronized(glRunnablesLock) {
-        glRunnables.clear();
-    }
+    glRunnables.flush();
+    glRunnableTimeBudget = 0;
     animatorCtrl = null;
+    frameTimeRecorder = null;
     sharedContext = null;
     sharedAutoDrawable = null;
   }
@@ -630,11 +636,33 @@ public class GLDrawableHelper {
   }
 
   public final void display(GLAutoDrawable drawable) {
+    displayInvoked = true;
+    final FrameTimeRecorder _recorder = frameTimeRecorder;
+    if( null != _recorder ) {
+        displayStats(drawable, _recorder);
+        return;
+    }
     displayImpl(drawable);
-    if( glRunnables.size()>0 && !execGLRunnables(drawable) ) { // glRunnables volatile OK; execGL.. only executed if size > 0
+    if( !glRunnables.isEmpty() && !execGLRunnables(drawable) ) { // lock-free; execGL.. only executed if not empty
         displayImpl(drawable);
     }
   }
+  private final void displayStats(GLAutoDrawable drawable, FrameTimeRecorder recorder) {
+    long t0 = System.nanoTime();
+    displayImpl(drawable);
+    long t1 = System.nanoTime();
+    long tdL = t1 - t0; // listener
+    if( !glRunnables.isEmpty() ) { // lock-free; execGL.. only executed if not empty
+        final boolean res = execGLRunnables(drawable);
+        t0 = System.nanoTime();
+        recorder.recordPhase(FrameTimeRecorder.PHASE_RUNNABLES, t0 - t1);
+        if( !res ) {
+            displayImpl(drawable);
+            tdL += System.nanoTime() - t0;
+        }
+    }
+    recorder.recordPhase(FrameTimeRecorder.PHASE_LISTENER, tdL);
+  }
   private final void displayImpl(GLAutoDrawable drawable) {
       synchronized(listenersLock) {
           final ArrayList<GLEventListener> _listeners = listeners;
@@ -684,46 +712,36 @@ public class GLDrawableHelper {
     }
   }
 
-  private final boolean execGLRunnables(GLAutoDrawable drawable) { // glRunnables.size()>0
-    boolean res = true;
-    // swap one-shot list asap
-    final ArrayList<GLRunnableTask> _glRunnables;
-    synchronized(glRunnablesLock) {
-        if(glRunnables.size()>0) {
-            _glRunnables = glRunnables;
-            glRunnables = new ArrayList<GLRunnableTask>();
-        } else {
-            _glRunnables = null;
-        }
-    }
+  private final boolean execGLRunnables(GLAutoDrawable drawable) { // !glRunnables.isEmpty()
+    // Only an animator guarantees a next frame executing the deferred tasks
+    return glRunnables.execute(drawable, isAnimatorAnimating() ? glRunnableTimeBudget : 0);
+  }
 
-    if(null!=_glRunnables) {
-        for (int i=0; i < _glRunnables.size(); i++) {
-            res = _glRunnables.get(i).run(drawable) && res;
-        }
+  public final void flushGLRunnables() {
+    if( !glRunnables.isEmpty() ) { // lock-free
+        glRunnables.flush();
     }
-    return res;
   }
 
-  public final void flushGLRunnables() {
-    if(glRunnables.size()>0) { // volatile OK
-        // swap one-shot list asap
-        final ArrayList<GLRunnableTask> _glRunnables;
-        synchronized(glRunnablesLock) {
-            if(glRunnables.size()>0) {
-                _glRunnables = glRunnables;
-                glRunnables = new ArrayList<GLRunnableTask>();
-            } else {
-                _glRunnables = null;
-            }
-        }
+  /**
+   * Sets the time budget per {@link #display(GLAutoDrawable)} for executing queued {@link GLRunnable}s.
+   * <p>
+   * Once the budget is spent, the remaining tasks are deferred to the next frame,
+   * lower {@link com.jogamp.opengl.PrioritizedGLRunnable#getPriority() priority} tasks first.
+   * At least one task is executed per frame.
+   * </p>
+   * <p>
+   * The budget is only applied while an {@link GLAnimatorControl animator} is animating,
+   * otherwise all queued tasks are executed, since no next frame may be rendered.
+   * </p>
+   * @param nanos time budget in nanoseconds, a value &le; 0 disables the budget, i.e. executes all queued tasks (default)
+   */
+  public final void setGLRunnableTimeBudget(long nanos) {
+    glRunnableTimeBudget = nanos;
+  }
 
-        if(null!=_glRunnables) {
-            for (int i=0; i < _glRunnables.size(); i++) {
-                _glRunnables.get(i).flush();
-            }
-        }
-    }
+  public final long getGLRunnableTimeBudget() {
+    return glRunnableTimeBudget;
   }
 
   public final void setAnimator(GLAnimatorControl animator) throws GLException {
@@ -741,6 +759,22 @@ public class GLDrawableHelper {
     }
   }
 
+  /**
+   * Sets the {@link FrameTimeRecorder}, recording the phase timings
+   * of {@link #display(GLAutoDrawable)} and {@link #invokeGL(GLDrawable, GLContext, Runnable, Runnable)}.
+   * @param recorder the recorder, <code>null</code> disables recording
+   * @return the previous recorder
+   */
+  public final FrameTimeRecorder setFrameTimeRecorder(FrameTimeRecorder recorder) {
+    final FrameTimeRecorder old = frameTimeRecorder;
+    frameTimeRecorder = recorder;
+    return old;
+  }
+
+  public final FrameTimeRecorder getFrameTimeRecorder() {
+    return frameTimeRecorder;
+  }
+
   public final boolean isAnimatorStartedOnOtherThread() {
     return ( null != animatorCtrl ) ? animatorCtrl.isStarted() && animatorCtrl.getThread() != Thread.currentThread() : false ;
   }
@@ -789,10 +823,9 @@ public class GLDrawableHelper {
             if(!deferred) {
                 wait = false; // don't wait if exec immediatly
             }
-            rTask = new GLRunnableTask(glRunnable,
-                                       wait ? rTaskLock : null,
-                                       wait  /* catch Exceptions if waiting for result */);
-            glRunnables.add(rTask);
+            rTask = glRunnables.add(glRunnable,
+                                    wait ? rTaskLock : null,
+                                    wait  /* catch Exceptions if waiting for result */);
         }
         if( !deferred ) {
             drawable.display();
@@ -831,12 +864,11 @@ public class GLDrawableHelper {
                 wait = false; // don't wait if exec immediately
             }
             for(int i=0; i<count-1; i++) {
-                glRunnables.add( new GLRunnableTask(newGLRunnables.get(i), null, false) );
+                glRunnables.add(newGLRunnables.get(i), null, false);
             }
-            rTask = new GLRunnableTask(newGLRunnables.get(count-1),
-                                       wait ? rTaskLock : null,
-                                       wait  /* catch Exceptions if waiting for result */);
-            glRunnables.add(rTask);
+            rTask = glRunnables.add(newGLRunnables.get(count-1),
+                                    wait ? rTaskLock : null,
+                                    wait  /* catch Exceptions if waiting for result */);
         }
         if( !deferred ) {
             drawable.display();
@@ -861,9 +893,7 @@ public class GLDrawableHelper {
     if( null == glRunnable) {
         return;
     }
-    synchronized(glRunnablesLock) {
-        glRunnables.add( new GLRunnableTask(glRunnable, null, false) );
-    }
+    glRunnables.add(glRunnable, null, false);
   }
 
   public final void setAutoSwapBufferMode(boolean enable) {
@@ -1046,6 +1076,8 @@ public class GLDrawableHelper {
           final Runnable  runnable,
           final Runnable  initAction) {
       final Thread currentThread = Thread.currentThread();
+      final FrameTimeRecorder _recorder = frameTimeRecorder;
+      final long t0 = null != _recorder ? System.nanoTime() : 0;
 
       // Exclusive Cases:
       //   1: lock - unlock  : default
@@ -1100,8 +1132,19 @@ public class GLDrawableHelper {
                       }
                       initAction.run();
                   }
+                  displayInvoked = false;
                   runnable.run();
-                  if ( autoSwapBufferMode ) {
+                  if( null != _recorder && displayInvoked ) { // only the display action completes a frame
+                      long t1 = System.nanoTime();
+                      if ( autoSwapBufferMode ) {
+                          drawable.swapBuffers();
+                          final long t2 = System.nanoTime();
+                          _recorder.recordPhase(FrameTimeRecorder.PHASE_SWAP, t2 - t1);
+                          t1 = t2;
+                      }
+                      _recorder.recordPhase(FrameTimeRecorder.PHASE_DISPLAY, t1 - t0);
+                      _recorder.frameDone(t1);
+                  } else if ( autoSwapBufferMode ) {
                       drawable.swapBuffers();
                   }
               } finally {
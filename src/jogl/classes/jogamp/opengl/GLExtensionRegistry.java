@@ -0,0 +1,205 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ *
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+package jogamp.opengl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.jogamp.opengl.GLExtensions;
+
+/**
+ * Process wide registry mapping OpenGL and platform extension names to compact integer IDs,
+ * allowing {@link ExtensionAvailabilityCache} to store the availability in a bitset.
+ * <p>
+ * The {@link GLExtensions well known extensions} and GL version names are registered
+ * w/ fixed IDs at class initialization and are resolved via a collision free hash table.
+ * Other names are interned on demand, i.e. while parsing the extension strings of a context,
+ * and resolved via a concurrent map. IDs are never reused.
+ * </p>
+ * <p>
+ * Lookups are lock free and may be issued from any thread.
+ * </p>
+ */
+public final class GLExtensionRegistry {
+    /** Well known names w/ fixed IDs, i.e. their index. */
+    private static final String[] knownNames;
+    /** Collision free hash table of {@link #knownNames}, slot -> ID or -1 */
+    private static final int[] knownTable;
+
+    private static final Object lock = new Object();
+    /** All names by ID up to {@link #count}, grown geometrically by {@link #intern(String)}. */
+    private static volatile String[] names;
+    /** Number of registered names, published after {@link #names}. */
+    private static volatile int count;
+    /** Interned names not contained in {@link #knownNames}. */
+    private static final ConcurrentHashMap<String, Integer> interned = new ConcurrentHashMap<String, Integer>();
+
+    static {
+        final String[] extensions = new String[] {
+            GLExtensions.VERSION_1_2, GLExtensions.VERSION_1_4, GLExtensions.VERSION_1_5, GLExtensions.VERSION_2_0,
+            GLExtensions.ARB_debug_output, GLExtensions.AMD_debug_output,
+            GLExtensions.ARB_framebuffer_object, GLExtensions.OES_framebuffer_object, GLExtensions.EXT_framebuffer_object,
+            GLExtensions.EXT_framebuffer_blit, GLExtensions.EXT_framebuffer_multisample, GLExtensions.EXT_packed_depth_stencil,
+            GLExtensions.OES_depth24, GLExtensions.OES_depth32, GLExtensions.OES_packed_depth_stencil,
+            GLExtensions.NV_fbo_color_attachments,
+            GLExtensions.ARB_ES2_compatibility, GLExtensions.ARB_ES3_compatibility,
+            GLExtensions.EXT_abgr, GLExtensions.OES_rgb8_rgba8,
+            GLExtensions.OES_stencil1, GLExtensions.OES_stencil4, GLExtensions.OES_stencil8,
+            GLExtensions.APPLE_float_pixels,
+            GLExtensions.ARB_texture_non_power_of_two, GLExtensions.ARB_texture_rectangle,
+            GLExtensions.EXT_texture_rectangle, GLExtensions.NV_texture_rectangle,
+            GLExtensions.EXT_texture_format_BGRA8888, GLExtensions.IMG_texture_format_BGRA8888,
+            GLExtensions.EXT_texture_compression_s3tc, GLExtensions.NV_texture_compression_vtc,
+            GLExtensions.SGIS_generate_mipmap, GLExtensions.OES_read_format, GLExtensions.OES_single_precision,
+            GLExtensions.OES_EGL_image_external,
+            GLExtensions.ARB_gpu_shader_fp64, GLExtensions.ARB_shader_objects, GLExtensions.ARB_geometry_shader4,
+            GLExtensions.ARB_pixel_format, GLExtensions.ARB_pbuffer
+        };
+        // all GL and GL ES version names as added by ExtensionAvailabilityCache
+        final int[] glMinors = { 5 /* 1.0 - 1.5 */, 1 /* 2.0 - 2.1 */, 3 /* 3.0 - 3.3 */, 4 /* 4.0 - 4.4 */ };
+        final int[] esMinors = { 1 /* 1.0 - 1.1 */, 0 /* 2.0 */, 0 /* 3.0 */ };
+        final HashMap<String, Integer> ids = new HashMap<String, Integer>();
+        final ArrayList<String> list = new ArrayList<String>();
+        for(int i=0; i<extensions.length; i++) {
+            addKnown(ids, list, extensions[i]);
+        }
+        for(int major=1; major<=glMinors.length; major++) {
+            for(int minor=0; minor<=glMinors[major-1]; minor++) {
+                addKnown(ids, list, "GL_VERSION_"+major+"_"+minor);
+            }
+        }
+        for(int major=1; major<=esMinors.length; major++) {
+            for(int minor=0; minor<=esMinors[major-1]; minor++) {
+                addKnown(ids, list, "GL_ES_VERSION_"+major+"_"+minor);
+            }
+        }
+        knownNames = list.toArray(new String[list.size()]);
+        knownTable = createPerfectTable(knownNames);
+        names = knownNames;
+        count = knownNames.length;
+    }
+    private static void addKnown(HashMap<String, Integer> ids, ArrayList<String> list, String name) {
+        if( !ids.containsKey(name) ) {
+            ids.put(name, Integer.valueOf(list.size()));
+            list.add(name);
+        }
+    }
+
+    /**
+     * Returns the smallest table w/o collisions of <code>hashCode() % length</code>
+     * for all given names, mapping each slot to the name's index or -1.
+     */
+    private static int[] createPerfectTable(String[] keys) {
+        for(int size = keys.length; ; size++) {
+            final int[] table = new int[size];
+            Arrays.fill(table, -1);
+            boolean collision = false;
+            for(int i=0; !collision && i<keys.length; i++) {
+                final int slot = slot(keys[i], size);
+                if( 0 <= table[slot] ) {
+                    collision = true;
+                } else {
+                    table[slot] = i;
+                }
+            }
+            if( !collision ) {
+                return table;
+            }
+        }
+    }
+    private static int slot(String name, int size) {
+        return ( name.hashCode() & 0x7fffffff ) % size;
+    }
+
+    private GLExtensionRegistry() {}
+
+    /**
+     * Returns the ID of the given extension name, or -1 if not yet registered.
+     * <p>
+     * Since an extension not registered is not available in any context, -1 may be passed to
+     * {@link ExtensionAvailabilityCache#isExtensionAvailable(int)}.
+     * </p>
+     */
+    public static int getID(String name) {
+        if( null == name ) {
+            return -1;
+        }
+        final int id = knownTable[ slot(name, knownTable.length) ];
+        if( 0 <= id && knownNames[id].equals(name) ) {
+            return id;
+        }
+        final Integer i = interned.get(name);
+        return null != i ? i.intValue() : -1;
+    }
+
+    /**
+     * Returns the ID of the given extension name, registering it if required.
+     * <p>
+     * Registration takes amortized constant time.
+     * </p>
+     * @throws IllegalArgumentException if <code>name</code> is <code>null</code>
+     */
+    public static int intern(String name) throws IllegalArgumentException {
+        if( null == name ) {
+            throw new IllegalArgumentException("Null extension name");
+        }
+        int id = getID(name);
+        if( 0 <= id ) {
+            return id;
+        }
+        synchronized( lock ) {
+            final Integer i = interned.get(name);
+            if( null != i ) {
+                return i.intValue();
+            }
+            String[] _names = names;
+            id = count;
+            if( id == _names.length ) {
+                _names = Arrays.copyOf(_names, Math.max(16, id * 2));
+            }
+            _names[id] = name;
+            names = _names;
+            count = id + 1; // publish name before it's ID
+            interned.put(name, Integer.valueOf(id));
+            return id;
+        }
+    }
+
+    /** Returns the number of registered names, i.e. the upper bound of all IDs. */
+    public static int getCount() {
+        return count;
+    }
+
+    /** Returns the name of the given ID, or <code>null</code> if not registered. */
+    public static String getName(int id) {
+        final int _count = count;
+        return 0 <= id && id < _count ? names[id] : null;
+    }
+}
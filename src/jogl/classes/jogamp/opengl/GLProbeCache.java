@@ -0,0 +1,363 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ *
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+
+package jogamp.opengl;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLConnection;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Properties;
+
+import com.jogamp.common.os.Platform;
+import com.jogamp.common.util.VersionNumber;
+
+/**
+ * Opt-in persistent cache of the GL version mapping and extension sets per device,
+ * sparing the probe contexts created by {@link GLContextImpl#createContextARB(long, boolean)}
+ * and the extension queries at each JVM start.
+ * <p>
+ * Enabled by property <code>jogl.probecache</code> denoting the cache file.
+ * </p>
+ * <p>
+ * Entries are keyed by the device's unique ID and validated against the driver fingerprint,
+ * i.e. GL vendor, renderer and driver version as well as the JOGL and OS version.
+ * A restored mapping is only trusted after the fingerprint of the first context created on the device matched,
+ * otherwise the device's entries are dropped and the device is probed again.
+ * </p>
+ */
+final class GLProbeCache {
+    private static final boolean DEBUG = GLContextImpl.DEBUG;
+    private static final String SEP = "|";
+
+    private static final GLProbeCache instance;
+    private static final String joglVersion;
+
+    static {
+        Debug.initSingleton();
+        joglVersion = getJoglVersion();
+        final String path = Debug.getProperty("jogl.probecache", true);
+        instance = null != path && path.length() > 0 ? new GLProbeCache(new File(path)) : null;
+    }
+
+    /** Returns the cache instance, or <code>null</code> if disabled. */
+    static GLProbeCache get() { return instance; }
+
+    private static class DeviceEntry {
+        final String fingerprint;
+        /** Triplets of request major, request profile and composed result version bits. */
+        int[] versions;
+        /** Extensions per context FQN: { GL extensions, platform extensions } */
+        final HashMap<String, String[]> extensions = new HashMap<String, String[]>();
+        boolean verified;
+
+        DeviceEntry(String fingerprint, int[] versions, boolean verified) {
+            this.fingerprint = fingerprint;
+            this.versions = versions;
+            this.verified = verified;
+        }
+    }
+
+    private final File file;
+    private final HashMap<String, DeviceEntry> devices = new HashMap<String, DeviceEntry>();
+
+    private GLProbeCache(File file) {
+        this.file = file;
+        load();
+    }
+
+    /**
+     * Returns the driver fingerprint of the given renderer strings,
+     * also covering the JOGL and OS version.
+     */
+    static String getFingerprint(String glVendor, String glRenderer, VersionNumber vendorVersion) {
+        return glVendor + SEP + glRenderer + SEP +
+               vendorVersion.getMajor() + "." + vendorVersion.getMinor() + "." + vendorVersion.getSub() + SEP +
+               joglVersion + SEP + Platform.getOSName() + " " + Platform.getOSVersion() + " " + Platform.getArchName();
+    }
+
+    /**
+     * Returns the JOGL implementation version, or the build time of the JOGL classes
+     * if not available, e.g. w/o a versioned jar manifest.
+     */
+    private static String getJoglVersion() {
+        final Package p = javax.media.opengl.GLContext.class.getPackage();
+        final String v = null != p ? p.getImplementationVersion() : null;
+        if( null != v ) {
+            return v;
+        }
+        return AccessController.doPrivileged(new PrivilegedAction<String>() {
+            @Override
+            public String run() {
+                final URL url = javax.media.opengl.GLContext.class.getResource("GLContext.class");
+                if( null != url ) {
+                    try {
+                        final URLConnection c = url.openConnection();
+                        final long lastModified = c.getLastModified();
+                        try { c.getInputStream().close(); } catch (IOException ioe) { }
+                        if( 0 != lastModified ) {
+                            return "build-"+lastModified;
+                        }
+                    } catch (IOException ioe) { }
+                }
+                return "unversioned";
+            } } );
+    }
+
+    /**
+     * Returns the cached version mapping of the given device as triplets of request major, request profile
+     * and composed result version bits, or <code>null</code> if not cached.
+     * <p>
+     * The mapping must be {@link #verify(String, String) verified} w/ the first created context.
+     * </p>
+     */
+    synchronized int[] getVersions(String devID) {
+        final DeviceEntry e = devices.get(devID);
+        return null != e ? e.versions : null;
+    }
+
+    /**
+     * Verifies the cached entries of the given device against the given driver fingerprint.
+     * If not matching, all entries of the device are dropped.
+     */
+    synchronized void verify(String devID, String fingerprint) {
+        final DeviceEntry e = devices.get(devID);
+        if( null == e ) {
+            return;
+        }
+        if( e.fingerprint.equals(fingerprint) ) {
+            e.verified = true;
+        } else {
+            if( DEBUG ) {
+                System.err.println("GLProbeCache: Invalidated "+devID+": "+e.fingerprint+" -> "+fingerprint);
+            }
+            devices.remove(devID);
+            store();
+        }
+    }
+
+    /** Returns true if the entries of the given device exist and have been verified. */
+    synchronized boolean isVerified(String devID) {
+        final DeviceEntry e = devices.get(devID);
+        return null != e && e.verified;
+    }
+
+    /** Drops all entries of the given device, e.g. if the restored version mapping failed. */
+    synchronized void invalidate(String devID) {
+        if( null != devices.remove(devID) ) {
+            store();
+        }
+    }
+
+    /**
+     * Stores the probed version mapping of the given device.
+     * <p>
+     * Cached extensions of the device are kept if the fingerprint matches,
+     * otherwise all entries of the device are replaced.
+     * </p>
+     */
+    synchronized void putVersions(String devID, String fingerprint, int[] versions) {
+        final DeviceEntry e = devices.get(devID);
+        if( null != e && e.fingerprint.equals(fingerprint) ) {
+            e.versions = versions;
+            e.verified = true;
+        } else {
+            devices.put(devID, new DeviceEntry(fingerprint, versions, true));
+        }
+        store();
+    }
+
+    /**
+     * Returns the cached extensions of the given context FQN as { GL extensions, platform extensions },
+     * or <code>null</code> if not cached or the device is not verified.
+     */
+    synchronized String[] getExtensions(String devID, String contextFQN) {
+        final DeviceEntry e = devices.get(devID);
+        return null != e && e.verified ? e.extensions.get(contextFQN) : null;
+    }
+
+    /** Stores the queried extensions of the given context FQN, if the device is verified. */
+    synchronized void putExtensions(String devID, String contextFQN, String glExtensions, String platformExtensions) {
+        final DeviceEntry e = devices.get(devID);
+        if( null != e && e.verified && null != glExtensions && null != platformExtensions && !e.extensions.containsKey(contextFQN) ) {
+            e.extensions.put(contextFQN, new String[] { glExtensions, platformExtensions });
+            store();
+        }
+    }
+
+    //
+    // Persistence: devID|fingerprint, devID|versions, devID|ext|contextFQN|gl, devID|ext|contextFQN|platform
+    //
+
+    private void load() {
+        final Properties props = new Properties();
+        final boolean ok = AccessController.doPrivileged(new PrivilegedAction<Boolean>() {
+            @Override
+            public Boolean run() {
+                if( !file.exists() ) {
+                    return Boolean.FALSE;
+                }
+                InputStream in = null;
+                try {
+                    in = new FileInputStream(file);
+                    props.load(in);
+                    return Boolean.TRUE;
+                } catch (IOException ioe) {
+                    if( DEBUG ) {
+                        System.err.println("GLProbeCache: Could not load "+file+": "+ioe.getMessage());
+                    }
+                    return Boolean.FALSE;
+                } finally {
+                    if( null != in ) {
+                        try { in.close(); } catch (IOException ioe) { }
+                    }
+                }
+            } } ).booleanValue();
+        if( !ok ) {
+            return;
+        }
+        // pass 1: devices w/ fingerprint and versions
+        for(Iterator<Map.Entry<Object, Object>> iter = props.entrySet().iterator(); iter.hasNext(); ) {
+            final Map.Entry<Object, Object> pe = iter.next();
+            final String key = (String) pe.getKey();
+            if( key.endsWith(SEP+"fingerprint") ) {
+                final String devID = key.substring(0, key.length() - SEP.length() - "fingerprint".length());
+                final int[] versions = parseVersions(props.getProperty(devID+SEP+"versions"));
+                if( null != versions ) {
+                    devices.put(devID, new DeviceEntry((String)pe.getValue(), versions, false));
+                }
+            }
+        }
+        // pass 2: extensions of known devices
+        for(Iterator<Map.Entry<Object, Object>> iter = props.entrySet().iterator(); iter.hasNext(); ) {
+            final String key = (String) iter.next().getKey();
+            final int i0 = key.indexOf(SEP+"ext"+SEP);
+            if( 0 < i0 && key.endsWith(SEP+"gl") ) {
+                final DeviceEntry e = devices.get(key.substring(0, i0));
+                final String base = key.substring(0, key.length() - SEP.length() - "gl".length());
+                final String fqn = base.substring(i0 + SEP.length() + "ext".length() + SEP.length());
+                final String platform = props.getProperty(base+SEP+"platform");
+                if( null != e && null != platform ) {
+                    e.extensions.put(fqn, new String[] { props.getProperty(key), platform });
+                }
+            }
+        }
+        if( DEBUG ) {
+            System.err.println("GLProbeCache: Loaded "+devices.size()+" devices from "+file);
+        }
+    }
+
+    private static int[] parseVersions(String s) {
+        if( null == s ) {
+            return null;
+        }
+        final String[] tok = s.trim().split("\\s+");
+        if( 0 != tok.length % 3 ) {
+            return null;
+        }
+        final int[] versions = new int[tok.length];
+        try {
+            for(int i=0; i<tok.length; i++) {
+                versions[i] = (int) Long.parseLong(tok[i], 16);
+            }
+        } catch (NumberFormatException nfe) {
+            return null;
+        }
+        return versions;
+    }
+
+    private void store() {
+        final Properties props = new Properties();
+        for(Iterator<Map.Entry<String, DeviceEntry>> iter = devices.entrySet().iterator(); iter.hasNext(); ) {
+            final Map.Entry<String, DeviceEntry> de = iter.next();
+            final String devID = de.getKey();
+            final DeviceEntry e = de.getValue();
+            props.setProperty(devID+SEP+"fingerprint", e.fingerprint);
+            final StringBuilder sb = new StringBuilder();
+            for(int i=0; i<e.versions.length; i++) {
+                if( 0 < i ) {
+                    sb.append(' ');
+                }
+                sb.append(Integer.toHexString(e.versions[i]));
+            }
+            props.setProperty(devID+SEP+"versions", sb.toString());
+            for(Iterator<Map.Entry<String, String[]>> xiter = e.extensions.entrySet().iterator(); xiter.hasNext(); ) {
+                final Map.Entry<String, String[]> xe = xiter.next();
+                final String base = devID+SEP+"ext"+SEP+xe.getKey();
+                props.setProperty(base+SEP+"gl", xe.getValue()[0]);
+                props.setProperty(base+SEP+"platform", xe.getValue()[1]);
+            }
+        }
+        AccessController.doPrivileged(new PrivilegedAction<Object>() {
+            @Override
+            public Object run() {
+                // write a unique temporary file in the same directory and rename it,
+                // concurrent readers never see a partial cache and concurrent writers don't collide
+                File tmp = null;
+                OutputStream out = null;
+                try {
+                    final File dir = file.getAbsoluteFile().getParentFile();
+                    if( null != dir ) {
+                        dir.mkdirs();
+                    }
+                    tmp = File.createTempFile("."+file.getName()+"-", ".tmp", dir);
+                    out = new FileOutputStream(tmp);
+                    props.store(out, "JOGL GL probe cache");
+                    out.close();
+                    out = null;
+                    if( !tmp.renameTo(file) ) { // atomic replace on POSIX
+                        file.delete();         // e.g. Windows, not replacing an existing file
+                        if( !tmp.renameTo(file) ) {
+                            throw new IOException("Could not rename "+tmp+" to "+file);
+                        }
+                    }
+                } catch (IOException ioe) {
+                    if( DEBUG ) {
+                        System.err.println("GLProbeCache: Could not store "+file+": "+ioe.getMessage());
+                    }
+                } finally {
+                    if( null != out ) {
+                        try { out.close(); } catch (IOException ioe) { }
+                    }
+                    if( null != tmp && tmp.exists() ) {
+                        tmp.delete();
+                    }
+                }
+                return null;
+            } } );
+    }
+}
@@ -0,0 +1,302 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ *
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+
+package jogamp.opengl;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import javax.media.opengl.GLAutoDrawable;
+import javax.media.opengl.GLRunnable;
+
+import com.jogamp.opengl.PrioritizedGLRunnable;
+
+/**
+ * Lock-free multiple producer / single consumer queue of {@link GLRunnableTask}s
+ * w/ {@link PrioritizedGLRunnable priorities} and pooled task wrappers.
+ * <p>
+ * Producers are arbitrary threads issuing {@link #add(GLRunnable, Object, boolean)},
+ * the single consumer is the thread rendering the {@link GLAutoDrawable},
+ * issuing {@link #execute(GLAutoDrawable, long)}.
+ * </p>
+ * <p>
+ * Each priority uses a bounded lock-free ring buffer,
+ * which overflows into a synchronized queue if full.
+ * Task wrappers w/o notification object are recycled via a lock-free pool,
+ * hence the common path does not allocate.
+ * </p>
+ */
+public class GLRunnableQueue {
+    /** Ring buffer capacity per priority, power of two. */
+    private static final int RING_CAPACITY = 1024;
+    /** Pooled task wrapper capacity, power of two. */
+    private static final int POOL_CAPACITY = 256;
+
+    /**
+     * Bounded lock-free multiple producer / multiple consumer ring buffer
+     * using a sequence number per slot, avoiding the ABA problem w/o allocation.
+     */
+    static final class Ring<T> {
+        private final int mask;
+        private final AtomicReferenceArray<T> slots;
+        private final AtomicLongArray sequences;
+        private final AtomicLong enqueuePos = new AtomicLong(0);
+        private final AtomicLong dequeuePos = new AtomicLong(0);
+
+        /** @param capacity power of two */
+        Ring(int capacity) {
+            mask = capacity - 1;
+            slots = new AtomicReferenceArray<T>(capacity);
+            sequences = new AtomicLongArray(capacity);
+            for(int i=0; i<capacity; i++) {
+                sequences.set(i, i);
+            }
+        }
+
+        /** @return <code>false</code> if full */
+        final boolean offer(T e) {
+            while( true ) {
+                final long pos = enqueuePos.get();
+                final int idx = (int) pos & mask;
+                final long dif = sequences.get(idx) - pos;
+                if( 0 == dif ) {
+                    if( enqueuePos.compareAndSet(pos, pos + 1) ) {
+                        slots.lazySet(idx, e);
+                        sequences.lazySet(idx, pos + 1);
+                        return true;
+                    }
+                } else if( 0 > dif ) {
+                    return false;
+                }
+            }
+        }
+
+        /** @return <code>null</code> if empty */
+        final T poll() {
+            while( true ) {
+                final long pos = dequeuePos.get();
+                final int idx = (int) pos & mask;
+                final long dif = sequences.get(idx) - ( pos + 1 );
+                if( 0 == dif ) {
+                    if( dequeuePos.compareAndSet(pos, pos + 1) ) {
+                        final T e = slots.get(idx);
+                        slots.lazySet(idx, null);
+                        sequences.lazySet(idx, pos + mask + 1);
+                        return e;
+                    }
+                } else if( 0 > dif ) {
+                    return null;
+                }
+            }
+        }
+
+        final boolean isEmpty() {
+            return enqueuePos.get() == dequeuePos.get();
+        }
+    }
+
+    private static final class PriorityQueue {
+        final Ring<GLRunnableTask> ring = new Ring<GLRunnableTask>(RING_CAPACITY);
+        final ArrayDeque<GLRunnableTask> overflow = new ArrayDeque<GLRunnableTask>();
+        volatile int overflowCount = 0;
+        /** Number of tasks added, incremented after insertion. */
+        final AtomicLong addCount = new AtomicLong(0);
+        /** Number of tasks polled, consumer only. */
+        long pollCount = 0;
+
+        final void add(GLRunnableTask task) {
+            // Preserve FIFO order per producer: once overflown, keep adding to overflow until drained
+            if( 0 != overflowCount || !ring.offer(task) ) {
+                synchronized(overflow) {
+                    overflow.addLast(task);
+                    overflowCount = overflow.size();
+                }
+            }
+            addCount.incrementAndGet();
+        }
+
+        final GLRunnableTask poll() {
+            GLRunnableTask task = ring.poll();
+            if( null == task && 0 != overflowCount ) {
+                synchronized(overflow) {
+                    task = overflow.pollFirst();
+                    overflowCount = overflow.size();
+                }
+            }
+            if( null != task ) {
+                pollCount++;
+            }
+            return task;
+        }
+
+        /** Returns the number of tasks queued, consumer only. */
+        final long size() {
+            return Math.max(0, addCount.get() - pollCount);
+        }
+
+        final boolean isEmpty() {
+            return ring.isEmpty() && 0 == overflowCount;
+        }
+    }
+
+    private final PriorityQueue[] queues = new PriorityQueue[PrioritizedGLRunnable.PRIORITY_COUNT];
+    private final Ring<GLRunnableTask> pool = new Ring<GLRunnableTask>(POOL_CAPACITY);
+    /** Number of tasks per priority queued at {@link #execute(GLAutoDrawable, long)} entry, consumer only. */
+    private final long[] quota = new long[PrioritizedGLRunnable.PRIORITY_COUNT];
+
+    public GLRunnableQueue() {
+        for(int i=0; i<queues.length; i++) {
+            queues[i] = new PriorityQueue();
+        }
+    }
+
+    private static final int getPriority(GLRunnable runnable) {
+        if( runnable instanceof PrioritizedGLRunnable ) {
+            final int p = ((PrioritizedGLRunnable)runnable).getPriority();
+            return Math.min(Math.max(p, PrioritizedGLRunnable.PRIORITY_HIGH), PrioritizedGLRunnable.PRIORITY_LOW);
+        }
+        return PrioritizedGLRunnable.PRIORITY_NORMAL;
+    }
+
+    /**
+     * Adds the given {@link GLRunnable} to the queue of it's {@link PrioritizedGLRunnable#getPriority() priority}.
+     * <p>
+     * Method is lock-free and does not allocate if <code>notifyObject</code> is <code>null</code>
+     * and a pooled task wrapper is available.
+     * </p>
+     * @return the queued task, which shall only be referenced if <code>notifyObject</code> is not <code>null</code>,
+     *         since it is recycled otherwise.
+     */
+    public final GLRunnableTask add(GLRunnable runnable, Object notifyObject, boolean catchExceptions) {
+        GLRunnableTask task = null;
+        if( null == notifyObject ) {
+            task = pool.poll();
+        }
+        if( null == task ) {
+            task = new GLRunnableTask(runnable, notifyObject, catchExceptions);
+        } else {
+            task.reset(runnable, notifyObject, catchExceptions);
+        }
+        queues[getPriority(runnable)].add(task);
+        return task;
+    }
+
+    /** Returns <code>true</code> if no task is queued. Lock-free. */
+    public final boolean isEmpty() {
+        for(int i=0; i<queues.length; i++) {
+            if( !queues[i].isEmpty() ) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Removes and returns the next task in priority order, or <code>null</code> if empty. Consumer only. */
+    private final GLRunnableTask poll() {
+        for(int i=0; i<queues.length; i++) {
+            final GLRunnableTask task = queues[i].poll();
+            if( null != task ) {
+                return task;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Removes and returns the next task in priority order within the given per priority quota,
+     * or <code>null</code> if the quota is exhausted. Consumer only.
+     */
+    private final GLRunnableTask poll(long[] quota) {
+        for(int i=0; i<queues.length; i++) {
+            if( 0 < quota[i] ) {
+                final GLRunnableTask task = queues[i].poll();
+                if( null != task ) {
+                    quota[i]--;
+                    return task;
+                }
+            }
+        }
+        return null;
+    }
+
+    private final void recycle(GLRunnableTask task) {
+        if( null == task.notifyObject ) {
+            task.reset(null, null, false);
+            pool.offer(task); // drop if pool is full
+        }
+    }
+
+    /**
+     * Executes queued tasks in priority order on the current thread,
+     * which shall have the drawable's context current.
+     * <p>
+     * Only tasks queued at entry are executed, tasks added while executing,
+     * e.g. by a re-enqueuing {@link GLRunnable}, are deferred to the next invocation.
+     * </p>
+     * <p>
+     * If <code>timeBudget</code> is &gt; 0, execution stops after the first task exceeding the time budget,
+     * deferring all remaining tasks to the next invocation. At least one task is executed.
+     * </p>
+     * @param drawable the drawable passed to {@link GLRunnable#run(GLAutoDrawable)}
+     * @param timeBudget time budget in nanoseconds, a value &le; 0 executes all queued tasks
+     * @return <code>false</code> if one of the tasks returned <code>false</code>, i.e. requested to re-render the drawable.
+     */
+    public final boolean execute(GLAutoDrawable drawable, long timeBudget) {
+        final long t0 = 0 < timeBudget ? System.nanoTime() : 0;
+        boolean res = true;
+        for(int i=0; i<queues.length; i++) {
+            quota[i] = queues[i].size();
+        }
+        GLRunnableTask task;
+        while( null != ( task = poll(quota) ) ) {
+            try {
+                res = task.run(drawable) && res;
+            } finally {
+                recycle(task);
+            }
+            if( 0 < timeBudget && System.nanoTime() - t0 >= timeBudget ) {
+                break;
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Removes all queued tasks and {@link GLRunnableTask#flush() flushes} them,
+     * i.e. notifies waiting invoker w/o execution.
+     */
+    public final void flush() {
+        GLRunnableTask task;
+        while( null != ( task = poll() ) ) {
+            task.flush();
+            recycle(task);
+        }
+    }
+}
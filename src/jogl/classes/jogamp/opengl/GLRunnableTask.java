@@ -52,6 +52,18 @@ public class GLRunnableTask implements GLRunnable {
         isFlushed = false;
     }
 
+    /**
+     * Re-initializes this instance for reuse, see {@link GLRunnableQueue}.
+     */
+    final void reset(GLRunnable runnable, Object notifyObject, boolean catchExceptions) {
+        this.runnable = runnable ;
+        this.notifyObject = notifyObject ;
+        this.catchExceptions = catchExceptions;
+        runnableException = null;
+        isExecuted = false;
+        isFlushed = false;
+    }
+
     @Override
     public boolean run(GLAutoDrawable drawable) {
         boolean res = true;
@@ -0,0 +1,158 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ *
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+package jogamp.opengl;
+
+import java.lang.reflect.Field;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import com.jogamp.common.os.DynamicLookupHelper;
+import com.jogamp.gluegen.runtime.FunctionAddressResolver;
+import com.jogamp.gluegen.runtime.ProcAddressTable;
+import com.jogamp.gluegen.runtime.opengl.GLNameResolver;
+
+/**
+ * Resolves the function addresses of a GL {@link ProcAddressTable} on demand,
+ * i.e. on the first call of each entry point, instead of looking up all of them at context creation.
+ * <p>
+ * Enabled via property <code>jogl.glprocaddress.lazy</code>.
+ * The generated GL implementation calls {@link GLContextImpl#resolveGLProcAddress(String)}
+ * if an address is still <code>0</code>, hence the fast path of resolved functions is unchanged.
+ * </p>
+ * <p>
+ * Besides saving the lookups, the number of entry points actually touched by an application
+ * is tracked, see {@link #toString()}.
+ * </p>
+ */
+final class LazyProcAddressResolver {
+    private final ProcAddressTable table;
+    private final FunctionAddressResolver resolver;
+    private final DynamicLookupHelper lookup;
+    /** function name -> address field, immutable after construction */
+    private final HashMap<String, Field> fields;
+    /** function name -> resolved address of touched entry points, guarded by this */
+    private final HashMap<String, Long> touched = new HashMap<String, Long>();
+    private int availableCount = 0;
+
+    LazyProcAddressResolver(final ProcAddressTable table, FunctionAddressResolver resolver, DynamicLookupHelper lookup) {
+        this.table = table;
+        this.resolver = resolver;
+        this.lookup = lookup;
+        this.fields = AccessController.doPrivileged(new PrivilegedAction<HashMap<String, Field>>() {
+            @Override
+            public HashMap<String, Field> run() {
+                final Field[] all = table.getClass().getDeclaredFields();
+                final HashMap<String, Field> res = new HashMap<String, Field>(all.length);
+                for(int i=0; i<all.length; i++) {
+                    final Field f = all[i];
+                    final String name = f.getName();
+                    if( name.startsWith(ProcAddressTable.PROCADDRESS_VAR_PREFIX) && Long.TYPE == f.getType() ) {
+                        f.setAccessible(true); // we need to write the protected value!
+                        res.put(name.substring(ProcAddressTable.PROCADDRESS_VAR_PREFIX.length()), f);
+                    }
+                }
+                return res;
+            } } );
+    }
+
+    final ProcAddressTable getTable() { return table; }
+
+    /**
+     * Returns the address of the given entry point as named by the generated table,
+     * resolving and storing it in the table on the first call.
+     *
+     * @return the function address or <code>0</code> if not available or not an entry point of the table
+     */
+    final synchronized long resolve(final String funcName) {
+        final Long cached = touched.get(funcName);
+        if( null != cached ) {
+            return cached.longValue();
+        }
+        final Field f = fields.get(funcName);
+        if( null == f ) {
+            return 0;
+        }
+        final long addr = AccessController.doPrivileged(new PrivilegedAction<Long>() {
+            @Override
+            public Long run() {
+                final long addr = resolver.resolve(funcName, lookup);
+                if( 0 != addr ) {
+                    try {
+                        f.setLong(table, addr);
+                    } catch (IllegalAccessException e) {
+                        throw new InternalError("Could not set address of "+funcName+": "+e.getMessage());
+                    }
+                }
+                return Long.valueOf(addr);
+            } } ).longValue();
+        touched.put(funcName, Long.valueOf(addr));
+        if( 0 != addr ) {
+            availableCount++;
+        }
+        return addr;
+    }
+
+    /**
+     * Same as {@link #resolve(String)}, but accepts all user function name variants
+     * supported by {@link ProcAddressTable#isFunctionAvailable(String)}, e.g. w/ ARB or vendor suffix.
+     */
+    final long resolveUsr(String functionNameUsr) {
+        final String functionNameBase = GLNameResolver.normalizeVEN(GLNameResolver.normalizeARB(functionNameUsr, true), true);
+        final int funcNamePermNum = GLNameResolver.getFuncNamePermutationNumber(functionNameBase);
+        for(int i = 0; i < funcNamePermNum; i++) {
+            final String funcName = GLNameResolver.getFuncNamePermutation(functionNameBase, i);
+            if( fields.containsKey(funcName) ) {
+                return resolve(funcName);
+            }
+        }
+        return 0;
+    }
+
+    /** Returns the number of entry points of the table. */
+    final int getEntryPointCount() { return fields.size(); }
+
+    /** Returns the number of entry points touched so far, i.e. called or queried. */
+    final synchronized int getTouchedCount() { return touched.size(); }
+
+    /** Returns the number of touched entry points which are available. */
+    final synchronized int getAvailableCount() { return availableCount; }
+
+    /** Returns the names of all entry points touched so far. */
+    final synchronized List<String> getTouchedNames() {
+        return new ArrayList<String>(touched.keySet());
+    }
+
+    @Override
+    public final synchronized String toString() {
+        return "LazyProcAddress["+table.getClass().getSimpleName()+", entry points "+fields.size()+
+               ", touched "+touched.size()+", available "+availableCount+"]";
+    }
+}
@@ -33,6 +33,7 @@ import java.nio.Buffer;
 import javax.media.opengl.GL;
 
 import com.jogamp.opengl.util.GLArrayDataEditable;
+import com.jogamp.opengl.util.GLArrayDataServer;
 
 /**
  * Interleaved fixed function arrays, i.e. where this buffer data
@@ -54,10 +55,10 @@ public abstract class GLVBOArrayHandler implements GLArrayHandler {
         // always bind and refresh the VBO mgr,
         // in case more than one gl*Pointer objects are in use
         gl.glBindBuffer(ad.getVBOTarget(), ad.getVBOName());
-        if(!ad.isVBOWritten()) {
+        if(!isVBOWritten()) {
             final Buffer buffer = ad.getBuffer();
             if(null!=buffer) {
-                gl.glBufferData(ad.getVBOTarget(), buffer.limit() * ad.getComponentSizeInBytes(), buffer, ad.getVBOUsage());
+                bufferData(gl, buffer, buffer.limit() * ad.getComponentSizeInBytes());
             }
             ad.setVBOWritten(true);
         }
@@ -67,5 +68,27 @@ public abstract class GLVBOArrayHandler implements GLArrayHandler {
     return true;
   }
 
+  /**
+   * Returns {@link GLArrayDataEditable#isVBOWritten()}, or <code>false</code> if the
+   * {@link GLArrayDataServer#getStreamArena() stream arena} region has been overwritten or orphaned.
+   */
+  protected final boolean isVBOWritten() {
+    if( ad instanceof GLArrayDataServer && !((GLArrayDataServer)ad).isStreamRegionValid() ) {
+        return false;
+    }
+    return ad.isVBOWritten();
+  }
+
+  /**
+   * Uploads the client buffer to the bound VBO via {@link GL#glBufferData(int, long, Buffer, int)},
+   * or into a new region of the {@link GLArrayDataServer#getStreamArena() stream arena} if used.
+   */
+  protected final void bufferData(GL gl, Buffer buffer, int sizeInBytes) {
+    if( ad instanceof GLArrayDataServer && null != ((GLArrayDataServer)ad).getStreamArena() ) {
+        ((GLArrayDataServer)ad).writeStreamArena(gl, buffer, sizeInBytes);
+    } else {
+        gl.glBufferData(ad.getVBOTarget(), sizeInBytes, buffer, ad.getVBOUsage());
+    }
+  }
 }
 
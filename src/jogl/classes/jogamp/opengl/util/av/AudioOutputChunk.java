@@ -0,0 +1,114 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ *
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+package jogamp.opengl.util.av;
+
+/**
+ * Chunk of audio samples taken from an {@link AudioRingBuffer} by the audio output thread
+ * and written to the audio device.
+ * <p>
+ * A chunk not completely written, e.g. since the device has been paused and its buffer is full,
+ * keeps the remainder pending. The remainder is written before any new samples are taken from the ring,
+ * hence pausing neither drops nor reorders samples.
+ * </p>
+ * <p>
+ * Only the consumer thread of the {@link AudioRingBuffer} may use this instance.
+ * </p>
+ */
+public final class AudioOutputChunk {
+    /** Audio device the samples are written to. */
+    public interface Output {
+        /** Returns true if writing may continue, e.g. false if paused, flushed or stopped. */
+        boolean isWritable();
+
+        /**
+         * Writes up to <code>len</code> bytes of whole frames.
+         * @return the number of bytes written, zero if the device does not accept data, e.g. if paused and full.
+         */
+        int write(byte[] b, int off, int len);
+    }
+
+    private final byte[] data;
+    private int pendingOff = 0;
+    private int pendingLen = 0;
+
+    /**
+     * @param size chunk size in bytes
+     */
+    public AudioOutputChunk(int size) {
+        data = new byte[size];
+    }
+
+    /** Returns the chunk size in bytes. */
+    public final int size() { return data.length; }
+
+    /** Returns the number of bytes taken from the ring but not yet written. */
+    public final int getPending() { return pendingLen; }
+
+    /**
+     * Takes up to {@link #size()} bytes from the ring, rounded down to a multiple of <code>align</code>,
+     * unless a remainder is still {@link #getPending() pending}.
+     * @return the number of pending bytes, zero if nothing is pending and the ring holds no data.
+     */
+    public final int fill(AudioRingBuffer ring, int align) {
+        if( 0 == pendingLen ) {
+            pendingOff = 0;
+            pendingLen = ring.get(data, 0, data.length, align);
+        }
+        return pendingLen;
+    }
+
+    /**
+     * Writes the pending bytes while the output {@link Output#isWritable() is writable}.
+     * <p>
+     * Returns as soon as the output does not accept data, keeping the remainder pending.
+     * </p>
+     * @return true if all pending bytes have been written, otherwise false.
+     */
+    public final boolean write(Output out) {
+        while( 0 < pendingLen && out.isWritable() ) {
+            final int n = out.write(data, pendingOff, pendingLen);
+            if( 0 >= n ) {
+                break;
+            }
+            pendingOff += n;
+            pendingLen -= n;
+        }
+        return 0 == pendingLen;
+    }
+
+    /** Drops the pending bytes, e.g. on flush. */
+    public final void clear() {
+        pendingOff = 0;
+        pendingLen = 0;
+    }
+
+    @Override
+    public final String toString() {
+        return "AudioOutputChunk[size "+data.length+", pending "+pendingLen+"]";
+    }
+}
@@ -0,0 +1,196 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ *
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+package jogamp.opengl.util.av;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Preallocated lock-free single producer single consumer (SPSC) byte ring buffer
+ * passing audio samples from the decoder thread to an audio output thread.
+ * <p>
+ * Only one thread may call the producer method {@link #put(ByteBuffer, int, int)}
+ * and only one thread may call the consumer methods {@link #get(byte[], int, int, int)}, {@link #clear()} and {@link #clear(long)}.
+ * Other threads may request to drop the data written so far by passing the {@link #getWritePosition() write position}
+ * to the consumer, which then calls {@link #clear(long)}.
+ * The read and write positions are monotonic and each written by its own side only,
+ * hence publishing via <code>volatile</code> is sufficient, no locking is required.
+ * </p>
+ * <p>
+ * The buffer never grows. A {@link #put(ByteBuffer, int, int) put} not fitting into the free space
+ * counts as an {@link #getOverrunCount() overrun},
+ * a {@link #get(byte[], int, int, int) get} running out of data after having read data counts as an {@link #getUnderrunCount() underrun}.
+ * </p>
+ */
+public final class AudioRingBuffer {
+    private final byte[] data;
+    private final int mask;
+
+    /** Total number of bytes written, only modified by the producer. */
+    private volatile long writePos = 0;
+    /** Total number of bytes read, only modified by the consumer. */
+    private volatile long readPos = 0;
+
+    private volatile int overrunCount = 0;
+    private volatile int underrunCount = 0;
+    /** True if the consumer ran out of data, only modified by the consumer. */
+    private boolean starving = true;
+
+    /**
+     * @param minCapacity minimum capacity in bytes, rounded up to the next power of two
+     */
+    public AudioRingBuffer(int minCapacity) {
+        if( 0 >= minCapacity || minCapacity > ( 1 << 30 ) ) {
+            throw new IllegalArgumentException("Invalid capacity "+minCapacity);
+        }
+        int capacity = 1;
+        while( capacity < minCapacity ) {
+            capacity <<= 1;
+        }
+        data = new byte[capacity];
+        mask = capacity - 1;
+    }
+
+    /** Returns the capacity in bytes. */
+    public final int capacity() { return data.length; }
+
+    /** Returns the number of bytes ready to be read. */
+    public final int getReadable() { return (int) ( writePos - readPos ); }
+
+    /** Returns the number of bytes free for writing. */
+    public final int getWritable() { return data.length - (int) ( writePos - readPos ); }
+
+    /**
+     * Returns the total number of bytes written, which may be passed to {@link #clear(long)}.
+     * May be called by any thread.
+     */
+    public final long getWritePosition() { return writePos; }
+
+    /** Returns the number of {@link #put(ByteBuffer, int, int)} calls not fitting completely. */
+    public final int getOverrunCount() { return overrunCount; }
+
+    /** Returns the number of times {@link #get(byte[], int, int, int)} ran out of data after having read data. */
+    public final int getUnderrunCount() { return underrunCount; }
+
+    /** Resets the {@link #getOverrunCount() overrun} and {@link #getUnderrunCount() underrun} counter. */
+    public final void resetCounter() {
+        overrunCount = 0;
+        underrunCount = 0;
+    }
+
+    /**
+     * Producer: Bulk copies up to <code>byteCount</code> bytes from <code>src</code>'s current position,
+     * leaving its position untouched.
+     * <p>
+     * The number of copied bytes is rounded down to a multiple of <code>align</code>, e.g. the audio frame size,
+     * hence the consumer never reads a partial frame.
+     * </p>
+     * <p>
+     * Copying from a direct {@link ByteBuffer} is performed as a bulk memory copy
+     * w/o any intermediate array.
+     * </p>
+     * @param src the source buffer
+     * @param byteCount number of bytes to copy
+     * @param align alignment in bytes, at least 1
+     * @return number of bytes copied, less than <code>byteCount</code> rounded down to <code>align</code>
+     *         if the ring is full, which is counted as an overrun.
+     */
+    public final int put(ByteBuffer src, int byteCount, int align) {
+        final long wp = writePos;
+        final int count = byteCount - byteCount % align;
+        int n = Math.min(count, data.length - (int) ( wp - readPos ));
+        n -= n % align;
+        if( n < count ) {
+            overrunCount++;
+        }
+        if( 0 < n ) {
+            final int idx = (int) ( wp & mask );
+            final int n0 = Math.min(n, data.length - idx);
+            final int p = src.position();
+            src.get(data, idx, n0);
+            if( n0 < n ) {
+                src.get(data, 0, n - n0);
+            }
+            src.position(p);
+            writePos = wp + n; // publish
+        }
+        return n;
+    }
+
+    /**
+     * Consumer: Bulk copies up to <code>len</code> bytes into <code>dst</code>,
+     * rounded down to a multiple of <code>align</code>, e.g. the audio frame size.
+     * @param dst the destination array
+     * @param off offset within <code>dst</code>
+     * @param len maximum number of bytes to copy
+     * @param align alignment in bytes, at least 1
+     * @return number of bytes copied, zero if no data is available,
+     *         which is counted as an underrun if the previous call has read data.
+     */
+    public final int get(byte[] dst, int off, int len, int align) {
+        final long rp = readPos;
+        int n = Math.min(len, (int) ( writePos - rp ));
+        n -= n % align;
+        if( 0 >= n ) {
+            if( 0 < len && !starving ) {
+                starving = true;
+                underrunCount++;
+            }
+            return 0;
+        }
+        starving = false;
+        final int idx = (int) ( rp & mask );
+        final int n0 = Math.min(n, data.length - idx);
+        System.arraycopy(data, idx, dst, off, n0);
+        if( n0 < n ) {
+            System.arraycopy(data, 0, dst, off + n0, n - n0);
+        }
+        readPos = rp + n; // release
+        return n;
+    }
+
+    /** Consumer: Drops all readable bytes. */
+    public final void clear() {
+        clear(writePos);
+    }
+
+    /**
+     * Consumer: Drops the readable bytes written before the given {@link #getWritePosition() write position},
+     * keeping the bytes written afterwards.
+     */
+    public final void clear(long pos) {
+        if( readPos < pos ) {
+            readPos = pos;
+        }
+        starving = true;
+    }
+
+    @Override
+    public final String toString() {
+        return "AudioRingBuffer[capacity "+data.length+", readable "+getReadable()+", overrun "+overrunCount+", underrun "+underrunCount+"]";
+    }
+}
@@ -49,8 +49,11 @@ import com.jogamp.common.net.URIQueryProps;
 import com.jogamp.common.os.Platform;
 import com.jogamp.common.util.LFRingbuffer;
 import com.jogamp.common.util.Ringbuffer;
+import com.jogamp.opengl.util.FrameTimeHistogram;
 import com.jogamp.opengl.util.TimeFrameI;
+import com.jogamp.opengl.util.av.AVSyncController;
 import com.jogamp.opengl.util.av.AudioSink;
+import com.jogamp.opengl.util.av.DefaultAVSyncController;
 import com.jogamp.opengl.util.av.GLMediaPlayer;
 import com.jogamp.opengl.util.texture.Texture;
 import com.jogamp.opengl.util.texture.TextureSequence;
@@ -148,16 +151,8 @@ public abstract class GLMediaPlayerImpl implements GLMediaPlayer {
     private long video_scr_t0 = 0;
     /** System Clock Reference (SCR) PTS offset, i.e. first video PTS at start time. */
     private int video_scr_pts = 0;
-    /** Cumulative video pts diff. */
-    private float video_dpts_cum = 0;
-    /** Cumulative video frames. */
-    private int video_dpts_count = 0;
-    /** Number of min frame count required for video cumulative sync. */
-    private static final int VIDEO_DPTS_NUM = 20;
-    /** Cumulative coefficient, value {@value}. */
-    private static final float VIDEO_DPTS_COEFF = 0.7943282f; // (float) Math.exp(Math.log(0.01) / VIDEO_DPTS_NUM);
-    /** Maximum valid video pts diff. */
-    private static final int VIDEO_DPTS_MAX = 5000; // 5s max diff
+    /** A/V synchronization decisions, see {@link #setAVSyncController(AVSyncController)}. */
+    private volatile AVSyncController avSync = new DefaultAVSyncController();
     /** Trigger video PTS reset with given cause as bitfield. */
     private boolean videoSCR_reset = false;
 
@@ -165,6 +160,14 @@ public abstract class GLMediaPlayerImpl implements GLMediaPlayer {
     protected Ringbuffer<TextureFrame> videoFramesFree =  null;
     protected Ringbuffer<TextureFrame> videoFramesDecoded =  null;
     protected volatile TextureFrame lastFrame = null;
+
+    /** Frames dropped by {@link #getNextTexture(GL)}. */
+    private volatile int droppedFrameCount = 0;
+    /** StreamWorker waited for a free frame. */
+    private volatile int decoderStallCount = 0;
+    /** {@link #getNextTexture(GL)} found no decoded frame. */
+    private volatile int frameUnderrunCount = 0;
+    private final FrameTimeHistogram decodeTimeHistogram = new FrameTimeHistogram();
     /**
      * @see #isGLOriented()
      */
@@ -271,6 +274,35 @@ public abstract class GLMediaPlayerImpl implements GLMediaPlayer {
     @Override
     public final int getPresentedFrameCount() { return presentedFrameCount; }
 
+    @Override
+    public final int getDroppedFrameCount() { return droppedFrameCount; }
+
+    @Override
+    public final int getDecodedFrameQueueSize() {
+        final Ringbuffer<TextureFrame> _videoFramesDecoded = videoFramesDecoded;
+        return null != _videoFramesDecoded ? _videoFramesDecoded.size() : 0;
+    }
+
+    @Override
+    public final int getDecoderStallCount() { return decoderStallCount; }
+
+    @Override
+    public final int getFrameUnderrunCount() { return frameUnderrunCount; }
+
+    @Override
+    public final FrameTimeHistogram getDecodeTimeHistogram() { return decodeTimeHistogram; }
+
+    @Override
+    public final void setAVSyncController(AVSyncController c) {
+        synchronized( stateLock ) {
+            avSync = null != c ? c : new DefaultAVSyncController();
+            avSync.reset();
+        }
+    }
+
+    @Override
+    public final AVSyncController getAVSyncController() { return avSync; }
+
     @Override
     public final int getVideoPTS() { return video_pts_last; }
 
@@ -772,6 +804,9 @@ public abstract class GLMediaPlayerImpl implements GLMediaPlayer {
                         } else if( STREAM_ID_NONE != vid ) {
                             if( null != videoFramesDecoded ) { // single threaded ? TEXTURE_COUNT_MIN == textureCount
                                 nextFrame = videoFramesDecoded.get();
+                                if( null == nextFrame ) {
+                                    frameUnderrunCount++;
+                                }
                             } else {
                                 nextFrame = getNextSingleThreaded(gl, lastFrame);
                             }
@@ -800,41 +835,27 @@ public abstract class GLMediaPlayerImpl implements GLMediaPlayer {
                                 }
                                 final int video_scr = video_scr_pts + (int) ( ( currentTimeMillis - video_scr_t0 ) * playSpeed );
                                 final int d_vpts = video_pts - video_scr;
-                                // final int d_avpts = d_vpts - d_apts;
-                                if( -VIDEO_DPTS_MAX > d_vpts || d_vpts > VIDEO_DPTS_MAX ) {
-                                // if( -VIDEO_DPTS_MAX > d_avpts || d_avpts > VIDEO_DPTS_MAX ) {
-                                    if( DEBUG ) {
-                                        System.err.println( "AV*: dT "+(currentTimeMillis-lastTimeMillis)+", "+
-                                                getPerfStringImpl( video_scr, video_pts, d_vpts, audio_scr, audio_pts, d_apts, 0 ) + ", "+nextFrame+", playCached " + playCached+ ", dropFrame "+dropFrame);
-                                    }
-                                } else {
-                                    final int dpy_den = displayedFrameCount > 0 ? displayedFrameCount : 1;
-                                    final int avg_dpy_duration = ( (int) ( currentTimeMillis - video_scr_t0 ) ) / dpy_den ; // ms/f
-                                    final int maxVideoDelay = Math.min(avg_dpy_duration, MAXIMUM_VIDEO_ASYNC);
-                                    video_dpts_count++;
-                                    // video_dpts_cum = d_avpts + VIDEO_DPTS_COEFF * video_dpts_cum;
-                                    video_dpts_cum = d_vpts + VIDEO_DPTS_COEFF * video_dpts_cum;
-                                    final int video_dpts_avg_diff = video_dpts_count >= VIDEO_DPTS_NUM ? getVideoDPTSAvg() : 0;
-                                    final int dt = (int) ( video_dpts_avg_diff / playSpeed + 0.5f );
-                                    // final int dt = (int) ( d_vpts  / playSpeed + 0.5f );
-                                    // final int dt = (int) ( d_avpts / playSpeed + 0.5f );
-                                    final TextureFrame _nextFrame = nextFrame;
-                                    if( dt > maxVideoDelay ) {
-                                        cachedFrame = nextFrame;
-                                        nextFrame = null;
-                                    } else if ( !droppedFrame && dt < -maxVideoDelay && null != videoFramesDecoded && videoFramesDecoded.size() > 0 ) {
-                                        // only drop if prev. frame has not been dropped and
-                                        // frame is too late and one decoded frame is already available.
-                                        dropFrame = true;
-                                    }
-                                    video_pts_last = video_pts;
-                                    if( DEBUG ) {
-                                        System.err.println( "AV_: dT "+(currentTimeMillis-lastTimeMillis)+", "+
-                                                getPerfStringImpl( video_scr, video_pts, d_vpts,
-                                                                   audio_scr, audio_pts, d_apts,
-                                                                   video_dpts_avg_diff ) +
-                                                                   ", avg dpy-fps "+avg_dpy_duration+" ms/f, maxD "+maxVideoDelay+" ms, "+_nextFrame+", playCached " + playCached + ", dropFrame "+dropFrame);
-                                    }
+                                final int dpy_den = displayedFrameCount > 0 ? displayedFrameCount : 1;
+                                final int avg_dpy_duration = ( (int) ( currentTimeMillis - video_scr_t0 ) ) / dpy_den ; // ms/f
+                                final boolean nextFrameAvailable = null != videoFramesDecoded && videoFramesDecoded.size() > 0;
+                                final AVSyncController _avSync = avSync;
+                                final AVSyncController.Action action = _avSync.sync(video_pts, video_scr, audio_pts, audio_scr, playSpeed,
+                                                                                    avg_dpy_duration, nextFrameAvailable, currentTimeMillis);
+                                final TextureFrame _nextFrame = nextFrame;
+                                if( AVSyncController.Action.REPEAT == action ) {
+                                    cachedFrame = nextFrame;
+                                    nextFrame = null;
+                                } else if( AVSyncController.Action.DROP == action ) {
+                                    dropFrame = true;
+                                    droppedFrameCount++;
+                                }
+                                video_pts_last = video_pts;
+                                if( DEBUG ) {
+                                    System.err.println( "AV_: dT "+(currentTimeMillis-lastTimeMillis)+", "+
+                                            getPerfStringImpl( video_scr, video_pts, d_vpts,
+                                                               audio_scr, audio_pts, d_apts,
+                                                               _avSync.getDriftAverage() ) +
+                                                               ", avg dpy-fps "+avg_dpy_duration+" ms/f, "+action+", "+_nextFrame+", playCached " + playCached + ", dropFrame "+dropFrame);
                                 }
                             } else if( DEBUG ) {
                                 System.err.println("Invalid PTS: "+nextFrame);
@@ -898,9 +919,12 @@ public abstract class GLMediaPlayerImpl implements GLMediaPlayer {
     protected final TextureFrame getNextSingleThreaded(final GL gl, final TextureFrame nextFrame) throws InterruptedException {
         if( STREAM_ID_NONE != vid ) {
             preNextTextureImpl(gl);
+            final long t0 = System.nanoTime();
             final int vPTS = getNextTextureImpl(gl, nextFrame);
+            final long t1 = System.nanoTime();
             postNextTextureImpl(gl);
             if( TimeFrameI.INVALID_PTS != vPTS ) {
+                decodeTimeHistogram.record(t1 - t0);
                 newFrameAvailable(nextFrame, Platform.currentTimeMillis());
                 return nextFrame;
             }
@@ -951,8 +975,7 @@ public abstract class GLMediaPlayerImpl implements GLMediaPlayer {
         cachedFrame = null;
     }
     private void resetAVPTSAndFlush() {
-        video_dpts_cum = 0;
-        video_dpts_count = 0;
+        avSync.reset();
         resetAVPTS();
         flushAllVideoFrames();
         if( null != audioSink ) {
@@ -963,12 +986,13 @@ public abstract class GLMediaPlayerImpl implements GLMediaPlayer {
         presentedFrameCount = 0;
         displayedFrameCount = 0;
         decodedFrameCount = 0;
+        droppedFrameCount = 0;
+        decoderStallCount = 0;
+        frameUnderrunCount = 0;
+        decodeTimeHistogram.reset();
         audioSCR_reset = true;
         videoSCR_reset = true;
     }
-    private final int getVideoDPTSAvg() {
-        return (int) ( video_dpts_cum * (1.0f - VIDEO_DPTS_COEFF) + 0.5f );
-    }
 
     private final void newFrameAvailable(TextureFrame frame, long currentTimeMillis) {
         decodedFrameCount++;
@@ -1167,6 +1191,9 @@ public abstract class GLMediaPlayerImpl implements GLMediaPlayer {
                         isBlocked = true;
                         final GL gl;
                         if( STREAM_ID_NONE != vid ) {
+                            if( 0 == videoFramesFree.size() ) {
+                                decoderStallCount++; // presentation is behind
+                            }
                             nextFrame = videoFramesFree.getBlocking();
                             nextFrame.setPTS( TimeFrameI.INVALID_PTS ); // mark invalid until processed!
                             gl = sharedGLCtx.getGL();
@@ -1174,9 +1201,12 @@ public abstract class GLMediaPlayerImpl implements GLMediaPlayer {
                             gl = null;
                         }
                         isBlocked = false;
+                        final long t0 = System.nanoTime();
                         final int vPTS = getNextTextureImpl(gl, nextFrame);
+                        final long t1 = System.nanoTime();
                         if( TimeFrameI.INVALID_PTS != vPTS ) {
                             if( null != nextFrame ) {
+                                decodeTimeHistogram.record(t1 - t0);
                                 if( STREAM_WORKER_DELAY > 0 ) {
                                     Thread.sleep(STREAM_WORKER_DELAY);
                                 }
@@ -1439,7 +1469,7 @@ public abstract class GLMediaPlayerImpl implements GLMediaPlayer {
         final int audio_scr = (int) ( ( currentTimeMillis - audio_scr_t0 ) * playSpeed );
         final int audio_pts = getAudioPTSImpl();
         final int d_apts = audio_pts - audio_scr;
-        return getPerfStringImpl( video_scr, video_pts_last, d_vpts, audio_scr, audio_pts, d_apts, getVideoDPTSAvg() );
+        return getPerfStringImpl( video_scr, video_pts_last, d_vpts, audio_scr, audio_pts, d_apts, avSync.getDriftAverage() );
     }
     private final String getPerfStringImpl(final int video_scr, final int video_pts, final int d_vpts,
                                            final int audio_scr, final int audio_pts, final int d_apts,
@@ -1460,7 +1490,7 @@ public abstract class GLMediaPlayerImpl implements GLMediaPlayer {
             freeVideoFrames = 0;
             decVideoFrames = 0;
         }
-        return state+", frames[(p "+presentedFrameCount+", d "+decodedFrameCount+") / "+videoFrames+", "+tt+" s], "+
+        return state+", frames[(p "+presentedFrameCount+", d "+decodedFrameCount+", drop "+droppedFrameCount+", stall "+decoderStallCount+", under "+frameUnderrunCount+") / "+videoFrames+", "+tt+" s], "+
                "speed " + playSpeed+", dAV "+( d_vpts - d_apts )+", vSCR "+video_scr+", vpts "+video_pts+", dSCR["+d_vpts+", avrg "+video_dpts_avg_diff+"], "+
                "aSCR "+audio_scr+", apts "+audio_pts+" ( "+d_apts+" ), "+audioSinkInfo+
                ", Texture[count "+textureCount+", free "+freeVideoFrames+", dec "+decVideoFrames+"]";
@@ -1,7 +1,7 @@
 package jogamp.opengl.util.av;
 
 import java.nio.ByteBuffer;
-import java.util.Arrays;
+import java.util.concurrent.locks.LockSupport;
 
 import javax.sound.sampled.AudioSystem;
 import javax.sound.sampled.DataLine;
@@ -12,6 +12,15 @@ import com.jogamp.opengl.util.av.AudioSink;
 /***
  * JavaSound Audio Sink
  * <p>
+ * Decoded samples are passed from the decoder thread to an output thread
+ * via a preallocated lock-free {@link AudioRingBuffer} holding up to <code>queueLimit</code> milliseconds,
+ * see {@link #init(AudioSink.AudioFormat, float, int, int, int) init(..)}.
+ * The output thread writes the samples to the {@link SourceDataLine} in chunks of {@link #BUFFER_SIZE} bytes,
+ * hence the decoder thread only waits for the audio device if the queue is full while playing.
+ * A chunk interrupted by {@link #pause()} stays pending and is written first on {@link #play()},
+ * see {@link AudioOutputChunk}.
+ * </p>
+ * <p>
  * FIXME: Parameterize .. all configs .. best via an init-method, passing requested
  * audio capabilities
  * </p>
@@ -31,11 +40,21 @@ public class JavaSoundAudioSink implements AudioSink {
     private DataLine.Info info;
     private SourceDataLine auline;
     private int bufferCount;
-    private byte [] sampleData = new byte[BUFFER_SIZE];
-    private boolean initialized = false;
+    private AudioOutputChunk chunk = null;
+    private volatile boolean initialized = false;
     private AudioSink.AudioFormat chosenFormat = null;
+    private int frameSize = 1;
+
+    private AudioRingBuffer ring = null;
+    private OutputThread outputThread = null;
 
     private volatile boolean playRequested = false;
+    /** Ring write position at the last {@link #flush()}, published via {@link #flushGeneration}. */
+    private volatile long flushPos = 0;
+    /** Incremented by {@link #flush()}, the output thread drops the samples written before {@link #flushPos}. */
+    private volatile int flushGeneration = 0;
+    /** Last flush generation performed by the output thread. */
+    private volatile int flushedGeneration = 0;
     private float volume = 1.0f;
 
     static {
@@ -52,7 +71,7 @@ public class JavaSoundAudioSink implements AudioSink {
     @Override
     public String toString() {
         return "JavaSoundSink[init "+initialized+", dataLine "+info+", source "+auline+", bufferCount "+bufferCount+
-               ", chosen "+chosenFormat+", jsFormat "+format;
+               ", "+ring+", chosen "+chosenFormat+", jsFormat "+format;
     }
 
     @Override
@@ -102,22 +121,101 @@ public class JavaSoundAudioSink implements AudioSink {
         // Create dataline info object describing line format
         info = new DataLine.Info(SourceDataLine.class, format);
 
-        // Clear buffer initially
-        Arrays.fill(sampleData, (byte) 0);
+        frameSize = Math.max(1, requestedFormat.channelCount * ( requestedFormat.sampleSize >>> 3 ));
+        chunk = new AudioOutputChunk( Math.max(frameSize, BUFFER_SIZE - BUFFER_SIZE % frameSize) );
         try{
             // Get line to write data to
             auline = (SourceDataLine) AudioSystem.getLine(info);
             auline.open(format);
             auline.start();
             System.out.println("JavaSound audio sink");
-            initialized=true;
             chosenFormat = requestedFormat;
+            ring = new AudioRingBuffer( Math.max( chunk.size(), requestedFormat.getDurationsByteSize( Math.max(initialQueueSize, queueLimit) ) ) );
+            initialized=true;
+            outputThread = new OutputThread();
+            outputThread.start();
         } catch (Exception e) {
             initialized=false;
         }
         return true;
     }
 
+    /**
+     * Moves samples from the {@link AudioRingBuffer} to the {@link SourceDataLine},
+     * idles w/o locking while not playing or no samples are available.
+     * <p>
+     * A chunk is only written while playing. If paused mid-chunk, the stopped line eventually does not accept data anymore,
+     * the thread then parks and keeps the remainder pending until resumed.
+     * </p>
+     */
+    private class OutputThread extends Thread implements AudioOutputChunk.Output {
+        private volatile boolean shallStop = false;
+
+        OutputThread() {
+            super("JavaSoundAudioSink-Output");
+            setDaemon(true);
+        }
+
+        void stopAndWait() {
+            shallStop = true;
+            LockSupport.unpark(this);
+            if( Thread.currentThread() != this ) {
+                try {
+                    join();
+                } catch (InterruptedException ie) {
+                    interrupt();
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            while( !shallStop ) {
+                final int gen = flushGeneration;
+                if( gen != flushedGeneration ) {
+                    // samples enqueued after the flush are kept
+                    ring.clear(flushPos);
+                    chunk.clear();
+                    auline.flush();
+                    flushedGeneration = gen;
+                }
+                if( !playRequested ) {
+                    LockSupport.parkNanos(this, 10000000L); // 10ms
+                    continue;
+                }
+                if( 0 < chunk.fill(ring, frameSize) ) {
+                    playImpl();
+                    if( !chunk.write(this) ) {
+                        // line does not accept data or paused, remainder is kept
+                        LockSupport.parkNanos(this, 1000000L); // 1ms
+                    }
+                } else {
+                    LockSupport.parkNanos(this, 1000000L); // 1ms
+                }
+            }
+        }
+
+        @Override
+        public boolean isWritable() {
+            return !shallStop && playRequested && flushedGeneration == flushGeneration;
+        }
+
+        @Override
+        public int write(byte[] b, int off, int len) {
+            return auline.write(b, off, len);
+        }
+    }
+
+    /** Returns the number of enqueued frames not fitting completely into the sample queue, i.e. dropping samples. */
+    public final int getOverrunCount() {
+        return null != ring ? ring.getOverrunCount() : 0;
+    }
+
+    /** Returns the number of times the output thread ran out of samples while playing. */
+    public final int getUnderrunCount() {
+        return null != ring ? ring.getUnderrunCount() : 0;
+    }
+
     @Override
     public boolean isPlaying() {
         return playRequested && auline.isRunning();
@@ -128,6 +226,9 @@ public class JavaSoundAudioSink implements AudioSink {
         if( null != auline ) {
             playRequested = true;
             playImpl();
+            if( null != outputThread ) {
+                LockSupport.unpark(outputThread);
+            }
         }
     }
     private void playImpl() {
@@ -149,7 +250,14 @@ public class JavaSoundAudioSink implements AudioSink {
         if( null != auline ) {
             playRequested = false;
             auline.stop();
-            auline.flush();
+            if( null != outputThread ) {
+                // performed by the consumer, i.e. the output thread
+                flushPos = ring.getWritePosition();
+                flushGeneration++;
+                LockSupport.unpark(outputThread);
+            } else {
+                auline.flush();
+            }
         }
     }
 
@@ -176,43 +284,55 @@ public class JavaSoundAudioSink implements AudioSink {
     @Override
     public void destroy() {
         initialized = false;
+        playRequested = false;
+        // stop the consumer first, the ring is kept for a concurrent producer
+        if( null != outputThread ) {
+            outputThread.stopAndWait();
+            outputThread = null;
+        }
+        if( null != auline ) {
+            auline.stop();
+            auline.close();
+            auline = null;
+        }
         chosenFormat = null;
-        // FIXEM: complete code!
     }
 
     @Override
     public AudioFrame enqueueData(AudioDataFrame audioDataFrame) {
-        int byteSize = audioDataFrame.getByteSize();
-        final ByteBuffer byteBuffer = audioDataFrame.getData();
-        final byte[] bytes = new byte[byteSize];
-        final int p = byteBuffer.position();
-        byteBuffer.get(bytes, 0, byteSize);
-        byteBuffer.position(p);
-
-        int written = 0;
-        int len;
-        while (byteSize > 0) {
-            len = auline.write(bytes, written, byteSize);
-            byteSize -= len;
-            written += len;
-        }
-        playImpl();
+        enqueueImpl(audioDataFrame.getData(), audioDataFrame.getByteSize());
         return audioDataFrame;
     }
 
     @Override
     public AudioFrame enqueueData(int pts, ByteBuffer bytes, int byteCount) {
-        return enqueueData(new AudioDataFrame(pts, chosenFormat.getBytesDuration(byteCount), bytes, byteCount));
+        enqueueImpl(bytes, byteCount);
+        return new AudioDataFrame(pts, chosenFormat.getBytesDuration(byteCount), bytes, byteCount);
+    }
+
+    /**
+     * Copies the whole sample frames into the ring buffer, waiting for free space while playing or flushing.
+     * If not playing and the ring buffer is full, the remaining samples are dropped.
+     */
+    private void enqueueImpl(ByteBuffer bytes, int byteCount) {
+        if( !initialized ) {
+            return;
+        }
+        while( ring.getWritable() < byteCount && byteCount <= ring.capacity() && initialized &&
+               ( playRequested || flushedGeneration != flushGeneration ) ) {
+            LockSupport.parkNanos(1000000L); // 1ms, output thread is draining
+        }
+        ring.put(bytes, byteCount, frameSize);
     }
 
     @Override
     public int getQueuedByteCount() {
-        return auline.getBufferSize() - auline.available();
+        return ( null != ring ? ring.getReadable() : 0 ) + auline.getBufferSize() - auline.available();
     }
 
     @Override
     public int getFreeFrameCount() {
-        return auline.available();
+        return null != ring ? ring.getWritable() : auline.available();
     }
 
     @Override
@@ -40,7 +40,6 @@ import javax.media.opengl.GLException;
 import com.jogamp.common.os.Platform;
 import com.jogamp.common.util.IOUtil;
 import com.jogamp.common.util.VersionNumber;
-import com.jogamp.gluegen.runtime.ProcAddressTable;
 import com.jogamp.opengl.util.TimeFrameI;
 import com.jogamp.opengl.util.GLPixelStorageModes;
 import com.jogamp.opengl.util.av.AudioSink;
@@ -49,6 +48,7 @@ import com.jogamp.opengl.util.av.AudioSinkFactory;
 import com.jogamp.opengl.util.av.GLMediaPlayer;
 import com.jogamp.opengl.util.texture.Texture;
 
+import jogamp.opengl.Debug;
 import jogamp.opengl.GLContextImpl;
 import jogamp.opengl.util.av.GLMediaPlayerImpl;
 import jogamp.opengl.util.av.impl.FFMPEGNatives.PixelFormat;
@@ -76,6 +76,10 @@ import jogamp.opengl.util.av.impl.FFMPEGNatives.SampleFormat;
  * from <i>YUV*</i> to <i>RGB</i>, for example.
  * </p>
  * <p>
+ * Video decoding uses slice threading if supported by the codec,
+ * frame threading is optional, see {@link #VIDEO_DECODER_THREADS}.
+ * </p>
+ * <p>
  * Implements pixel format conversion to <i>RGB</i> via
  * fragment shader texture-lookup functions:
  * <ul>
@@ -151,6 +155,18 @@ public class FFMPEGMediaPlayer extends GLMediaPlayerImpl {
     /** POSIX ENOSYS {@value}: Function not implemented. FIXME: Move to GlueGen ?!*/
     private static final int ENOSYS = 38;
 
+    /**
+     * Number of video decoder threads, set via property <code>jogl.ffmpeg.vthreads</code>.
+     * <ul>
+     *   <li><code>0</code>, default: slice threading w/ an automatic thread count, if supported by the codec.</li>
+     *   <li><code>1</code>: no multithreaded decoding.</li>
+     *   <li><code>N &gt; 1</code>: frame and slice threading w/ <code>N</code> threads, if supported by the codec.
+     *       Frame threading delays the decoded output by <code>N-1</code> frames.
+     *       Since the decoder is not drained at the end of the stream, the last <code>N-1</code> frames are not shown.</li>
+     * </ul>
+     */
+    public static final int VIDEO_DECODER_THREADS;
+
     // Instance data
     private static final FFMPEGNatives natives;
     private static final int avUtilMajorVersionCC;
@@ -161,6 +177,10 @@ public class FFMPEGMediaPlayer extends GLMediaPlayerImpl {
     private static final boolean available;
 
     static {
+        Debug.initSingleton();
+        final int vThreads = Debug.getIntProperty("jogl.ffmpeg.vthreads", true, 0);
+        VIDEO_DECODER_THREADS = Math.max(0, vThreads);
+
         final boolean libAVGood = FFMPEGDynamicLibraryBundleInfo.initSingleton();
         final boolean libAVVersionGood;
         if( FFMPEGDynamicLibraryBundleInfo.libsLoaded() ) {
@@ -331,7 +351,7 @@ public class FFMPEGMediaPlayer extends GLMediaPlayerImpl {
         final int aMaxChannelCount = audioSink.getMaxSupportedChannels();
         final int aPrefSampleRate = preferredAudioFormat.sampleRate;
          // setStream(..) issues updateAttributes*(..), and defines avChosenAudioFormat, vid, aid, .. etc
-        natives.setStream0(moviePtr, resStreamLocS, isCameraInput, vid, sizes, rw, rh, rr, aid, aMaxChannelCount, aPrefSampleRate);
+        natives.setStream0(moviePtr, resStreamLocS, isCameraInput, vid, sizes, rw, rh, rr, VIDEO_DECODER_THREADS, aid, aMaxChannelCount, aPrefSampleRate);
     }
 
     @Override
@@ -348,11 +368,10 @@ public class FFMPEGMediaPlayer extends GLMediaPlayerImpl {
             AccessController.doPrivileged(new PrivilegedAction<Object>() {
                 @Override
                 public Object run() {
-                    final ProcAddressTable pt = ctx.getGLProcAddressTable();
-                    final long procAddrGLTexSubImage2D = pt.getAddressFor("glTexSubImage2D");
-                    final long procAddrGLGetError = pt.getAddressFor("glGetError");
-                    final long procAddrGLFlush = pt.getAddressFor("glFlush");
-                    final long procAddrGLFinish = pt.getAddressFor("glFinish");
+                    final long procAddrGLTexSubImage2D = ctx.getGLProcAddress("glTexSubImage2D");
+                    final long procAddrGLGetError = ctx.getGLProcAddress("glGetError");
+                    final long procAddrGLFlush = ctx.getGLProcAddress("glFlush");
+                    final long procAddrGLFinish = ctx.getGLProcAddress("glFinish");
                     natives.setGLFuncs0(moviePtr, procAddrGLTexSubImage2D, procAddrGLGetError, procAddrGLFlush, procAddrGLFinish);
                     return null;
             } } );
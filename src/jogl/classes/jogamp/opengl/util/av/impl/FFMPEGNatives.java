@@ -52,13 +52,14 @@ interface FFMPEGNatives {
      * @param vWidth requested video width (for camera mode)
      * @param vHeight requested video width (for camera mode)
      * @param vRate requested video framerate (for camera mode)
+     * @param vThreadCount number of video decoder threads, see {@link FFMPEGMediaPlayer#VIDEO_DECODER_THREADS}
      * @param aid
      * @param aPrefSampleRate
      * @param aPrefChannelCount
      */
     void setStream0(long moviePtr, String url, boolean isCameraInput,
                     int vid, String sizes, int vWidth, int vHeight,
-                    int vRate, int aid, int aMaxChannelCount, int aPrefSampleRate);
+                    int vRate, int vThreadCount, int aid, int aMaxChannelCount, int aPrefSampleRate);
 
     void setGLFuncs0(long moviePtr, long procAddrGLTexSubImage2D, long procAddrGLGetError, long procAddrGLFlush, long procAddrGLFinish);
 
@@ -88,10 +88,10 @@ public class GLSLArrayHandler extends GLVBOArrayHandler {
         final Buffer buffer = ad.getBuffer();
         if(ad.isVBO()) {
             // bind and refresh the VBO / vertex-attr only if necessary
-            if(!ad.isVBOWritten()) {
+            if(!isVBOWritten()) {
                 glsl.glBindBuffer(ad.getVBOTarget(), ad.getVBOName());
                 if(null!=buffer) {
-                    glsl.glBufferData(ad.getVBOTarget(), ad.getSizeInBytes(), buffer, ad.getVBOUsage());
+                    bufferData(glsl, buffer, ad.getSizeInBytes());
                 }
                 ad.setVBOWritten(true);
                 st.vertexAttribPointer(glsl, ad);
@@ -140,10 +140,10 @@ public class GLSLArrayHandler extends GLVBOArrayHandler {
         final Buffer buffer = ad.getBuffer();
         if(ad.isVBO()) {
             // bind and refresh the VBO / vertex-attr only if necessary
-            if(!ad.isVBOWritten()) {
+            if(!isVBOWritten()) {
                 glsl.glBindBuffer(ad.getVBOTarget(), ad.getVBOName());
                 if(null!=buffer) {
-                    glsl.glBufferData(ad.getVBOTarget(), ad.getSizeInBytes(), buffer, ad.getVBOUsage());
+                    bufferData(glsl, buffer, ad.getSizeInBytes());
                 }
                 ad.setVBOWritten(true);
                 glsl.glVertexAttribPointer(ad);
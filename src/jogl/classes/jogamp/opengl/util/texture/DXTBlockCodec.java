@@ -0,0 +1,336 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ *
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+
+package jogamp.opengl.util.texture;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Encoder and decoder of 4x4 pixel S3TC blocks, i.e. BC1 (DXT1) and BC3 (DXT5).
+ * <p>
+ * A block's pixels are passed as RGBA components of 16 pixels in row major order,
+ * i.e. <code>rgba[(y*4+x)*4+c]</code> w/ values within [0..255].
+ * </p>
+ * <p>
+ * Color endpoints are selected along the principal axis of the block's colors.
+ * The decoder uses the same integer interpolation as the encoder, which may deviate
+ * from a GPU's result by one unit of a component.
+ * </p>
+ */
+public class DXTBlockCodec {
+    /** Size of a BC1 (DXT1) block in bytes. */
+    public static final int BC1_BLOCK_SIZE = 8;
+    /** Size of a BC3 (DXT5) block in bytes. */
+    public static final int BC3_BLOCK_SIZE = 16;
+
+    /**
+     * Encodes a BC1 block.
+     * @param rgba the block's 16 RGBA pixels
+     * @param punchThroughAlpha if true, pixels w/ alpha below 128 are encoded transparent (DXT1 RGBA),
+     *        otherwise alpha is ignored (DXT1 RGB)
+     * @param dst destination buffer, written absolute
+     * @param off byte offset within the destination buffer
+     */
+    public static void encodeBC1(int[] rgba, boolean punchThroughAlpha, ByteBuffer dst, int off) {
+        encodeColor(rgba, punchThroughAlpha, dst, off);
+    }
+
+    /**
+     * Encodes a BC3 block, i.e. the interpolated alpha block followed by the color block.
+     * @param rgba the block's 16 RGBA pixels
+     * @param dst destination buffer, written absolute
+     * @param off byte offset within the destination buffer
+     */
+    public static void encodeBC3(int[] rgba, ByteBuffer dst, int off) {
+        encodeAlpha(rgba, dst, off);
+        encodeColor(rgba, false, dst, off + 8);
+    }
+
+    /**
+     * Decodes a BC1 block.
+     * @param src source buffer, read absolute
+     * @param off byte offset within the source buffer
+     * @param punchThroughAlpha if true, the transparent color index yields alpha 0 (DXT1 RGBA), otherwise black
+     * @param rgba the block's 16 decoded RGBA pixels
+     */
+    public static void decodeBC1(ByteBuffer src, int off, boolean punchThroughAlpha, int[] rgba) {
+        decodeColor(src, off, false, punchThroughAlpha, rgba);
+        if( !punchThroughAlpha ) {
+            for(int p=0; p<16; p++) {
+                rgba[p*4+3] = 255;
+            }
+        }
+    }
+
+    /**
+     * Decodes a BC3 block.
+     * @param src source buffer, read absolute
+     * @param off byte offset within the source buffer
+     * @param rgba the block's 16 decoded RGBA pixels
+     */
+    public static void decodeBC3(ByteBuffer src, int off, int[] rgba) {
+        decodeColor(src, off + 8, true, false, rgba);
+        decodeAlpha(src, off, rgba);
+    }
+
+    //
+    // Color block
+    //
+
+    private static int pack565(float r, float g, float b) {
+        final int r5 = clamp( Math.round( r * 31f / 255f ), 31 );
+        final int g6 = clamp( Math.round( g * 63f / 255f ), 63 );
+        final int b5 = clamp( Math.round( b * 31f / 255f ), 31 );
+        return ( r5 << 11 ) | ( g6 << 5 ) | b5;
+    }
+
+    private static void unpack565(int c, int[] rgb, int off) {
+        final int r5 = ( c >> 11 ) & 0x1f;
+        final int g6 = ( c >>  5 ) & 0x3f;
+        final int b5 =   c         & 0x1f;
+        rgb[off  ] = ( r5 << 3 ) | ( r5 >> 2 );
+        rgb[off+1] = ( g6 << 2 ) | ( g6 >> 4 );
+        rgb[off+2] = ( b5 << 3 ) | ( b5 >> 2 );
+    }
+
+    /** Computes the palette of 4 RGB colors, the 4th being black in 3 color mode. */
+    private static void palette(int c0, int c1, boolean fourColors, int[] pal) {
+        unpack565(c0, pal, 0);
+        unpack565(c1, pal, 3);
+        for(int i=0; i<3; i++) {
+            final int a = pal[i], b = pal[3+i];
+            if( fourColors ) {
+                pal[6+i] = ( 2 * a + b ) / 3;
+                pal[9+i] = ( a + 2 * b ) / 3;
+            } else {
+                pal[6+i] = ( a + b ) / 2;
+                pal[9+i] = 0;
+            }
+        }
+    }
+
+    private static void encodeColor(int[] rgba, boolean punchThroughAlpha, ByteBuffer dst, int off) {
+        // mean of the opaque pixels
+        int count = 0;
+        float mr = 0, mg = 0, mb = 0;
+        boolean transparent = false;
+        for(int p=0; p<16; p++) {
+            if( punchThroughAlpha && rgba[p*4+3] < 128 ) {
+                transparent = true;
+            } else {
+                mr += rgba[p*4]; mg += rgba[p*4+1]; mb += rgba[p*4+2];
+                count++;
+            }
+        }
+        int c0, c1;
+        if( 0 == count ) {
+            c0 = 0;
+            c1 = 0;
+        } else {
+            mr /= count; mg /= count; mb /= count;
+
+            // covariance
+            float rr = 0, rg = 0, rb = 0, gg = 0, gb = 0, bb = 0;
+            for(int p=0; p<16; p++) {
+                if( !punchThroughAlpha || rgba[p*4+3] >= 128 ) {
+                    final float r = rgba[p*4] - mr, g = rgba[p*4+1] - mg, b = rgba[p*4+2] - mb;
+                    rr += r*r; rg += r*g; rb += r*b;
+                    gg += g*g; gb += g*b; bb += b*b;
+                }
+            }
+            // principal axis via power iteration, starting w/ the axis of largest variance
+            float vr, vg, vb;
+            if( rr >= gg && rr >= bb ) {
+                vr = rr; vg = rg; vb = rb;
+            } else if( gg >= bb ) {
+                vr = rg; vg = gg; vb = gb;
+            } else {
+                vr = rb; vg = gb; vb = bb;
+            }
+            for(int i=0; i<8; i++) {
+                final float r = rr * vr + rg * vg + rb * vb;
+                final float g = rg * vr + gg * vg + gb * vb;
+                final float b = rb * vr + gb * vg + bb * vb;
+                final float len = (float) Math.sqrt( r*r + g*g + b*b );
+                if( len < 1e-6f ) {
+                    break;
+                }
+                vr = r / len; vg = g / len; vb = b / len;
+            }
+            final float len = (float) Math.sqrt( vr*vr + vg*vg + vb*vb );
+            if( len < 1e-6f ) {
+                vr = 0; vg = 0; vb = 0;
+            } else {
+                vr /= len; vg /= len; vb /= len;
+            }
+            // extremes along the axis
+            float tmin = 0, tmax = 0;
+            for(int p=0; p<16; p++) {
+                if( !punchThroughAlpha || rgba[p*4+3] >= 128 ) {
+                    final float t = ( rgba[p*4] - mr ) * vr + ( rgba[p*4+1] - mg ) * vg + ( rgba[p*4+2] - mb ) * vb;
+                    tmin = Math.min(tmin, t);
+                    tmax = Math.max(tmax, t);
+                }
+            }
+            c0 = pack565(mr + tmax * vr, mg + tmax * vg, mb + tmax * vb);
+            c1 = pack565(mr + tmin * vr, mg + tmin * vg, mb + tmin * vb);
+        }
+        // 4 color mode requires c0 > c1, 3 color mode w/ transparency c0 <= c1
+        if( transparent ? c0 > c1 : c0 < c1 ) {
+            final int t = c0; c0 = c1; c1 = t;
+        }
+        final boolean fourColors = c0 > c1;
+        final int[] pal = new int[12];
+        palette(c0, c1, fourColors, pal);
+
+        dst.put(off  , (byte)   c0        );
+        dst.put(off+1, (byte) ( c0 >> 8 ) );
+        dst.put(off+2, (byte)   c1        );
+        dst.put(off+3, (byte) ( c1 >> 8 ) );
+        for(int y=0; y<4; y++) {
+            int bits = 0;
+            for(int x=0; x<4; x++) {
+                final int p = y*4+x;
+                int idx;
+                if( punchThroughAlpha && rgba[p*4+3] < 128 ) {
+                    idx = 3;
+                } else if( c0 == c1 ) {
+                    idx = 0;
+                } else {
+                    idx = nearest(rgba, p, pal, fourColors ? 4 : 3);
+                }
+                bits |= idx << ( x * 2 );
+            }
+            dst.put(off+4+y, (byte) bits);
+        }
+    }
+
+    private static int nearest(int[] rgba, int p, int[] pal, int n) {
+        int best = 0;
+        int bestErr = Integer.MAX_VALUE;
+        for(int i=0; i<n; i++) {
+            final int dr = rgba[p*4  ] - pal[i*3  ];
+            final int dg = rgba[p*4+1] - pal[i*3+1];
+            final int db = rgba[p*4+2] - pal[i*3+2];
+            final int err = dr*dr + dg*dg + db*db;
+            if( err < bestErr ) {
+                bestErr = err;
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    private static void decodeColor(ByteBuffer src, int off, boolean alwaysFourColors, boolean punchThroughAlpha, int[] rgba) {
+        final int c0 = ( src.get(off  ) & 0xff ) | ( ( src.get(off+1) & 0xff ) << 8 );
+        final int c1 = ( src.get(off+2) & 0xff ) | ( ( src.get(off+3) & 0xff ) << 8 );
+        final boolean fourColors = alwaysFourColors || c0 > c1;
+        final int[] pal = new int[12];
+        palette(c0, c1, fourColors, pal);
+        for(int y=0; y<4; y++) {
+            final int bits = src.get(off+4+y) & 0xff;
+            for(int x=0; x<4; x++) {
+                final int p = y*4+x;
+                final int idx = ( bits >> ( x * 2 ) ) & 3;
+                rgba[p*4  ] = pal[idx*3  ];
+                rgba[p*4+1] = pal[idx*3+1];
+                rgba[p*4+2] = pal[idx*3+2];
+                rgba[p*4+3] = ( punchThroughAlpha && !fourColors && 3 == idx ) ? 0 : 255;
+            }
+        }
+    }
+
+    //
+    // Alpha block
+    //
+
+    /** Computes the palette of 8 alpha values. */
+    private static void alphaPalette(int a0, int a1, int[] pal) {
+        pal[0] = a0;
+        pal[1] = a1;
+        if( a0 > a1 ) {
+            for(int i=2; i<8; i++) {
+                pal[i] = ( ( 8 - i ) * a0 + ( i - 1 ) * a1 ) / 7;
+            }
+        } else {
+            for(int i=2; i<6; i++) {
+                pal[i] = ( ( 6 - i ) * a0 + ( i - 1 ) * a1 ) / 5;
+            }
+            pal[6] = 0;
+            pal[7] = 255;
+        }
+    }
+
+    private static void encodeAlpha(int[] rgba, ByteBuffer dst, int off) {
+        int amin = 255, amax = 0;
+        for(int p=0; p<16; p++) {
+            final int a = rgba[p*4+3];
+            amin = Math.min(amin, a);
+            amax = Math.max(amax, a);
+        }
+        final int[] pal = new int[8];
+        alphaPalette(amax, amin, pal);
+        long bits = 0;
+        if( amax != amin ) {
+            for(int p=0; p<16; p++) {
+                final int a = rgba[p*4+3];
+                int best = 0;
+                int bestErr = Integer.MAX_VALUE;
+                for(int i=0; i<8; i++) {
+                    final int err = Math.abs( a - pal[i] );
+                    if( err < bestErr ) {
+                        bestErr = err;
+                        best = i;
+                    }
+                }
+                bits |= (long) best << ( 3 * p );
+            }
+        }
+        dst.put(off  , (byte) amax);
+        dst.put(off+1, (byte) amin);
+        for(int i=0; i<6; i++) {
+            dst.put(off+2+i, (byte) ( bits >>> ( 8 * i ) ));
+        }
+    }
+
+    private static void decodeAlpha(ByteBuffer src, int off, int[] rgba) {
+        final int[] pal = new int[8];
+        alphaPalette(src.get(off) & 0xff, src.get(off+1) & 0xff, pal);
+        long bits = 0;
+        for(int i=0; i<6; i++) {
+            bits |= (long) ( src.get(off+2+i) & 0xff ) << ( 8 * i );
+        }
+        for(int p=0; p<16; p++) {
+            rgba[p*4+3] = pal[ (int) ( bits >>> ( 3 * p ) ) & 7 ];
+        }
+    }
+
+    private static int clamp(int v, int max) {
+        return v < 0 ? 0 : ( v > max ? max : v );
+    }
+}
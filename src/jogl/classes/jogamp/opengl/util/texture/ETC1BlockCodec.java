@@ -0,0 +1,251 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ *
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+
+package jogamp.opengl.util.texture;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Encoder and decoder of 4x4 pixel ETC1 blocks,
+ * see <a href="http://www.khronos.org/registry/gles/extensions/OES/OES_compressed_ETC1_RGB8_texture.txt">OES_compressed_ETC1_RGB8_texture</a>.
+ * <p>
+ * A block's pixels are passed as RGBA components of 16 pixels in row major order,
+ * i.e. <code>rgba[(y*4+x)*4+c]</code> w/ values within [0..255]. Alpha is ignored by the encoder
+ * and decoded as 255.
+ * </p>
+ * <p>
+ * The encoder tries both sub-block orientations in individual and differential mode
+ * based on the sub-blocks' average colors and picks the intensity tables w/ the least squared error.
+ * </p>
+ */
+public class ETC1BlockCodec {
+    /** Size of an ETC1 block in bytes. */
+    public static final int BLOCK_SIZE = 8;
+
+    /** Intensity modifier tables, small and large modifier per codeword. */
+    private static final int[][] modifierTable = {
+        {  2,   8 }, {  5,  17 }, {  9,  29 }, { 13,  42 },
+        { 18,  60 }, { 24,  80 }, { 33, 106 }, { 47, 183 } };
+
+    /** Modifier per pixel index value: +small, +large, -small, -large. */
+    private static int modifier(int table, int idx) {
+        final int m = modifierTable[table][idx & 1];
+        return 0 == ( idx & 2 ) ? m : -m;
+    }
+
+    /** Returns true if pixel (x, y) belongs to the 2nd sub-block. */
+    private static boolean isSubBlock1(boolean flip, int x, int y) {
+        return flip ? y >= 2 : x >= 2;
+    }
+
+    private static class Candidate {
+        final int[] base = new int[6];  // expanded RGB of both sub-blocks
+        final int[] table = new int[2];
+        int indexBits;
+        long err;
+    }
+
+    /**
+     * Encodes an ETC1 block.
+     * @param rgba the block's 16 RGBA pixels
+     * @param dst destination buffer, written absolute
+     * @param off byte offset within the destination buffer
+     */
+    public static void encode(int[] rgba, ByteBuffer dst, int off) {
+        final Candidate c = new Candidate();
+        long bestErr = Long.MAX_VALUE;
+        int bestHi = 0, bestLo = 0;
+        final float[] avg = new float[6];
+        for(int f=0; f<2; f++) {
+            final boolean flip = 1 == f;
+            // average color of each sub-block
+            for(int i=0; i<6; i++) {
+                avg[i] = 0;
+            }
+            for(int y=0; y<4; y++) {
+                for(int x=0; x<4; x++) {
+                    final int s = isSubBlock1(flip, x, y) ? 3 : 0;
+                    final int p = y*4+x;
+                    avg[s] += rgba[p*4]; avg[s+1] += rgba[p*4+1]; avg[s+2] += rgba[p*4+2];
+                }
+            }
+            for(int i=0; i<6; i++) {
+                avg[i] /= 8f;
+            }
+
+            // differential mode, if the 5 bit colors are close enough
+            final int[] q5 = new int[6];
+            boolean diffOK = true;
+            for(int i=0; i<6; i++) {
+                q5[i] = clamp( Math.round( avg[i] * 31f / 255f ), 31 );
+            }
+            for(int i=0; i<3; i++) {
+                final int d = q5[3+i] - q5[i];
+                if( d < -4 || d > 3 ) {
+                    diffOK = false;
+                }
+            }
+            if( diffOK ) {
+                for(int i=0; i<6; i++) {
+                    c.base[i] = ( q5[i] << 3 ) | ( q5[i] >> 2 );
+                }
+                evaluate(rgba, flip, c);
+                if( c.err < bestErr ) {
+                    bestErr = c.err;
+                    bestHi = ( q5[0] << 27 ) | ( ( ( q5[3] - q5[0] ) & 7 ) << 24 ) |
+                             ( q5[1] << 19 ) | ( ( ( q5[4] - q5[1] ) & 7 ) << 16 ) |
+                             ( q5[2] << 11 ) | ( ( ( q5[5] - q5[2] ) & 7 ) <<  8 ) |
+                             ( c.table[0] << 5 ) | ( c.table[1] << 2 ) | 2 | f;
+                    bestLo = c.indexBits;
+                }
+            }
+
+            // individual mode
+            final int[] q4 = new int[6];
+            for(int i=0; i<6; i++) {
+                q4[i] = clamp( Math.round( avg[i] * 15f / 255f ), 15 );
+                c.base[i] = ( q4[i] << 4 ) | q4[i];
+            }
+            evaluate(rgba, flip, c);
+            if( c.err < bestErr ) {
+                bestErr = c.err;
+                bestHi = ( q4[0] << 28 ) | ( q4[3] << 24 ) |
+                         ( q4[1] << 20 ) | ( q4[4] << 16 ) |
+                         ( q4[2] << 12 ) | ( q4[5] <<  8 ) |
+                         ( c.table[0] << 5 ) | ( c.table[1] << 2 ) | f;
+                bestLo = c.indexBits;
+            }
+        }
+        putInt(dst, off, bestHi);
+        putInt(dst, off+4, bestLo);
+    }
+
+    /** Selects the best table and pixel indices for the candidate's base colors. */
+    private static void evaluate(int[] rgba, boolean flip, Candidate c) {
+        c.err = 0;
+        c.indexBits = 0;
+        for(int s=0; s<2; s++) {
+            long bestErr = Long.MAX_VALUE;
+            int bestBits = 0;
+            for(int t=0; t<8; t++) {
+                long err = 0;
+                int bits = 0;
+                for(int y=0; y<4; y++) {
+                    for(int x=0; x<4; x++) {
+                        if( ( 1 == s ) != isSubBlock1(flip, x, y) ) {
+                            continue;
+                        }
+                        final int p = y*4+x;
+                        int best = 0;
+                        int bestPixErr = Integer.MAX_VALUE;
+                        for(int idx=0; idx<4; idx++) {
+                            final int m = modifier(t, idx);
+                            final int dr = rgba[p*4  ] - clamp( c.base[s*3  ] + m, 255 );
+                            final int dg = rgba[p*4+1] - clamp( c.base[s*3+1] + m, 255 );
+                            final int db = rgba[p*4+2] - clamp( c.base[s*3+2] + m, 255 );
+                            final int pixErr = dr*dr + dg*dg + db*db;
+                            if( pixErr < bestPixErr ) {
+                                bestPixErr = pixErr;
+                                best = idx;
+                            }
+                        }
+                        err += bestPixErr;
+                        final int pos = x*4+y;
+                        bits |= ( ( best >> 1 ) << ( 16 + pos ) ) | ( ( best & 1 ) << pos );
+                    }
+                }
+                if( err < bestErr ) {
+                    bestErr = err;
+                    bestBits = bits;
+                    c.table[s] = t;
+                }
+            }
+            c.err += bestErr;
+            c.indexBits |= bestBits;
+        }
+    }
+
+    /**
+     * Decodes an ETC1 block.
+     * @param src source buffer, read absolute
+     * @param off byte offset within the source buffer
+     * @param rgba the block's 16 decoded RGBA pixels
+     */
+    public static void decode(ByteBuffer src, int off, int[] rgba) {
+        final int hi = getInt(src, off);
+        final int lo = getInt(src, off+4);
+        final boolean flip = 0 != ( hi & 1 );
+        final boolean diff = 0 != ( hi & 2 );
+        final int[] base = new int[6];
+        for(int i=0; i<3; i++) {
+            final int shift = 24 - i * 8;
+            if( diff ) {
+                final int c0 = ( hi >>> ( shift + 3 ) ) & 0x1f;
+                final int d = ( ( hi >>> shift ) & 7 ) << 29 >> 29; // sign extend 3 bit
+                final int c1 = ( c0 + d ) & 0x1f;
+                base[i]   = ( c0 << 3 ) | ( c0 >> 2 );
+                base[3+i] = ( c1 << 3 ) | ( c1 >> 2 );
+            } else {
+                final int c0 = ( hi >>> ( shift + 4 ) ) & 0xf;
+                final int c1 = ( hi >>> shift ) & 0xf;
+                base[i]   = ( c0 << 4 ) | c0;
+                base[3+i] = ( c1 << 4 ) | c1;
+            }
+        }
+        final int[] table = { ( hi >>> 5 ) & 7, ( hi >>> 2 ) & 7 };
+        for(int y=0; y<4; y++) {
+            for(int x=0; x<4; x++) {
+                final int s = isSubBlock1(flip, x, y) ? 1 : 0;
+                final int pos = x*4+y;
+                final int idx = ( ( ( lo >>> ( 16 + pos ) ) & 1 ) << 1 ) | ( ( lo >>> pos ) & 1 );
+                final int m = modifier(table[s], idx);
+                final int p = y*4+x;
+                rgba[p*4  ] = clamp( base[s*3  ] + m, 255 );
+                rgba[p*4+1] = clamp( base[s*3+1] + m, 255 );
+                rgba[p*4+2] = clamp( base[s*3+2] + m, 255 );
+                rgba[p*4+3] = 255;
+            }
+        }
+    }
+
+    private static void putInt(ByteBuffer dst, int off, int v) {
+        dst.put(off  , (byte) ( v >>> 24 ));
+        dst.put(off+1, (byte) ( v >>> 16 ));
+        dst.put(off+2, (byte) ( v >>>  8 ));
+        dst.put(off+3, (byte)   v         );
+    }
+
+    private static int getInt(ByteBuffer src, int off) {
+        return ( ( src.get(off  ) & 0xff ) << 24 ) | ( ( src.get(off+1) & 0xff ) << 16 ) |
+               ( ( src.get(off+2) & 0xff ) <<  8 ) |   ( src.get(off+3) & 0xff );
+    }
+
+    private static int clamp(int v, int max) {
+        return v < 0 ? 0 : ( v > max ? max : v );
+    }
+}
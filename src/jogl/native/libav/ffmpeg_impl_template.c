@@ -628,7 +628,7 @@ static void getAlignedLinesizes(AVCodecContext *avctx, int linesize[/*4*/]) {
 
 JNIEXPORT void JNICALL FF_FUNC(setStream0)
   (JNIEnv *env, jobject instance, jlong ptr, jstring jURL, jboolean jIsCameraInput, 
-   jint vid, jstring jSizeS, jint vWidth, jint vHeight, jint vRate,
+   jint vid, jstring jSizeS, jint vWidth, jint vHeight, jint vRate, jint vThreadCount,
    jint aid, jint aMaxChannelCount, jint aPrefSampleRate)
 {
     char cameraName[256];
@@ -970,10 +970,19 @@ JNIEXPORT void JNICALL FF_FUNC(setStream0)
         }
 
         // Customize ..
-        // pAV->pVCodecCtx->thread_count=2;
-        // pAV->pVCodecCtx->thread_type=FF_THREAD_FRAME|FF_THREAD_SLICE; // Decode more than one frame at once
-        pAV->pVCodecCtx->thread_count=0;
-        pAV->pVCodecCtx->thread_type=0;
+        if( 1 < vThreadCount ) {
+            // Opt-in: Decode more than one frame at once, if supported by codec.
+            // Delays output by thread_count-1 frames, which are not drained at EOF.
+            pAV->pVCodecCtx->thread_count=vThreadCount;
+            pAV->pVCodecCtx->thread_type=FF_THREAD_FRAME|FF_THREAD_SLICE;
+        } else if( 1 == vThreadCount ) {
+            pAV->pVCodecCtx->thread_count=1;
+            pAV->pVCodecCtx->thread_type=0;
+        } else {
+            // Default: Slice threading only w/ automatic thread count, no added latency
+            pAV->pVCodecCtx->thread_count=0;
+            pAV->pVCodecCtx->thread_type=FF_THREAD_SLICE;
+        }
         pAV->pVCodecCtx->workaround_bugs=FF_BUG_AUTODETECT;
         pAV->pVCodecCtx->skip_frame=AVDISCARD_DEFAULT;
 
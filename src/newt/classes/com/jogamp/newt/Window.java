@@ -37,6 +37,7 @@ import com.jogamp.newt.event.KeyListener;
 import com.jogamp.newt.event.KeyEvent;
 import com.jogamp.newt.event.InputEvent;
 import com.jogamp.newt.event.MouseListener;
+import com.jogamp.newt.event.NEWTEventConsumer;
 
 import jogamp.newt.Debug;
 import jogamp.newt.WindowImpl;
@@ -460,6 +461,20 @@ public interface Window extends NativeWindow, WindowClosingProtocol {
 
     void enqueueEvent(boolean wait, com.jogamp.newt.event.NEWTEvent event);
 
+    /**
+     * Sets the {@link NEWTEventConsumer} receiving each {@link InputEvent} consumed by this window
+     * before it is dispatched, e.g. a {@link com.jogamp.newt.util.InputEventRecorder}.
+     * <p>
+     * The tap is invoked on the thread consuming the event, usually the EDT.
+     * It's return value is ignored, i.e. the tap cannot consume or drop an event.
+     * </p>
+     * @param tap the input event tap, or <code>null</code> to remove it
+     */
+    void setInputEventTap(NEWTEventConsumer tap);
+
+    /** Returns the {@link NEWTEventConsumer} set via {@link #setInputEventTap(NEWTEventConsumer)}, or <code>null</code>. */
+    NEWTEventConsumer getInputEventTap();
+
     void runOnEDTIfAvail(boolean wait, final Runnable task);
 
 
@@ -656,6 +656,16 @@ public class GLWindow extends GLAutoDrawableBase implements GLAutoDrawable, Wind
         window.enqueueEvent(wait, event);
     }
 
+    @Override
+    public final void setInputEventTap(NEWTEventConsumer tap) {
+        window.setInputEventTap(tap);
+    }
+
+    @Override
+    public final NEWTEventConsumer getInputEventTap() {
+        return window.getInputEventTap();
+    }
+
     @Override
     public final void runOnEDTIfAvail(boolean wait, final Runnable task) {
         window.runOnEDTIfAvail(wait, task);
@@ -0,0 +1,192 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ *
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+
+package com.jogamp.newt.util;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import com.jogamp.newt.Window;
+import com.jogamp.newt.event.InputEvent;
+import com.jogamp.newt.event.KeyEvent;
+import com.jogamp.newt.event.MouseEvent;
+import com.jogamp.newt.event.NEWTEvent;
+import com.jogamp.newt.event.NEWTEventConsumer;
+
+/**
+ * Records the {@link InputEvent} stream of a {@link Window} in a compact binary format,
+ * to be replayed deterministically via {@link InputEventReplayer}.
+ * <p>
+ * Attach it via {@link Window#setInputEventTap(NEWTEventConsumer)}:
+ * <pre>
+ *   final InputEventRecorder recorder = new InputEventRecorder(new FileOutputStream("input.nevt"));
+ *   window.setInputEventTap(recorder);
+ *   ...
+ *   window.setInputEventTap(null);
+ *   recorder.close();
+ * </pre>
+ * </p>
+ * <p>
+ * Recorded are the event type, the timestamp relative to the previous event and the modifiers of each event,
+ * the key code, key symbol and key char of {@link KeyEvent}s
+ * and all pointer arrays, button, click count and rotation of {@link MouseEvent}s.
+ * The event source is not recorded, it is the target of the replay.
+ * </p>
+ * <p>
+ * Format, big endian: <code>MAGIC, VERSION</code> followed by records starting w/ a tag,
+ * terminated by {@link #TAG_END}.
+ * </p>
+ */
+public class InputEventRecorder implements NEWTEventConsumer {
+    /** File magic <code>NEVT</code>. */
+    public static final int MAGIC = 0x4E455654;
+    public static final short VERSION = 1;
+
+    static final byte TAG_END = 0;
+    static final byte TAG_KEY = 1;
+    static final byte TAG_MOUSE = 2;
+
+    private final DataOutputStream out;
+    private long lastWhen = 0;
+    private int eventCount = 0;
+    private IOException ioException = null;
+    private boolean closed = false;
+
+    /**
+     * @param out the stream the recording is written to, buffered by this instance
+     * @throws IOException if writing the header fails
+     */
+    public InputEventRecorder(OutputStream out) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(out));
+        this.out.writeInt(MAGIC);
+        this.out.writeShort(VERSION);
+    }
+
+    /** Returns the number of recorded events. */
+    public synchronized int getEventCount() { return eventCount; }
+
+    /**
+     * Records the given {@link KeyEvent} or {@link MouseEvent}, other events are ignored.
+     * <p>
+     * An {@link IOException} stops the recording and is thrown by {@link #close()}.
+     * </p>
+     * @return always false, i.e. the event is not consumed
+     */
+    @Override
+    public synchronized boolean consumeEvent(NEWTEvent event) {
+        if( closed || null != ioException ) {
+            return false;
+        }
+        try {
+            if( event instanceof KeyEvent ) {
+                final KeyEvent e = (KeyEvent) event;
+                writeHeader(TAG_KEY, e);
+                out.writeShort(e.getKeyCode());
+                out.writeShort(e.getKeySymbol());
+                out.writeChar(e.getKeyChar());
+            } else if( event instanceof MouseEvent ) {
+                final MouseEvent e = (MouseEvent) event;
+                writeHeader(TAG_MOUSE, e);
+                final MouseEvent.PointerType[] types = e.getAllPointerTypes();
+                final short[] ids = e.getAllPointerIDs();
+                final int[] x = e.getAllX();
+                final int[] y = e.getAllY();
+                final float[] pressure = e.getAllPressures();
+                out.writeByte(types.length);
+                for(int i=0; i<types.length; i++) {
+                    out.writeByte(types[i].ordinal());
+                    out.writeShort(ids[i]);
+                    out.writeInt(x[i]);
+                    out.writeInt(y[i]);
+                    out.writeFloat(pressure[i]);
+                }
+                out.writeFloat(e.getMaxPressure());
+                out.writeShort(e.getButton());
+                out.writeShort(e.getClickCount());
+                final float[] rotation = e.getRotation();
+                if( null != rotation ) {
+                    out.writeBoolean(true);
+                    out.writeFloat(rotation[0]);
+                    out.writeFloat(rotation[1]);
+                    out.writeFloat(rotation[2]);
+                } else {
+                    out.writeBoolean(false);
+                }
+                out.writeFloat(e.getRotationScale());
+            } else {
+                return false;
+            }
+            eventCount++;
+        } catch (IOException ioe) {
+            ioException = ioe;
+        }
+        return false;
+    }
+
+    private void writeHeader(byte tag, InputEvent e) throws IOException {
+        final long when = e.getWhen();
+        final long delta = 0 == eventCount ? 0 : Math.max(0, when - lastWhen);
+        lastWhen = when;
+        out.writeByte(tag);
+        out.writeShort(e.getEventType());
+        out.writeInt((int) Math.min(Integer.MAX_VALUE, delta));
+        out.writeInt(e.getModifiers());
+    }
+
+    /** Flushes all recorded events to the underlying stream. */
+    public synchronized void flush() throws IOException {
+        if( null != ioException ) {
+            throw ioException;
+        }
+        out.flush();
+    }
+
+    /**
+     * Terminates the recording and closes the underlying stream.
+     * @throws IOException if writing any event or closing failed
+     */
+    public synchronized void close() throws IOException {
+        if( closed ) {
+            return;
+        }
+        closed = true;
+        try {
+            if( null == ioException ) {
+                out.writeByte(TAG_END);
+                out.flush();
+            }
+        } finally {
+            out.close();
+        }
+        if( null != ioException ) {
+            throw ioException;
+        }
+    }
+}
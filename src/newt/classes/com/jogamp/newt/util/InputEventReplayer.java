@@ -0,0 +1,222 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ *
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+
+package com.jogamp.newt.util;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+
+import com.jogamp.newt.Window;
+import com.jogamp.newt.event.KeyEvent;
+import com.jogamp.newt.event.MouseEvent;
+import com.jogamp.newt.event.NEWTEvent;
+import com.jogamp.newt.event.NEWTEventConsumer;
+
+/**
+ * Replays an {@link InputEventRecorder} recording into a {@link Window}
+ * or any {@link NEWTEventConsumer}, e.g. to benchmark event dispatch,
+ * {@link com.jogamp.newt.event.GestureHandler gesture handler} and listener cost
+ * reproducibly w/ an offscreen window.
+ * <p>
+ * The whole recording is read at construction, hence no I/O happens while replaying.
+ * </p>
+ * <p>
+ * The replayed event timestamps preserve the recorded event intervals rebased to the replay start,
+ * regardless of the replay speed.
+ * Hence time based processing like click-count and gesture detection behaves
+ * as recorded, even when replaying at {@link #MAX_SPEED}.
+ * </p>
+ */
+public class InputEventReplayer {
+    /** Replay speed injecting all events w/o any delay. */
+    public static final float MAX_SPEED = 0f;
+
+    private final ArrayList<Record> records = new ArrayList<Record>();
+    private final long duration;
+
+    /**
+     * Reads the whole recording.
+     * @param in the recording, buffered by this instance. The stream is not closed.
+     * @throws IOException if the recording is invalid or could not be read
+     */
+    public InputEventReplayer(InputStream in) throws IOException {
+        final DataInputStream din = new DataInputStream(new BufferedInputStream(in));
+        if( InputEventRecorder.MAGIC != din.readInt() ) {
+            throw new IOException("Not an input event recording");
+        }
+        final short version = din.readShort();
+        if( InputEventRecorder.VERSION != version ) {
+            throw new IOException("Unsupported input event recording version "+version);
+        }
+        long rel = 0;
+        try {
+            while( true ) {
+                final byte tag = din.readByte();
+                if( InputEventRecorder.TAG_END == tag ) {
+                    break;
+                }
+                if( InputEventRecorder.TAG_KEY != tag && InputEventRecorder.TAG_MOUSE != tag ) {
+                    throw new IOException("Invalid record tag "+tag+" at event "+records.size());
+                }
+                final Record r = new Record(tag, din.readShort());
+                rel += din.readInt();
+                r.when = rel;
+                r.modifiers = din.readInt();
+                if( InputEventRecorder.TAG_KEY == tag ) {
+                    r.keyCode = din.readShort();
+                    r.keySym = din.readShort();
+                    r.keyChar = din.readChar();
+                } else {
+                    final int count = din.readUnsignedByte();
+                    r.pointerType = new MouseEvent.PointerType[count];
+                    r.pointerID = new short[count];
+                    r.x = new int[count];
+                    r.y = new int[count];
+                    r.pressure = new float[count];
+                    for(int i=0; i<count; i++) {
+                        r.pointerType[i] = MouseEvent.PointerType.valueOf(din.readUnsignedByte());
+                        r.pointerID[i] = din.readShort();
+                        r.x[i] = din.readInt();
+                        r.y[i] = din.readInt();
+                        r.pressure[i] = din.readFloat();
+                    }
+                    r.maxPressure = din.readFloat();
+                    r.button = din.readShort();
+                    r.clickCount = din.readShort();
+                    if( din.readBoolean() ) {
+                        r.rotationXYZ = new float[] { din.readFloat(), din.readFloat(), din.readFloat() };
+                    }
+                    r.rotationScale = din.readFloat();
+                }
+                records.add(r);
+            }
+        } catch (EOFException eof) {
+            // truncated recording, e.g. recorder not closed: replay complete records
+        } catch (IllegalArgumentException iae) {
+            throw new IOException("Invalid pointer type at event "+records.size());
+        }
+        duration = rel;
+    }
+
+    /** Returns the number of recorded events. */
+    public final int getEventCount() { return records.size(); }
+
+    /** Returns the duration of the recording in milliseconds, i.e. the time between the first and last event. */
+    public final long getDuration() { return duration; }
+
+    /**
+     * Replays all events into the given window.
+     * @param window the target window, also being the source of all replayed events
+     * @param speed replay speed factor, 1 for the original speed, 2 for twice as fast etc.
+     *              or {@link #MAX_SPEED} to inject the events w/o delay
+     * @param enqueue if true, events are {@link Window#enqueueEvent(boolean, NEWTEvent) enqueued}
+     *                and processed on the window's EDT, waiting until each one has been consumed.
+     *                Otherwise events are consumed on the current thread, if the window is a {@link NEWTEventConsumer}.
+     * @return the elapsed replay time in nanoseconds
+     * @throws InterruptedException if interrupted while waiting for the next event
+     */
+    public final long replay(final Window window, float speed, boolean enqueue) throws InterruptedException {
+        final NEWTEventConsumer consumer;
+        if( !enqueue && window instanceof NEWTEventConsumer ) {
+            consumer = (NEWTEventConsumer) window;
+        } else {
+            consumer = new NEWTEventConsumer() {
+                @Override
+                public boolean consumeEvent(NEWTEvent event) {
+                    window.enqueueEvent(true, event);
+                    return true;
+                }
+            };
+        }
+        return replay(consumer, window, speed);
+    }
+
+    /**
+     * Replays all events into the given consumer.
+     * @param consumer receiving all events
+     * @param source the source of all replayed events, usually the target window
+     * @param speed replay speed factor, see {@link #replay(Window, float, boolean)}
+     * @return the elapsed replay time in nanoseconds
+     * @throws InterruptedException if interrupted while waiting for the next event
+     */
+    public final long replay(NEWTEventConsumer consumer, Object source, float speed) throws InterruptedException {
+        final boolean paced = 0f < speed && !Float.isInfinite(speed);
+        final long t0 = System.nanoTime();
+        final long when0 = System.currentTimeMillis();
+        for(int i=0; i<records.size(); i++) {
+            final Record r = records.get(i);
+            if( paced ) {
+                final long dueNS = t0 + (long) ( r.when * 1000000L / speed );
+                final long waitMS = ( dueNS - System.nanoTime() ) / 1000000L;
+                if( 0 < waitMS ) {
+                    Thread.sleep(waitMS);
+                }
+            }
+            consumer.consumeEvent(r.create(source, when0 + r.when));
+        }
+        return System.nanoTime() - t0;
+    }
+
+    private static class Record {
+        final byte tag;
+        final short eventType;
+        long when;
+        int modifiers;
+        // KeyEvent
+        short keyCode;
+        short keySym;
+        char keyChar;
+        // MouseEvent
+        MouseEvent.PointerType[] pointerType;
+        short[] pointerID;
+        int[] x, y;
+        float[] pressure;
+        float maxPressure;
+        short button, clickCount;
+        float[] rotationXYZ;
+        float rotationScale;
+
+        Record(byte tag, short eventType) {
+            this.tag = tag;
+            this.eventType = eventType;
+        }
+
+        NEWTEvent create(Object source, long when) {
+            if( InputEventRecorder.TAG_KEY == tag ) {
+                return KeyEvent.create(eventType, source, when, modifiers, keyCode, keySym, keyChar);
+            } else {
+                return new MouseEvent(eventType, source, when, modifiers, pointerType, pointerID,
+                                      x, y, pressure, maxPressure, button, clickCount, rotationXYZ, rotationScale);
+            }
+        }
+    }
+}
@@ -242,6 +242,7 @@ public abstract class WindowImpl implements Window, NEWTEventConsumer
 
     private ArrayList<WindowListener> windowListeners  = new ArrayList<WindowListener>();
     private boolean repaintQueued = false;
+    private volatile NEWTEventConsumer inputEventTap = null;
 
     /**
      * Workaround for initialization order problems on Mac OS X
@@ -2284,8 +2285,22 @@ public abstract class WindowImpl implements Window, NEWTEventConsumer
         }
     }
 
+    @Override
+    public final void setInputEventTap(NEWTEventConsumer tap) {
+        inputEventTap = tap;
+    }
+
+    @Override
+    public final NEWTEventConsumer getInputEventTap() {
+        return inputEventTap;
+    }
+
     @Override
     public final boolean consumeEvent(NEWTEvent e) {
+        final NEWTEventConsumer tap = inputEventTap;
+        if( null != tap && e instanceof InputEvent ) {
+            tap.consumeEvent(e);
+        }
         switch(e.getEventType()) {
             // special repaint treatment
             case WindowEvent.EVENT_WINDOW_REPAINT:
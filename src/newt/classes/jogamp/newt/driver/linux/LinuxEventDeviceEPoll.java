@@ -0,0 +1,308 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ *
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+
+package jogamp.newt.driver.linux;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+
+import jogamp.newt.NEWTJNILibLoader;
+
+import com.jogamp.common.util.IntObjectHashMap;
+import com.jogamp.newt.Window;
+
+/**
+ * Single threaded native event device multiplexer for GNU/Linux,
+ * reading all <code>/dev/input/event*</code> devices via one <code>epoll</code> instance.
+ * <p>
+ * Device hotplug is tracked via <code>inotify</code> on the device directory,
+ * hence no periodic directory rescan is required.
+ * If the directory cannot be watched, it is rescanned every {@link #RESCAN_PERIOD} milliseconds.
+ * </p>
+ * <p>
+ * Each device owns a reused direct {@link ByteBuffer} the <code>input_event</code> structs
+ * are read into in bulk and decoded from, i.e. the event loop performs no allocations.
+ * </p>
+ * <p>
+ * Requires the NEWT native library, see {@link #isAvailable()}.
+ * </p>
+ */
+public class LinuxEventDeviceEPoll implements Runnable {
+
+    /** Receives decoded events, called on the multiplexer thread. */
+    public static interface Listener {
+        /** A new device <code>&lt;prefix&gt;deviceNumber</code> has been opened. */
+        void deviceAdded(int deviceNumber);
+
+        /** Device <code>&lt;prefix&gt;deviceNumber</code> has been closed, i.e. removed or failed. */
+        void deviceRemoved(int deviceNumber);
+
+        /**
+         * One decoded <code>input_event</code>.
+         * <pre>
+         * struct input_event {
+         *   struct timeval time;
+         *   unsigned short type;
+         *   unsigned short code;
+         *   unsigned int value;
+         * };
+         * </pre>
+         */
+        void inputEvent(int deviceNumber, long timeSeconds, int timeMicroSeconds, short type, short code, int value);
+    }
+
+    /** Directory rescan period in milliseconds, if <code>inotify</code> is not available. */
+    public static final int RESCAN_PERIOD = 2000;
+
+    private static final int EVENTS_PER_READ = 64;
+    private static final int MAX_READY = 32;
+
+    private static final boolean nativeAvailable;
+    private static final int eventSize;
+
+    static {
+        boolean ok = false;
+        int size = 0;
+        try {
+            if( NEWTJNILibLoader.loadNEWT() && initIDs0() ) {
+                size = getInputEventSize0();
+                ok = 0 < size;
+            }
+        } catch (Throwable t) {
+            if(Window.DEBUG_KEY_EVENT) {
+                System.err.println("LinuxEventDeviceEPoll: Not available: "+t.getMessage());
+            }
+        }
+        nativeAvailable = ok;
+        eventSize = size;
+    }
+
+    /** Returns true if the native epoll/inotify implementation is available. */
+    public static boolean isAvailable() { return nativeAvailable; }
+
+    /** Returns the native <code>sizeof(struct input_event)</code>, 16 on 32bit and 24 on 64bit platforms. */
+    public static int getInputEventSize() { return eventSize; }
+
+    private final File directory;
+    private final String prefix;
+    private final Listener listener;
+    private final ArrayList<Device> devices = new ArrayList<Device>();
+    private final IntObjectHashMap number2Device = new IntObjectHashMap();
+    private final IntObjectHashMap fd2Device = new IntObjectHashMap();
+    private final ByteBuffer readyFds = ByteBuffer.allocateDirect(4*MAX_READY).order(ByteOrder.nativeOrder());
+    private final int timeFieldSize;
+
+    private volatile boolean stop = false;
+    private volatile boolean running = false;
+    private int epfd = -1;
+    private int dirWatchFd = -1;
+
+    /**
+     * @param directory the device directory, usually <code>/dev/input</code>
+     * @param prefix the device file name prefix followed by the device number, usually <code>event</code>
+     * @param listener receiving all decoded events
+     */
+    public LinuxEventDeviceEPoll(String directory, String prefix, Listener listener) {
+        if( !nativeAvailable ) {
+            throw new RuntimeException("LinuxEventDeviceEPoll not available");
+        }
+        this.directory = new File(directory);
+        this.prefix = prefix;
+        this.listener = listener;
+        this.timeFieldSize = ( eventSize - 8 ) / 2;
+    }
+
+    /** Signals the multiplexer thread to close all devices and exit within {@link #RESCAN_PERIOD} milliseconds. */
+    public void stop() { stop = true; }
+
+    /** Returns true while the multiplexer thread is running, i.e. {@link #run()} has not returned. */
+    public boolean isRunning() { return running; }
+
+    @Override
+    public void run() {
+        running = true;
+        try {
+            epfd = createEPoll0();
+            if( 0 > epfd ) {
+                System.err.println("LinuxEventDeviceEPoll: Could not create epoll instance");
+                return;
+            }
+            dirWatchFd = addDirWatch0(epfd, directory.getPath());
+            if(Window.DEBUG_KEY_EVENT) {
+                System.err.println("LinuxEventDeviceEPoll: Started on "+directory+"/"+prefix+"*, inotify "+(0 <= dirWatchFd));
+            }
+            rescan();
+            long lastRescan = System.currentTimeMillis();
+            while( !stop ) {
+                final int n = wait0(epfd, readyFds, MAX_READY, RESCAN_PERIOD);
+                for(int i=0; i<n; i++) {
+                    final int fd = readyFds.getInt(4*i);
+                    if( fd == dirWatchFd ) {
+                        drainDirWatch0(dirWatchFd);
+                        rescan();
+                    } else {
+                        final Device d = (Device) fd2Device.get(fd);
+                        if( null != d ) {
+                            read(d);
+                        }
+                    }
+                }
+                if( 0 > dirWatchFd ) {
+                    final long now = System.currentTimeMillis();
+                    if( now - lastRescan >= RESCAN_PERIOD ) {
+                        rescan();
+                        lastRescan = now;
+                    }
+                }
+            }
+        } finally {
+            closeAll();
+            running = false;
+        }
+    }
+
+    private void rescan() {
+        final String[] names = directory.list();
+        if( null == names ) {
+            return;
+        }
+        for(int i=0; i<names.length; i++) {
+            final String name = names[i];
+            if( !name.startsWith(prefix) ) {
+                continue;
+            }
+            final int number;
+            try {
+                number = Integer.parseInt(name.substring(prefix.length()));
+            } catch (NumberFormatException nfe) {
+                continue;
+            }
+            if( 0 > number || number2Device.containsKey(number) ) {
+                continue;
+            }
+            final int fd = openDevice0(epfd, new File(directory, name).getPath());
+            if( 0 <= fd ) {
+                final Device d = new Device(number, fd);
+                devices.add(d);
+                number2Device.put(number, d);
+                fd2Device.put(fd, d);
+                listener.deviceAdded(number);
+            }
+        }
+    }
+
+    private void read(Device d) {
+        final ByteBuffer b = d.buffer;
+        while( true ) {
+            final int pos = d.pending;
+            final int r = read0(d.fd, b, pos, b.capacity() - pos);
+            if( 0 > r ) {
+                close(d);
+                return;
+            } else if( 0 == r ) {
+                return; // EAGAIN
+            }
+            final int end = pos + r;
+            int off = 0;
+            while( end - off >= eventSize ) {
+                final long timeSeconds;
+                final int timeMicroSeconds;
+                if( 8 == timeFieldSize ) {
+                    timeSeconds = b.getLong(off);
+                    timeMicroSeconds = (int) b.getLong(off+8);
+                } else {
+                    timeSeconds = b.getInt(off) & 0xffffffffL;
+                    timeMicroSeconds = b.getInt(off+4);
+                }
+                final int t = off + 2 * timeFieldSize;
+                listener.inputEvent(d.number, timeSeconds, timeMicroSeconds, b.getShort(t), b.getShort(t+2), b.getInt(t+4));
+                off += eventSize;
+            }
+            // keep a partial event for the next read, never happens w/ event devices
+            d.pending = end - off;
+            for(int i=0; i<d.pending; i++) {
+                b.put(i, b.get(off+i));
+            }
+            if( end < b.capacity() ) {
+                return; // drained
+            }
+        }
+    }
+
+    private void close(Device d) {
+        closeDevice0(epfd, d.fd);
+        devices.remove(d);
+        number2Device.remove(d.number);
+        fd2Device.remove(d.fd);
+        listener.deviceRemoved(d.number);
+    }
+
+    private void closeAll() {
+        while( 0 < devices.size() ) {
+            close(devices.get(devices.size()-1));
+        }
+        if( 0 <= dirWatchFd ) {
+            close0(dirWatchFd);
+            dirWatchFd = -1;
+        }
+        if( 0 <= epfd ) {
+            close0(epfd);
+            epfd = -1;
+        }
+    }
+
+    private static class Device {
+        final int number;
+        final int fd;
+        final ByteBuffer buffer;
+        int pending = 0;
+
+        Device(int number, int fd) {
+            this.number = number;
+            this.fd = fd;
+            this.buffer = ByteBuffer.allocateDirect(EVENTS_PER_READ*eventSize).order(ByteOrder.nativeOrder());
+        }
+    }
+
+    private static native boolean initIDs0();
+    private static native int getInputEventSize0();
+    private static native int createEPoll0();
+    /** Returns the inotify fd watching <code>path</code> registered w/ <code>epfd</code>, or -1. */
+    private static native int addDirWatch0(int epfd, String path);
+    private static native void drainDirWatch0(int fd);
+    /** Returns the non blocking fd of the device registered w/ <code>epfd</code>, or -1. */
+    private static native int openDevice0(int epfd, String path);
+    private static native void closeDevice0(int epfd, int fd);
+    private static native void close0(int fd);
+    /** Returns the number of ready fds stored in <code>readyFds</code>, 0 on timeout or interruption. */
+    private static native int wait0(int epfd, ByteBuffer readyFds, int maxReady, int timeoutMS);
+    /** Returns the number of bytes read, 0 if no data is available and -1 on EOF or error. */
+    private static native int read0(int fd, ByteBuffer buffer, int offset, int length);
+}
@@ -42,6 +42,7 @@ import java.nio.ByteBuffer;
 import jogamp.newt.WindowImpl;
 
 import com.jogamp.common.nio.StructAccessor;
+import com.jogamp.common.util.IntObjectHashMap;
 import com.jogamp.newt.Window;
 import com.jogamp.newt.event.InputEvent;
 import com.jogamp.newt.event.WindowEvent;
@@ -51,8 +52,13 @@ import com.jogamp.newt.event.KeyEvent;
 
 /**
  * Experimental native event device tracker thread for GNU/Linux
- * just reading <code>/dev/input/event*</code>
- * within it's own polling thread.
+ * just reading <code>/dev/input/event*</code>.
+ * <p>
+ * If the NEWT native library is available, all devices are read
+ * by one {@link LinuxEventDeviceEPoll} thread.
+ * Otherwise each device is read within it's own polling thread
+ * and the device directory is rescanned every 2 seconds.
+ * </p>
  */
 
 public class LinuxEventDeviceTracker implements WindowListener {
@@ -62,7 +68,12 @@ public class LinuxEventDeviceTracker implements WindowListener {
 
     static {
         ledt = new LinuxEventDeviceTracker();
-        final Thread t = new Thread(ledt.eventDeviceManager, "NEWT-LinuxEventDeviceManager");
+        final Thread t;
+        if( LinuxEventDeviceEPoll.isAvailable() ) {
+            t = new Thread(new LinuxEventDeviceEPoll("/dev/input", "event", ledt.new EPollDispatcher()), "NEWT-LinuxEventDeviceEPoll");
+        } else {
+            t = new Thread(ledt.eventDeviceManager, "NEWT-LinuxEventDeviceManager");
+        }
         t.setDaemon(true);
         t.start();
     }
@@ -171,11 +182,42 @@ public class LinuxEventDeviceTracker implements WindowListener {
         }
     }
 
+    /**
+     * Dispatches the events of the {@link LinuxEventDeviceEPoll} thread,
+     * using one {@link EventDevicePoller} per device as it's key state holder.
+     */
+    class EPollDispatcher implements LinuxEventDeviceEPoll.Listener {
+        private final IntObjectHashMap number2Poller = new IntObjectHashMap();
+
+        @Override
+        public void deviceAdded(int deviceNumber) {
+            number2Poller.put(deviceNumber, new EventDevicePoller(deviceNumber));
+        }
+
+        @Override
+        public void deviceRemoved(int deviceNumber) {
+            number2Poller.remove(deviceNumber);
+        }
+
+        @Override
+        public void inputEvent(int deviceNumber, long timeSeconds, int timeMicroSeconds, short type, short code, int value) {
+            final EventDevicePoller p = (EventDevicePoller) number2Poller.get(deviceNumber);
+            if( null != p ) {
+                p.dispatch(timeSeconds, timeMicroSeconds, type, code, value);
+            }
+        }
+    }
+
     class EventDevicePoller implements Runnable {
 
         private volatile boolean stop = false;
         private String eventDeviceName;
 
+        private short keyCode=KeyEvent.VK_UNDEFINED;
+        private char keyChar=' ';
+        private short eventType=0;
+        private int modifiers=0;
+
         public EventDevicePoller(int eventDeviceNumber){
             this.eventDeviceName="/dev/input/event"+eventDeviceNumber;
         }
@@ -212,11 +254,6 @@ public class LinuxEventDeviceTracker implements WindowListener {
             short code;
             int value;
 
-            short keyCode=KeyEvent.VK_UNDEFINED;
-            char keyChar=' ';
-            short eventType=0;
-            int modifiers=0;
-
             loop:
                 while(!stop) {
                     int remaining=16;
@@ -242,137 +279,146 @@ public class LinuxEventDeviceTracker implements WindowListener {
                     code = s.getShortAt(10);
                     value = s.getIntAt(12);
 
+                    dispatch(timeSeconds, timeSecondFraction, type, code, value);
+                }
 
-                    /*
-                     * Linux sends Keyboard events in the following order:
-                     * EV_MSC (optional, contains scancode)
-                     * EV_KEY
-                     * SYN_REPORT (sent before next key)
-                     */
-
-                    switch(type) {
-                    case 0: // SYN_REPORT
-                        // Clear
-                        eventType = 0;
-                        keyCode = KeyEvent.VK_UNDEFINED;
-                        keyChar = 0; // Print null for unprintable char.
-                        if(Window.DEBUG_KEY_EVENT) {
-                            System.out.println("[SYN_REPORT----]");
-                        }
-                        break;
-                    case 1: // EV_KEY
-                        keyCode = LinuxEVKey2NewtVKey(code); // The device independent code.
-                        keyChar = NewtVKey2Unicode(keyCode, modifiers); // The printable character w/ key modifiers.
-                        if(Window.DEBUG_KEY_EVENT) {
-                            System.out.println("[EV_KEY: [time "+timeSeconds+":"+timeSecondFraction+"] type "+type+" / code "+code+" = value "+value);
-                        }
+            if(null != fis) {
+                try {
+                    fis.close();
+                } catch (IOException e) {
+                }
+            }
+            stop=true;
+        }
 
-                        switch(value) {
-                        case 0:
-                            eventType=KeyEvent.EVENT_KEY_RELEASED;
-
-                            switch(keyCode) {
-                            case KeyEvent.VK_SHIFT:
-                                modifiers &= ~InputEvent.SHIFT_MASK;
-                                break;
-                            case KeyEvent.VK_ALT:
-                                modifiers &= ~InputEvent.ALT_MASK;
-                                break;
-                            case KeyEvent.VK_ALT_GRAPH:
-                                modifiers &= ~InputEvent.ALT_GRAPH_MASK;
-                                break;
-                            case KeyEvent.VK_CONTROL:
-                                modifiers &= ~InputEvent.CTRL_MASK;
-                                break;
-                            }
+        /**
+         * Dispatches one decoded <code>input_event</code> to the focused window.
+         * <p>
+         * Called either by this poller's own thread or by the {@link LinuxEventDeviceEPoll} thread.
+         * </p>
+         */
+        void dispatch(long timeSeconds, int timeSecondFraction, short type, short code, int value) {
+            /*
+             * Linux sends Keyboard events in the following order:
+             * EV_MSC (optional, contains scancode)
+             * EV_KEY
+             * SYN_REPORT (sent before next key)
+             */
 
-                            if(null != focusedWindow) {
-                                focusedWindow.sendKeyEvent(eventType, modifiers, keyCode, keyCode, keyChar);
-                            }
-                            if(Window.DEBUG_KEY_EVENT) {
-                                System.out.println("[event released] keyCode: "+keyCode+" keyChar: "+keyChar+ " modifiers: "+modifiers);
-                            }
-                            break;
-                        case 1:
-                            eventType=KeyEvent.EVENT_KEY_PRESSED;
-
-                            switch(keyCode) {
-                            case KeyEvent.VK_SHIFT:
-                                modifiers |= InputEvent.SHIFT_MASK;
-                                break;
-                            case KeyEvent.VK_ALT:
-                                modifiers |= InputEvent.ALT_MASK;
-                                break;
-                            case KeyEvent.VK_ALT_GRAPH:
-                                modifiers |= InputEvent.ALT_GRAPH_MASK;
-                                break;
-                            case KeyEvent.VK_CONTROL:
-                                modifiers |= InputEvent.CTRL_MASK;
-                                break;
-                            }
+            switch(type) {
+            case 0: // SYN_REPORT
+                // Clear
+                eventType = 0;
+                keyCode = KeyEvent.VK_UNDEFINED;
+                keyChar = 0; // Print null for unprintable char.
+                if(Window.DEBUG_KEY_EVENT) {
+                    System.out.println("[SYN_REPORT----]");
+                }
+                break;
+            case 1: // EV_KEY
+                keyCode = LinuxEVKey2NewtVKey(code); // The device independent code.
+                keyChar = NewtVKey2Unicode(keyCode, modifiers); // The printable character w/ key modifiers.
+                if(Window.DEBUG_KEY_EVENT) {
+                    System.out.println("[EV_KEY: [time "+timeSeconds+":"+timeSecondFraction+"] type "+type+" / code "+code+" = value "+value);
+                }
 
-                            if(null != focusedWindow) {
-                                focusedWindow.sendKeyEvent(eventType, modifiers, keyCode, keyCode, keyChar);
-                            }
-                            if(Window.DEBUG_KEY_EVENT) {
-                                System.out.println("[event pressed] keyCode: "+keyCode+" keyChar: "+keyChar+ " modifiers: "+modifiers);
-                            }
-                            break;
-                        case 2:
-                            eventType=KeyEvent.EVENT_KEY_PRESSED;
-                            modifiers |= InputEvent.AUTOREPEAT_MASK;
-
-                            switch(keyCode) {
-                            case KeyEvent.VK_SHIFT:
-                                modifiers |= InputEvent.SHIFT_MASK;
-                                break;
-                            case KeyEvent.VK_ALT:
-                                modifiers |= InputEvent.ALT_MASK;
-                                break;
-                            case KeyEvent.VK_ALT_GRAPH:
-                                modifiers |= InputEvent.ALT_GRAPH_MASK;
-                                break;
-                            case KeyEvent.VK_CONTROL:
-                                modifiers |= InputEvent.CTRL_MASK;
-                                break;
-                            }
+                switch(value) {
+                case 0:
+                    eventType=KeyEvent.EVENT_KEY_RELEASED;
 
-                            if(null != focusedWindow) {
-                                //Send syntetic autorepeat release
-                                focusedWindow.sendKeyEvent(KeyEvent.EVENT_KEY_RELEASED, modifiers, keyCode, keyCode, keyChar);
+                    switch(keyCode) {
+                    case KeyEvent.VK_SHIFT:
+                        modifiers &= ~InputEvent.SHIFT_MASK;
+                        break;
+                    case KeyEvent.VK_ALT:
+                        modifiers &= ~InputEvent.ALT_MASK;
+                        break;
+                    case KeyEvent.VK_ALT_GRAPH:
+                        modifiers &= ~InputEvent.ALT_GRAPH_MASK;
+                        break;
+                    case KeyEvent.VK_CONTROL:
+                        modifiers &= ~InputEvent.CTRL_MASK;
+                        break;
+                    }
 
-                                focusedWindow.sendKeyEvent(eventType, modifiers, keyCode, keyCode, keyChar);
-                            }
-                            if(Window.DEBUG_KEY_EVENT) {
-                                System.out.println("[event released auto] keyCode: "+keyCode+" keyChar: "+keyChar+ " modifiers: "+modifiers);
-                                System.out.println("[event pressed auto] keyCode: "+keyCode+" keyChar: "+keyChar+ " modifiers: "+modifiers);
-                            }
-                            modifiers &= ~InputEvent.AUTOREPEAT_MASK;
-                            break;
-                        }
+                    if(null != focusedWindow) {
+                        focusedWindow.sendKeyEvent(eventType, modifiers, keyCode, keyCode, keyChar);
+                    }
+                    if(Window.DEBUG_KEY_EVENT) {
+                        System.out.println("[event released] keyCode: "+keyCode+" keyChar: "+keyChar+ " modifiers: "+modifiers);
+                    }
+                    break;
+                case 1:
+                    eventType=KeyEvent.EVENT_KEY_PRESSED;
+
+                    switch(keyCode) {
+                    case KeyEvent.VK_SHIFT:
+                        modifiers |= InputEvent.SHIFT_MASK;
                         break;
-                    case 4: // EV_MSC
-                        if(code==4) { // MSC_SCAN
-                            // scancode ignore, linux kernel specific
-                        }
+                    case KeyEvent.VK_ALT:
+                        modifiers |= InputEvent.ALT_MASK;
+                        break;
+                    case KeyEvent.VK_ALT_GRAPH:
+                        modifiers |= InputEvent.ALT_GRAPH_MASK;
+                        break;
+                    case KeyEvent.VK_CONTROL:
+                        modifiers |= InputEvent.CTRL_MASK;
                         break;
-                        // TODO: handle joystick events
-                        // TODO: handle mouse events
-                        // TODO: handle headphone/hdmi connector events
-                    default: // Print number.
-                        if(Window.DEBUG_KEY_EVENT) {
-                            System.out.println("TODO EventDevicePoller: [time "+timeSeconds+":"+timeSecondFraction+"] type "+type+" / code "+code+" = value "+value);
-                        }
                     }
-                }
 
-            if(null != fis) {
-                try {
-                    fis.close();
-                } catch (IOException e) {
+                    if(null != focusedWindow) {
+                        focusedWindow.sendKeyEvent(eventType, modifiers, keyCode, keyCode, keyChar);
+                    }
+                    if(Window.DEBUG_KEY_EVENT) {
+                        System.out.println("[event pressed] keyCode: "+keyCode+" keyChar: "+keyChar+ " modifiers: "+modifiers);
+                    }
+                    break;
+                case 2:
+                    eventType=KeyEvent.EVENT_KEY_PRESSED;
+                    modifiers |= InputEvent.AUTOREPEAT_MASK;
+
+                    switch(keyCode) {
+                    case KeyEvent.VK_SHIFT:
+                        modifiers |= InputEvent.SHIFT_MASK;
+                        break;
+                    case KeyEvent.VK_ALT:
+                        modifiers |= InputEvent.ALT_MASK;
+                        break;
+                    case KeyEvent.VK_ALT_GRAPH:
+                        modifiers |= InputEvent.ALT_GRAPH_MASK;
+                        break;
+                    case KeyEvent.VK_CONTROL:
+                        modifiers |= InputEvent.CTRL_MASK;
+                        break;
+                    }
+
+                    if(null != focusedWindow) {
+                        //Send syntetic autorepeat release
+                        focusedWindow.sendKeyEvent(KeyEvent.EVENT_KEY_RELEASED, modifiers, keyCode, keyCode, keyChar);
+
+                        focusedWindow.sendKeyEvent(eventType, modifiers, keyCode, keyCode, keyChar);
+                    }
+                    if(Window.DEBUG_KEY_EVENT) {
+                        System.out.println("[event released auto] keyCode: "+keyCode+" keyChar: "+keyChar+ " modifiers: "+modifiers);
+                        System.out.println("[event pressed auto] keyCode: "+keyCode+" keyChar: "+keyChar+ " modifiers: "+modifiers);
+                    }
+                    modifiers &= ~InputEvent.AUTOREPEAT_MASK;
+                    break;
+                }
+                break;
+            case 4: // EV_MSC
+                if(code==4) { // MSC_SCAN
+                    // scancode ignore, linux kernel specific
+                }
+                break;
+                // TODO: handle joystick events
+                // TODO: handle mouse events
+                // TODO: handle headphone/hdmi connector events
+            default: // Print number.
+                if(Window.DEBUG_KEY_EVENT) {
+                    System.out.println("TODO EventDevicePoller: [time "+timeSeconds+":"+timeSecondFraction+"] type "+type+" / code "+code+" = value "+value);
                 }
             }
-            stop=true;
         }
 
         private char NewtVKey2Unicode(short VK, int modifiers) {
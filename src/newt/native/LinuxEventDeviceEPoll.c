@@ -0,0 +1,202 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ *
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+
+#include <stdlib.h>
+#include <stdio.h>
+#include <string.h>
+#include <errno.h>
+#include <fcntl.h>
+#include <unistd.h>
+#include <sys/epoll.h>
+#include <sys/inotify.h>
+#include <linux/input.h>
+
+#include "jogamp_newt_driver_linux_LinuxEventDeviceEPoll.h"
+
+// #define VERBOSE_ON 1
+
+#ifdef VERBOSE_ON
+    #define DBG_PRINT(...) fprintf(stderr, __VA_ARGS__)
+#else
+    #define DBG_PRINT(...)
+#endif
+
+static int registerFd(int epfd, int fd) {
+    struct epoll_event ev;
+    memset(&ev, 0, sizeof(ev));
+    ev.events = EPOLLIN;
+    ev.data.fd = fd;
+    return epoll_ctl(epfd, EPOLL_CTL_ADD, fd, &ev);
+}
+
+JNIEXPORT jboolean JNICALL Java_jogamp_newt_driver_linux_LinuxEventDeviceEPoll_initIDs0
+  (JNIEnv *env, jclass clazz)
+{
+    DBG_PRINT( "LinuxEventDeviceEPoll.initIDs ok\n" );
+    return JNI_TRUE;
+}
+
+JNIEXPORT jint JNICALL Java_jogamp_newt_driver_linux_LinuxEventDeviceEPoll_getInputEventSize0
+  (JNIEnv *env, jclass clazz)
+{
+    return (jint) sizeof(struct input_event);
+}
+
+JNIEXPORT jint JNICALL Java_jogamp_newt_driver_linux_LinuxEventDeviceEPoll_createEPoll0
+  (JNIEnv *env, jclass clazz)
+{
+    int epfd = epoll_create(32); // size hint only
+    if( 0 <= epfd ) {
+        fcntl(epfd, F_SETFD, FD_CLOEXEC);
+    }
+    DBG_PRINT( "LinuxEventDeviceEPoll.createEPoll: %d\n", epfd );
+    return (jint) epfd;
+}
+
+JNIEXPORT jint JNICALL Java_jogamp_newt_driver_linux_LinuxEventDeviceEPoll_addDirWatch0
+  (JNIEnv *env, jclass clazz, jint epfd, jstring jpath)
+{
+    const char *path;
+    int fd;
+
+    fd = inotify_init();
+    if( 0 > fd ) {
+        DBG_PRINT( "LinuxEventDeviceEPoll.addDirWatch: inotify_init failed, errno %d\n", errno );
+        return -1;
+    }
+    fcntl(fd, F_SETFL, fcntl(fd, F_GETFL) | O_NONBLOCK);
+    fcntl(fd, F_SETFD, FD_CLOEXEC);
+
+    path = (*env)->GetStringUTFChars(env, jpath, NULL);
+    if( NULL == path ) {
+        close(fd);
+        return -1;
+    }
+    if( 0 > inotify_add_watch(fd, path, IN_CREATE | IN_ATTRIB | IN_MOVED_TO) || 0 > registerFd(epfd, fd) ) {
+        DBG_PRINT( "LinuxEventDeviceEPoll.addDirWatch: %s failed, errno %d\n", path, errno );
+        close(fd);
+        fd = -1;
+    }
+    (*env)->ReleaseStringUTFChars(env, jpath, path);
+    return (jint) fd;
+}
+
+JNIEXPORT void JNICALL Java_jogamp_newt_driver_linux_LinuxEventDeviceEPoll_drainDirWatch0
+  (JNIEnv *env, jclass clazz, jint fd)
+{
+    char buf[4096];
+    ssize_t r;
+    do {
+        r = read(fd, buf, sizeof(buf));
+    } while( 0 < r || ( 0 > r && EINTR == errno ) );
+}
+
+JNIEXPORT jint JNICALL Java_jogamp_newt_driver_linux_LinuxEventDeviceEPoll_openDevice0
+  (JNIEnv *env, jclass clazz, jint epfd, jstring jpath)
+{
+    const char *path;
+    int fd;
+
+    path = (*env)->GetStringUTFChars(env, jpath, NULL);
+    if( NULL == path ) {
+        return -1;
+    }
+    fd = open(path, O_RDONLY | O_NONBLOCK);
+    if( 0 <= fd ) {
+        fcntl(fd, F_SETFD, FD_CLOEXEC);
+        if( 0 > registerFd(epfd, fd) ) {
+            close(fd);
+            fd = -1;
+        }
+    }
+    DBG_PRINT( "LinuxEventDeviceEPoll.openDevice: %s -> %d\n", path, fd );
+    (*env)->ReleaseStringUTFChars(env, jpath, path);
+    return (jint) fd;
+}
+
+JNIEXPORT void JNICALL Java_jogamp_newt_driver_linux_LinuxEventDeviceEPoll_closeDevice0
+  (JNIEnv *env, jclass clazz, jint epfd, jint fd)
+{
+    struct epoll_event ev; // non NULL for kernel < 2.6.9
+    epoll_ctl(epfd, EPOLL_CTL_DEL, fd, &ev);
+    close(fd);
+    DBG_PRINT( "LinuxEventDeviceEPoll.closeDevice: %d\n", fd );
+}
+
+JNIEXPORT void JNICALL Java_jogamp_newt_driver_linux_LinuxEventDeviceEPoll_close0
+  (JNIEnv *env, jclass clazz, jint fd)
+{
+    close(fd);
+}
+
+#define MAX_READY 32
+
+JNIEXPORT jint JNICALL Java_jogamp_newt_driver_linux_LinuxEventDeviceEPoll_wait0
+  (JNIEnv *env, jclass clazz, jint epfd, jobject jreadyFds, jint maxReady, jint timeoutMS)
+{
+    struct epoll_event events[MAX_READY];
+    jint * readyFds = (jint *) (*env)->GetDirectBufferAddress(env, jreadyFds);
+    int i, n;
+
+    if( NULL == readyFds ) {
+        return 0;
+    }
+    if( maxReady > MAX_READY ) {
+        maxReady = MAX_READY;
+    }
+    n = epoll_wait(epfd, events, maxReady, timeoutMS);
+    if( 0 > n ) {
+        return 0; // EINTR
+    }
+    for(i=0; i<n; i++) {
+        readyFds[i] = (jint) events[i].data.fd;
+    }
+    return (jint) n;
+}
+
+JNIEXPORT jint JNICALL Java_jogamp_newt_driver_linux_LinuxEventDeviceEPoll_read0
+  (JNIEnv *env, jclass clazz, jint fd, jobject jbuffer, jint offset, jint length)
+{
+    char * buffer = (char *) (*env)->GetDirectBufferAddress(env, jbuffer);
+    ssize_t r;
+
+    if( NULL == buffer ) {
+        return -1;
+    }
+    do {
+        r = read(fd, buffer + offset, length);
+    } while( 0 > r && EINTR == errno );
+
+    if( 0 < r ) {
+        return (jint) r;
+    }
+    if( 0 > r && ( EAGAIN == errno || EWOULDBLOCK == errno ) ) {
+        return 0;
+    }
+    return -1; // EOF, ENODEV (unplugged) or other error
+}
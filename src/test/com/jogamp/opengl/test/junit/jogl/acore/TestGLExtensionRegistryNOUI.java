@@ -0,0 +1,101 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ *
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+package com.jogamp.opengl.test.junit.jogl.acore;
+
+import java.io.IOException;
+
+import jogamp.opengl.GLExtensionRegistry;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.FixMethodOrder;
+import org.junit.runners.MethodSorters;
+
+import com.jogamp.opengl.GLExtensions;
+
+/**
+ * Tests the extension name to ID mapping of {@link GLExtensionRegistry}
+ * as used by the bitset based extension availability cache.
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class TestGLExtensionRegistryNOUI {
+
+    @Test
+    public void test01KnownNames() {
+        final String[] known = { GLExtensions.VERSION_1_2, GLExtensions.ARB_framebuffer_object, GLExtensions.OES_EGL_image_external,
+                                 GLExtensions.ARB_pbuffer, "GL_VERSION_4_4", "GL_ES_VERSION_3_0" };
+        for(int i=0; i<known.length; i++) {
+            final int id = GLExtensionRegistry.getID(known[i]);
+            Assert.assertTrue(known[i], 0 <= id);
+            Assert.assertEquals(known[i], GLExtensionRegistry.getName(id));
+            Assert.assertEquals(id, GLExtensions.getID(known[i]));
+            // equal but not identical string
+            Assert.assertEquals(id, GLExtensionRegistry.getID(new String(known[i])));
+        }
+        Assert.assertEquals(-1, GLExtensionRegistry.getID(null));
+        Assert.assertNull(GLExtensionRegistry.getName(-1));
+    }
+
+    @Test
+    public void test02InternedNames() {
+        final String name = "GL_JOGAMP_test_registry_"+System.nanoTime();
+        Assert.assertEquals(-1, GLExtensionRegistry.getID(name));
+        final int count = GLExtensionRegistry.getCount();
+        final int id = GLExtensionRegistry.intern(name);
+        Assert.assertEquals(count, id);
+        Assert.assertEquals(count+1, GLExtensionRegistry.getCount());
+        Assert.assertEquals(id, GLExtensionRegistry.getID(name));
+        Assert.assertEquals(id, GLExtensionRegistry.intern(new String(name)));
+        Assert.assertEquals(name, GLExtensionRegistry.getName(id));
+        Assert.assertNull(GLExtensionRegistry.getName(GLExtensionRegistry.getCount()));
+    }
+
+    @Test
+    public void test03ManyInternedNames() {
+        final String prefix = "GL_JOGAMP_test_many_"+System.nanoTime()+"_";
+        final int count = GLExtensionRegistry.getCount();
+        final int n = 5000;
+        for(int i=0; i<n; i++) {
+            Assert.assertEquals(count+i, GLExtensionRegistry.intern(prefix+i));
+        }
+        Assert.assertEquals(count+n, GLExtensionRegistry.getCount());
+        for(int i=0; i<n; i++) {
+            Assert.assertEquals(prefix+i, GLExtensionRegistry.getName(count+i));
+            Assert.assertEquals(count+i, GLExtensionRegistry.getID(prefix+i));
+        }
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void test04InternNull() {
+        GLExtensionRegistry.intern(null);
+    }
+
+    public static void main(String args[]) throws IOException {
+        org.junit.runner.JUnitCore.main(TestGLExtensionRegistryNOUI.class.getName());
+    }
+}
@@ -0,0 +1,197 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ *
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+
+package com.jogamp.opengl.test.junit.jogl.acore;
+
+import java.io.IOException;
+import java.util.ArrayList;
+
+import javax.media.opengl.GLAutoDrawable;
+import javax.media.opengl.GLRunnable;
+
+import jogamp.opengl.GLRunnableQueue;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.FixMethodOrder;
+import org.junit.runners.MethodSorters;
+
+import com.jogamp.opengl.PrioritizedGLRunnable;
+
+/**
+ * Tests the lock-free {@link GLRunnableQueue} used by the GLAutoDrawable implementations w/o a GL context.
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class TestGLRunnableQueueNOUI {
+
+    static class OrderedRunnable implements PrioritizedGLRunnable {
+        final ArrayList<OrderedRunnable> executed;
+        final int producer, seq, priority;
+        final long sleepMS;
+
+        OrderedRunnable(ArrayList<OrderedRunnable> executed, int producer, int seq, int priority, long sleepMS) {
+            this.executed = executed;
+            this.producer = producer;
+            this.seq = seq;
+            this.priority = priority;
+            this.sleepMS = sleepMS;
+        }
+        @Override
+        public int getPriority() { return priority; }
+        @Override
+        public boolean run(GLAutoDrawable drawable) {
+            executed.add(this);
+            if( 0 < sleepMS ) {
+                try {
+                    Thread.sleep(sleepMS);
+                } catch (InterruptedException e) { }
+            }
+            return true;
+        }
+    }
+
+    @Test
+    public void test01PriorityOrder() {
+        final GLRunnableQueue q = new GLRunnableQueue();
+        final ArrayList<OrderedRunnable> executed = new ArrayList<OrderedRunnable>();
+        Assert.assertTrue(q.isEmpty());
+        q.add(new OrderedRunnable(executed, 0, 0, PrioritizedGLRunnable.PRIORITY_LOW, 0), null, false);
+        q.add(new OrderedRunnable(executed, 0, 1, PrioritizedGLRunnable.PRIORITY_NORMAL, 0), null, false);
+        q.add(new OrderedRunnable(executed, 0, 2, PrioritizedGLRunnable.PRIORITY_HIGH, 0), null, false);
+        q.add(new OrderedRunnable(executed, 0, 3, PrioritizedGLRunnable.PRIORITY_HIGH, 0), null, false);
+        Assert.assertFalse(q.isEmpty());
+        Assert.assertTrue(q.execute(null, 0));
+        Assert.assertTrue(q.isEmpty());
+        Assert.assertEquals(4, executed.size());
+        Assert.assertEquals(2, executed.get(0).seq);
+        Assert.assertEquals(3, executed.get(1).seq);
+        Assert.assertEquals(1, executed.get(2).seq);
+        Assert.assertEquals(0, executed.get(3).seq);
+    }
+
+    @Test
+    public void test02TimeBudget() {
+        final GLRunnableQueue q = new GLRunnableQueue();
+        final ArrayList<OrderedRunnable> executed = new ArrayList<OrderedRunnable>();
+        for(int i=0; i<10; i++) {
+            q.add(new OrderedRunnable(executed, 0, i, PrioritizedGLRunnable.PRIORITY_NORMAL, 10), null, false);
+        }
+        final long budget = 25L * 1000000L; // 25ms
+        int frames = 0;
+        while( !q.isEmpty() ) {
+            final int before = executed.size();
+            q.execute(null, budget);
+            Assert.assertTrue("No progress", executed.size() > before);
+            Assert.assertTrue("Budget exceeded", executed.size() - before <= 3);
+            frames++;
+        }
+        Assert.assertTrue(frames >= 4);
+        for(int i=0; i<10; i++) {
+            Assert.assertEquals(i, executed.get(i).seq);
+        }
+    }
+
+    @Test
+    public void test03ConcurrentProducer() throws InterruptedException {
+        final GLRunnableQueue q = new GLRunnableQueue();
+        final ArrayList<OrderedRunnable> executed = new ArrayList<OrderedRunnable>();
+        final int producerCount = 4;
+        final int tasksPerProducer = 20000; // exceeds ring capacity -> overflow path
+        final Thread[] producer = new Thread[producerCount];
+        for(int p=0; p<producerCount; p++) {
+            final int producerNo = p;
+            producer[p] = new Thread(new Runnable() {
+                public void run() {
+                    for(int i=0; i<tasksPerProducer; i++) {
+                        q.add(new OrderedRunnable(executed, producerNo, i, PrioritizedGLRunnable.PRIORITY_NORMAL, 0), null, false);
+                    }
+                } }, "Producer-"+p);
+            producer[p].start();
+        }
+        boolean alive = true;
+        while( alive ) {
+            q.execute(null, 0);
+            alive = false;
+            for(int p=0; p<producerCount; p++) {
+                alive = alive || producer[p].isAlive();
+            }
+        }
+        q.execute(null, 0);
+        Assert.assertTrue(q.isEmpty());
+        Assert.assertEquals(producerCount*tasksPerProducer, executed.size());
+        // FIFO per producer
+        final int[] lastSeq = new int[producerCount];
+        for(int p=0; p<producerCount; p++) { lastSeq[p] = -1; }
+        for(int i=0; i<executed.size(); i++) {
+            final OrderedRunnable r = executed.get(i);
+            Assert.assertEquals(lastSeq[r.producer]+1, r.seq);
+            lastSeq[r.producer] = r.seq;
+        }
+    }
+
+    @Test
+    public void test04Flush() throws InterruptedException {
+        final GLRunnableQueue q = new GLRunnableQueue();
+        final Object sync = new Object();
+        final GLRunnable nop = new GLRunnable() {
+            public boolean run(GLAutoDrawable drawable) { return true; } };
+        synchronized(sync) {
+            q.add(nop, null, false);
+            final jogamp.opengl.GLRunnableTask task = q.add(nop, sync, true);
+            Assert.assertTrue(task.isInQueue());
+            q.flush();
+            Assert.assertTrue(task.isFlushed());
+            Assert.assertFalse(task.isExecuted());
+        }
+        Assert.assertTrue(q.isEmpty());
+    }
+
+    @Test
+    public void test05ReEnqueueDeferred() {
+        final GLRunnableQueue q = new GLRunnableQueue();
+        final int[] runs = { 0 };
+        final GLRunnable again = new GLRunnable() {
+            public boolean run(GLAutoDrawable drawable) {
+                runs[0]++;
+                q.add(this, null, false); // re-enqueue itself, must not be executed within the same frame
+                return true;
+            } };
+        q.add(again, null, false);
+        for(int i=1; i<=3; i++) {
+            q.execute(null, 0);
+            Assert.assertEquals(i, runs[0]);
+            Assert.assertFalse(q.isEmpty());
+        }
+        q.flush();
+        Assert.assertTrue(q.isEmpty());
+    }
+
+    public static void main(String args[]) throws IOException {
+        org.junit.runner.JUnitCore.main(TestGLRunnableQueueNOUI.class.getName());
+    }
+}
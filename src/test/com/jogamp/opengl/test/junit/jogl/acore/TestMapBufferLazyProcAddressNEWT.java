@@ -0,0 +1,111 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ *
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+
+package com.jogamp.opengl.test.junit.jogl.acore;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+
+import javax.media.opengl.GL;
+import javax.media.opengl.GL2GL3;
+import javax.media.opengl.GLCapabilities;
+import javax.media.opengl.GLProfile;
+
+import jogamp.opengl.GLContextImpl;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.FixMethodOrder;
+import org.junit.runners.MethodSorters;
+
+import com.jogamp.common.nio.Buffers;
+import com.jogamp.opengl.test.junit.util.NEWTGLContext;
+import com.jogamp.opengl.test.junit.util.UITestCase;
+
+/**
+ * Maps buffer objects w/ lazy resolution of the GL ProcAddressTable,
+ * i.e. property <code>jogl.glprocaddress.lazy</code> set before JOGL's initialization.
+ * <p>
+ * The custom <code>glMapBuffer*</code> implementations read the table directly
+ * and must resolve their entry points on demand.
+ * </p>
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class TestMapBufferLazyProcAddressNEWT extends UITestCase {
+    static {
+        System.setProperty("jogl.glprocaddress.lazy", "true");
+    }
+
+    @Test
+    public void test01MapBufferLazy() throws InterruptedException {
+        if(!GLProfile.isAvailable(GLProfile.GL2GL3)) {
+            System.err.println("Test requires GL2/GL3 profile.");
+            return;
+        }
+        final NEWTGLContext.WindowContext winctx = NEWTGLContext.createOffscreenWindow(
+                new GLCapabilities(GLProfile.getGL2GL3()), 64, 64, false);
+        try {
+            final GLContextImpl context = (GLContextImpl) winctx.context;
+            Assert.assertNotNull("Lazy ProcAddressTable not enabled", context.getGLProcAddressStatistics());
+            final GL gl = context.getGL();
+
+            final FloatBuffer data = Buffers.newDirectFloatBuffer(new float[] { 0f, 0.5f, 0f, 0.5f, -0.5f, 0f, -0.5f, -0.5f, 0f });
+            final int[] name = new int[1];
+            gl.glGenBuffers(1, name, 0);
+            gl.glBindBuffer(GL.GL_ARRAY_BUFFER, name[0]);
+            gl.glBufferData(GL.GL_ARRAY_BUFFER, data.capacity()*Buffers.SIZEOF_FLOAT, data, GL.GL_STATIC_DRAW);
+
+            final ByteBuffer bb = gl.glMapBuffer(GL.GL_ARRAY_BUFFER, GL2GL3.GL_READ_ONLY);
+            Assert.assertNotNull(bb);
+            for(int i=0; i<data.capacity(); i++) {
+                Assert.assertEquals(data.get(i), bb.getFloat(i*Buffers.SIZEOF_FLOAT), 0.0);
+            }
+            gl.glUnmapBuffer(GL.GL_ARRAY_BUFFER);
+
+            if( gl.isFunctionAvailable("glMapBufferRange") ) {
+                final ByteBuffer bbr = gl.glMapBufferRange(GL.GL_ARRAY_BUFFER, 3*Buffers.SIZEOF_FLOAT, 3*Buffers.SIZEOF_FLOAT, GL.GL_MAP_READ_BIT);
+                Assert.assertNotNull(bbr);
+                for(int i=0; i<3; i++) {
+                    Assert.assertEquals(data.get(3+i), bbr.getFloat(i*Buffers.SIZEOF_FLOAT), 0.0);
+                }
+                gl.glUnmapBuffer(GL.GL_ARRAY_BUFFER);
+            }
+            gl.glBindBuffer(GL.GL_ARRAY_BUFFER, 0);
+            gl.glDeleteBuffers(1, name, 0);
+            Assert.assertEquals(GL.GL_NO_ERROR, gl.glGetError());
+            System.err.println(context.getGLProcAddressStatistics());
+        } finally {
+            NEWTGLContext.destroyWindow(winctx);
+        }
+    }
+
+    public static void main(String args[]) throws IOException {
+        org.junit.runner.JUnitCore.main(TestMapBufferLazyProcAddressNEWT.class.getName());
+    }
+}
@@ -0,0 +1,171 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ *
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+
+package com.jogamp.opengl.test.junit.jogl.acore;
+
+import java.io.IOException;
+import java.util.HashSet;
+
+import javax.media.opengl.GLAutoDrawable;
+import javax.media.opengl.GLCapabilities;
+import javax.media.opengl.GLEventListener;
+import javax.media.opengl.GLProfile;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.FixMethodOrder;
+import org.junit.runners.MethodSorters;
+
+import com.jogamp.newt.opengl.GLWindow;
+import com.jogamp.opengl.test.junit.jogl.demos.es2.GearsES2;
+import com.jogamp.opengl.test.junit.util.MiscUtils;
+import com.jogamp.opengl.test.junit.util.UITestCase;
+import com.jogamp.opengl.util.Animator;
+import com.jogamp.opengl.util.AnimatorBase;
+
+/**
+ * Tests {@link AnimatorBase#MODE_PARALLEL_DISPLAY}, i.e. rendering of multiple {@link GLWindow}s
+ * on their own display worker threads.
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class TestParallelAnimatorNEWT extends UITestCase {
+    static long duration = 500; // ms
+    static int drawableCount = 4;
+    static final int demoSize = 128;
+    static GLProfile glp;
+
+    @BeforeClass
+    public static void initClass() {
+        if(GLProfile.isAvailable(GLProfile.GL2ES2)) {
+            glp = GLProfile.get(GLProfile.GL2ES2);
+            Assert.assertNotNull(glp);
+        } else {
+            setTestSupported(false);
+        }
+    }
+
+    static class DisplayThreadListener implements GLEventListener {
+        volatile Thread displayThread = null;
+        volatile int displayCount = 0;
+
+        @Override
+        public void init(GLAutoDrawable drawable) {}
+        @Override
+        public void dispose(GLAutoDrawable drawable) {}
+        @Override
+        public void display(GLAutoDrawable drawable) {
+            displayThread = Thread.currentThread();
+            displayCount++;
+        }
+        @Override
+        public void reshape(GLAutoDrawable drawable, int x, int y, int width, int height) {}
+    }
+
+    protected void runTestGL(GLCapabilities caps, boolean exclusive) throws InterruptedException {
+        final Animator animator = new Animator();
+        animator.setModeBits(false, AnimatorBase.MODE_EXPECT_AWT_RENDERING_THREAD);
+        animator.setModeBits(true, AnimatorBase.MODE_PARALLEL_DISPLAY);
+        Assert.assertTrue(0 != ( AnimatorBase.MODE_PARALLEL_DISPLAY & animator.getModeBits() ));
+
+        final GLWindow[] glWindows = new GLWindow[drawableCount];
+        final DisplayThreadListener[] listener = new DisplayThreadListener[drawableCount];
+        for(int i=0; i<drawableCount; i++) {
+            glWindows[i] = GLWindow.create(caps);
+            Assert.assertNotNull(glWindows[i]);
+            glWindows[i].setTitle("Win #"+i);
+            glWindows[i].setPosition(i * ( demoSize + 32 ), 64);
+            glWindows[i].setSize(demoSize, demoSize);
+            final GearsES2 demo = new GearsES2(0);
+            demo.setVerbose(false);
+            glWindows[i].addGLEventListener(demo);
+            listener[i] = new DisplayThreadListener();
+            glWindows[i].addGLEventListener(listener[i]);
+            glWindows[i].setVisible(true);
+            animator.add(glWindows[i]);
+        }
+        if( exclusive ) {
+            animator.setExclusiveContext(true);
+        }
+        Assert.assertTrue(animator.start());
+        Assert.assertTrue(animator.isAnimating());
+
+        final long t0 = System.currentTimeMillis();
+        while( System.currentTimeMillis() - t0 < duration ) {
+            Thread.sleep(50);
+        }
+
+        final HashSet<Thread> displayThreads = new HashSet<Thread>();
+        for(int i=0; i<drawableCount; i++) {
+            Assert.assertTrue("Win #"+i+" not rendered", 0 < listener[i].displayCount);
+            final Thread t = listener[i].displayThread;
+            Assert.assertNotNull(t);
+            Assert.assertNotSame(animator.getThread(), t);
+            displayThreads.add(t);
+            if( exclusive ) {
+                Assert.assertEquals(t, glWindows[i].getExclusiveContextThread());
+            }
+            // swap is performed by the worker after the frame barrier
+            Assert.assertFalse(glWindows[i].getAutoSwapBufferMode());
+        }
+        Assert.assertEquals(drawableCount, displayThreads.size());
+        System.err.println("Parallel Animator: "+animator);
+
+        Assert.assertTrue(animator.stop());
+        Assert.assertFalse(animator.isAnimating());
+        for(int i=0; i<drawableCount; i++) {
+            Assert.assertNull(glWindows[i].getExclusiveContextThread());
+            Assert.assertTrue(glWindows[i].getAutoSwapBufferMode());
+            animator.remove(glWindows[i]);
+            glWindows[i].destroy();
+        }
+    }
+
+    @Test
+    public void test01Parallel() throws InterruptedException {
+        runTestGL(new GLCapabilities(glp), false);
+    }
+
+    @Test
+    public void test02ParallelExclusiveContext() throws InterruptedException {
+        runTestGL(new GLCapabilities(glp), true);
+    }
+
+    public static void main(String args[]) throws IOException {
+        for(int i=0; i<args.length; i++) {
+            if(args[i].equals("-time")) {
+                i++;
+                duration = MiscUtils.atol(args[i], duration);
+            } else if(args[i].equals("-count")) {
+                i++;
+                drawableCount = MiscUtils.atoi(args[i], drawableCount);
+            }
+        }
+        org.junit.runner.JUnitCore.main(TestParallelAnimatorNEWT.class.getName());
+    }
+}
@@ -0,0 +1,190 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ *
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+
+package com.jogamp.opengl.test.junit.jogl.awt;
+
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+
+import javax.media.opengl.GL;
+import javax.media.opengl.GLAutoDrawable;
+import javax.media.opengl.GLCapabilities;
+import javax.media.opengl.GLEventListener;
+import javax.media.opengl.GLProfile;
+import javax.media.opengl.awt.GLJPanel;
+import javax.swing.JFrame;
+import javax.swing.SwingUtilities;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.FixMethodOrder;
+import org.junit.runners.MethodSorters;
+
+import com.jogamp.opengl.test.junit.util.MiscUtils;
+import com.jogamp.opengl.test.junit.util.UITestCase;
+import com.jogamp.opengl.util.FrameTimeRecorder;
+import com.jogamp.opengl.util.GLReadBufferUtil;
+
+/**
+ * Tests {@link GLJPanel#setAsyncReadback(boolean)}, i.e. the pixel pack buffer readback
+ * incl. vertical orientation and the skipped rendering of unchanged content.
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class TestGLJPanelAsyncReadbackAWT extends UITestCase {
+    static int frames = 5;
+    static final int width = 128, height = 128;
+
+    @BeforeClass
+    public static void initClass() {
+        if( !GLProfile.isAvailable(GLProfile.GL2ES2) ) {
+            setTestSupported(false);
+        }
+    }
+
+    /** Clears the upper half red and the lower half blue. */
+    static class SplitClear implements GLEventListener {
+        volatile int displayCount = 0;
+        volatile boolean asyncSupported = false;
+
+        @Override
+        public void init(GLAutoDrawable drawable) {
+            asyncSupported = GLReadBufferUtil.isAsyncReadSupported(drawable.getGL());
+        }
+        @Override
+        public void dispose(GLAutoDrawable drawable) {}
+        @Override
+        public void display(GLAutoDrawable drawable) {
+            final GL gl = drawable.getGL();
+            final int w = drawable.getWidth();
+            final int h = drawable.getHeight();
+            gl.glEnable(GL.GL_SCISSOR_TEST);
+            gl.glScissor(0, h/2, w, h - h/2);
+            gl.glClearColor(1f, 0f, 0f, 1f);
+            gl.glClear(GL.GL_COLOR_BUFFER_BIT);
+            gl.glScissor(0, 0, w, h/2);
+            gl.glClearColor(0f, 0f, 1f, 1f);
+            gl.glClear(GL.GL_COLOR_BUFFER_BIT);
+            gl.glDisable(GL.GL_SCISSOR_TEST);
+            displayCount++;
+        }
+        @Override
+        public void reshape(GLAutoDrawable drawable, int x, int y, int width, int height) {}
+    }
+
+    static BufferedImage paintToImage(final GLJPanel glJPanel) throws InterruptedException, InvocationTargetException {
+        final BufferedImage image = new BufferedImage(glJPanel.getWidth(), glJPanel.getHeight(), BufferedImage.TYPE_INT_RGB);
+        SwingUtilities.invokeAndWait(new Runnable() {
+            public void run() {
+                final Graphics g = image.getGraphics();
+                try {
+                    glJPanel.paint(g);
+                } finally {
+                    g.dispose();
+                }
+            } } );
+        return image;
+    }
+
+    static void validateImage(BufferedImage image) {
+        final int top = image.getRGB(image.getWidth()/2, image.getHeight()/4) & 0x00FFFFFF;
+        final int bottom = image.getRGB(image.getWidth()/2, image.getHeight()*3/4) & 0x00FFFFFF;
+        Assert.assertEquals("Top not red: 0x"+Integer.toHexString(top), 0x00FF0000, top);
+        Assert.assertEquals("Bottom not blue: 0x"+Integer.toHexString(bottom), 0x000000FF, bottom);
+    }
+
+    @Test
+    public void test01AsyncReadback() throws InterruptedException, InvocationTargetException {
+        final GLJPanel glJPanel = new GLJPanel(new GLCapabilities(GLProfile.getGL2ES2()));
+        final Dimension size = new Dimension(width, height);
+        glJPanel.setMinimumSize(size);
+        glJPanel.setPreferredSize(size);
+        glJPanel.setAsyncReadback(true);
+        Assert.assertTrue(glJPanel.isAsyncReadback());
+        final FrameTimeRecorder recorder = new FrameTimeRecorder();
+        glJPanel.setFrameTimeRecorder(recorder);
+        final SplitClear demo = new SplitClear();
+        glJPanel.addGLEventListener(demo);
+
+        final JFrame frame = new JFrame("TestGLJPanelAsyncReadbackAWT");
+        SwingUtilities.invokeAndWait(new Runnable() {
+            public void run() {
+                frame.getContentPane().add(glJPanel);
+                frame.pack();
+                frame.setVisible(true);
+            } } );
+
+        for(int i=0; i<frames; i++) {
+            glJPanel.display();
+        }
+        Assert.assertTrue("Not rendered", 0 < demo.displayCount);
+        validateImage(paintToImage(glJPanel));
+        Assert.assertTrue(0 < recorder.getHistogram(FrameTimeRecorder.PHASE_READBACK).getTotalCount());
+        Assert.assertTrue(0 < recorder.getHistogram(FrameTimeRecorder.PHASE_COMPOSITE).getTotalCount());
+
+        if( demo.asyncSupported ) {
+            // unchanged content: cached image is composited w/o rendering
+            final int displayCount = demo.displayCount;
+            final long skipped = glJPanel.getSkippedReadbackCount();
+            validateImage(paintToImage(glJPanel));
+            Assert.assertEquals(displayCount, demo.displayCount);
+            Assert.assertTrue(skipped < glJPanel.getSkippedReadbackCount());
+
+            // changed content: rendered again
+            glJPanel.display();
+            Assert.assertTrue(displayCount < demo.displayCount);
+        } else {
+            System.err.println(getSimpleTestName(".")+": Async readback n/a, using synchronous readback");
+        }
+
+        glJPanel.setAsyncReadback(false);
+        glJPanel.display();
+        validateImage(paintToImage(glJPanel));
+
+        SwingUtilities.invokeAndWait(new Runnable() {
+            public void run() {
+                frame.setVisible(false);
+                frame.getContentPane().remove(glJPanel);
+                glJPanel.destroy();
+                frame.dispose();
+            } } );
+    }
+
+    public static void main(String args[]) throws IOException {
+        for(int i=0; i<args.length; i++) {
+            if(args[i].equals("-frames")) {
+                i++;
+                frames = MiscUtils.atoi(args[i], frames);
+            }
+        }
+        org.junit.runner.JUnitCore.main(TestGLJPanelAsyncReadbackAWT.class.getName());
+    }
+}
@@ -0,0 +1,145 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ *
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+
+package com.jogamp.opengl.test.junit.jogl.glsl;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import javax.media.opengl.GL2ES2;
+import javax.media.opengl.GLCapabilities;
+import javax.media.opengl.GLContext;
+import javax.media.opengl.GLProfile;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.FixMethodOrder;
+import org.junit.runners.MethodSorters;
+
+import com.jogamp.newt.opengl.GLWindow;
+import com.jogamp.opengl.test.junit.jogl.demos.es2.shader.RedSquareShader;
+import com.jogamp.opengl.test.junit.util.UITestCase;
+import com.jogamp.opengl.util.glsl.ShaderCode;
+import com.jogamp.opengl.util.glsl.ShaderProgram;
+import com.jogamp.opengl.util.glsl.ShaderProgramCache;
+
+/**
+ * Tests {@link ShaderProgramCache}, i.e. storing, restoring and rejection of program binaries.
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class TestGLSLShaderProgramCacheNEWT extends UITestCase {
+    static GLProfile glp;
+
+    @BeforeClass
+    public static void initClass() {
+        if(GLProfile.isAvailable(GLProfile.GL2ES2)) {
+            glp = GLProfile.get(GLProfile.GL2ES2);
+            Assert.assertNotNull(glp);
+        } else {
+            setTestSupported(false);
+        }
+    }
+
+    static ShaderProgram createProgram(ShaderProgramCache cache) {
+        final ShaderProgram sp = new ShaderProgram();
+        sp.setProgramCache(cache);
+        sp.add(new ShaderCode(GL2ES2.GL_VERTEX_SHADER, 1, new CharSequence[][] { { RedSquareShader.VERTEX_SHADER_TEXT } }));
+        sp.add(new ShaderCode(GL2ES2.GL_FRAGMENT_SHADER, 1, new CharSequence[][] { { RedSquareShader.FRAGMENT_SHADER_TEXT } }));
+        return sp;
+    }
+
+    static void deleteDir(File dir) {
+        final File[] files = dir.listFiles();
+        for(int i=0; null != files && i<files.length; i++) {
+            files[i].delete();
+        }
+        dir.delete();
+    }
+
+    @Test
+    public void test01StoreRestoreReject() throws IOException {
+        final File dir = File.createTempFile("glslcache", "");
+        dir.delete();
+        final ShaderProgramCache cache = new ShaderProgramCache(dir);
+
+        final GLWindow window = GLWindow.create(new GLCapabilities(glp));
+        Assert.assertNotNull(window);
+        window.setSize(128, 128);
+        window.setVisible(true);
+        window.display();
+        final GLContext context = window.getContext();
+        context.makeCurrent();
+        try {
+            final GL2ES2 gl = context.getGL().getGL2ES2();
+            final boolean supported = ShaderProgramCache.isSupported(gl);
+            System.err.println("Program binary supported: "+supported);
+
+            final ShaderProgram sp1 = createProgram(cache);
+            Assert.assertTrue(sp1.link(gl, System.err));
+            sp1.destroy(gl);
+
+            final ShaderProgram sp2 = createProgram(cache);
+            Assert.assertTrue(sp2.link(gl, System.err));
+            sp2.useProgram(gl, true);
+            sp2.useProgram(gl, false);
+            sp2.destroy(gl);
+            System.err.println(cache);
+
+            if( supported ) {
+                Assert.assertEquals(1, cache.getStoreCount());
+                Assert.assertEquals(1, cache.getHitCount());
+
+                // corrupt cached binary, must be rejected and relinked from source
+                final File[] files = dir.listFiles();
+                Assert.assertEquals(1, files.length);
+                final FileOutputStream out = new FileOutputStream(files[0]);
+                out.write(new byte[] { 'J', 'P', 'B', 'C', 0, 0, 0, 1, 0, 0, 0, 0, 1, 2, 3, 4 });
+                out.close();
+
+                final ShaderProgram sp3 = createProgram(cache);
+                Assert.assertTrue(sp3.link(gl, System.err));
+                sp3.destroy(gl);
+                Assert.assertEquals(1, cache.getRejectCount());
+                Assert.assertEquals(2, cache.getStoreCount());
+            } else {
+                Assert.assertEquals(0, cache.getStoreCount());
+                Assert.assertEquals(0, cache.getHitCount());
+            }
+        } finally {
+            context.release();
+            window.destroy();
+            deleteDir(dir);
+        }
+    }
+
+    public static void main(String args[]) throws IOException {
+        org.junit.runner.JUnitCore.main(TestGLSLShaderProgramCacheNEWT.class.getName());
+    }
+}
@@ -490,6 +490,105 @@ public class TestGLSLShaderState01NEWT extends UITestCase {
         NEWTGLContext.destroyWindow(winctx);
     }
     
+    @Test
+    public void test05ShaderState_Handles() throws InterruptedException {
+        // preset ..
+        final NEWTGLContext.WindowContext winctx = NEWTGLContext.createOnscreenWindow(
+                new GLCapabilities(GLProfile.getGL2ES2()), 480, 480, true);
+        final GLDrawable drawable = winctx.context.getGLDrawable();
+        final GL2ES2 gl = winctx.context.getGL().getGL2ES2();
+        System.err.println(winctx.context);
+
+        Assert.assertEquals(GL.GL_NO_ERROR, gl.glGetError());
+
+        // test code ..
+        final ShaderState st = new ShaderState();
+
+        final ShaderCode rsVp = ShaderCode.create(gl, GL2ES2.GL_VERTEX_SHADER, RedSquareES2.class, "shader",
+                "shader/bin", "RedSquareShader", true);
+        final ShaderCode rsFp = ShaderCode.create(gl, GL2ES2.GL_FRAGMENT_SHADER, RedSquareES2.class, "shader",
+                "shader/bin", "RedSquareShader", true);
+        rsVp.defaultShaderCustomization(gl, true, true);
+        rsFp.defaultShaderCustomization(gl, true, true);
+
+        final ShaderProgram sp = new ShaderProgram();
+        sp.add(rsVp);
+        sp.add(rsFp);
+
+        sp.init(gl);
+        Assert.assertTrue(sp.link(gl, System.err));
+
+        st.attachShaderProgram(gl, sp, true);
+
+        // uniform handles
+        final PMVMatrix pmvMatrix = new PMVMatrix();
+        final GLUniformData pmvMatrixUniform = new GLUniformData("mgl_PMVMatrix", 4, 4, pmvMatrix.glGetPMvMatrixf());
+        final GLUniformData unknownUniform = new GLUniformData("mgl_DoesNotExist", 1f);
+        final int pmvHandle = st.getUniformHandle(pmvMatrixUniform);
+        final int unknownHandle = st.getUniformHandle(unknownUniform);
+        Assert.assertTrue(pmvHandle != unknownHandle);
+        Assert.assertEquals(pmvHandle, st.getUniformHandle(pmvMatrixUniform));
+        Assert.assertEquals(pmvMatrixUniform, st.getUniform(pmvHandle));
+        Assert.assertEquals(pmvMatrixUniform, st.getUniform("mgl_PMVMatrix"));
+
+        Assert.assertEquals(1, st.flushUniforms(gl)); // unknown uniform is skipped
+        Assert.assertEquals(0, st.flushUniforms(gl)); // nothing dirty
+        Assert.assertEquals(GL.GL_NO_ERROR, gl.glGetError());
+
+        // attribute handles
+        final GLArrayDataServer vertices0 = GLSLMiscHelper.createVertices(gl, st, 0, -1, GLSLMiscHelper.vertices0);
+        final GLArrayDataServer colors0 = GLSLMiscHelper.createColors(gl, st, 0, -1, GLSLMiscHelper.colors0);
+        vertices0.enableBuffer(gl, false);
+        colors0.enableBuffer(gl, false);
+        final int verticesHandle = st.getAttribHandle(vertices0);
+        final int colorsHandle = st.getAttribHandle(colors0);
+        Assert.assertEquals(vertices0, st.getAttribute(verticesHandle));
+        Assert.assertEquals(colors0, st.getAttribute(colorsHandle));
+
+        // misc GL setup
+        gl.glClearColor(0, 0, 0, 1);
+        gl.glEnable(GL2ES2.GL_DEPTH_TEST);
+
+        // reshape
+        pmvMatrix.glMatrixMode(PMVMatrix.GL_PROJECTION);
+        pmvMatrix.glLoadIdentity();
+        pmvMatrix.gluPerspective(45.0F, (float) drawable.getWidth() / (float) drawable.getHeight(), 1.0F, 100.0F);
+        pmvMatrix.glMatrixMode(PMVMatrix.GL_MODELVIEW);
+        pmvMatrix.glLoadIdentity();
+        pmvMatrix.glTranslatef(0, 0, -10);
+        st.setUniformDirty(pmvHandle);
+        st.setUniformDirty(pmvHandle);
+        st.setUniform(unknownHandle, 2f);
+        gl.glViewport(0, 0, drawable.getWidth(), drawable.getHeight());
+
+        // display via handles
+        for(int i=0; i<3; i++) {
+            gl.glClear(GL.GL_COLOR_BUFFER_BIT | GL.GL_DEPTH_BUFFER_BIT);
+            Assert.assertEquals(0 == i ? 1 : 0, st.flushUniforms(gl));
+            vertices0.bindBuffer(gl, true);
+            Assert.assertTrue(st.vertexAttribPointer(gl, verticesHandle));
+            vertices0.bindBuffer(gl, false);
+            colors0.bindBuffer(gl, true);
+            Assert.assertTrue(st.vertexAttribPointer(gl, colorsHandle));
+            colors0.bindBuffer(gl, false);
+            Assert.assertTrue(st.enableVertexAttribArray(gl, verticesHandle));
+            Assert.assertTrue(st.enableVertexAttribArray(gl, colorsHandle));
+            Assert.assertTrue(st.isVertexAttribArrayEnabled(vertices0));
+            gl.glDrawArrays(GL.GL_TRIANGLE_STRIP, 0, 4);
+            Assert.assertTrue(st.disableVertexAttribArray(gl, verticesHandle));
+            Assert.assertTrue(st.disableVertexAttribArray(gl, colorsHandle));
+            Assert.assertFalse(st.isVertexAttribArrayEnabled(vertices0));
+            Assert.assertEquals(GL.GL_NO_ERROR, gl.glGetError());
+            drawable.swapBuffers();
+            Thread.sleep(durationPerTest);
+        }
+
+        // cleanup
+        st.destroy(gl);
+
+        NEWTGLContext.destroyWindow(winctx);
+    }
+
     public static void main(String args[]) throws IOException {
         System.err.println("main - start");
         boolean wait = false;
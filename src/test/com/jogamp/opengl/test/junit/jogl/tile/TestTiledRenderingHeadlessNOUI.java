@@ -0,0 +1,172 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ *
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+package com.jogamp.opengl.test.junit.jogl.tile;
+
+import com.jogamp.opengl.test.junit.jogl.demos.es2.GearsES2;
+import com.jogamp.opengl.test.junit.util.MiscUtils;
+import com.jogamp.opengl.test.junit.util.UITestCase;
+import com.jogamp.opengl.util.GLOffscreenUtil;
+import com.jogamp.opengl.util.GLPixelBuffer;
+import com.jogamp.opengl.util.TileRenderer;
+import com.jogamp.opengl.util.GLPixelBuffer.GLPixelAttributes;
+
+import javax.media.opengl.GL;
+import javax.media.opengl.GLAutoDrawable;
+import javax.media.opengl.GLEventListener;
+import javax.media.opengl.GLException;
+import javax.media.opengl.GLOffscreenAutoDrawable;
+import javax.media.opengl.GLProfile;
+
+import org.junit.Assert;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+/**
+ * Headless {@link TileRenderer} image export using an offscreen drawable
+ * created via {@link GLOffscreenUtil}, i.e. w/o any window
+ * and on a software rasterizer if no hardware rasterizer is available.
+ * <p>
+ * Prints the tile throughput per available core as a benchmark.
+ * </p>
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class TestTiledRenderingHeadlessNOUI extends UITestCase {
+    static int tileSize = 256;
+    static int tileColumns = 6;
+    static int tileRows = 4;
+    static int loops = 3;
+    static final String[] profiles = new String[] { GLProfile.GL2ES2 };
+
+    static GLOffscreenUtil.Selection select(int rasterizer) {
+        try {
+            return GLOffscreenUtil.select(profiles, rasterizer);
+        } catch (GLException gle) {
+            System.err.println("No "+profiles[0]+" w/ rasterizer "+rasterizer+": "+gle.getMessage());
+            return null;
+        }
+    }
+
+    @Test
+    public void test01Select() {
+        final GLOffscreenUtil.Selection auto = select(GLOffscreenUtil.RASTERIZER_AUTO);
+        if( null == auto ) {
+            return;
+        }
+        System.err.println("Auto: "+auto);
+        final GLOffscreenUtil.Selection hw = select(GLOffscreenUtil.RASTERIZER_HARDWARE);
+        if( null != hw ) {
+            Assert.assertTrue(hw.isHardwareRasterizer());
+            Assert.assertTrue(auto.isHardwareRasterizer());
+        } else {
+            Assert.assertFalse(auto.isHardwareRasterizer());
+        }
+        final GLOffscreenUtil.Selection sw = select(GLOffscreenUtil.RASTERIZER_SOFTWARE);
+        Assert.assertNotNull(sw);
+        System.err.println("Software favored: "+sw);
+    }
+
+    @Test
+    public void test02TileExportBenchmark() {
+        if( null == select(GLOffscreenUtil.getDefaultRasterizer()) ) {
+            return;
+        }
+        final GLOffscreenAutoDrawable glad = GLOffscreenUtil.createOffscreenAutoDrawable(profiles, null, tileSize, tileSize);
+        Assert.assertNotNull(glad);
+        final GearsES2 demo = new GearsES2(0);
+        demo.setVerbose(false);
+        glad.addGLEventListener(demo);
+        glad.display(); // init
+        final boolean hardware = glad.getGLProfile().isHardwareRasterizer();
+        System.err.println("Drawable: "+glad.getChosenGLCapabilities()+", hardware "+hardware);
+
+        final int imageWidth = tileSize * tileColumns;
+        final int imageHeight = tileSize * tileRows;
+        final TileRenderer renderer = new TileRenderer();
+        renderer.setImageSize(imageWidth, imageHeight);
+        renderer.setTileSize(glad.getWidth(), glad.getHeight(), 0);
+        renderer.attachAutoDrawable(glad);
+
+        final GLPixelBuffer.GLPixelBufferProvider pixelBufferProvider = GLPixelBuffer.defaultProviderWithRowStride;
+        final GLEventListener preTileGLEL = new GLEventListener() {
+            @Override
+            public void init(GLAutoDrawable drawable) {
+                final GL gl = drawable.getGL();
+                final GLPixelAttributes pixelAttribs = pixelBufferProvider.getAttributes(gl, 3);
+                final GLPixelBuffer pixelBuffer = pixelBufferProvider.allocate(gl, pixelAttribs, imageWidth, imageHeight, 1, true, 0);
+                renderer.setImageBuffer(pixelBuffer);
+            }
+            @Override
+            public void dispose(GLAutoDrawable drawable) {}
+            @Override
+            public void display(GLAutoDrawable drawable) {}
+            @Override
+            public void reshape(GLAutoDrawable drawable, int x, int y, int width, int height) {}
+        };
+        renderer.setGLEventListener(preTileGLEL, null);
+
+        int tiles = 0;
+        final long t0 = System.nanoTime();
+        for(int l=0; l<loops; l++) {
+            renderer.reset();
+            while ( !renderer.eot() ) {
+                renderer.display();
+                tiles++;
+            }
+        }
+        final long t1 = System.nanoTime();
+        renderer.detachAutoDrawable();
+        Assert.assertEquals(loops * tileColumns * tileRows, tiles);
+        Assert.assertNotNull(renderer.getImageBuffer());
+
+        final int cores = Runtime.getRuntime().availableProcessors();
+        final double secs = ( t1 - t0 ) / 1000000000.0;
+        final double tilesPerSec = tiles / secs;
+        System.err.printf("Tiles %d of %dx%d, hardware %b: %.3f s, %.2f tiles/s, %.2f tiles/s/core (%d cores)%n",
+                          tiles, tileSize, tileSize, hardware, secs, tilesPerSec, tilesPerSec / cores, cores);
+
+        glad.destroy();
+    }
+
+    public static void main(String args[]) {
+        for(int i=0; i<args.length; i++) {
+            if(args[i].equals("-tileSize")) {
+                i++;
+                tileSize = MiscUtils.atoi(args[i], tileSize);
+            } else if(args[i].equals("-tiles")) {
+                i++;
+                tileColumns = MiscUtils.atoi(args[i], tileColumns);
+                tileRows = tileColumns;
+            } else if(args[i].equals("-loops")) {
+                i++;
+                loops = MiscUtils.atoi(args[i], loops);
+            }
+        }
+        org.junit.runner.JUnitCore.main(TestTiledRenderingHeadlessNOUI.class.getName());
+    }
+}
@@ -0,0 +1,194 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ *
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+
+package com.jogamp.opengl.test.junit.jogl.tile;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.media.opengl.GL;
+import javax.media.opengl.GLAutoDrawable;
+import javax.media.opengl.GLCapabilities;
+import javax.media.opengl.GLDrawableFactory;
+import javax.media.opengl.GLEventListener;
+import javax.media.opengl.GLProfile;
+
+import org.junit.Assert;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+import com.jogamp.opengl.test.junit.jogl.demos.es2.GearsES2;
+import com.jogamp.opengl.test.junit.util.UITestCase;
+import com.jogamp.opengl.util.GLPixelBuffer;
+import com.jogamp.opengl.util.TileRenderer;
+import com.jogamp.opengl.util.GLPixelBuffer.GLPixelAttributes;
+import com.jogamp.opengl.util.TileRenderer.TileRow;
+import com.jogamp.opengl.util.TileRenderer.TileRowSink;
+
+/**
+ * Tests {@link TileRenderer#setTileRowSink(TileRowSink, GLPixelAttributes, boolean, int) streaming} of tile rows,
+ * validating the assembled rows against the {@link TileRenderer#setImageBuffer(GLPixelBuffer) image buffer} of the same pass.
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class TestTiledRenderingStreamNEWT extends UITestCase {
+    static final int tileSize = 128;
+
+    static GLProfile getGL2ES3() {
+        final GLProfile glp = GLProfile.getMaxProgrammableCore(true);
+        if( null == glp || !glp.isGL2ES3() ) {
+            System.err.println("GL2ES3 n/a, has max-core "+glp);
+            return null;
+        }
+        return glp;
+    }
+
+    /** Assembles the streamed rows into a single image. */
+    static class AssemblingSink implements TileRowSink {
+        final byte[] image;
+        final int lineBytes;
+        final AtomicInteger processed = new AtomicInteger(0);
+        final ArrayList<Integer> writtenRows = new ArrayList<Integer>();
+
+        AssemblingSink(int width, int height, int bytesPerPixel) {
+            lineBytes = width * bytesPerPixel;
+            image = new byte[lineBytes * height];
+        }
+        @Override
+        public void processRow(TileRenderer tr, TileRow row) {
+            processed.incrementAndGet();
+        }
+        @Override
+        public void writeRow(TileRenderer tr, TileRow row) {
+            final ByteBuffer pixels = row.getPixels();
+            Assert.assertEquals(row.getHeight() * lineBytes, pixels.remaining());
+            pixels.get(image, row.getImageY() * lineBytes, pixels.remaining());
+            synchronized(writtenRows) {
+                writtenRows.add(Integer.valueOf(row.getRow()));
+            }
+        }
+    }
+
+    static int countWorkerThreads() {
+        final Thread[] threads = new Thread[Thread.activeCount() + 16];
+        final int n = Thread.enumerate(threads);
+        int count = 0;
+        for(int i=0; i<n; i++) {
+            if( threads[i].getName().contains("-TileRowWorker-") ) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    void doTest(final int rowOrder, final boolean flip, final int workerThreads) {
+        final GLProfile glp = getGL2ES3();
+        if( null == glp ) {
+            return;
+        }
+        final GLCapabilities caps = new GLCapabilities(glp);
+        caps.setDoubleBuffered(false);
+        final GLAutoDrawable glad = GLDrawableFactory.getFactory(glp).createOffscreenAutoDrawable(null, caps, null, tileSize, tileSize);
+        glad.addGLEventListener(new GearsES2(0));
+
+        // last row and column are partial tiles
+        final int imageWidth = tileSize * 3 + 17;
+        final int imageHeight = tileSize * 4 + 33;
+
+        final TileRenderer renderer = new TileRenderer();
+        renderer.setImageSize(imageWidth, imageHeight);
+        renderer.setTileSize(tileSize, tileSize, 0);
+        renderer.setRowOrder(rowOrder);
+        renderer.attachAutoDrawable(glad);
+
+        final GLPixelBuffer.GLPixelBufferProvider pixelBufferProvider = GLPixelBuffer.defaultProviderWithRowStride;
+        final AssemblingSink[] sink = { null };
+        renderer.setGLEventListener(new GLEventListener() {
+            @Override
+            public void init(GLAutoDrawable drawable) {
+                final GL gl = drawable.getGL();
+                final GLPixelAttributes pixelAttribs = pixelBufferProvider.getAttributes(gl, 3);
+                renderer.setImageBuffer(pixelBufferProvider.allocate(gl, pixelAttribs, imageWidth, imageHeight, 1, true, 0));
+                sink[0] = new AssemblingSink(imageWidth, imageHeight, pixelAttribs.bytesPerPixel);
+                renderer.setTileRowSink(sink[0], pixelAttribs, flip, workerThreads);
+            }
+            @Override
+            public void dispose(GLAutoDrawable drawable) {}
+            @Override
+            public void display(GLAutoDrawable drawable) {}
+            @Override
+            public void reshape(GLAutoDrawable drawable, int x, int y, int width, int height) {}
+        }, null);
+
+        while ( !renderer.eot() ) {
+            renderer.display();
+        }
+        Assert.assertEquals("Worker threads after end of tiling", 0, countWorkerThreads());
+        renderer.detachAutoDrawable();
+
+        final int rows = renderer.getParam(TileRenderer.TR_ROWS);
+        Assert.assertEquals(rows, sink[0].processed.get());
+        Assert.assertEquals(rows, sink[0].writtenRows.size());
+        for(int i=0; i<rows; i++) {
+            final int expRow = TileRenderer.TR_BOTTOM_TO_TOP == rowOrder ? i : rows - 1 - i;
+            Assert.assertEquals("Row order", expRow, sink[0].writtenRows.get(i).intValue());
+        }
+
+        final GLPixelBuffer imageBuffer = renderer.getImageBuffer();
+        final ByteBuffer expected = (ByteBuffer) imageBuffer.buffer;
+        final int lineBytes = sink[0].lineBytes;
+        final byte[] expLine = new byte[lineBytes];
+        final byte[] hasLine = new byte[lineBytes];
+        for(int y=0; y<imageHeight; y++) {
+            expected.position(y * lineBytes);
+            expected.get(expLine);
+            final int hasY = flip ? imageHeight - 1 - y : y;
+            System.arraycopy(sink[0].image, hasY * lineBytes, hasLine, 0, lineBytes);
+            Assert.assertArrayEquals("Line "+y, expLine, hasLine);
+        }
+
+        renderer.setTileRowSink(null, null, false, 0);
+        Assert.assertNull(renderer.getTileRowSink());
+        glad.destroy();
+    }
+
+    @Test
+    public void test01BottomToTopNoFlip() {
+        doTest(TileRenderer.TR_BOTTOM_TO_TOP, false, 1);
+    }
+
+    @Test
+    public void test02TopToBottomFlip() {
+        doTest(TileRenderer.TR_TOP_TO_BOTTOM, true, 3);
+    }
+
+    public static void main(String args[]) {
+        org.junit.runner.JUnitCore.main(TestTiledRenderingStreamNEWT.class.getName());
+    }
+}
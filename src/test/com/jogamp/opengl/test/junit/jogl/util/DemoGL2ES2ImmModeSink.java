@@ -50,6 +50,9 @@ public class DemoGL2ES2ImmModeSink implements GLEventListener {
     private ShaderProgram sp;
     private GLUniformData pmvMatrixUniform;
     private ImmModeSink ims;
+    private boolean batching = false;
+    private int callerIndexVBO = 0;
+    private int indexBindingChecks = 0;
 
     public DemoGL2ES2ImmModeSink(boolean useVBO, boolean useShaderState) {
         if(useShaderState) {
@@ -62,6 +65,12 @@ public class DemoGL2ES2ImmModeSink implements GLEventListener {
         pmvMatrix = new PMVMatrix();        
     }
 
+    /** Draws w/ {@link ImmModeSink#setBatching(GL, boolean) batching} if enabled, must be called before init. */
+    public void setBatching(boolean v) { batching = v; }
+
+    /** Returns the number of batched draws which kept the caller's {@link GL#GL_ELEMENT_ARRAY_BUFFER} binding. */
+    public int getIndexBindingCheckCount() { return indexBindingChecks; }
+
     public void init(GLAutoDrawable glad) {
         final GL2ES2 gl = glad.getGL().getGL2ES2();
                 
@@ -131,6 +140,12 @@ public class DemoGL2ES2ImmModeSink implements GLEventListener {
             ims.glColor4f( 1f, 1f, 1f, 1f ); 
         }
         ims.glEnd(gl, false);
+        ims.setBatching(gl, batching);
+        if( batching ) {
+            final int[] tmp = new int[1];
+            gl.glGenBuffers(1, tmp, 0);
+            callerIndexVBO = tmp[0];
+        }
         
         if(null != st) {
             st.useProgram(gl, false);
@@ -143,6 +158,10 @@ public class DemoGL2ES2ImmModeSink implements GLEventListener {
         final GL2ES2 gl = glad.getGL().getGL2ES2();
         ims.destroy(gl);
         ims = null;
+        if( 0 != callerIndexVBO ) {
+            gl.glDeleteBuffers(1, new int[] { callerIndexVBO }, 0);
+            callerIndexVBO = 0;
+        }
         if(null != st) {
             st.destroy(gl);
         }
@@ -162,6 +181,36 @@ public class DemoGL2ES2ImmModeSink implements GLEventListener {
         ims.glColor3f( 0, 0, 1 );
         ims.glVertex2f( drawable.getWidth() / 2, drawable.getHeight() );
         ims.glEnd(gl, true);        
+
+        if( batching ) {
+            // a few small quad blocks, collected into one draw
+            final float w = drawable.getWidth() / 8f, h = drawable.getHeight() / 8f;
+            for(int i=0; i<8; i++) {
+                ims.glBegin(ImmModeSink.GL_QUADS);
+                ims.glColor3f( 1, 1, 1 );
+                ims.glVertex2f( i*w, 0 );
+                ims.glColor3f( 1, 1, 1 );
+                ims.glVertex2f( i*w+w/2, 0 );
+                ims.glColor3f( 1, 1, 1 );
+                ims.glVertex2f( i*w+w/2, h );
+                ims.glColor3f( 1, 1, 1 );
+                ims.glVertex2f( i*w, h );
+                ims.glEnd(gl, true);
+            }
+            if( 8 != ims.getBatchedBlockCount() ) {
+                throw new GLException("Expected 8 batched blocks, has "+ims.getBatchedBlockCount());
+            }
+            // the quads are drawn w/ the sink's index buffer, the caller's binding shall be kept
+            gl.glBindBuffer(GL.GL_ELEMENT_ARRAY_BUFFER, callerIndexVBO);
+            ims.flush(gl);
+            final int[] binding = new int[1];
+            gl.glGetIntegerv(GL.GL_ELEMENT_ARRAY_BUFFER_BINDING, binding, 0);
+            if( callerIndexVBO != binding[0] ) {
+                throw new GLException("Expected element array buffer "+callerIndexVBO+" still bound, has "+binding[0]);
+            }
+            indexBindingChecks++;
+            gl.glBindBuffer(GL.GL_ELEMENT_ARRAY_BUFFER, 0);
+        }
     }
 
     // Unused routines
@@ -0,0 +1,210 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ *
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+
+package com.jogamp.opengl.test.junit.jogl.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.FixMethodOrder;
+import org.junit.runners.MethodSorters;
+
+import com.jogamp.opengl.util.TimeFrameI;
+import com.jogamp.opengl.util.av.AVSyncController;
+import com.jogamp.opengl.util.av.AVSyncStatistics;
+import com.jogamp.opengl.util.av.DefaultAVSyncController;
+
+/**
+ * Deterministic simulation of {@link DefaultAVSyncController} decisions
+ * as performed by the <code>GLMediaPlayer</code>'s <code>getNextTexture(GL)</code>,
+ * using a simulated clock, a 24 fps video stream as produced by <code>NullGLMediaPlayer</code>
+ * and a 60 Hz display.
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class TestAVSyncControllerNOUI {
+    static final float fps = 24f;
+    static final int refreshRate = 60;
+
+    static final int framePeriod = (int) ( 1000 / fps );
+
+    static class Result {
+        int presented = 0;
+        int maxAbsDriftLastSecond = 0;
+        int avgDriftLastSecond = 0;
+        /** Duration after the stall until presented frames are in sync again, or -1. */
+        int catchUpMillis = -1;
+        AVSyncStatistics.Interval lastInterval;
+    }
+
+    /**
+     * @param ctrl the controller
+     * @param seconds simulated duration
+     * @param stallAt time in ms when video decoding stalls, i.e. the clock jumps ahead
+     * @param stall stall duration in ms
+     * @param audioLag audio PTS lag in ms, or {@link Integer#MIN_VALUE} for no audio
+     */
+    static Result simulate(AVSyncController ctrl, int seconds, int stallAt, int stall, int audioLag) {
+        final Result res = new Result();
+        ctrl.reset();
+        final int frameCount = (int) ( seconds * fps * 2 );
+        int frameIdx = 0;
+        int cachedIdx = -1;
+        int displayedFrameCount = 0;
+        long driftSum = 0;
+        int driftCount = 0;
+        final long t0 = 100000;
+        final int vsyncs = seconds * refreshRate;
+        for(int v = 0; v < vsyncs; v++) {
+            final long t = t0 + ( v * 1000L ) / refreshRate;
+            final int dt = (int) ( t - t0 );
+            final int scr = dt >= stallAt ? dt + stall : dt;
+            boolean drop;
+            do {
+                drop = false;
+                final int idx;
+                if( 0 <= cachedIdx ) {
+                    idx = cachedIdx;
+                    cachedIdx = -1;
+                } else {
+                    idx = frameIdx++;
+                }
+                final int video_pts = (int) ( idx * 1000f / fps );
+                final int audio_pts = Integer.MIN_VALUE == audioLag ? TimeFrameI.INVALID_PTS : scr - audioLag;
+                final int avg_dpy_duration = dt / Math.max(1, displayedFrameCount);
+                final AVSyncController.Action a = ctrl.sync(video_pts, scr, audio_pts, scr, 1f,
+                                                            avg_dpy_duration, frameIdx < frameCount, t);
+                switch( a ) {
+                    case PRESENT: {
+                        res.presented++;
+                        final int ref = Integer.MIN_VALUE == audioLag ? scr : scr - audioLag;
+                        final int drift = video_pts - ref;
+                        if( dt >= stallAt && 0 > res.catchUpMillis && Math.abs(drift) <= framePeriod ) {
+                            res.catchUpMillis = dt - stallAt;
+                        }
+                        if( dt >= ( seconds - 1 ) * 1000 ) {
+                            res.maxAbsDriftLastSecond = Math.max(res.maxAbsDriftLastSecond, Math.abs(drift));
+                            driftSum += drift;
+                            driftCount++;
+                        }
+                      } break;
+                    case REPEAT:
+                        cachedIdx = idx;
+                        break;
+                    case DROP:
+                        drop = true;
+                        break;
+                }
+            } while( drop );
+            displayedFrameCount++;
+        }
+        res.avgDriftLastSecond = 0 < driftCount ? (int) ( driftSum / driftCount ) : 0;
+        res.lastInterval = ctrl.getStatistics().getLastInterval();
+        return res;
+    }
+
+    static final int NO_AUDIO = Integer.MIN_VALUE;
+    static final int NO_STALL = Integer.MAX_VALUE;
+
+    @Test
+    public void test01InSync() {
+        final DefaultAVSyncController ctrl = new DefaultAVSyncController();
+        final Result r = simulate(ctrl, 10, NO_STALL, 0, NO_AUDIO);
+        final AVSyncStatistics stats = ctrl.getStatistics();
+        System.err.println("InSync: "+ctrl);
+        Assert.assertEquals(0, stats.getTotalDropCount());
+        Assert.assertTrue(stats.getTotalRepeatCount() > 0); // 24 fps on 60 Hz
+        Assert.assertEquals(stats.getTotalPresentCount(), r.presented);
+        Assert.assertNotNull(r.lastInterval);
+        Assert.assertEquals(24, r.lastInterval.presentCount, 1);
+        Assert.assertEquals(refreshRate, r.lastInterval.presentCount + r.lastInterval.repeatCount, 1);
+        Assert.assertEquals(0, r.lastInterval.dropCount);
+        Assert.assertTrue(r.maxAbsDriftLastSecond <= framePeriod);
+    }
+
+    @Test
+    public void test02StallDrops() {
+        final DefaultAVSyncController ctrl = new DefaultAVSyncController();
+        final Result r = simulate(ctrl, 10, 3000, 500, NO_AUDIO);
+        System.err.println("Stall: "+ctrl+", catchUp "+r.catchUpMillis+" ms");
+        Assert.assertTrue(ctrl.getStatistics().getTotalDropCount() > 0);
+        Assert.assertEquals("caught up", 0, r.lastInterval.dropCount);
+        Assert.assertTrue(0 <= r.catchUpMillis);
+        Assert.assertTrue(r.maxAbsDriftLastSecond <= framePeriod);
+
+        // w/o dropping, video catches up only by presenting each frame once
+        final DefaultAVSyncController ctrl2 = new DefaultAVSyncController();
+        ctrl2.setMaxConsecutiveDrops(0);
+        final Result r2 = simulate(ctrl2, 10, 3000, 500, NO_AUDIO);
+        System.err.println("Stall w/o drops: "+ctrl2+", catchUp "+r2.catchUpMillis+" ms");
+        Assert.assertEquals(0, ctrl2.getStatistics().getTotalDropCount());
+        Assert.assertTrue(r2.catchUpMillis > r.catchUpMillis);
+    }
+
+    @Test
+    public void test03AudioMaster() {
+        final int audioLag = 300;
+        final DefaultAVSyncController ctrl = new DefaultAVSyncController();
+        ctrl.setAudioMaster(true);
+        final Result r = simulate(ctrl, 10, NO_STALL, 0, audioLag);
+        System.err.println("AudioMaster: "+ctrl);
+        Assert.assertTrue("follows audio", r.maxAbsDriftLastSecond <= framePeriod);
+
+        // video clock only, ignores audio lag
+        final DefaultAVSyncController ctrl2 = new DefaultAVSyncController();
+        final Result r2 = simulate(ctrl2, 10, NO_STALL, 0, audioLag);
+        Assert.assertTrue(r2.maxAbsDriftLastSecond >= audioLag - framePeriod);
+    }
+
+    @Test
+    public void test04LatencyCompensation() {
+        final DefaultAVSyncController ctrl = new DefaultAVSyncController();
+        final Result r0 = simulate(ctrl, 10, NO_STALL, 0, NO_AUDIO);
+        ctrl.setLatencyCompensation(100);
+        final Result r1 = simulate(ctrl, 10, NO_STALL, 0, NO_AUDIO);
+        System.err.println("Latency: "+ctrl+", avg drift "+r0.avgDriftLastSecond+" -> "+r1.avgDriftLastSecond);
+        // frames are presented ahead by the latency
+        Assert.assertEquals(100, r1.avgDriftLastSecond - r0.avgDriftLastSecond, framePeriod);
+    }
+
+    @Test
+    public void test05Hysteresis() {
+        final DefaultAVSyncController ctrl0 = new DefaultAVSyncController();
+        simulate(ctrl0, 10, 3000, 500, NO_AUDIO);
+        final DefaultAVSyncController ctrl = new DefaultAVSyncController();
+        ctrl.setHysteresis(0.5f);
+        final Result r = simulate(ctrl, 10, 3000, 500, NO_AUDIO);
+        System.err.println("Hysteresis: "+ctrl+", catchUp "+r.catchUpMillis+" ms");
+        // keeps correcting until within the reduced threshold
+        Assert.assertTrue(ctrl.getStatistics().getTotalDropCount() >= ctrl0.getStatistics().getTotalDropCount());
+        Assert.assertTrue(0 <= r.catchUpMillis);
+        Assert.assertTrue(r.maxAbsDriftLastSecond <= 2 * framePeriod);
+    }
+
+    public static void main(String args[]) {
+        org.junit.runner.JUnitCore.main(TestAVSyncControllerNOUI.class.getName());
+    }
+}
@@ -0,0 +1,264 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ *
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+
+package com.jogamp.opengl.test.junit.jogl.util;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+
+import jogamp.opengl.util.av.AudioOutputChunk;
+import jogamp.opengl.util.av.AudioRingBuffer;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.FixMethodOrder;
+import org.junit.runners.MethodSorters;
+
+import com.jogamp.common.nio.Buffers;
+
+/**
+ * Tests {@link AudioRingBuffer} and {@link AudioOutputChunk} as used by the JavaSound audio sink, w/o any audio device.
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class TestAudioRingBufferNOUI {
+
+    static ByteBuffer createSequence(int start, int count) {
+        final ByteBuffer bb = Buffers.newDirectByteBuffer(count);
+        for(int i=0; i<count; i++) {
+            bb.put(i, (byte) ( start + i ));
+        }
+        return bb;
+    }
+
+    @Test
+    public void test01WrapAndCounter() {
+        final AudioRingBuffer ring = new AudioRingBuffer(100);
+        Assert.assertEquals(128, ring.capacity());
+        Assert.assertEquals(0, ring.getReadable());
+        Assert.assertEquals(128, ring.getWritable());
+
+        final byte[] dst = new byte[128];
+        Assert.assertEquals(0, ring.get(dst, 0, dst.length, 1));
+        Assert.assertEquals("no underrun before any data", 0, ring.getUnderrunCount());
+
+        // advance positions to force wrapping
+        Assert.assertEquals(100, ring.put(createSequence(0, 100), 100, 1));
+        Assert.assertEquals(100, ring.get(dst, 0, dst.length, 4));
+
+        final ByteBuffer src = createSequence(7, 60);
+        src.position(10);
+        Assert.assertEquals(50, ring.put(src, 50, 1));
+        Assert.assertEquals("source position changed", 10, src.position());
+        Assert.assertEquals(50, ring.getReadable());
+
+        // alignment
+        Assert.assertEquals(48, ring.get(dst, 0, dst.length, 4));
+        for(int i=0; i<48; i++) {
+            Assert.assertEquals((byte) ( 17 + i ), dst[i]);
+        }
+        Assert.assertEquals(0, ring.get(dst, 0, dst.length, 4));
+        Assert.assertEquals(1, ring.getUnderrunCount());
+        Assert.assertEquals(0, ring.get(dst, 0, dst.length, 4));
+        Assert.assertEquals("underrun counted once", 1, ring.getUnderrunCount());
+
+        // overrun
+        Assert.assertEquals(126, ring.put(createSequence(0, 200), 200, 1));
+        Assert.assertEquals(1, ring.getOverrunCount());
+        Assert.assertEquals(0, ring.getWritable());
+        ring.clear();
+        Assert.assertEquals(0, ring.getReadable());
+        ring.resetCounter();
+        Assert.assertEquals(0, ring.getOverrunCount());
+        Assert.assertEquals(0, ring.getUnderrunCount());
+    }
+
+    @Test
+    public void test03FrameAlignedPutAndClear() {
+        final AudioRingBuffer ring = new AudioRingBuffer(64);
+        final byte[] dst = new byte[64];
+
+        // partial frames are not written
+        Assert.assertEquals(8, ring.put(createSequence(0, 10), 10, 4));
+        Assert.assertEquals(0, ring.getOverrunCount());
+        Assert.assertEquals(56, ring.put(createSequence(0, 60), 60, 4));
+        Assert.assertEquals("overrun", 1, ring.getOverrunCount());
+        Assert.assertEquals(64, ring.getReadable());
+        Assert.assertEquals(0, ring.getReadable() % 4);
+        ring.clear();
+
+        // clearing up to a write position keeps the data written afterwards
+        Assert.assertEquals(16, ring.put(createSequence(0, 16), 16, 4));
+        final long pos = ring.getWritePosition();
+        Assert.assertEquals(8, ring.put(createSequence(100, 8), 8, 4));
+        ring.clear(pos);
+        Assert.assertEquals(8, ring.getReadable());
+        Assert.assertEquals(8, ring.get(dst, 0, dst.length, 4));
+        for(int i=0; i<8; i++) {
+            Assert.assertEquals((byte) ( 100 + i ), dst[i]);
+        }
+        ring.clear(pos);
+        Assert.assertEquals(0, ring.getReadable());
+    }
+
+    /** Simulated audio line, accepting at most <code>space</code> bytes, i.e. full if paused. */
+    static class LineOutput implements AudioOutputChunk.Output {
+        final ByteArrayOutputStream written = new ByteArrayOutputStream();
+        boolean writable = true;
+        int space = Integer.MAX_VALUE;
+        int writeCalls = 0;
+
+        @Override
+        public boolean isWritable() { return writable; }
+
+        @Override
+        public int write(byte[] b, int off, int len) {
+            writeCalls++;
+            final int n = Math.min(24, Math.min(len, space)); // partial writes
+            written.write(b, off, n);
+            space -= n;
+            return n;
+        }
+    }
+
+    @Test
+    public void test04PauseKeepsPendingChunk() {
+        final AudioRingBuffer ring = new AudioRingBuffer(256);
+        final AudioOutputChunk chunk = new AudioOutputChunk(64);
+        final LineOutput out = new LineOutput();
+        Assert.assertEquals(200, ring.put(createSequence(0, 200), 200, 4));
+
+        // playing
+        Assert.assertEquals(64, chunk.fill(ring, 4));
+        Assert.assertTrue(chunk.write(out));
+        Assert.assertEquals(0, chunk.getPending());
+
+        // paused mid-chunk: the stopped line accepts 40 bytes, then returns 0 w/o spinning
+        Assert.assertEquals(64, chunk.fill(ring, 4));
+        out.space = 40;
+        Assert.assertFalse(chunk.write(out));
+        Assert.assertEquals(24, chunk.getPending());
+        Assert.assertEquals(64+40, out.written.size());
+        Assert.assertEquals(3+3, out.writeCalls);
+
+        // paused: nothing is written, the remainder is kept and no new samples are taken
+        out.writable = false;
+        Assert.assertFalse(chunk.write(out));
+        Assert.assertEquals(3+3, out.writeCalls);
+        Assert.assertEquals(24, chunk.fill(ring, 4));
+        Assert.assertEquals(72, ring.getReadable());
+
+        // resumed: remainder first, then the rest
+        out.writable = true;
+        out.space = Integer.MAX_VALUE;
+        Assert.assertTrue(chunk.write(out));
+        while( 0 < chunk.fill(ring, 4) ) {
+            Assert.assertTrue(chunk.write(out));
+        }
+        final byte[] res = out.written.toByteArray();
+        Assert.assertEquals(200, res.length);
+        for(int i=0; i<res.length; i++) {
+            Assert.assertEquals("at "+i, (byte) i, res[i]);
+        }
+
+        // flush drops the remainder
+        Assert.assertEquals(8, ring.put(createSequence(0, 8), 8, 4));
+        Assert.assertEquals(8, chunk.fill(ring, 4));
+        out.space = 4;
+        Assert.assertFalse(chunk.write(out));
+        Assert.assertEquals(4, chunk.getPending());
+        chunk.clear();
+        Assert.assertEquals(0, chunk.getPending());
+        Assert.assertEquals(0, chunk.fill(ring, 4));
+    }
+
+    @Test
+    public void test02ProducerConsumer() throws InterruptedException {
+        final int total = 1 << 22;
+        final int frameSize = 4;
+        final AudioRingBuffer ring = new AudioRingBuffer(4096);
+        final Throwable[] error = { null };
+
+        final Thread producer = new Thread("Producer") {
+            @Override
+            public void run() {
+                int written = 0;
+                int chunk = frameSize;
+                while( written < total ) {
+                    final int n = Math.min(chunk, total - written);
+                    final ByteBuffer bb = createSequence(written, n);
+                    int done = 0;
+                    while( done < n ) {
+                        bb.position(done);
+                        done += ring.put(bb, Math.min(n - done, ring.getWritable()), frameSize);
+                        if( done < n ) {
+                            Thread.yield();
+                        }
+                    }
+                    written += n;
+                    chunk = frameSize * ( 1 + ( ( chunk / frameSize ) * 7 ) % 500 );
+                }
+            }
+        };
+        final Thread consumer = new Thread("Consumer") {
+            @Override
+            public void run() {
+                final byte[] dst = new byte[1000];
+                int read = 0;
+                try {
+                    while( read < total ) {
+                        final int n = ring.get(dst, 0, dst.length, frameSize);
+                        for(int i=0; i<n; i++) {
+                            Assert.assertEquals("at "+(read+i), (byte) ( read + i ), dst[i]);
+                        }
+                        read += n;
+                        if( 0 == n ) {
+                            Thread.yield();
+                        }
+                    }
+                } catch (Throwable t) {
+                    error[0] = t;
+                }
+            }
+        };
+        consumer.start();
+        producer.start();
+        producer.join();
+        consumer.join(60000);
+        if( null != error[0] ) {
+            throw new AssertionError(error[0]);
+        }
+        Assert.assertFalse(consumer.isAlive());
+        Assert.assertEquals(0, ring.getReadable());
+        Assert.assertEquals(0, ring.getOverrunCount());
+        System.err.println("Final: "+ring);
+    }
+
+    public static void main(String args[]) {
+        org.junit.runner.JUnitCore.main(TestAudioRingBufferNOUI.class.getName());
+    }
+}
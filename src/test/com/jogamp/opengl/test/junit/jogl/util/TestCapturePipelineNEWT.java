@@ -0,0 +1,183 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ *
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+
+package com.jogamp.opengl.test.junit.jogl.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.FloatBuffer;
+
+import javax.media.opengl.GL;
+import javax.media.opengl.GLAutoDrawable;
+import javax.media.opengl.GLCapabilities;
+import javax.media.opengl.GLContext;
+import javax.media.opengl.GLDrawableFactory;
+import javax.media.opengl.GLPipelineFactory;
+import javax.media.opengl.GLProfile;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.FixMethodOrder;
+import org.junit.runners.MethodSorters;
+
+import com.jogamp.common.nio.Buffers;
+import com.jogamp.opengl.test.junit.util.UITestCase;
+import com.jogamp.opengl.util.GLCallCaptureReader;
+import com.jogamp.opengl.util.GLCallCaptureWriter;
+
+/**
+ * Round trip of the generated <code>Capture</code> composable pipeline created via {@link GLPipelineFactory}:
+ * The calls are captured, replayed via the generated <code>replayDispatcher</code> into a second capture
+ * on a fresh context and the {@link GLCallCaptureReader#dump(PrintStream, boolean) dumps} of both captures are compared.
+ * <p>
+ * The pipeline is only generated if requested at build time, see ant target <code>junit.run.pipelines</code>,
+ * otherwise this test is skipped unless property <code>jogl.test.pipelines</code> is set.
+ * </p>
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class TestCapturePipelineNEWT extends UITestCase {
+    static final String PIPELINE = "javax.media.opengl.Capture";
+
+    static GLProfile glp;
+
+    @BeforeClass
+    public static void initClass() {
+        final boolean required = Boolean.getBoolean("jogl.test.pipelines");
+        if( !TestProfilePipelineNEWT.isPipelineGenerated(PIPELINE) ) {
+            Assert.assertFalse("Pipeline "+PIPELINE+" not generated", required);
+            System.err.println("Pipeline "+PIPELINE+" not generated, see jogl.pipeline.gen.opt");
+            setTestSupported(false);
+        } else if( GLProfile.isAvailable(GLProfile.GL2ES2) ) {
+            glp = GLProfile.get(GLProfile.GL2ES2);
+        } else {
+            setTestSupported(false);
+        }
+    }
+
+    static GLAutoDrawable createDrawable() {
+        final GLAutoDrawable glad = GLDrawableFactory.getFactory(glp).createOffscreenAutoDrawable(null, new GLCapabilities(glp), null, 64, 64);
+        glad.display();
+        return glad;
+    }
+
+    static String dump(File file) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final PrintStream out = new PrintStream(bytes);
+        new GLCallCaptureReader(file).dump(out, true);
+        out.flush();
+        return bytes.toString();
+    }
+
+    /** Issues a few frames of calls w/ primitive, array and client buffer arguments. */
+    static void render(GL gl, GLCallCaptureWriter capture) {
+        final int[] names = new int[1];
+        gl.glGenBuffers(1, names, 0);
+        final FloatBuffer data = Buffers.newDirectFloatBuffer(new float[] { 1f, 2f, 3f, 4f, 5f, 6f, 7f, 8f });
+        for(int f=0; f<3; f++) {
+            gl.glViewport(0, 0, 64 - f, 64);
+            gl.glClearColor(0.25f * f, 0.5f, 0.75f, 1f);
+            gl.glClear(GL.GL_COLOR_BUFFER_BIT);
+            gl.glBindBuffer(GL.GL_ARRAY_BUFFER, names[0]);
+            gl.glBufferData(GL.GL_ARRAY_BUFFER, 8 * Buffers.SIZEOF_FLOAT, data, GL.GL_STREAM_DRAW);
+            data.put(0, f);
+            gl.glBufferSubData(GL.GL_ARRAY_BUFFER, 0, 4 * Buffers.SIZEOF_FLOAT, data);
+            gl.glBindBuffer(GL.GL_ARRAY_BUFFER, 0);
+            capture.frameDone();
+        }
+        gl.glDeleteBuffers(1, names, 0);
+    }
+
+    @Test
+    public void test01CaptureReplayRoundTrip() throws Exception {
+        final File file0 = File.createTempFile("TestCapturePipeline-", ".capture");
+        final File file1 = File.createTempFile("TestCapturePipeline-", ".capture");
+        file0.deleteOnExit();
+        file1.deleteOnExit();
+
+        // capture
+        final GLCallCaptureWriter capture0 = new GLCallCaptureWriter(file0, 1 << 20);
+        final GLCallCaptureReader.Dispatcher dispatcher;
+        {
+            final GLAutoDrawable glad = createDrawable();
+            final GLContext context = glad.getContext();
+            context.makeCurrent();
+            try {
+                final GL gl = GLPipelineFactory.create(PIPELINE, null, context.getGL(), new Object[] { capture0 });
+                Assert.assertTrue(gl.getClass().getName().startsWith(PIPELINE));
+                dispatcher = (GLCallCaptureReader.Dispatcher) gl.getClass().getField("replayDispatcher").get(null);
+                render(gl, capture0);
+                Assert.assertEquals(GL.GL_NO_ERROR, context.getGL().glGetError());
+            } finally {
+                context.release();
+                glad.destroy();
+            }
+            capture0.close();
+        }
+        Assert.assertEquals(3, capture0.getFrameCount());
+        Assert.assertEquals(0, capture0.getDroppedCount());
+        final String dump0 = dump(file0);
+        System.err.println(dump0);
+        Assert.assertTrue(dump0.contains("glClearColor("));
+        Assert.assertTrue(dump0.contains("glBufferSubData("));
+
+        // replay on a fresh context into a second capture
+        final GLCallCaptureReader reader = new GLCallCaptureReader(file0);
+        final GLCallCaptureWriter capture1 = new GLCallCaptureWriter(file1, 1 << 20);
+        {
+            final GLAutoDrawable glad = createDrawable();
+            final GLContext context = glad.getContext();
+            context.makeCurrent();
+            try {
+                final GL gl = GLPipelineFactory.create(PIPELINE, null, context.getGL(), new Object[] { capture1 });
+                final long calls = reader.replay(dispatcher, gl);
+                Assert.assertEquals(0, reader.getSkippedCount());
+                Assert.assertEquals(reader.getRecordCount() - 3, calls); // w/o frame markers
+                Assert.assertEquals(GL.GL_NO_ERROR, context.getGL().glGetError());
+
+                // last frame's clear color has been replayed
+                final float[] clearColor = new float[4];
+                context.getGL().glGetFloatv(GL.GL_COLOR_CLEAR_VALUE, clearColor, 0);
+                Assert.assertArrayEquals(new float[] { 0.5f, 0.5f, 0.75f, 1f }, clearColor, 0.01f);
+            } finally {
+                context.release();
+                glad.destroy();
+            }
+            capture1.close();
+        }
+        // frame markers are not replayed
+        final String dump1 = dump(file1);
+        Assert.assertEquals(dump0.replaceAll("-- frame [0-9]+ --\\r?\\n", ""), dump1);
+    }
+
+    public static void main(String args[]) throws IOException {
+        org.junit.runner.JUnitCore.main(TestCapturePipelineNEWT.class.getName());
+    }
+}
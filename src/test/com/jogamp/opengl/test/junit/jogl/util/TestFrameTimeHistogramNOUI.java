@@ -0,0 +1,155 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ *
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+
+package com.jogamp.opengl.test.junit.jogl.util;
+
+import java.io.IOException;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.FixMethodOrder;
+import org.junit.runners.MethodSorters;
+
+import com.jogamp.opengl.util.FrameTimeHistogram;
+import com.jogamp.opengl.util.FrameTimeRecorder;
+
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class TestFrameTimeHistogramNOUI {
+
+    @Test
+    public void test01BucketIndex() {
+        int lastIdx = -1;
+        for(long v = 0; v < 1L << 20; v += 1 + ( v >>> 4 ) ) {
+            final int idx = FrameTimeHistogram.getBucketIndex(v);
+            Assert.assertTrue("Index not monotonic at "+v, idx >= lastIdx);
+            Assert.assertTrue(FrameTimeHistogram.getBucketLowestValue(idx) <= v);
+            Assert.assertTrue(FrameTimeHistogram.getBucketHighestValue(idx) >= v);
+            lastIdx = idx;
+        }
+        Assert.assertEquals(0, FrameTimeHistogram.getBucketIndex(-1));
+        Assert.assertEquals(FrameTimeHistogram.BUCKET_COUNT-1, FrameTimeHistogram.getBucketIndex(Long.MAX_VALUE));
+        Assert.assertEquals(FrameTimeHistogram.BUCKET_COUNT-1, FrameTimeHistogram.getBucketIndex(FrameTimeHistogram.MAX_VALUE));
+    }
+
+    @Test
+    public void test02RelativeError() {
+        final long[] values = new long[] { 1000, 16666666, 33333333, 123456789, 1000000000L };
+        for(int i=0; i<values.length; i++) {
+            final int idx = FrameTimeHistogram.getBucketIndex(values[i]);
+            final long hi = FrameTimeHistogram.getBucketHighestValue(idx);
+            final long lo = FrameTimeHistogram.getBucketLowestValue(idx);
+            Assert.assertTrue( (double)( hi - lo ) / (double)lo <= 1.0 / FrameTimeHistogram.SUB_BUCKET_COUNT );
+        }
+    }
+
+    @Test
+    public void test03Percentiles() {
+        final FrameTimeHistogram h = new FrameTimeHistogram();
+        Assert.assertEquals(0, h.getValueAtPercentile(50.0));
+        // 990 frames @ 16ms, 9 frames @ 50ms and 1 frame @ 200ms
+        for(int i=0; i<990; i++) { h.record(16000000L); }
+        for(int i=0; i<9; i++) { h.record(50000000L); }
+        h.record(200000000L);
+        Assert.assertEquals(1000, h.getTotalCount());
+        Assert.assertEquals(16000000L, h.getMinValue());
+        Assert.assertEquals(200000000L, h.getMaxValue());
+        assertNear(16000000L, h.getValueAtPercentile(50.0));
+        assertNear(16000000L, h.getValueAtPercentile(99.0));
+        assertNear(50000000L, h.getValueAtPercentile(99.9));
+        assertNear(200000000L, h.getValueAtPercentile(100.0));
+        System.err.println(h);
+
+        final long[] counts = new long[FrameTimeHistogram.BUCKET_COUNT];
+        Assert.assertEquals(1000, h.copyBucketCounts(counts));
+
+        h.reset();
+        Assert.assertEquals(0, h.getTotalCount());
+        Assert.assertEquals(0, h.getMaxValue());
+        Assert.assertEquals(0, h.getMinValue());
+    }
+
+    @Test
+    public void test04ConcurrentRecord() throws InterruptedException {
+        final FrameTimeHistogram h = new FrameTimeHistogram();
+        final int threadCount = 4;
+        final int loops = 100000;
+        final Thread[] threads = new Thread[threadCount];
+        for(int i=0; i<threadCount; i++) {
+            final long value = ( i + 1 ) * 1000000L;
+            threads[i] = new Thread(new Runnable() {
+                public void run() {
+                    for(int j=0; j<loops; j++) {
+                        h.record(value);
+                    }
+                } }, "Recorder-"+i);
+            threads[i].start();
+        }
+        for(int i=0; i<threadCount; i++) {
+            threads[i].join();
+        }
+        Assert.assertEquals(threadCount*loops, h.getTotalCount());
+        Assert.assertEquals(1000000L, h.getMinValue());
+        Assert.assertEquals(threadCount*1000000L, h.getMaxValue());
+    }
+
+    @Test
+    public void test05RecorderExport() {
+        final FrameTimeRecorder r = new FrameTimeRecorder();
+        final int[] exports = new int[] { 0, 0 };
+        r.setExporter(new FrameTimeRecorder.Exporter() {
+            public void export(FrameTimeRecorder recorder, int frameCount) {
+                exports[0]++;
+                exports[1] += frameCount;
+            } }, 10, false);
+        long t = 1000000000L;
+        for(int i=0; i<100; i++) {
+            r.recordPhase(FrameTimeRecorder.PHASE_LISTENER, 5000000L);
+            r.recordPhase(FrameTimeRecorder.PHASE_SWAP, 1000000L);
+            r.recordPhase(FrameTimeRecorder.PHASE_DISPLAY, 7000000L);
+            t += 16000000L;
+            r.frameDone(t);
+        }
+        Assert.assertEquals(10, exports[0]);
+        Assert.assertEquals(100, exports[1]);
+        Assert.assertEquals(100, r.getFrameCount());
+        Assert.assertEquals(99, r.getHistogram(FrameTimeRecorder.PHASE_FRAME).getTotalCount());
+        assertNear(16000000L, r.getValueAtPercentile(FrameTimeRecorder.PHASE_FRAME, 99.0));
+        assertNear(5000000L, r.getValueAtPercentile(FrameTimeRecorder.PHASE_LISTENER, 50.0));
+        Assert.assertEquals(0, r.getHistogram(FrameTimeRecorder.PHASE_RUNNABLES).getTotalCount());
+        System.err.println(r);
+    }
+
+    private static void assertNear(long expected, long has) {
+        final double err = Math.abs( (double)( has - expected ) / (double) expected );
+        Assert.assertTrue("Expected "+expected+", has "+has, err <= 1.0 / FrameTimeHistogram.SUB_BUCKET_COUNT);
+    }
+
+    public static void main(String args[]) throws IOException {
+        org.junit.runner.JUnitCore.main(TestFrameTimeHistogramNOUI.class.getName());
+    }
+}
@@ -0,0 +1,212 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ *
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+
+package com.jogamp.opengl.test.junit.jogl.util;
+
+import java.io.IOException;
+import java.nio.FloatBuffer;
+
+import javax.media.opengl.GL;
+import javax.media.opengl.GL2ES2;
+import javax.media.opengl.GLCapabilities;
+import javax.media.opengl.GLContext;
+import javax.media.opengl.GLProfile;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.FixMethodOrder;
+import org.junit.runners.MethodSorters;
+
+import com.jogamp.common.nio.Buffers;
+import com.jogamp.newt.opengl.GLWindow;
+import com.jogamp.opengl.test.junit.util.UITestCase;
+import com.jogamp.opengl.util.GLArrayDataServer;
+import com.jogamp.opengl.util.GLBufferStreamArena;
+
+/**
+ * Tests {@link GLBufferStreamArena} region allocation, wrap around and
+ * it's use by {@link GLArrayDataServer}.
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class TestGLBufferStreamArenaNEWT extends UITestCase {
+    static GLProfile glp;
+
+    @BeforeClass
+    public static void initClass() {
+        if(GLProfile.isAvailable(GLProfile.GL2ES2)) {
+            glp = GLProfile.get(GLProfile.GL2ES2);
+            Assert.assertNotNull(glp);
+        } else {
+            setTestSupported(false);
+        }
+    }
+
+    static GLWindow createWindow() {
+        final GLWindow window = GLWindow.create(new GLCapabilities(glp));
+        Assert.assertNotNull(window);
+        window.setSize(64, 64);
+        window.setVisible(true);
+        window.display();
+        Assert.assertTrue(window.isRealized());
+        return window;
+    }
+
+    @Test
+    public void test01Arena() {
+        final GLWindow window = createWindow();
+        final GLContext context = window.getContext();
+        context.makeCurrent();
+        try {
+            final GL gl = context.getGL();
+            final int capacity = 1024;
+            final GLBufferStreamArena arena = new GLBufferStreamArena(capacity, GL.GL_ARRAY_BUFFER);
+            arena.init(gl);
+            Assert.assertTrue(0 != arena.getVBOName());
+
+            final FloatBuffer data = Buffers.newDirectFloatBuffer(25); // 100 bytes
+            long lastOffset = -1;
+            int wraps = 0;
+            for(int frame=0; frame<20; frame++) {
+                for(int i=0; i<3; i++) {
+                    final long offset = arena.write(gl, data, 100);
+                    Assert.assertEquals(0, offset % GLBufferStreamArena.ALIGNMENT);
+                    Assert.assertTrue(offset + 100 <= capacity);
+                    if( offset <= lastOffset ) {
+                        wraps++;
+                    }
+                    lastOffset = offset;
+                }
+                arena.frameDone(gl);
+            }
+            Assert.assertEquals(0, data.position());
+            Assert.assertEquals(25, data.limit());
+            Assert.assertEquals(20*3*100, arena.getBytesWritten());
+            Assert.assertTrue(0 < wraps);
+
+            // grow
+            final FloatBuffer big = Buffers.newDirectFloatBuffer(512); // 2048 bytes
+            Assert.assertEquals(0, arena.write(gl, big, 2048));
+            Assert.assertTrue(2048 <= arena.getCapacity());
+            Assert.assertEquals(GL.GL_NO_ERROR, gl.glGetError());
+            System.err.println(arena);
+
+            arena.destroy(gl);
+            Assert.assertEquals(0, arena.getVBOName());
+        } finally {
+            context.release();
+            window.destroy();
+        }
+    }
+
+    @Test
+    public void test02ArrayDataServer() {
+        final GLWindow window = createWindow();
+        final GLContext context = window.getContext();
+        context.makeCurrent();
+        try {
+            final GL2ES2 gl = context.getGL().getGL2ES2();
+            final GLBufferStreamArena arena = new GLBufferStreamArena(4096, GL.GL_ARRAY_BUFFER);
+            final GLArrayDataServer vertices = GLArrayDataServer.createGLSL("mgl_Vertex", 3, GL.GL_FLOAT, false, 4, GL2ES2.GL_STREAM_DRAW);
+            vertices.setStreamArena(arena);
+
+            long lastOffset = -1;
+            for(int frame=0; frame<4; frame++) {
+                vertices.reset();
+                for(int i=0; i<4; i++) {
+                    vertices.putf(i); vertices.putf(frame); vertices.putf(0f);
+                }
+                vertices.seal(true);
+                Assert.assertTrue(vertices.bindBuffer(gl, true));
+                Assert.assertEquals(arena.getVBOName(), vertices.getVBOName());
+                Assert.assertTrue(vertices.isVBOWritten());
+                Assert.assertTrue(lastOffset < vertices.getVBOOffset());
+                lastOffset = vertices.getVBOOffset();
+                vertices.bindBuffer(gl, false);
+                arena.frameDone(gl);
+            }
+            Assert.assertEquals(GL.GL_NO_ERROR, gl.glGetError());
+
+            vertices.destroy(gl);
+            Assert.assertTrue(0 != arena.getVBOName()); // owned by arena
+            arena.destroy(gl);
+        } finally {
+            context.release();
+            window.destroy();
+        }
+    }
+
+    @Test
+    public void test03FrameRegionsKept() {
+        final GLWindow window = createWindow();
+        final GLContext context = window.getContext();
+        context.makeCurrent();
+        try {
+            final GL gl = context.getGL();
+            final GLBufferStreamArena arena = new GLBufferStreamArena(1024, GL.GL_ARRAY_BUFFER);
+            arena.init(gl);
+            final FloatBuffer data = Buffers.newDirectFloatBuffer(100); // 400 bytes
+
+            // previous frame
+            arena.write(gl, data, 400);
+            final long oldRegion = arena.getLastRegionId();
+            arena.frameDone(gl);
+            Assert.assertTrue(arena.isRegionValid(oldRegion));
+
+            // current frame exceeds the capacity, it's regions must not be overwritten
+            final long[] offsets = new long[4];
+            final long[] regions = new long[4];
+            for(int i=0; i<offsets.length; i++) {
+                offsets[i] = arena.write(gl, data, 400);
+                regions[i] = arena.getLastRegionId();
+            }
+            for(int i=0; i<offsets.length; i++) {
+                Assert.assertTrue(arena.isRegionValid(regions[i]));
+                for(int j=i+1; j<offsets.length; j++) {
+                    Assert.assertTrue(offsets[i] + 400 <= offsets[j] || offsets[j] + 400 <= offsets[i]);
+                }
+                Assert.assertTrue(offsets[i] + 400 <= arena.getCapacity());
+            }
+            Assert.assertTrue(1024 < arena.getCapacity());
+            // previous frame's region has been overwritten or orphaned
+            Assert.assertFalse(arena.isRegionValid(oldRegion));
+            arena.frameDone(gl);
+            Assert.assertEquals(GL.GL_NO_ERROR, gl.glGetError());
+
+            arena.destroy(gl);
+            Assert.assertFalse(arena.isRegionValid(regions[0]));
+        } finally {
+            context.release();
+            window.destroy();
+        }
+    }
+
+    public static void main(String args[]) throws IOException {
+        org.junit.runner.JUnitCore.main(TestGLBufferStreamArenaNEWT.class.getName());
+    }
+}
@@ -0,0 +1,218 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ *
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+
+package com.jogamp.opengl.test.junit.jogl.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+
+import javax.media.opengl.GL;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.FixMethodOrder;
+import org.junit.runners.MethodSorters;
+
+import com.jogamp.opengl.util.GLCallCaptureReader;
+import com.jogamp.opengl.util.GLCallCaptureWriter;
+
+/**
+ * Tests {@link GLCallCaptureWriter} and {@link GLCallCaptureReader} w/o a GL implementation,
+ * using a hand written {@link GLCallCaptureReader.Dispatcher} equivalent to the generated one.
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class TestGLCallCaptureNOUI {
+    static final String[] signatures = new String[] {
+        "glClearColor(float,float,float,float)",
+        "glBufferData(int,long,java.nio.Buffer,int)",
+        "glUniform4fv(int,int,float[],int)",
+        "glShaderSource(int,int,java.lang.String[],java.nio.IntBuffer)",
+        "glFoo(java.lang.Object)"
+    };
+
+    /** Records decoded calls as strings. */
+    static class RecordingDispatcher implements GLCallCaptureReader.Dispatcher {
+        final String[] sigs;
+        final ArrayList<String> calls = new ArrayList<String>();
+
+        RecordingDispatcher(String[] sigs) { this.sigs = sigs; }
+
+        @Override
+        public String[] getSignatures() { return sigs; }
+
+        @Override
+        public boolean dispatch(GL gl, int idx, GLCallCaptureReader in) {
+            final String name = sigs[idx].substring(0, sigs[idx].indexOf('('));
+            if( name.equals("glClearColor") ) {
+                calls.add(name+" "+in.getFloat()+" "+in.getFloat()+" "+in.getFloat()+" "+in.getFloat());
+            } else if( name.equals("glBufferData") ) {
+                final int target = in.getInt();
+                final long size = in.getLong();
+                final ByteBuffer data = (ByteBuffer) in.getBuffer();
+                final int usage = in.getInt();
+                Assert.assertTrue(data.isDirect());
+                calls.add(name+" "+target+" "+size+" "+data.remaining()+" "+data.get(0)+" "+data.get(data.limit()-1)+" "+usage);
+            } else if( name.equals("glUniform4fv") ) {
+                final int loc = in.getInt();
+                final int count = in.getInt();
+                final float[] v = in.getFloatArray();
+                final int off = in.getInt();
+                calls.add(name+" "+loc+" "+count+" "+v.length+" "+v[off]+" "+off);
+            } else if( name.equals("glShaderSource") ) {
+                final int shader = in.getInt();
+                final int count = in.getInt();
+                final String[] src = in.getStringArray();
+                final IntBuffer len = (IntBuffer) in.getBuffer();
+                calls.add(name+" "+shader+" "+count+" "+src[0]+"|"+src[1]+" "+len);
+            } else {
+                return false;
+            }
+            return true;
+        }
+    }
+
+    static File createTempFile() throws IOException {
+        final File f = File.createTempFile("glcapture", ".bin");
+        f.deleteOnExit();
+        return f;
+    }
+
+    @Test
+    public void test01RoundTrip() throws IOException {
+        final File file = createTempFile();
+        final GLCallCaptureWriter w = new GLCallCaptureWriter(file, 64*1024);
+        w.setSignatures(signatures);
+        w.setSignatures(signatures.clone()); // same interface, e.g. 2nd pipeline
+
+        w.begin(0); w.putFloat(0.25f); w.putFloat(0.5f); w.putFloat(0.75f); w.putFloat(1f); w.end();
+
+        final ByteBuffer data = ByteBuffer.allocateDirect(1000);
+        for(int i=0; i<data.capacity(); i++) {
+            data.put(i, (byte)i);
+        }
+        data.position(10); // remaining content only
+        w.begin(1); w.putInt(0x8892); w.putLong(990); w.putBuffer(data); w.putInt(0x88E4); w.end();
+        Assert.assertEquals(10, data.position());
+
+        final float[] v = new float[] { 0f, 1f, 2f, 3f, 4f, 5f, 6f, 7f };
+        w.begin(2); w.putInt(3); w.putInt(1); w.putArray(v); w.putInt(4); w.end();
+        w.frameDone();
+
+        w.begin(3); w.putInt(7); w.putInt(2); w.putStringArray(new String[] { "void main()", "{ }" }); w.putBuffer((IntBuffer)null); w.end();
+        w.begin(4); w.end(); // arguments not captured
+        w.frameDone();
+        Assert.assertEquals(7, w.getRecordCount());
+        Assert.assertEquals(2, w.getFrameCount());
+        w.close();
+
+        final GLCallCaptureReader r = new GLCallCaptureReader(file);
+        Assert.assertArrayEquals(signatures, r.getSignatures());
+        Assert.assertEquals(7, r.getRecordCount());
+
+        final RecordingDispatcher d = new RecordingDispatcher(signatures);
+        Assert.assertEquals(4, r.replay(d, null));
+        Assert.assertEquals(1, r.getSkippedCount());
+        Assert.assertEquals(4, d.calls.size());
+        Assert.assertEquals("glClearColor 0.25 0.5 0.75 1.0", d.calls.get(0));
+        Assert.assertEquals("glBufferData 34962 990 990 10 -25 35044", d.calls.get(1));
+        Assert.assertEquals("glUniform4fv 3 1 8 4.0 4", d.calls.get(2));
+        Assert.assertEquals("glShaderSource 7 2 void main()|{ } null", d.calls.get(3));
+    }
+
+    @Test
+    public void test02RingKeepsLatest() throws IOException {
+        final File file = createTempFile();
+        final GLCallCaptureWriter w = new GLCallCaptureWriter(file, 4096);
+        w.setSignatures(signatures);
+        final FloatBuffer fb = FloatBuffer.allocate(1);
+        final int n = 1000;
+        for(int i=0; i<n; i++) {
+            // variable record sizes to exercise the wrap around w/ terminator
+            w.begin(2); w.putInt(i); w.putInt(1); w.putArray(new float[1 + i % 7]); w.putInt(0); w.end();
+            if( 0 == i % 10 ) {
+                w.begin(1); w.putInt(i); w.putLong(4); w.putBuffer(fb); w.putInt(0); w.end();
+            }
+        }
+        // too large for the ring, dropped
+        w.begin(1); w.putInt(-1); w.putLong(0); w.putBuffer(ByteBuffer.allocate(4096)); w.putInt(0); w.end();
+        Assert.assertEquals(1, w.getDroppedCount());
+        w.close();
+
+        final GLCallCaptureReader r = new GLCallCaptureReader(file);
+        Assert.assertTrue(0 < r.getRecordCount() && r.getRecordCount() < n);
+
+        final String[] uniformOnly = new String[] { signatures[2] };
+        final RecordingDispatcher d = new RecordingDispatcher(uniformOnly);
+        r.replay(d, null);
+        Assert.assertTrue(0 < r.getSkippedCount());
+        // consecutive locations up to the last one
+        int last = -1;
+        for(int i=0; i<d.calls.size(); i++) {
+            final int loc = Integer.parseInt(d.calls.get(i).split(" ")[1]);
+            if( 0 <= last ) {
+                Assert.assertEquals(last+1, loc);
+            }
+            last = loc;
+        }
+        Assert.assertEquals(n-1, last);
+    }
+
+    @Test
+    public void test03Dump() throws IOException {
+        final File file = createTempFile();
+        final GLCallCaptureWriter w = new GLCallCaptureWriter(file, 4096);
+        w.setSignatures(signatures);
+        w.begin(0); w.putFloat(0f); w.putFloat(0f); w.putFloat(0f); w.putFloat(1f); w.end();
+        w.frameDone();
+        w.begin(1); w.putInt(0x8892); w.putLong(16); w.putBuffer(ByteBuffer.allocate(16)); w.putInt(0x88E4); w.end();
+        w.begin(4); w.end();
+        w.close();
+
+        final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        final PrintStream out = new PrintStream(bos);
+        final GLCallCaptureReader r = new GLCallCaptureReader(file);
+        r.dump(out, true);
+        out.flush();
+        final String[] lines = bos.toString().split("\n");
+        Assert.assertEquals(4, lines.length);
+        Assert.assertEquals("glClearColor(0.0, 0.0, 0.0, 1.0)", lines[0].trim());
+        Assert.assertEquals("-- frame 0 --", lines[1].trim());
+        Assert.assertEquals("glBufferData(0x8892, 16, byte[16], 0x88e4)", lines[2].trim());
+        Assert.assertEquals("glFoo(java.lang.Object)", lines[3].trim());
+    }
+
+    public static void main(String args[]) throws IOException {
+        org.junit.runner.JUnitCore.main(TestGLCallCaptureNOUI.class.getName());
+    }
+}
@@ -0,0 +1,124 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ *
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+
+package com.jogamp.opengl.test.junit.jogl.util;
+
+import java.io.IOException;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.FixMethodOrder;
+import org.junit.runners.MethodSorters;
+
+import com.jogamp.opengl.util.GLCallStatistics;
+
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class TestGLCallStatisticsNOUI {
+    static final String[] names = new String[] { "glClear", "glDrawArrays", "glBufferSubData", "glUniform1f" };
+
+    static void call(GLCallStatistics stats, int idx, int count) {
+        for(int i=0; i<count; i++) {
+            stats.end(idx, stats.begin(idx));
+        }
+    }
+
+    @Test
+    public void test01CountsAndTopEntries() {
+        final GLCallStatistics stats = new GLCallStatistics(names);
+        Assert.assertEquals(names.length, stats.getEntryPointCount());
+        for(int f=0; f<4; f++) {
+            call(stats, 0, 1);
+            call(stats, 1, 10);
+            call(stats, 2, 2);
+            stats.addBytes(2, 1024);
+            stats.addBytes(2, 1024);
+            call(stats, 3, 50);
+            stats.frameDone();
+        }
+        Assert.assertEquals(4, stats.getFrameCount());
+        Assert.assertEquals(4*(1+10+2+50), stats.getTotalCallCount());
+        Assert.assertEquals(40, stats.getCallCount(1));
+        Assert.assertEquals(4*2048, stats.getBytes(2));
+
+        final GLCallStatistics.Entry[] byCalls = stats.getTopEntries(3, GLCallStatistics.BY_CALLS);
+        Assert.assertEquals(3, byCalls.length);
+        Assert.assertEquals("glUniform1f", byCalls[0].name);
+        Assert.assertEquals("glDrawArrays", byCalls[1].name);
+        Assert.assertEquals("glBufferSubData", byCalls[2].name);
+        Assert.assertEquals(50.0, byCalls[0].getCallsPerFrame(), 0.0);
+
+        final GLCallStatistics.Entry[] byBytes = stats.getTopEntries(1, GLCallStatistics.BY_BYTES);
+        Assert.assertEquals(1, byBytes.length);
+        Assert.assertEquals("glBufferSubData", byBytes[0].name);
+        Assert.assertEquals(2048.0, byBytes[0].getBytesPerFrame(), 0.0);
+
+        // more requested than called
+        Assert.assertEquals(4, stats.getTopEntries(10, GLCallStatistics.BY_TIME).length);
+        System.err.println(stats.toString(null, 4, GLCallStatistics.BY_CALLS));
+
+        stats.reset();
+        Assert.assertEquals(0, stats.getFrameCount());
+        Assert.assertEquals(0, stats.getTotalCallCount());
+        Assert.assertEquals(0, stats.getTopEntries(3, GLCallStatistics.BY_CALLS).length);
+    }
+
+    @Test
+    public void test02SampledTiming() throws InterruptedException {
+        final GLCallStatistics stats = new GLCallStatistics(names);
+        stats.setTimingSampleRate(4);
+        Assert.assertEquals(4, stats.getTimingSampleRate());
+        int timed = 0;
+        for(int i=0; i<16; i++) {
+            final long t0 = stats.begin(0);
+            if( 0 != t0 ) {
+                timed++;
+                Thread.sleep(1);
+            }
+            stats.end(0, t0);
+        }
+        Assert.assertEquals(4, timed);
+        // 4 sampled calls of >= 1ms extrapolated to 16 calls
+        Assert.assertTrue(stats.getEstimatedNanos(0) >= 16 * 1000000L);
+
+        stats.setTimingSampleRate(0);
+        for(int i=0; i<16; i++) {
+            Assert.assertEquals(0, stats.begin(1));
+        }
+        Assert.assertEquals(16, stats.getCallCount(1));
+        Assert.assertEquals(0, stats.getEstimatedNanos(1));
+
+        try {
+            stats.setTimingSampleRate(3);
+            Assert.fail("Non power of two rate accepted");
+        } catch (IllegalArgumentException iae) { }
+    }
+
+    public static void main(String args[]) throws IOException {
+        org.junit.runner.JUnitCore.main(TestGLCallStatisticsNOUI.class.getName());
+    }
+}
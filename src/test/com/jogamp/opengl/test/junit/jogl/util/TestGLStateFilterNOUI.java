@@ -0,0 +1,120 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ *
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+
+package com.jogamp.opengl.test.junit.jogl.util;
+
+import java.io.IOException;
+
+import javax.media.opengl.GL;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.FixMethodOrder;
+import org.junit.runners.MethodSorters;
+
+import com.jogamp.opengl.util.GLStateFilter;
+
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class TestGLStateFilterNOUI {
+
+    @Test
+    public void test01Bindings() {
+        final GLStateFilter f = new GLStateFilter();
+        // unknown initial state passes
+        Assert.assertFalse(f.filterActiveTexture(GL.GL_TEXTURE0));
+        Assert.assertTrue(f.filterActiveTexture(GL.GL_TEXTURE0));
+        Assert.assertFalse(f.filterBindTexture(GL.GL_TEXTURE_2D, 1));
+        Assert.assertTrue(f.filterBindTexture(GL.GL_TEXTURE_2D, 1));
+        // other target and unit are independent
+        Assert.assertFalse(f.filterBindTexture(GL.GL_TEXTURE_CUBE_MAP, 1));
+        Assert.assertFalse(f.filterActiveTexture(GL.GL_TEXTURE1));
+        Assert.assertFalse(f.filterBindTexture(GL.GL_TEXTURE_2D, 1));
+        Assert.assertFalse(f.filterActiveTexture(GL.GL_TEXTURE0));
+        Assert.assertTrue(f.filterBindTexture(GL.GL_TEXTURE_2D, 1));
+        // deleting textures reverts bindings
+        f.invalidateTextures();
+        Assert.assertFalse(f.filterBindTexture(GL.GL_TEXTURE_2D, 1));
+
+        Assert.assertFalse(f.filterUseProgram(3));
+        Assert.assertTrue(f.filterUseProgram(3));
+        Assert.assertFalse(f.filterUseProgram(0));
+
+        Assert.assertFalse(f.filterBindBuffer(GL.GL_ARRAY_BUFFER, 5));
+        Assert.assertTrue(f.filterBindBuffer(GL.GL_ARRAY_BUFFER, 5));
+        Assert.assertFalse(f.filterBindBuffer(GL.GL_ELEMENT_ARRAY_BUFFER, 6));
+        Assert.assertTrue(f.filterBindBuffer(GL.GL_ELEMENT_ARRAY_BUFFER, 6));
+        // element array binding is vertex array state, array buffer binding is not
+        Assert.assertFalse(f.filterBindVertexArray(2));
+        Assert.assertTrue(f.filterBindVertexArray(2));
+        Assert.assertFalse(f.filterBindBuffer(GL.GL_ELEMENT_ARRAY_BUFFER, 6));
+        Assert.assertTrue(f.filterBindBuffer(GL.GL_ARRAY_BUFFER, 5));
+
+        // unknown targets are never dropped
+        Assert.assertFalse(f.filterBindBuffer(0x1234, 1));
+        Assert.assertFalse(f.filterBindBuffer(0x1234, 1));
+
+        Assert.assertEquals(1, f.getEliminatedCount(GLStateFilter.ACTIVE_TEXTURE));
+        Assert.assertEquals(2, f.getEliminatedCount(GLStateFilter.BIND_TEXTURE));
+        Assert.assertEquals(1, f.getEliminatedCount(GLStateFilter.USE_PROGRAM));
+        Assert.assertEquals(3, f.getEliminatedCount(GLStateFilter.BIND_BUFFER));
+        Assert.assertEquals(1, f.getEliminatedCount(GLStateFilter.BIND_VERTEX_ARRAY));
+        Assert.assertEquals(8, f.getEliminatedCount());
+        Assert.assertEquals(15, f.getIssuedCount());
+        System.err.println(f);
+
+        f.resetCounter();
+        Assert.assertEquals(0, f.getEliminatedCount());
+        Assert.assertEquals(0, f.getIssuedCount());
+        Assert.assertTrue(f.filterUseProgram(0)); // state is kept
+    }
+
+    @Test
+    public void test02Caps() {
+        final GLStateFilter f = new GLStateFilter();
+        Assert.assertFalse(f.filterEnable(GL.GL_BLEND));
+        Assert.assertTrue(f.filterEnable(GL.GL_BLEND));
+        Assert.assertFalse(f.filterDisable(GL.GL_BLEND));
+        Assert.assertTrue(f.filterDisable(GL.GL_BLEND));
+        Assert.assertFalse(f.filterDisable(GL.GL_DEPTH_TEST));
+        Assert.assertTrue(f.filterDisable(GL.GL_DEPTH_TEST));
+        // texture unit dependent, e.g. GL_TEXTURE_2D, is not filtered
+        Assert.assertFalse(f.filterEnable(GL.GL_TEXTURE_2D));
+        Assert.assertFalse(f.filterEnable(GL.GL_TEXTURE_2D));
+        // indexed blend state modified
+        f.invalidateCap(GL.GL_BLEND);
+        Assert.assertFalse(f.filterDisable(GL.GL_BLEND));
+        Assert.assertTrue(f.filterDisable(GL.GL_DEPTH_TEST));
+        f.invalidate();
+        Assert.assertFalse(f.filterDisable(GL.GL_DEPTH_TEST));
+        Assert.assertEquals(4, f.getEliminatedCount(GLStateFilter.ENABLE));
+    }
+
+    public static void main(String args[]) throws IOException {
+        org.junit.runner.JUnitCore.main(TestGLStateFilterNOUI.class.getName());
+    }
+}
@@ -35,6 +35,7 @@ import javax.media.opengl.GLCapabilitiesImmutable;
 import javax.media.opengl.GLEventListener;
 import javax.media.opengl.GLProfile;
 
+import org.junit.Assert;
 import org.junit.Test;
 import org.junit.FixMethodOrder;
 import org.junit.runners.MethodSorters;
@@ -108,6 +109,16 @@ public class TestImmModeSinkES2NEWT extends UITestCase {
         doTest(reqGLCaps, new DemoGL2ES2ImmModeSink(true, true));
     }
         
+    @Test
+    public void test07ImmSinkGL2ES2_VBOOn_Batching() throws InterruptedException {
+        final GLCapabilities reqGLCaps = getCaps(GLProfile.GL2ES2);
+        if(null == reqGLCaps) return;
+        final DemoGL2ES2ImmModeSink demo = new DemoGL2ES2ImmModeSink(true, true);
+        demo.setBatching(true);
+        doTest(reqGLCaps, demo);
+        Assert.assertTrue("Element array buffer binding not checked", 0 < demo.getIndexBindingCheckCount());
+    }
+        
     public static void main(String args[]) throws IOException {
         for(int i=0; i<args.length; i++) {
             if(args[i].equals("-time")) {
@@ -0,0 +1,152 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ *
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+
+package com.jogamp.opengl.test.junit.jogl.util;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+
+import javax.media.opengl.GL;
+import javax.media.opengl.GLAutoDrawable;
+import javax.media.opengl.GLCapabilities;
+import javax.media.opengl.GLContext;
+import javax.media.opengl.GLDrawableFactory;
+import javax.media.opengl.GLPipelineFactory;
+import javax.media.opengl.GLProfile;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.FixMethodOrder;
+import org.junit.runners.MethodSorters;
+
+import com.jogamp.common.nio.Buffers;
+import com.jogamp.opengl.test.junit.util.UITestCase;
+import com.jogamp.opengl.util.GLCallStatistics;
+
+/**
+ * Tests the generated <code>Profile</code> composable pipeline created via {@link GLPipelineFactory},
+ * see {@link GLCallStatistics}.
+ * <p>
+ * The pipeline is only generated if requested at build time, see ant target <code>junit.run.pipelines</code>,
+ * otherwise this test is skipped unless property <code>jogl.test.pipelines</code> is set.
+ * </p>
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class TestProfilePipelineNEWT extends UITestCase {
+    static final String PIPELINE = "javax.media.opengl.Profile";
+
+    /** Returns true if the given pipeline has been generated for any GL profile. */
+    static boolean isPipelineGenerated(String pipelineBaseName) {
+        final String[] ifaces = new String[] { "GL4bc", "GLES3", "GLES1" };
+        for(int i=0; i<ifaces.length; i++) {
+            try {
+                Class.forName(pipelineBaseName+ifaces[i]);
+                return true;
+            } catch (ClassNotFoundException cnfe) { }
+        }
+        return false;
+    }
+
+    static GLProfile glp;
+
+    @BeforeClass
+    public static void initClass() {
+        final boolean required = Boolean.getBoolean("jogl.test.pipelines");
+        if( !isPipelineGenerated(PIPELINE) ) {
+            Assert.assertFalse("Pipeline "+PIPELINE+" not generated", required);
+            System.err.println("Pipeline "+PIPELINE+" not generated, see jogl.pipeline.gen.opt");
+            setTestSupported(false);
+        } else if( GLProfile.isAvailable(GLProfile.GL2ES2) ) {
+            glp = GLProfile.get(GLProfile.GL2ES2);
+        } else {
+            setTestSupported(false);
+        }
+    }
+
+    static int getEntryPoint(GLCallStatistics stats, String name) {
+        for(int i=0; i<stats.getEntryPointCount(); i++) {
+            if( name.equals(stats.getEntryPointName(i)) ) {
+                return i;
+            }
+        }
+        Assert.fail("Entry point "+name+" not profiled");
+        return -1;
+    }
+
+    @Test
+    public void test01CallCountsAndBytes() throws Exception {
+        final GLAutoDrawable glad = GLDrawableFactory.getFactory(glp).createOffscreenAutoDrawable(null, new GLCapabilities(glp), null, 64, 64);
+        glad.display();
+        final GLContext context = glad.getContext();
+        context.makeCurrent();
+        try {
+            final GL gl = GLPipelineFactory.create(PIPELINE, null, context.getGL(), null);
+            Assert.assertTrue(gl.getClass().getName().startsWith(PIPELINE));
+            final Method getCallStatistics = gl.getClass().getMethod("getCallStatistics");
+            final GLCallStatistics stats = (GLCallStatistics) getCallStatistics.invoke(gl);
+            Assert.assertNotNull(stats);
+            Assert.assertEquals(0, stats.getTotalCallCount());
+            stats.setTimingSampleRate(1);
+
+            for(int f=0; f<3; f++) {
+                gl.glClearColor(0f, 0f, 1f, 1f);
+                gl.glClear(GL.GL_COLOR_BUFFER_BIT);
+                gl.glClear(GL.GL_COLOR_BUFFER_BIT);
+                stats.frameDone();
+            }
+            final int[] tmp = new int[1];
+            gl.glGenBuffers(1, tmp, 0);
+            gl.glBindBuffer(GL.GL_ARRAY_BUFFER, tmp[0]);
+            gl.glBufferData(GL.GL_ARRAY_BUFFER, 64, Buffers.newDirectFloatBuffer(16), GL.GL_STATIC_DRAW);
+            gl.glBufferData(GL.GL_ARRAY_BUFFER, 128, null, GL.GL_STREAM_DRAW); // allocation only
+            gl.glBindBuffer(GL.GL_ARRAY_BUFFER, 0);
+            gl.glDeleteBuffers(1, tmp, 0);
+            Assert.assertEquals(GL.GL_NO_ERROR, gl.glGetError());
+
+            System.err.println(stats.toString(null, 10, GLCallStatistics.BY_CALLS));
+            Assert.assertEquals(3, stats.getFrameCount());
+            Assert.assertEquals(3, stats.getCallCount(getEntryPoint(stats, "glClearColor")));
+            Assert.assertEquals(6, stats.getCallCount(getEntryPoint(stats, "glClear")));
+            Assert.assertEquals(2, stats.getCallCount(getEntryPoint(stats, "glBindBuffer")));
+            final int bufferData = getEntryPoint(stats, "glBufferData");
+            Assert.assertEquals(2, stats.getCallCount(bufferData));
+            Assert.assertEquals(64, stats.getBytes(bufferData));
+            Assert.assertEquals(1, stats.getCallCount(getEntryPoint(stats, "glGetError")));
+            Assert.assertTrue(0 < stats.getEstimatedNanos(getEntryPoint(stats, "glClear")));
+            Assert.assertEquals("glClear", stats.getTopEntries(1, GLCallStatistics.BY_CALLS)[0].name);
+        } finally {
+            context.release();
+            glad.destroy();
+        }
+    }
+
+    public static void main(String args[]) throws IOException {
+        org.junit.runner.JUnitCore.main(TestProfilePipelineNEWT.class.getName());
+    }
+}
@@ -0,0 +1,160 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ *
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+
+package com.jogamp.opengl.test.junit.jogl.util;
+
+import java.io.IOException;
+
+import javax.media.opengl.GL;
+import javax.media.opengl.GL2;
+import javax.media.opengl.GLAutoDrawable;
+import javax.media.opengl.GLCapabilities;
+import javax.media.opengl.GLContext;
+import javax.media.opengl.GLDrawableFactory;
+import javax.media.opengl.GLPipelineFactory;
+import javax.media.opengl.GLProfile;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.FixMethodOrder;
+import org.junit.runners.MethodSorters;
+
+import com.jogamp.opengl.test.junit.util.UITestCase;
+import com.jogamp.opengl.util.GLStateFilter;
+
+/**
+ * Tests the generated <code>StateFilter</code> composable pipeline created via {@link GLPipelineFactory}:
+ * Redundant calls are dropped, non-redundant calls reach the GL and shadowed state is invalidated
+ * by <code>glDeleteTextures</code> and <code>glPopAttrib</code>, see {@link GLStateFilter}.
+ * <p>
+ * The pipeline is only generated if requested at build time, see ant target <code>junit.run.pipelines</code>,
+ * otherwise this test is skipped unless property <code>jogl.test.pipelines</code> is set.
+ * </p>
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class TestStateFilterPipelineNEWT extends UITestCase {
+    static final String PIPELINE = "javax.media.opengl.StateFilter";
+
+    static GLProfile glp;
+
+    @BeforeClass
+    public static void initClass() {
+        final boolean required = Boolean.getBoolean("jogl.test.pipelines");
+        if( !TestProfilePipelineNEWT.isPipelineGenerated(PIPELINE) ) {
+            Assert.assertFalse("Pipeline "+PIPELINE+" not generated", required);
+            System.err.println("Pipeline "+PIPELINE+" not generated, see jogl.pipeline.gen.opt");
+            setTestSupported(false);
+        } else if( GLProfile.isAvailable(GLProfile.GL2ES2) ) {
+            glp = GLProfile.get(GLProfile.GL2ES2);
+        } else {
+            setTestSupported(false);
+        }
+    }
+
+    private static int getInteger(GL gl, int pname) {
+        final int[] v = new int[1];
+        gl.glGetIntegerv(pname, v, 0);
+        return v[0];
+    }
+
+    @Test
+    public void test01FilterAndInvalidate() throws Exception {
+        final GLAutoDrawable glad = GLDrawableFactory.getFactory(glp).createOffscreenAutoDrawable(null, new GLCapabilities(glp), null, 64, 64);
+        glad.display();
+        final GLContext context = glad.getContext();
+        context.makeCurrent();
+        try {
+            final GL real = context.getGL();
+            final GL gl = GLPipelineFactory.create(PIPELINE, null, real, null);
+            Assert.assertTrue(gl.getClass().getName().startsWith(PIPELINE));
+            final GLStateFilter filter = (GLStateFilter) gl.getClass().getMethod("getStateFilter").invoke(gl);
+            Assert.assertEquals(0, filter.getIssuedCount());
+
+            // active texture
+            gl.glActiveTexture(GL.GL_TEXTURE0);
+            gl.glActiveTexture(GL.GL_TEXTURE0);
+            Assert.assertEquals(1, filter.getIssuedCount(GLStateFilter.ACTIVE_TEXTURE));
+            Assert.assertEquals(1, filter.getEliminatedCount(GLStateFilter.ACTIVE_TEXTURE));
+
+            // texture bindings: redundant binds dropped, others forwarded
+            final int[] names = new int[2];
+            gl.glGenTextures(2, names, 0);
+            gl.glBindTexture(GL.GL_TEXTURE_2D, names[0]);
+            gl.glBindTexture(GL.GL_TEXTURE_2D, names[0]);
+            Assert.assertEquals(names[0], getInteger(real, GL.GL_TEXTURE_BINDING_2D));
+            gl.glBindTexture(GL.GL_TEXTURE_2D, names[1]);
+            gl.glBindTexture(GL.GL_TEXTURE_2D, names[1]);
+            Assert.assertEquals(names[1], getInteger(real, GL.GL_TEXTURE_BINDING_2D));
+            Assert.assertEquals(2, filter.getIssuedCount(GLStateFilter.BIND_TEXTURE));
+            Assert.assertEquals(2, filter.getEliminatedCount(GLStateFilter.BIND_TEXTURE));
+
+            // capabilities
+            gl.glEnable(GL.GL_BLEND);
+            gl.glEnable(GL.GL_BLEND);
+            Assert.assertTrue(real.glIsEnabled(GL.GL_BLEND));
+            gl.glDisable(GL.GL_BLEND);
+            gl.glDisable(GL.GL_BLEND);
+            Assert.assertFalse(real.glIsEnabled(GL.GL_BLEND));
+            Assert.assertEquals(2, filter.getIssuedCount(GLStateFilter.ENABLE));
+            Assert.assertEquals(2, filter.getEliminatedCount(GLStateFilter.ENABLE));
+
+            // glDeleteTextures invalidates the texture bindings,
+            // hence re-binding the still bound name is issued again.
+            gl.glDeleteTextures(1, names, 0);
+            gl.glBindTexture(GL.GL_TEXTURE_2D, names[1]);
+            Assert.assertEquals(3, filter.getIssuedCount(GLStateFilter.BIND_TEXTURE));
+            Assert.assertEquals(2, filter.getEliminatedCount(GLStateFilter.BIND_TEXTURE));
+            Assert.assertEquals(names[1], getInteger(real, GL.GL_TEXTURE_BINDING_2D));
+
+            // glPopAttrib invalidates all shadowed state,
+            // hence enabling the capability disabled by glPopAttrib is issued again.
+            if( gl.isGL2() ) {
+                final GL2 gl2 = gl.getGL2();
+                gl2.glPushAttrib(GL2.GL_ENABLE_BIT);
+                gl2.glEnable(GL.GL_BLEND);
+                gl2.glPopAttrib();
+                Assert.assertFalse(real.glIsEnabled(GL.GL_BLEND));
+                gl2.glEnable(GL.GL_BLEND);
+                Assert.assertTrue(real.glIsEnabled(GL.GL_BLEND));
+                Assert.assertEquals(4, filter.getIssuedCount(GLStateFilter.ENABLE));
+                Assert.assertEquals(2, filter.getEliminatedCount(GLStateFilter.ENABLE));
+            }
+
+            gl.glDeleteTextures(1, names, 1);
+            Assert.assertEquals(GL.GL_NO_ERROR, real.glGetError());
+        } finally {
+            context.release();
+            glad.destroy();
+        }
+    }
+
+    public static void main(String args[]) throws IOException {
+        org.junit.runner.JUnitCore.main(TestStateFilterPipelineNEWT.class.getName());
+    }
+}
@@ -0,0 +1,120 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ *
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+
+package com.jogamp.opengl.test.junit.jogl.util.texture;
+
+import java.nio.ByteBuffer;
+
+import javax.media.opengl.GL;
+import javax.media.opengl.GLAutoDrawable;
+import javax.media.opengl.GLCapabilities;
+import javax.media.opengl.GLEventListener;
+import javax.media.opengl.GLProfile;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.FixMethodOrder;
+import org.junit.runners.MethodSorters;
+
+import com.jogamp.newt.opengl.GLWindow;
+import com.jogamp.opengl.test.junit.jogl.demos.es2.GearsES2;
+import com.jogamp.opengl.test.junit.util.UITestCase;
+import com.jogamp.opengl.util.GLReadBufferUtil;
+import com.jogamp.opengl.util.GLPixelBuffer.GLPixelAttributes;
+
+/**
+ * Tests {@link GLReadBufferUtil#readPixelsAsync(GL, boolean, GLReadBufferUtil.PixelsReadListener)},
+ * i.e. the delayed delivery of the readback ring and it's final flush.
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class TestGLReadBufferUtilAsyncNEWT extends UITestCase {
+    static GLCapabilities caps;
+    static final int width = 256, height = 256;
+    static final int frames = 6;
+
+    @BeforeClass
+    public static void initClass() {
+        caps = new GLCapabilities(GLProfile.getDefault());
+        caps.setAlphaBits(1);
+    }
+
+    @Test
+    public void testAsyncReadback() throws InterruptedException {
+        final GLReadBufferUtil readBufferUtil = new GLReadBufferUtil(true, false);
+        final int[] delivered = { 0 };
+        final int[] pendingAtDisplay = new int[frames];
+        final GLReadBufferUtil.PixelsReadListener pixelsListener = new GLReadBufferUtil.PixelsReadListener() {
+            @Override
+            public void pixelsRead(GL gl, ByteBuffer pixels, GLPixelAttributes pixelAttribs, int w, int h, boolean flipVertically) {
+                Assert.assertEquals(width, w);
+                Assert.assertEquals(height, h);
+                Assert.assertTrue(pixels.remaining() >= w * h * pixelAttribs.bytesPerPixel);
+                delivered[0]++;
+            }
+        };
+        final GLWindow glWindow = GLWindow.create(caps);
+        Assert.assertNotNull(glWindow);
+        glWindow.setSize(width, height);
+        glWindow.addGLEventListener(new GearsES2(1));
+        glWindow.addGLEventListener(new GLEventListener() {
+            int f = 0;
+            @Override
+            public void init(GLAutoDrawable drawable) {}
+            @Override
+            public void dispose(GLAutoDrawable drawable) {
+                final GL gl = drawable.getGL();
+                readBufferUtil.flushAsync(gl, pixelsListener);
+                readBufferUtil.dispose(gl);
+            }
+            @Override
+            public void display(GLAutoDrawable drawable) {
+                if( f < frames ) {
+                    Assert.assertTrue(readBufferUtil.readPixelsAsync(drawable.getGL(), false, pixelsListener));
+                    pendingAtDisplay[f++] = readBufferUtil.getAsyncPendingCount();
+                }
+            }
+            @Override
+            public void reshape(GLAutoDrawable drawable, int x, int y, int width, int height) { }
+        });
+        glWindow.setVisible(true);
+        for(int i=0; i<frames+2; i++) {
+            glWindow.display();
+        }
+        for(int i=0; i<frames; i++) {
+            Assert.assertTrue(pendingAtDisplay[i] < readBufferUtil.getAsyncDepth());
+        }
+        glWindow.destroy();
+        Assert.assertEquals(frames, delivered[0]);
+        Assert.assertEquals(0, readBufferUtil.getAsyncPendingCount());
+    }
+
+    public static void main(String args[]) {
+        org.junit.runner.JUnitCore.main(TestGLReadBufferUtilAsyncNEWT.class.getName());
+    }
+}
@@ -0,0 +1,240 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ *
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+
+package com.jogamp.opengl.test.junit.jogl.util.texture;
+
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+
+import javax.media.opengl.GL;
+import javax.media.opengl.GLAutoDrawable;
+import javax.media.opengl.GLCapabilities;
+import javax.media.opengl.GLEventListener;
+import javax.media.opengl.GLProfile;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.FixMethodOrder;
+import org.junit.runners.MethodSorters;
+
+import com.jogamp.common.nio.Buffers;
+import com.jogamp.newt.opengl.GLWindow;
+import com.jogamp.opengl.test.junit.util.UITestCase;
+import com.jogamp.opengl.util.texture.Texture;
+import com.jogamp.opengl.util.texture.TextureCache;
+import com.jogamp.opengl.util.texture.TextureData;
+
+/**
+ * Tests {@link TextureCache}, i.e. the memory accounting, LRU eviction, reloading and metrics.
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class TestTextureCacheNEWT extends UITestCase {
+    static GLProfile glp;
+    static final int texSize = 64;
+    static final int texBytes = texSize * texSize * 4;
+
+    @BeforeClass
+    public static void initClass() {
+        glp = GLProfile.getDefault();
+    }
+
+    /** Synthetic RGBA textures, ignoring the URL's content. */
+    static final TextureCache.Loader syntheticLoader = new TextureCache.Loader() {
+        @Override
+        public TextureData load(GL gl, URL url, boolean mipmap) throws IOException {
+            final ByteBuffer bb = Buffers.newDirectByteBuffer(texBytes);
+            return new TextureData(gl.getGLProfile(), GL.GL_RGBA, texSize, texSize, 0, GL.GL_RGBA, GL.GL_UNSIGNED_BYTE,
+                                   false, false, false, bb, null);
+        }
+    };
+
+    static URL url(int i) throws MalformedURLException {
+        return new URL("file:/synthetic/tex"+i+".png");
+    }
+
+    @Test
+    public void test00EstimateMemorySize() {
+        final TextureData rgba = new TextureData(glp, GL.GL_RGBA, texSize, texSize, 0, GL.GL_RGBA, GL.GL_UNSIGNED_BYTE,
+                                                 false, false, false, null, null);
+        Assert.assertEquals(texBytes, TextureCache.estimateMemorySize(rgba));
+
+        // 3 byte pixels are padded
+        final TextureData rgb = new TextureData(glp, GL.GL_RGB, texSize, texSize, 0, GL.GL_RGB, GL.GL_UNSIGNED_BYTE,
+                                                false, false, false, null, null);
+        Assert.assertEquals(texBytes, TextureCache.estimateMemorySize(rgb));
+
+        // 64 .. 1
+        final Buffer[] mipmapData = new Buffer[7];
+        long mipBytes = 0;
+        for(int l=0; l<mipmapData.length; l++) {
+            final int s = texSize >> l;
+            mipmapData[l] = Buffers.newDirectByteBuffer(s * s * 4);
+            mipBytes += s * s * 4;
+        }
+        final TextureData mip = new TextureData(glp, GL.GL_RGBA, texSize, texSize, 0, GL.GL_RGBA, GL.GL_UNSIGNED_BYTE,
+                                                false, false, mipmapData, null);
+        Assert.assertEquals(mipBytes, TextureCache.estimateMemorySize(mip));
+
+        // generated mipmaps account the complete chain
+        final TextureData gen = new TextureData(glp, GL.GL_RGBA, texSize, texSize, 0, GL.GL_RGBA, GL.GL_UNSIGNED_BYTE,
+                                                true, false, false, null, null);
+        Assert.assertEquals(mipBytes, TextureCache.estimateMemorySize(gen));
+    }
+
+    static void testLRU(GL gl) throws IOException {
+        final TextureCache cache = new TextureCache(3 * texBytes, false, syntheticLoader);
+        for(int i=0; i<3; i++) {
+            Assert.assertNotNull(cache.get(gl, url(i)));
+        }
+        Assert.assertEquals(3, cache.getMissCount());
+        Assert.assertEquals(3, cache.getResidentCount());
+        Assert.assertEquals(3 * texBytes, cache.getResidentBytes());
+
+        // LRU order: 1, 2, 0
+        final Texture t0 = cache.get(gl, url(0));
+        Assert.assertEquals(1, cache.getHitCount());
+        Assert.assertSame(t0, cache.get(gl, url(0)));
+        Assert.assertEquals(2, cache.getHitCount());
+
+        Assert.assertNotNull(cache.get(gl, url(3)));
+        Assert.assertEquals(1, cache.getEvictionCount());
+        Assert.assertEquals(texBytes, cache.getEvictedBytes());
+        Assert.assertFalse(cache.isResident(url(1)));
+        Assert.assertTrue(cache.isResident(url(0)));
+        Assert.assertTrue(cache.isResident(url(2)));
+        Assert.assertTrue(cache.isResident(url(3)));
+        Assert.assertTrue(cache.getResidentBytes() <= cache.getMaxBytes());
+        Assert.assertEquals(4 * texBytes, cache.getPeakBytes());
+
+        // evicted w/o reloading: new instance
+        final Texture t1 = cache.get(gl, url(1));
+        Assert.assertEquals(5, cache.getMissCount());
+        Assert.assertEquals(0, cache.getReloadCount());
+
+        // evicted w/ reloading: same instance
+        cache.setReloadEvicted(true);
+        final Texture t2 = cache.get(gl, url(2)); // LRU order: 3, 1, 2
+        for(int i=4; i<7; i++) {
+            Assert.assertNotNull(cache.get(gl, url(i)));
+        }
+        Assert.assertFalse(cache.isResident(url(2))); // LRU order: 4, 5, 6
+        Assert.assertEquals(0, t2.getTextureObject());
+        Assert.assertSame(t2, cache.get(gl, url(2)));
+        Assert.assertEquals(1, cache.getReloadCount());
+        Assert.assertTrue(0 != t2.getTextureObject());
+        Assert.assertEquals(GL.GL_NO_ERROR, gl.glGetError());
+        System.err.println("LRU: "+cache);
+
+        // budget reduction, LRU order: 5, 6, 2
+        cache.setMaxBytes(texBytes);
+        Assert.assertEquals(2, cache.trim(gl));
+        Assert.assertEquals(1, cache.getResidentCount());
+        Assert.assertTrue(cache.isResident(url(2)));
+
+        Assert.assertTrue(cache.remove(gl, url(2)));
+        Assert.assertEquals(0, cache.getResidentBytes());
+        Assert.assertNotNull(t1);
+        cache.clear(gl);
+        Assert.assertEquals(0, cache.getResidentCount());
+    }
+
+    static void testTextureIO(GL gl) throws IOException {
+        final TextureCache cache = new TextureCache(0, false);
+        final URL url = TestTextureCacheNEWT.class.getResource("test-ntscP_4-01-160x90.png");
+        Assert.assertNotNull(url);
+        final Texture t = cache.get(gl, url);
+        Assert.assertNotNull(t);
+        Assert.assertEquals(160, t.getImageWidth());
+        Assert.assertEquals(90, t.getImageHeight());
+        Assert.assertSame(t, cache.get(gl, url));
+        Assert.assertEquals(1, cache.getMissCount());
+        Assert.assertEquals(1, cache.getHitCount());
+        Assert.assertEquals(0.5f, cache.getHitRatio(), 0f);
+        Assert.assertEquals(160 * 90 * 4, cache.getResidentBytes());
+        Assert.assertEquals(GL.GL_NO_ERROR, gl.glGetError());
+        cache.clear(gl);
+    }
+
+    static interface GLRunnable {
+        void run(GL gl) throws IOException;
+    }
+
+    static void runInGL(final GLRunnable action) {
+        final GLWindow glWindow = GLWindow.create(new GLCapabilities(glp));
+        Assert.assertNotNull(glWindow);
+        glWindow.setSize(texSize, texSize);
+        final boolean[] done = { false };
+        glWindow.addGLEventListener(new GLEventListener() {
+            @Override
+            public void init(GLAutoDrawable drawable) {}
+            @Override
+            public void dispose(GLAutoDrawable drawable) {}
+            @Override
+            public void display(GLAutoDrawable drawable) {
+                if( !done[0] ) {
+                    try {
+                        action.run(drawable.getGL());
+                    } catch (IOException ioe) {
+                        throw new RuntimeException(ioe);
+                    }
+                    done[0] = true;
+                }
+            }
+            @Override
+            public void reshape(GLAutoDrawable drawable, int x, int y, int width, int height) { }
+        });
+        glWindow.setVisible(true);
+        glWindow.display();
+        glWindow.destroy();
+        Assert.assertTrue(done[0]);
+    }
+
+    @Test
+    public void test01LRU() {
+        runInGL(new GLRunnable() {
+            @Override
+            public void run(GL gl) throws IOException { testLRU(gl); }
+        });
+    }
+
+    @Test
+    public void test02TextureIO() {
+        runInGL(new GLRunnable() {
+            @Override
+            public void run(GL gl) throws IOException { testTextureIO(gl); }
+        });
+    }
+
+    public static void main(String args[]) {
+        org.junit.runner.JUnitCore.main(TestTextureCacheNEWT.class.getName());
+    }
+}
@@ -0,0 +1,202 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ *
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+
+package com.jogamp.opengl.test.junit.jogl.util.texture;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import javax.media.opengl.GL;
+import javax.media.opengl.GLES2;
+
+import jogamp.opengl.util.texture.DXTBlockCodec;
+import jogamp.opengl.util.texture.ETC1BlockCodec;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.FixMethodOrder;
+import org.junit.runners.MethodSorters;
+
+import com.jogamp.common.nio.Buffers;
+import com.jogamp.opengl.util.texture.TextureCompressor;
+import com.jogamp.opengl.util.texture.TextureData;
+import com.jogamp.opengl.util.texture.spi.DDSImage;
+
+/**
+ * Tests {@link TextureCompressor} on the CPU, i.e. the BC1, BC3 and ETC1 encoder
+ * by round-tripping through the matching decoder, w/o a GL context.
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class TestTextureCompressorNOUI {
+    static final int width = 250, height = 190; // incl. partial blocks
+
+    /** Smooth color gradients w/ an alpha ramp. */
+    static TextureData createRGBA(int w, int h, boolean mipmap) {
+        final ByteBuffer bb = Buffers.newDirectByteBuffer(w * h * 4);
+        for(int y=0; y<h; y++) {
+            for(int x=0; x<w; x++) {
+                bb.put((byte) ( x * 255 / w ));
+                bb.put((byte) ( y * 255 / h ));
+                bb.put((byte) ( 128 + 127 * Math.sin( ( x + y ) / 16.0 ) ));
+                bb.put((byte) ( ( x + y ) * 255 / ( w + h ) ));
+            }
+        }
+        bb.flip();
+        return new TextureData(null, GL.GL_RGBA, w, h, 0, GL.GL_RGBA, GL.GL_UNSIGNED_BYTE,
+                               mipmap, false, false, bb, null);
+    }
+
+    /** Returns the PSNR in dB of the given RGBA channels. */
+    static double psnr(TextureData a, TextureData b, int firstChannel, int channelCount) {
+        final ByteBuffer ba = (ByteBuffer) a.getBuffer();
+        final ByteBuffer bb = (ByteBuffer) b.getBuffer();
+        double err = 0;
+        final int n = a.getWidth() * a.getHeight();
+        for(int p=0; p<n; p++) {
+            for(int c=firstChannel; c<firstChannel+channelCount; c++) {
+                final int d = ( ba.get(p*4+c) & 0xff ) - ( bb.get(p*4+c) & 0xff );
+                err += d * d;
+            }
+        }
+        err /= n * channelCount;
+        return 0 == err ? 99.0 : 10.0 * Math.log10( 255.0 * 255.0 / err );
+    }
+
+    static void testRoundTrip(int format, double minPSNR, double minAlphaPSNR) {
+        final TextureData src = createRGBA(width, height, false);
+        Assert.assertTrue(TextureCompressor.isSupported(src));
+        final TextureData cmp = TextureCompressor.compress(src, format, 4);
+        Assert.assertTrue(cmp.isDataCompressed());
+        Assert.assertEquals(format, cmp.getInternalFormat());
+        Assert.assertEquals(width, cmp.getWidth());
+        Assert.assertEquals(height, cmp.getHeight());
+        Assert.assertEquals(( ( width + 3 ) / 4 ) * ( ( height + 3 ) / 4 ) * TextureCompressor.getBlockSize(format),
+                            cmp.getBuffer().remaining());
+
+        final TextureData dec = TextureCompressor.decompress(cmp);
+        Assert.assertEquals(GL.GL_RGBA, dec.getPixelFormat());
+        final double rgb = psnr(src, dec, 0, 3);
+        System.err.println("Format 0x"+Integer.toHexString(format)+": RGB PSNR "+rgb+" dB");
+        Assert.assertTrue("RGB PSNR "+rgb, rgb >= minPSNR);
+        if( 0 < minAlphaPSNR ) {
+            final double a = psnr(src, dec, 3, 1);
+            System.err.println("Format 0x"+Integer.toHexString(format)+": Alpha PSNR "+a+" dB");
+            Assert.assertTrue("Alpha PSNR "+a, a >= minAlphaPSNR);
+        }
+
+        // parallel encoding is deterministic
+        final TextureData cmp1 = TextureCompressor.compress(src, format, 1);
+        Assert.assertEquals(cmp1.getBuffer(), cmp.getBuffer());
+    }
+
+    @Test
+    public void test01BC1() {
+        testRoundTrip(GL.GL_COMPRESSED_RGB_S3TC_DXT1_EXT, 32.0, 0);
+    }
+
+    @Test
+    public void test02BC3() {
+        testRoundTrip(GL.GL_COMPRESSED_RGBA_S3TC_DXT5_EXT, 32.0, 40.0);
+    }
+
+    @Test
+    public void test03ETC1() {
+        testRoundTrip(GLES2.GL_ETC1_RGB8_OES, 30.0, 0);
+    }
+
+    @Test
+    public void test04KnownBlocks() {
+        final ByteBuffer bb = ByteBuffer.allocate(8);
+        final int[] rgba = new int[64];
+
+        // BC1: c0 red, c1 blue, 1st row indices 0, 1, 2, 3
+        bb.put(0, (byte)0x00).put(1, (byte)0xF8).put(2, (byte)0x1F).put(3, (byte)0x00).put(4, (byte)0xE4);
+        DXTBlockCodec.decodeBC1(bb, 0, false, rgba);
+        final int[] bc1 = { 255, 0, 0,   0, 0, 255,   170, 0, 85,   85, 0, 170 };
+        for(int x=0; x<4; x++) {
+            for(int c=0; c<3; c++) {
+                Assert.assertEquals(bc1[x*3+c], rgba[x*4+c]);
+            }
+        }
+
+        // ETC1: individual mode, no flip, red 0xF / 0x0, tables 0 / 7,
+        // pixel (3,0) w/ index 1 (large positive), all others index 0 (small positive)
+        bb.putInt(0, ( 0xF << 28 ) | ( 7 << 2 )).putInt(4, 1 << 12);
+        ETC1BlockCodec.decode(bb, 0, rgba);
+        final int[] etc1 = { 255, 2, 2,   255, 2, 2,   47, 47, 47,   183, 183, 183 };
+        for(int x=0; x<4; x++) {
+            for(int c=0; c<3; c++) {
+                Assert.assertEquals(etc1[x*3+c], rgba[x*4+c]);
+            }
+        }
+    }
+
+    @Test
+    public void test05MipmapGeneration() {
+        final TextureData src = createRGBA(64, 32, true);
+        final TextureData cmp = TextureCompressor.compress(src, GL.GL_COMPRESSED_RGB_S3TC_DXT1_EXT);
+        Assert.assertFalse(cmp.getMipmap());
+        Assert.assertNotNull(cmp.getMipmapData());
+        Assert.assertEquals(7, cmp.getMipmapData().length); // 64x32 .. 1x1
+        for(int i=0; i<7; i++) {
+            final int w = Math.max(64 >> i, 1), h = Math.max(32 >> i, 1);
+            Assert.assertEquals(( ( w + 3 ) / 4 ) * ( ( h + 3 ) / 4 ) * 8, cmp.getMipmapData()[i].remaining());
+        }
+        final TextureData dec = TextureCompressor.decompress(cmp);
+        Assert.assertEquals(7, dec.getMipmapData().length);
+        Assert.assertEquals(4, dec.getMipmapData()[6].remaining());
+    }
+
+    @Test
+    public void test06DDSCache() throws IOException {
+        final TextureData src = createRGBA(64, 64, true);
+        final TextureData cmp = TextureCompressor.compress(src, GL.GL_COMPRESSED_RGBA_S3TC_DXT5_EXT);
+        final DDSImage dds = TextureCompressor.toDDSImage(cmp);
+        Assert.assertTrue(dds.isCompressed());
+        Assert.assertEquals(DDSImage.D3DFMT_DXT5, dds.getCompressionFormat());
+        final File file = File.createTempFile("TestTextureCompressor", ".dds");
+        try {
+            dds.write(file);
+            final DDSImage read = DDSImage.read(file);
+            Assert.assertEquals(64, read.getWidth());
+            Assert.assertEquals(64, read.getHeight());
+            Assert.assertEquals(cmp.getMipmapData().length, read.getNumMipMaps());
+            for(int i=0; i<read.getNumMipMaps(); i++) {
+                Assert.assertEquals(cmp.getMipmapData()[i], read.getMipMap(i).getData());
+            }
+            read.close();
+        } finally {
+            file.delete();
+        }
+    }
+
+    public static void main(String args[]) {
+        org.junit.runner.JUnitCore.main(TestTextureCompressorNOUI.class.getName());
+    }
+}
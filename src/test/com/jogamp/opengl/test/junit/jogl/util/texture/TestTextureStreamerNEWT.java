@@ -0,0 +1,229 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ *
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+
+package com.jogamp.opengl.test.junit.jogl.util.texture;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+
+import javax.media.opengl.GL;
+import javax.media.opengl.GLAutoDrawable;
+import javax.media.opengl.GLCapabilities;
+import javax.media.opengl.GLEventListener;
+import javax.media.opengl.GLProfile;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.FixMethodOrder;
+import org.junit.runners.MethodSorters;
+
+import com.jogamp.common.nio.Buffers;
+import com.jogamp.newt.opengl.GLWindow;
+import com.jogamp.opengl.test.junit.util.UITestCase;
+import com.jogamp.opengl.util.texture.Texture;
+import com.jogamp.opengl.util.texture.TextureData;
+import com.jogamp.opengl.util.texture.TextureResidencyManager;
+import com.jogamp.opengl.util.texture.TextureStreamer;
+
+/**
+ * Tests {@link TextureStreamer} and {@link TextureResidencyManager},
+ * i.e. the incremental upload of mipmapped and single level textures within a byte budget.
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class TestTextureStreamerNEWT extends UITestCase {
+    static GLProfile glp;
+    static final int texSize = 64;
+    static final int byteBudget = 1024;
+
+    @BeforeClass
+    public static void initClass() {
+        glp = GLProfile.getDefault();
+    }
+
+    static TextureData createTextureData(boolean mipmap) {
+        final int levels = mipmap ? 7 : 1; // 64 .. 1
+        final Buffer[] mipmapData = new Buffer[levels];
+        for(int l=0; l<levels; l++) {
+            final int s = texSize >> l;
+            final ByteBuffer bb = Buffers.newDirectByteBuffer(s * s * 4);
+            for(int i=0; i<s*s; i++) {
+                bb.put((byte)(l * 32)).put((byte)i).put((byte)(i >> 8)).put((byte)0xff);
+            }
+            bb.flip();
+            mipmapData[l] = bb;
+        }
+        if( mipmap ) {
+            return new TextureData(glp, GL.GL_RGBA, texSize, texSize, 0, GL.GL_RGBA, GL.GL_UNSIGNED_BYTE,
+                                   false, false, mipmapData, null);
+        } else {
+            return new TextureData(glp, GL.GL_RGBA, texSize, texSize, 0, GL.GL_RGBA, GL.GL_UNSIGNED_BYTE,
+                                   false, false, false, mipmapData[0], null);
+        }
+    }
+
+    static void testStreamer(GL gl, boolean mipmap, boolean usePBO) {
+        final TextureData data = createTextureData(mipmap);
+        final Texture texture = new Texture(GL.GL_TEXTURE_2D);
+        final TextureStreamer streamer = new TextureStreamer(texture, data, 0);
+        streamer.setUsePBO(usePBO);
+        final int levelCount = streamer.getLevelCount();
+        Assert.assertEquals(mipmap ? 7 : 1, levelCount);
+        Assert.assertEquals(levelCount - 1, streamer.getPendingLevel());
+        Assert.assertEquals(-1, streamer.getCompleteLevel());
+
+        int steps = 0;
+        int lastCompleteLevel = -1;
+        while( !streamer.isDone() ) {
+            final long bytes = streamer.update(gl, byteBudget, 0);
+            Assert.assertTrue(0 < bytes);
+            Assert.assertEquals(GL.GL_NO_ERROR, gl.glGetError());
+            final int completeLevel = streamer.getCompleteLevel();
+            if( -1 != lastCompleteLevel ) {
+                // coarse to fine
+                Assert.assertTrue(completeLevel <= lastCompleteLevel);
+            }
+            lastCompleteLevel = completeLevel;
+            steps++;
+        }
+        System.err.println("Streamed in "+steps+" steps: "+streamer);
+        Assert.assertEquals(0, streamer.getCompleteLevel());
+        Assert.assertEquals(-1, streamer.getPendingLevel());
+        Assert.assertEquals(streamer.getTotalBytes(), streamer.getUploadedBytes());
+        Assert.assertEquals(1f, streamer.getProgress(), 0f);
+        // level 0 alone exceeds the budget 16-fold
+        Assert.assertTrue(steps >= ( texSize * texSize * 4 ) / byteBudget);
+        Assert.assertEquals(0, streamer.update(gl, byteBudget, 0));
+        Assert.assertEquals(texSize, texture.getWidth());
+        Assert.assertEquals(texSize, texture.getHeight());
+        streamer.destroy(gl);
+        texture.destroy(gl);
+    }
+
+    static void testResidencyManager(GL gl) {
+        final TextureResidencyManager manager = new TextureResidencyManager(byteBudget, 0);
+        final TextureStreamer[] streamers = new TextureStreamer[3];
+        for(int i=0; i<streamers.length; i++) {
+            streamers[i] = new TextureStreamer(new Texture(GL.GL_TEXTURE_2D), createTextureData(true), 0);
+            manager.add(streamers[i], i);
+        }
+        Assert.assertEquals(streamers.length, manager.getPendingCount());
+
+        // all textures become usable at their coarsest level first
+        manager.update(gl);
+        Assert.assertEquals(GL.GL_NO_ERROR, gl.glGetError());
+        for(int i=0; i<streamers.length; i++) {
+            Assert.assertEquals(streamers[i].getLevelCount() - 1, streamers[i].getCompleteLevel());
+        }
+        int frames = 1;
+        while( 0 < manager.getPendingCount() ) {
+            final long bytes = manager.update(gl);
+            Assert.assertTrue(0 < bytes);
+            // exceeded by at most one strip, i.e. one row
+            Assert.assertTrue(bytes <= byteBudget + texSize * 4);
+            Assert.assertEquals(GL.GL_NO_ERROR, gl.glGetError());
+            frames++;
+        }
+        System.err.println("Streamed in "+frames+" frames: "+manager);
+        long total = 0;
+        for(int i=0; i<streamers.length; i++) {
+            Assert.assertTrue(streamers[i].isDone());
+            total += streamers[i].getTotalBytes();
+            streamers[i].getTexture().destroy(gl);
+        }
+        Assert.assertEquals(total, manager.getUploadedBytes());
+        Assert.assertEquals(streamers.length, manager.getCompletedCount());
+        manager.destroy(gl);
+    }
+
+    static interface GLRunnable {
+        void run(GL gl);
+    }
+
+    static void runInGL(final GLRunnable action) {
+        final GLWindow glWindow = GLWindow.create(new GLCapabilities(glp));
+        Assert.assertNotNull(glWindow);
+        glWindow.setSize(texSize, texSize);
+        final boolean[] done = { false };
+        glWindow.addGLEventListener(new GLEventListener() {
+            @Override
+            public void init(GLAutoDrawable drawable) {}
+            @Override
+            public void dispose(GLAutoDrawable drawable) {}
+            @Override
+            public void display(GLAutoDrawable drawable) {
+                if( !done[0] ) {
+                    done[0] = true;
+                    action.run(drawable.getGL());
+                }
+            }
+            @Override
+            public void reshape(GLAutoDrawable drawable, int x, int y, int width, int height) { }
+        });
+        glWindow.setVisible(true);
+        glWindow.display();
+        glWindow.destroy();
+        Assert.assertTrue(done[0]);
+    }
+
+    @Test
+    public void test01SingleLevel() {
+        runInGL(new GLRunnable() {
+            @Override
+            public void run(GL gl) { testStreamer(gl, false, false); }
+        });
+    }
+
+    @Test
+    public void test02Mipmap() {
+        runInGL(new GLRunnable() {
+            @Override
+            public void run(GL gl) { testStreamer(gl, true, false); }
+        });
+    }
+
+    @Test
+    public void test03MipmapPBO() {
+        runInGL(new GLRunnable() {
+            @Override
+            public void run(GL gl) { testStreamer(gl, true, true); }
+        });
+    }
+
+    @Test
+    public void test04ResidencyManager() {
+        runInGL(new GLRunnable() {
+            @Override
+            public void run(GL gl) { testResidencyManager(gl); }
+        });
+    }
+
+    public static void main(String args[]) {
+        org.junit.runner.JUnitCore.main(TestTextureStreamerNEWT.class.getName());
+    }
+}
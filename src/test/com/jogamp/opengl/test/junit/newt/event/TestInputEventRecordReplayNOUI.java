@@ -0,0 +1,193 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ *
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+
+package com.jogamp.opengl.test.junit.newt.event;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.FixMethodOrder;
+import org.junit.runners.MethodSorters;
+
+import com.jogamp.newt.event.InputEvent;
+import com.jogamp.newt.event.KeyEvent;
+import com.jogamp.newt.event.MouseEvent;
+import com.jogamp.newt.event.NEWTEvent;
+import com.jogamp.newt.event.NEWTEventConsumer;
+import com.jogamp.newt.util.InputEventRecorder;
+import com.jogamp.newt.util.InputEventReplayer;
+
+/**
+ * Tests {@link InputEventRecorder} and {@link InputEventReplayer} w/o a window.
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class TestInputEventRecordReplayNOUI {
+    static final Object recSource = new Object();
+    static final Object replaySource = new Object();
+
+    static class EventCollector implements NEWTEventConsumer {
+        final ArrayList<NEWTEvent> events = new ArrayList<NEWTEvent>();
+        @Override
+        public boolean consumeEvent(NEWTEvent event) {
+            events.add(event);
+            return true;
+        }
+    }
+
+    static ArrayList<NEWTEvent> createEvents(long when0, long interval) {
+        final ArrayList<NEWTEvent> events = new ArrayList<NEWTEvent>();
+        long when = when0;
+        events.add(KeyEvent.create(KeyEvent.EVENT_KEY_PRESSED, recSource, when, InputEvent.SHIFT_MASK, KeyEvent.VK_A, KeyEvent.VK_A, 'A'));
+        when += interval;
+        events.add(KeyEvent.create(KeyEvent.EVENT_KEY_RELEASED, recSource, when, InputEvent.SHIFT_MASK, KeyEvent.VK_A, KeyEvent.VK_A, 'A'));
+        when += interval;
+        events.add(new MouseEvent(MouseEvent.EVENT_MOUSE_MOVED, recSource, when, 0, 10, 20, (short)0, (short)0,
+                                  new float[] { 0f, 0f, 0f }, 1f));
+        when += interval;
+        final MouseEvent.PointerType[] types = { MouseEvent.PointerType.TouchScreen, MouseEvent.PointerType.TouchScreen };
+        events.add(new MouseEvent(MouseEvent.EVENT_MOUSE_PRESSED, recSource, when, InputEvent.BUTTON1_MASK, types,
+                                  new short[] { 0, 1 }, new int[] { 100, 200 }, new int[] { 110, 210 },
+                                  new float[] { 0.5f, 0.75f }, 2f, MouseEvent.BUTTON1, (short)1, new float[] { 0f, 0f, 0f }, 1f));
+        when += interval;
+        events.add(new MouseEvent(MouseEvent.EVENT_MOUSE_WHEEL_MOVED, recSource, when, 0, 5, 6, (short)0, (short)0,
+                                  new float[] { 0f, -1.5f, 0f }, 2.5f));
+        return events;
+    }
+
+    static byte[] record(ArrayList<NEWTEvent> events, boolean close) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final InputEventRecorder recorder = new InputEventRecorder(out);
+        for(int i=0; i<events.size(); i++) {
+            Assert.assertFalse(recorder.consumeEvent(events.get(i)));
+        }
+        Assert.assertEquals(events.size(), recorder.getEventCount());
+        if( close ) {
+            recorder.close();
+        } else {
+            recorder.flush();
+        }
+        return out.toByteArray();
+    }
+
+    static void assertEquals(NEWTEvent exp, NEWTEvent has, long whenOffset) {
+        Assert.assertEquals(exp.getClass(), has.getClass());
+        Assert.assertEquals(exp.getEventType(), has.getEventType());
+        Assert.assertEquals(exp.getWhen() + whenOffset, has.getWhen());
+        Assert.assertSame(replaySource, has.getSource());
+        Assert.assertEquals(((InputEvent)exp).getModifiers(), ((InputEvent)has).getModifiers());
+        if( exp instanceof KeyEvent ) {
+            final KeyEvent e = (KeyEvent) exp, h = (KeyEvent) has;
+            Assert.assertEquals(e.getKeyCode(), h.getKeyCode());
+            Assert.assertEquals(e.getKeySymbol(), h.getKeySymbol());
+            Assert.assertEquals(e.getKeyChar(), h.getKeyChar());
+        } else {
+            final MouseEvent e = (MouseEvent) exp, h = (MouseEvent) has;
+            Assert.assertEquals(e.getPointerCount(), h.getPointerCount());
+            for(int i=0; i<e.getPointerCount(); i++) {
+                Assert.assertEquals(e.getPointerType(i), h.getPointerType(i));
+                Assert.assertEquals(e.getPointerId(i), h.getPointerId(i));
+                Assert.assertEquals(e.getX(i), h.getX(i));
+                Assert.assertEquals(e.getY(i), h.getY(i));
+                Assert.assertEquals(e.getPressure(i, false), h.getPressure(i, false), 0f);
+            }
+            Assert.assertEquals(e.getMaxPressure(), h.getMaxPressure(), 0f);
+            Assert.assertEquals(e.getButton(), h.getButton());
+            Assert.assertEquals(e.getClickCount(), h.getClickCount());
+            Assert.assertArrayEquals(e.getRotation(), h.getRotation(), 0f);
+            Assert.assertEquals(e.getRotationScale(), h.getRotationScale(), 0f);
+        }
+    }
+
+    @Test
+    public void test01RoundTripMaxSpeed() throws IOException, InterruptedException {
+        final ArrayList<NEWTEvent> events = createEvents(1000, 25);
+        final InputEventReplayer replayer = new InputEventReplayer(new ByteArrayInputStream(record(events, true)));
+        Assert.assertEquals(events.size(), replayer.getEventCount());
+        Assert.assertEquals(4*25, replayer.getDuration());
+
+        final EventCollector collector = new EventCollector();
+        final long t0 = System.currentTimeMillis();
+        replayer.replay(collector, replaySource, InputEventReplayer.MAX_SPEED);
+        Assert.assertEquals(events.size(), collector.events.size());
+
+        // intervals are preserved, rebased to the replay start
+        final long whenOffset = collector.events.get(0).getWhen() - events.get(0).getWhen();
+        Assert.assertTrue(collector.events.get(0).getWhen() >= t0);
+        for(int i=0; i<events.size(); i++) {
+            assertEquals(events.get(i), collector.events.get(i), whenOffset);
+        }
+
+        // deterministic: replaying again yields the same stream
+        final EventCollector collector2 = new EventCollector();
+        replayer.replay(collector2, replaySource, InputEventReplayer.MAX_SPEED);
+        final long whenOffset2 = collector2.events.get(0).getWhen() - events.get(0).getWhen();
+        for(int i=0; i<events.size(); i++) {
+            assertEquals(events.get(i), collector2.events.get(i), whenOffset2);
+        }
+    }
+
+    @Test
+    public void test02PacedSpeed() throws IOException, InterruptedException {
+        final ArrayList<NEWTEvent> events = createEvents(0, 50); // 200ms
+        final InputEventReplayer replayer = new InputEventReplayer(new ByteArrayInputStream(record(events, true)));
+
+        final EventCollector collector = new EventCollector();
+        final long dOrig = replayer.replay(collector, replaySource, 1f) / 1000000L;
+        Assert.assertTrue("Original speed replay too fast: "+dOrig+" ms", dOrig >= 190);
+
+        collector.events.clear();
+        final long dFast = replayer.replay(collector, replaySource, 4f) / 1000000L;
+        Assert.assertTrue("Accelerated replay too fast: "+dFast+" ms", dFast >= 45);
+        Assert.assertTrue("Accelerated replay too slow: "+dFast+" vs "+dOrig+" ms", dFast < dOrig);
+        Assert.assertEquals(events.size(), collector.events.size());
+    }
+
+    @Test
+    public void test03TruncatedAndInvalid() throws IOException, InterruptedException {
+        final ArrayList<NEWTEvent> events = createEvents(1000, 10);
+        final byte[] unterminated = record(events, false);
+        Assert.assertEquals(events.size(), new InputEventReplayer(new ByteArrayInputStream(unterminated)).getEventCount());
+
+        final byte[] truncated = new byte[unterminated.length - 3];
+        System.arraycopy(unterminated, 0, truncated, 0, truncated.length);
+        Assert.assertEquals(events.size() - 1, new InputEventReplayer(new ByteArrayInputStream(truncated)).getEventCount());
+
+        try {
+            new InputEventReplayer(new ByteArrayInputStream(new byte[] { 1, 2, 3, 4, 0, 1 }));
+            Assert.fail("Invalid magic not detected");
+        } catch (IOException ioe) { }
+    }
+
+    public static void main(String args[]) throws IOException {
+        org.junit.runner.JUnitCore.main(TestInputEventRecordReplayNOUI.class.getName());
+    }
+}
@@ -0,0 +1,225 @@
+/**
+ * Copyright 2013 JogAmp Community. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ *
+ *    1. Redistributions of source code must retain the above copyright notice, this list of
+ *       conditions and the following disclaimer.
+ *
+ *    2. Redistributions in binary form must reproduce the above copyright notice, this list
+ *       of conditions and the following disclaimer in the documentation and/or other materials
+ *       provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY JogAmp Community ``AS IS'' AND ANY EXPRESS OR IMPLIED
+ * WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL JogAmp Community OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ * ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * The views and conclusions contained in the software and documentation are those of the
+ * authors and should not be interpreted as representing official policies, either expressed
+ * or implied, of JogAmp Community.
+ */
+
+package com.jogamp.opengl.test.junit.newt.event;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+
+import jogamp.newt.driver.linux.LinuxEventDeviceEPoll;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.FixMethodOrder;
+import org.junit.runners.MethodSorters;
+
+import com.jogamp.common.os.Platform;
+
+/**
+ * Tests {@link LinuxEventDeviceEPoll} w/ named pipes emulating <code>/dev/input/event*</code> devices.
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class TestLinuxEventDeviceEPollNOUI {
+    static final long TIMEOUT = 5000; // ms
+
+    static class Event {
+        final int device;
+        final long sec;
+        final int usec;
+        final short type, code;
+        final int value;
+        Event(int device, long sec, int usec, short type, short code, int value) {
+            this.device = device; this.sec = sec; this.usec = usec; this.type = type; this.code = code; this.value = value;
+        }
+    }
+
+    static class EventCollector implements LinuxEventDeviceEPoll.Listener {
+        final ArrayList<Integer> added = new ArrayList<Integer>();
+        final ArrayList<Integer> removed = new ArrayList<Integer>();
+        final ArrayList<Event> events = new ArrayList<Event>();
+
+        @Override
+        public synchronized void deviceAdded(int deviceNumber) {
+            added.add(deviceNumber);
+            notifyAll();
+        }
+        @Override
+        public synchronized void deviceRemoved(int deviceNumber) {
+            removed.add(deviceNumber);
+            notifyAll();
+        }
+        @Override
+        public synchronized void inputEvent(int deviceNumber, long timeSeconds, int timeMicroSeconds, short type, short code, int value) {
+            events.add(new Event(deviceNumber, timeSeconds, timeMicroSeconds, type, code, value));
+            notifyAll();
+        }
+        synchronized boolean waitFor(ArrayList<?> list, int count) throws InterruptedException {
+            final long t0 = System.currentTimeMillis();
+            while( list.size() < count && System.currentTimeMillis() - t0 < TIMEOUT ) {
+                wait(100);
+            }
+            return list.size() >= count;
+        }
+    }
+
+    @Before
+    public void checkSupported() {
+        Assume.assumeTrue(Platform.OSType.LINUX == Platform.getOSType() && LinuxEventDeviceEPoll.isAvailable());
+    }
+
+    static File createTempDir() throws IOException {
+        final File dir = File.createTempFile("newt-evdev", "");
+        Assert.assertTrue(dir.delete());
+        Assert.assertTrue(dir.mkdir());
+        return dir;
+    }
+
+    static File mkfifo(File dir, String name) throws IOException, InterruptedException {
+        final File f = new File(dir, name);
+        final Process p = new ProcessBuilder("mkfifo", f.getPath()).start();
+        Assert.assertEquals(0, p.waitFor());
+        return f;
+    }
+
+    static void delete(File dir) {
+        final File[] files = dir.listFiles();
+        for(int i=0; null != files && i<files.length; i++) {
+            files[i].delete();
+        }
+        dir.delete();
+    }
+
+    static byte[] encode(long sec, int usec, int type, int code, int value) {
+        final int size = LinuxEventDeviceEPoll.getInputEventSize();
+        final ByteBuffer b = ByteBuffer.allocate(size).order(ByteOrder.nativeOrder());
+        if( 24 == size ) {
+            b.putLong(sec);
+            b.putLong(usec);
+        } else {
+            b.putInt((int)sec);
+            b.putInt(usec);
+        }
+        b.putShort((short)type);
+        b.putShort((short)code);
+        b.putInt(value);
+        return b.array();
+    }
+
+    static Thread start(LinuxEventDeviceEPoll epoll) {
+        final Thread t = new Thread(epoll, "TestLinuxEventDeviceEPoll");
+        t.setDaemon(true);
+        t.start();
+        return t;
+    }
+
+    static void stop(LinuxEventDeviceEPoll epoll, Thread t) throws InterruptedException {
+        epoll.stop();
+        t.join(TIMEOUT);
+        Assert.assertFalse(epoll.isRunning());
+    }
+
+    @Test
+    public void test01DecodeExistingDevice() throws IOException, InterruptedException {
+        Assert.assertTrue(16 == LinuxEventDeviceEPoll.getInputEventSize() || 24 == LinuxEventDeviceEPoll.getInputEventSize());
+        final File dir = createTempDir();
+        try {
+            final File fifo = mkfifo(dir, "event3");
+            Assert.assertTrue(new File(dir, "eventX").createNewFile()); // no device number, ignored
+            final EventCollector collector = new EventCollector();
+            final LinuxEventDeviceEPoll epoll = new LinuxEventDeviceEPoll(dir.getPath(), "event", collector);
+            final Thread t = start(epoll);
+
+            final FileOutputStream out = new FileOutputStream(fifo); // blocks until opened for reading
+            Assert.assertTrue(collector.waitFor(collector.added, 1));
+            Assert.assertEquals(Integer.valueOf(3), collector.added.get(0));
+
+            final int count = 200; // more than one bulk read
+            for(int i=0; i<count; i++) {
+                out.write(encode(1000+i, i, 1 /* EV_KEY */, 30 /* KEY_A */, i & 1));
+            }
+            out.flush();
+            Assert.assertTrue(collector.waitFor(collector.events, count));
+            synchronized(collector) {
+                for(int i=0; i<count; i++) {
+                    final Event e = collector.events.get(i);
+                    Assert.assertEquals(3, e.device);
+                    Assert.assertEquals(1000+i, e.sec);
+                    Assert.assertEquals(i, e.usec);
+                    Assert.assertEquals(1, e.type);
+                    Assert.assertEquals(30, e.code);
+                    Assert.assertEquals(i & 1, e.value);
+                }
+            }
+            out.close(); // EOF -> device closed
+            Assert.assertTrue(collector.waitFor(collector.removed, 1));
+            Assert.assertEquals(Integer.valueOf(3), collector.removed.get(0));
+            stop(epoll, t);
+        } finally {
+            delete(dir);
+        }
+    }
+
+    @Test
+    public void test02Hotplug() throws IOException, InterruptedException {
+        final File dir = createTempDir();
+        try {
+            final EventCollector collector = new EventCollector();
+            final LinuxEventDeviceEPoll epoll = new LinuxEventDeviceEPoll(dir.getPath(), "event", collector);
+            final Thread t = start(epoll);
+            Thread.sleep(100);
+            Assert.assertEquals(0, collector.added.size());
+
+            final File fifo = mkfifo(dir, "event7");
+            final FileOutputStream out = new FileOutputStream(fifo); // blocks until opened for reading
+            Assert.assertTrue(collector.waitFor(collector.added, 1));
+            Assert.assertEquals(Integer.valueOf(7), collector.added.get(0));
+
+            out.write(encode(42, 4711, 0 /* EV_SYN */, 0, 0));
+            out.flush();
+            Assert.assertTrue(collector.waitFor(collector.events, 1));
+            Assert.assertEquals(7, collector.events.get(0).device);
+            Assert.assertEquals(42, collector.events.get(0).sec);
+            Assert.assertEquals(4711, collector.events.get(0).usec);
+            out.close();
+
+            stop(epoll, t);
+        } finally {
+            delete(dir);
+        }
+    }
+
+    public static void main(String args[]) throws IOException {
+        org.junit.runner.JUnitCore.main(TestLinuxEventDeviceEPollNOUI.class.getName());
+    }
+}